@@ -1,29 +1,52 @@
 package ee.taltech.iti0202;
 
+import ee.taltech.iti0202.journal.Journal;
+import ee.taltech.iti0202.logger.LogEvent;
 import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.repository.InMemoryRepositories;
+import ee.taltech.iti0202.repository.Repositories;
+import ee.taltech.iti0202.repository.Repository;
+import ee.taltech.iti0202.repository.RepositoryList;
+import ee.taltech.iti0202.search.SessionIndex;
 import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.training.SessionArchive;
 import ee.taltech.iti0202.training.TrainingSession;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.logging.Level;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 /**
  * Class to hold all created sports clubs. Singleton method used to create only one system.
+ * Sports clubs, current training sessions and the entities added to them are stored in the
+ * {@link Repositories} of the system, kept in memory unless other repositories are set.
+ * The system lists of clubs and sessions are kept in memory by id and write through to the repositories,
+ * so reading them never reads the repositories.
  */
 
 public final class SportsClubSystem {
 
     private static SportsClubSystem instance;
-    private final List<SportsClub> sportsClubsInArea;
-    private final List<TrainingSession> trainingSessions;
+    private volatile Repositories repositories = new InMemoryRepositories();
+    private final RepositoryList<SportsClub> sportsClubsInArea;
+    private final SessionIndex sessionIndex;
+    private final RepositoryList<TrainingSession> trainingSessions;
+    private final SessionArchive sessionArchive;
+    private final List<Journal> journals = new CopyOnWriteArrayList<>();
+    private volatile Journal journal = Journal.NONE;
 
     /**
      * Private constructor to prevent instantiation from outside.
      */
     private SportsClubSystem() {
-        sportsClubsInArea = new ArrayList<>();
-        trainingSessions = new ArrayList<>();
+        sportsClubsInArea = new RepositoryList<>(SportsClub::getId, () -> repositories.clubs());
+        sessionIndex = new SessionIndex();
+        trainingSessions = new IndexedSessionList(sessionIndex, () -> repositories.sessions());
+        sessionArchive = new SessionArchive();
     }
 
     /**
@@ -37,14 +60,33 @@ public final class SportsClubSystem {
         return instance;
     }
 
+    /**
+     * Get the repositories the system stores its entities in.
+     * @return repositories.
+     */
+    public Repositories getRepositories() {
+        return repositories;
+    }
+
+    /**
+     * Store entities in other repositories from now on, e.g. in a file store. Entities stored in the previous
+     * repositories are not moved. The lists of sports clubs and training sessions, and the session index,
+     * are built again from the entities stored in the new ones. An entity is saved when it is added,
+     * later changes are saved when it is added again.
+     * @param repositories to use.
+     */
+    public synchronized void setRepositories(Repositories repositories) {
+        this.repositories = Objects.requireNonNull(repositories);
+        sportsClubsInArea.load();
+        trainingSessions.load();
+    }
+
     /**
      * Add a new sports club to the system.
      * @param sportsClub The sports club to add.
      */
     public void addSportsClub(SportsClub sportsClub) {
-        if (!sportsClubsInArea.contains(sportsClub)) {
-            sportsClubsInArea.add(sportsClub);
-        }
+        sportsClubsInArea.add(sportsClub);
     }
 
     /**
@@ -52,9 +94,7 @@ public final class SportsClubSystem {
      * @param trainingSession to add.
      */
     public void addTrainingSession(TrainingSession trainingSession) {
-        if (!trainingSessions.contains(trainingSession)) {
-            trainingSessions.add(trainingSession);
-        }
+        trainingSessions.add(trainingSession);
     }
 
     /**
@@ -66,13 +106,112 @@ public final class SportsClubSystem {
     }
 
     /**
-     * Get the list of training sessions in the area.
-     * @return all training sessions.
+     * Get the list of training sessions in the area which are not archived.
+     * @return current and future training sessions.
      */
     public List<TrainingSession> getTrainingSessions() {
         return trainingSessions;
     }
 
+    /**
+     * Find sports club by its id.
+     * @param id of the sports club.
+     * @return sports club or null if it is not in the system.
+     */
+    public SportsClub getSportsClub(int id) {
+        return sportsClubsInArea.findById(id);
+    }
+
+    /**
+     * Find training session by its id, looking into the archive if it is not current.
+     * @param id of the training session.
+     * @return training session or null if it is not in the system.
+     */
+    public TrainingSession getTrainingSession(int id) {
+        TrainingSession session = trainingSessions.findById(id);
+        return session != null ? session : sessionArchive.find(id);
+    }
+
+    /**
+     * Get the archive of ended training sessions.
+     * @return session archive.
+     */
+    public SessionArchive getSessionArchive() {
+        return sessionArchive;
+    }
+
+    /**
+     * Move training sessions which have ended by now into the archive.
+     * @return number of archived sessions.
+     */
+    public int archivePastSessions() {
+        return archivePastSessions(LocalDateTime.now());
+    }
+
+    /**
+     * Move training sessions which have ended by the given time into the archive.
+     * They are removed from the system, the session index and their trainings.
+     * @param now sessions ending at or before it are archived.
+     * @return number of archived sessions.
+     */
+    public synchronized int archivePastSessions(LocalDateTime now) {
+        List<TrainingSession> past = new ArrayList<>();
+        for (TrainingSession session : sessionIndex.findByTimeRange(LocalDateTime.MIN, now)) {
+            if (!session.getEndTime().isAfter(now)) {
+                past.add(session);
+            }
+        }
+        for (TrainingSession session : past) {
+            sessionArchive.archive(session);
+            trainingSessions.remove(session);
+            journal.sessionArchived(session);
+        }
+        SportsClubLogger.getInstance().log(LogEvent.SESSIONS_ARCHIVED, past.size());
+        return past.size();
+    }
+
+    /**
+     * Get the index used to search training sessions.
+     * @return session index.
+     */
+    public SessionIndex getSessionIndex() {
+        return sessionIndex;
+    }
+
+    /**
+     * Get the journal which passes every change in the system to all added journals.
+     * @return journal, {@link Journal#NONE} if changes are not recorded.
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Get added journals.
+     * @return read-only list of journals.
+     */
+    public List<Journal> getJournals() {
+        return Collections.unmodifiableList(journals);
+    }
+
+    /**
+     * Start passing changes in the system to the journal.
+     * @param journal to add.
+     */
+    public synchronized void addJournal(Journal journal) {
+        journals.add(Objects.requireNonNull(journal));
+        this.journal = Journal.of(journals);
+    }
+
+    /**
+     * Stop passing changes in the system to the journal.
+     * @param journal to remove.
+     */
+    public synchronized void removeJournal(Journal journal) {
+        journals.remove(journal);
+        this.journal = Journal.of(journals);
+    }
+
     /**
      * Generate a string containing information about all sports clubs in the area.
      * @return The string containing information about all sports clubs.
@@ -94,8 +233,36 @@ public final class SportsClubSystem {
         for (SportsClub club : sportsClubsInArea) {
             club.nextMonth();
         }
-        SportsClubLogger.getInstance().getLogger()
-                .log(Level.INFO, "One month passed and members need to renew memberships");
+        SportsClubLogger.getInstance().log(LogEvent.MONTH_PASSED);
     }
 
+    /**
+     * Stored training sessions which keep the session index up to date on every change.
+     */
+    private static final class IndexedSessionList extends RepositoryList<TrainingSession> {
+
+        private final SessionIndex index;
+
+        IndexedSessionList(SessionIndex index, Supplier<Repository<TrainingSession>> sessions) {
+            super(TrainingSession::getId, sessions);
+            this.index = index;
+        }
+
+        @Override
+        protected void added(TrainingSession session) {
+            super.added(session);
+            index.add(session);
+        }
+
+        @Override
+        protected void removed(TrainingSession session) {
+            super.removed(session);
+            index.remove(session);
+        }
+
+        @Override
+        protected void cleared() {
+            index.clear();
+        }
+    }
 }
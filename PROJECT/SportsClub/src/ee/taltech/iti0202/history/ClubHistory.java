@@ -0,0 +1,444 @@
+package ee.taltech.iti0202.history;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.training.SessionArchive;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only history of one sports club, one block per month. Every block stores its facts column by column
+ * as primitive arrays:
+ * <pre>
+ * [int magic][int month as year * 12 + month - 1][long closed at epoch day][int members][int sessions]
+ * member key long[], sessions int[], bonus points int[], sport type bit mask int[], spend double[]
+ * session id int[], sport type int[], participants int[], price double[]
+ * [int crc32 of the block]
+ * </pre>
+ * The first block is for the calendar month it is archived in, every next block for the month after the
+ * previous one. A block holds the sessions dated in its month, so sessions are not repeated month after month.
+ * Members are stored by their persistent key, so they can be followed across runs.
+ * The file is mapped into memory for queries, so scanning years of history creates no objects per row.
+ * A block which was not written completely, e.g. because of a crash, is cut off when the file is opened.
+ */
+public final class ClubHistory implements Closeable {
+
+    static final int MAGIC = 0x53434831;
+    static final int VERSION = 2;
+    static final int BLOCK_MAGIC = 0x4D4F4E54;
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+    static final int BLOCK_HEADER_SIZE = Integer.BYTES * 4 + Long.BYTES;
+    private static final int MEMBER_ROW_SIZE = Long.BYTES + Integer.BYTES * 3 + Double.BYTES;
+    private static final int SESSION_ROW_SIZE = Integer.BYTES * 3 + Double.BYTES;
+    private static final int MONTHS = 12;
+
+    private final FileChannel channel;
+    private final List<Integer> blockOffsets = new ArrayList<>();
+    private long size;
+    private YearMonth nextMonth;
+    private MappedByteBuffer mapped;
+
+    private ClubHistory(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Open history file, creating it if missing.
+     * @param file history file of one sports club.
+     * @return history.
+     * @throws IOException if the file cannot be read or is not a history file.
+     */
+    public static ClubHistory open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ClubHistory history = new ClubHistory(channel);
+        try {
+            history.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return history;
+    }
+
+    private void load() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+            size = HEADER_SIZE;
+            return;
+        }
+        ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, checkedSize(channel.size()));
+        if (file.getInt(0) != MAGIC || file.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalArgumentException("File is not a sports club history.");
+        }
+        int offset = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (offset + BLOCK_HEADER_SIZE <= file.limit() && file.getInt(offset) == BLOCK_MAGIC) {
+            long blockSize = blockSize(file.getInt(offset + Integer.BYTES * 2 + Long.BYTES),
+                    file.getInt(offset + Integer.BYTES * 3 + Long.BYTES));
+            if (blockSize < 0 || offset + blockSize + Integer.BYTES > file.limit()) {
+                break;
+            }
+            crc.reset();
+            crc.update(file.slice(offset, (int) blockSize));
+            if ((int) crc.getValue() != file.getInt(offset + (int) blockSize)) {
+                break;
+            }
+            blockOffsets.add(offset);
+            nextMonth = monthOf(file, offset).plusMonths(1);
+            offset += (int) blockSize + Integer.BYTES;
+        }
+        size = offset;
+        if (channel.size() > size) {
+            channel.truncate(size);
+        }
+    }
+
+    private static long blockSize(int members, int sessions) {
+        if (members < 0 || sessions < 0) {
+            return -1;
+        }
+        return BLOCK_HEADER_SIZE + (long) members * MEMBER_ROW_SIZE + (long) sessions * SESSION_ROW_SIZE;
+    }
+
+    private static int checkedSize(long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("History is too large to be mapped.");
+        }
+        return (int) size;
+    }
+
+    private static YearMonth monthOf(ByteBuffer file, int block) {
+        int month = file.getInt(block + Integer.BYTES);
+        return YearMonth.of(Math.floorDiv(month, MONTHS), Math.floorMod(month, MONTHS) + 1);
+    }
+
+    /**
+     * Facts of one session as they are written into a block.
+     */
+    private record SessionFacts(int id, TrainingSportType type, int participants, double price) {
+    }
+
+    /**
+     * Append facts of the current month of the sports club: every member and the training sessions dated
+     * in the month. Called by {@link SportsClub#nextMonth()} before the month is cleared.
+     * @param sportsClub to archive.
+     * @throws UncheckedIOException if writing fails.
+     */
+    public synchronized void archiveMonth(SportsClub sportsClub) {
+        YearMonth month = nextMonth != null ? nextMonth : YearMonth.now();
+        List<Member> members = List.copyOf(sportsClub.getAllMembers());
+        SessionArchive archive = SportsClubSystem.getInstance().getSessionArchive();
+        List<SessionFacts> sessions = new ArrayList<>();
+        for (Training training : sportsClub.getAllTrainings()) {
+            // Archived sessions are read from the archive columns, they are not read back
+            for (int id : training.getArchivedSessionIds()) {
+                LocalDate date = archive.getDate(id);
+                if (date != null && YearMonth.from(date).equals(month)) {
+                    sessions.add(new SessionFacts(id, training.getTrainingSportType(),
+                            archive.getParticipantCount(id), archive.getPrice(id)));
+                }
+            }
+            for (TrainingSession session : training.getCurrentSessions()) {
+                if (YearMonth.from(session.getDate()).equals(month)) {
+                    sessions.add(new SessionFacts(session.getId(), session.getTrainingSportType(),
+                            session.getParticipants().size(), session.getPrice()));
+                }
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) blockSize(members.size(), sessions.size())
+                + Integer.BYTES);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(BLOCK_MAGIC);
+            out.writeInt(month.getYear() * MONTHS + month.getMonthValue() - 1);
+            out.writeLong(LocalDate.now().toEpochDay());
+            out.writeInt(members.size());
+            out.writeInt(sessions.size());
+            for (Member member : members) {
+                out.writeLong(member.getKey());
+            }
+            for (Member member : members) {
+                int count = 0;
+                for (int id : member.getArchivedSessionIds()) {
+                    LocalDate date = archive.getDate(id);
+                    if (date != null && YearMonth.from(date).equals(month)) {
+                        count++;
+                    }
+                }
+                for (TrainingSession session : member.getCurrentRegisteredSessions()) {
+                    if (YearMonth.from(session.getDate()).equals(month)) {
+                        count++;
+                    }
+                }
+                out.writeInt(count);
+            }
+            for (Member member : members) {
+                out.writeInt(member.getBonusPoints());
+            }
+            for (Member member : members) {
+                int mask = 0;
+                for (TrainingSportType type : member.getParticipatedSports()) {
+                    mask |= 1 << type.ordinal();
+                }
+                out.writeInt(mask);
+            }
+            for (Member member : members) {
+                out.writeDouble(member.getSpentThisMonth());
+            }
+            for (SessionFacts session : sessions) {
+                out.writeInt(session.id());
+            }
+            for (SessionFacts session : sessions) {
+                out.writeInt(session.type().ordinal());
+            }
+            for (SessionFacts session : sessions) {
+                out.writeInt(session.participants());
+            }
+            for (SessionFacts session : sessions) {
+                out.writeDouble(session.price());
+            }
+            out.flush();
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+            out.flush();
+
+            ByteBuffer block = ByteBuffer.wrap(bytes.toByteArray());
+            long position = size;
+            while (block.hasRemaining()) {
+                position += channel.write(block, position);
+            }
+            channel.force(false);
+            blockOffsets.add(checkedSize(size));
+            size = position;
+            nextMonth = month.plusMonths(1);
+            mapped = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer file() {
+        if (mapped == null) {
+            try {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, checkedSize(size));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return mapped;
+    }
+
+    private void checkMonth(int month) {
+        if (month < 0 || month >= blockOffsets.size()) {
+            throw new IndexOutOfBoundsException("No month " + month + " in history.");
+        }
+    }
+
+    /**
+     * Get month count.
+     * @return number of archived months.
+     */
+    public synchronized int getMonthCount() {
+        return blockOffsets.size();
+    }
+
+    /**
+     * Get the calendar month of the block.
+     * @param month index, 0 is the oldest.
+     * @return month whose sessions the block holds.
+     */
+    public synchronized YearMonth getMonth(int month) {
+        checkMonth(month);
+        return monthOf(file(), blockOffsets.get(month));
+    }
+
+    /**
+     * Get the day the month was archived.
+     * @param month index, 0 is the oldest.
+     * @return date.
+     */
+    public synchronized LocalDate getArchivedOn(int month) {
+        checkMonth(month);
+        return LocalDate.ofEpochDay(file().getLong(blockOffsets.get(month) + Integer.BYTES * 2));
+    }
+
+    /**
+     * Get member count of the month.
+     * @param month index, 0 is the oldest.
+     * @return number of members.
+     */
+    public synchronized int getMemberCount(int month) {
+        checkMonth(month);
+        return memberCount(file(), blockOffsets.get(month));
+    }
+
+    /**
+     * Get session count of the month.
+     * @param month index, 0 is the oldest.
+     * @return number of training sessions.
+     */
+    public synchronized int getSessionCount(int month) {
+        checkMonth(month);
+        return sessionCount(file(), blockOffsets.get(month));
+    }
+
+    private static int memberCount(ByteBuffer file, int block) {
+        return file.getInt(block + Integer.BYTES * 2 + Long.BYTES);
+    }
+
+    private static int sessionCount(ByteBuffer file, int block) {
+        return file.getInt(block + Integer.BYTES * 3 + Long.BYTES);
+    }
+
+    /**
+     * Offset of the member column in the block. The first column holds longs, the next ones ints.
+     */
+    private static int memberColumn(ByteBuffer file, int block, int column) {
+        int rowBytes = column == 0 ? 0 : Long.BYTES + Integer.BYTES * (column - 1);
+        return block + BLOCK_HEADER_SIZE + memberCount(file, block) * rowBytes;
+    }
+
+    private static int sessionColumn(ByteBuffer file, int block, int column) {
+        int members = memberCount(file, block);
+        return block + BLOCK_HEADER_SIZE + members * MEMBER_ROW_SIZE + sessionCount(file, block) * Integer.BYTES
+                * column;
+    }
+
+    private static double value(ByteBuffer file, int block, MemberColumn column, int row) {
+        return switch (column) {
+            case SESSIONS -> file.getInt(memberColumn(file, block, 1) + row * Integer.BYTES);
+            case BONUS_POINTS -> file.getInt(memberColumn(file, block, 2) + row * Integer.BYTES);
+            case SPORT_TYPES -> Integer.bitCount(file.getInt(memberColumn(file, block, 3) + row * Integer.BYTES));
+            case SPEND -> file.getDouble(memberColumn(file, block, 4) + row * Double.BYTES);
+        };
+    }
+
+    /**
+     * Sum a member column over all members, month by month.
+     * @param column to sum.
+     * @return sum per month, oldest first.
+     */
+    public synchronized double[] sumPerMonth(MemberColumn column) {
+        ByteBuffer file = file();
+        double[] sums = new double[blockOffsets.size()];
+        for (int month = 0; month < sums.length; month++) {
+            int block = blockOffsets.get(month);
+            int members = memberCount(file, block);
+            double sum = 0;
+            if (column == MemberColumn.SPEND) {
+                int start = memberColumn(file, block, 4);
+                for (int row = 0; row < members; row++) {
+                    sum += file.getDouble(start + row * Double.BYTES);
+                }
+            } else {
+                for (int row = 0; row < members; row++) {
+                    sum += value(file, block, column, row);
+                }
+            }
+            sums[month] = sum;
+        }
+        return sums;
+    }
+
+    /**
+     * Follow one member over time.
+     * @param memberKey persistent key of the member, see {@link Member#getKey()}.
+     * @param column to follow.
+     * @return value per month, oldest first, NaN for months the member was not in the club.
+     */
+    public synchronized double[] memberTrend(long memberKey, MemberColumn column) {
+        ByteBuffer file = file();
+        double[] values = new double[blockOffsets.size()];
+        Arrays.fill(values, Double.NaN);
+        for (int month = 0; month < values.length; month++) {
+            int block = blockOffsets.get(month);
+            int keys = memberColumn(file, block, 0);
+            int members = memberCount(file, block);
+            for (int row = 0; row < members; row++) {
+                if (file.getLong(keys + row * Long.BYTES) == memberKey) {
+                    values[month] = value(file, block, column, row);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Count members who did the sports type, month by month.
+     * @param type sports type.
+     * @return number of members per month, oldest first.
+     */
+    public synchronized int[] countMembersWithSport(TrainingSportType type) {
+        ByteBuffer file = file();
+        int bit = 1 << type.ordinal();
+        int[] counts = new int[blockOffsets.size()];
+        for (int month = 0; month < counts.length; month++) {
+            int block = blockOffsets.get(month);
+            int masks = memberColumn(file, block, 3);
+            int members = memberCount(file, block);
+            for (int row = 0; row < members; row++) {
+                if ((file.getInt(masks + row * Integer.BYTES) & bit) != 0) {
+                    counts[month]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Sum session participants, month by month.
+     * @param type sports type of the sessions, null for all sessions.
+     * @return participants per month, oldest first.
+     */
+    public synchronized long[] participantsPerMonth(TrainingSportType type) {
+        ByteBuffer file = file();
+        long[] totals = new long[blockOffsets.size()];
+        for (int month = 0; month < totals.length; month++) {
+            int block = blockOffsets.get(month);
+            int types = sessionColumn(file, block, 1);
+            int participants = sessionColumn(file, block, 2);
+            int sessions = sessionCount(file, block);
+            for (int row = 0; row < sessions; row++) {
+                if (type == null || file.getInt(types + row * Integer.BYTES) == type.ordinal()) {
+                    totals[month] += file.getInt(participants + row * Integer.BYTES);
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Close the file.
+     * @throws IOException if closing fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,9 @@
+package ee.taltech.iti0202.history;
+
+/**
+ * Numeric member columns of the monthly history which can be summed or followed over time.
+ */
+public enum MemberColumn {
+
+    SESSIONS, BONUS_POINTS, SPORT_TYPES, SPEND
+}
@@ -0,0 +1,355 @@
+package ee.taltech.iti0202.importer;
+
+import ee.taltech.iti0202.logger.LogEvent;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.OnlineTrainingSession;
+import ee.taltech.iti0202.training.PersonalTrainingSession;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports trainers, trainings, training sessions and members of one sports club from a CSV or JSON lines file,
+ * see {@link ImportFormat}.
+ * <p>
+ * The file is read in chunks of {@link Builder#withChunkSize(int)} rows. While one chunk is created,
+ * the next one is already parsed and validated on the worker threads, so at most two chunks are in memory.
+ * Objects are created in row order without logging every one of them; trainers and trainings are hired and
+ * added in batches. Trainers and trainings are referred to by name, later rows may refer to earlier ones
+ * and to the ones the club already has. A bad row is reported and skipped, the import goes on.
+ */
+public final class BulkImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+    public static final int DEFAULT_MAX_ERRORS = 1000;
+
+    private final SportsClub sportsClub;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxErrors;
+
+    private BulkImporter(Builder builder) {
+        this.sportsClub = builder.sportsClub;
+        this.chunkSize = builder.chunkSize;
+        this.parallelism = builder.parallelism;
+        this.maxErrors = builder.maxErrors;
+    }
+
+    /**
+     * Import file, the format is chosen by its extension.
+     * @param file to import.
+     * @return import report.
+     * @throws IOException if reading fails.
+     */
+    public ImportReport importFile(Path file) throws IOException {
+        ImportFormat format = ImportFormat.forFile(file);
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, format);
+        }
+    }
+
+    /**
+     * Import rows from the reader.
+     * @param reader to read rows from, not closed.
+     * @param format of the rows.
+     * @return import report.
+     * @throws IOException if reading fails.
+     */
+    public ImportReport importFrom(Reader reader, ImportFormat format) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        ImportReport report = new ImportReport(maxErrors);
+        Run run = new Run(report);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long[] lineNumber = {0};
+            List<Future<ImportRow[]>> parsing = readChunk(lines, lineNumber, format, workers);
+            while (!parsing.isEmpty()) {
+                List<Future<ImportRow[]>> next = readChunk(lines, lineNumber, format, workers);
+                List<ImportRow[]> rows = new ArrayList<>(parsing.size());
+                for (Future<ImportRow[]> slice : parsing) {
+                    rows.add(await(slice));
+                }
+                SportsClubLogger.getInstance().runQuietly(() -> run.apply(rows));
+                parsing = next;
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        SportsClubLogger.getInstance().log(LogEvent.IMPORT_FINISHED, (int) Math.min(report.getImportedCount(),
+                Integer.MAX_VALUE), (int) Math.min(report.getRejectedCount(), Integer.MAX_VALUE));
+        return report;
+    }
+
+    /**
+     * Read the next chunk and start validating it in slices, one per worker.
+     * @return futures of the slices in row order, empty at the end of input.
+     */
+    private List<Future<ImportRow[]>> readChunk(BufferedReader lines, long[] lineNumber, ImportFormat format,
+                                                ExecutorService workers) throws IOException {
+        List<String> chunk = new ArrayList<>(chunkSize);
+        long firstRow = lineNumber[0] + 1;
+        String line;
+        while (chunk.size() < chunkSize && (line = lines.readLine()) != null) {
+            chunk.add(line);
+            lineNumber[0]++;
+        }
+        List<Future<ImportRow[]>> slices = new ArrayList<>();
+        int sliceSize = Math.max(1, (chunk.size() + parallelism - 1) / parallelism);
+        for (int start = 0; start < chunk.size(); start += sliceSize) {
+            List<String> slice = chunk.subList(start, Math.min(chunk.size(), start + sliceSize));
+            long sliceFirstRow = firstRow + start;
+            slices.add(workers.submit(() -> {
+                ImportRow[] rows = new ImportRow[slice.size()];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = ImportRow.parse(format, slice.get(i), sliceFirstRow + i);
+                }
+                return rows;
+            }));
+        }
+        return slices;
+    }
+
+    private static ImportRow[] await(Future<ImportRow[]> slice) throws IOException {
+        try {
+            return slice.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Validating rows failed", e.getCause());
+        }
+    }
+
+    /**
+     * State of one import: names seen so far and trainers and trainings waiting to be hired or added.
+     */
+    private final class Run {
+
+        private final ImportReport report;
+        private final Map<String, Trainer> trainersByName = new HashMap<>();
+        private final Map<String, Training> trainingsByName = new HashMap<>();
+        private final Set<Training> clubTrainings = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Trainer> unhiredTrainers = new ArrayList<>();
+        private final List<Training> unaddedTrainings = new ArrayList<>();
+
+        Run(ImportReport report) {
+            this.report = report;
+            for (Trainer trainer : sportsClub.getAllTrainers()) {
+                trainersByName.putIfAbsent(trainer.getName(), trainer);
+            }
+            for (Training training : sportsClub.getAllTrainings()) {
+                trainingsByName.putIfAbsent(training.getName(), training);
+                clubTrainings.add(training);
+            }
+        }
+
+        void apply(List<ImportRow[]> slices) {
+            for (ImportRow[] rows : slices) {
+                for (ImportRow row : rows) {
+                    if (row == null) {
+                        continue;
+                    }
+                    if (row.error != null) {
+                        report.reject(row.rowNumber, row.error);
+                        continue;
+                    }
+                    try {
+                        apply(row);
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        report.reject(row.rowNumber, e.getMessage());
+                    }
+                }
+            }
+            flush();
+        }
+
+        private void apply(ImportRow row) {
+            switch (row.record) {
+                case TRAINER -> {
+                    if (trainersByName.containsKey(row.name)) {
+                        throw new IllegalArgumentException("Trainer " + row.name + " already exists");
+                    }
+                    Trainer trainer = new Trainer(row.name, new ArrayList<>(row.types));
+                    trainersByName.put(row.name, trainer);
+                    unhiredTrainers.add(trainer);
+                    report.trainerImported();
+                }
+                case TRAINING -> {
+                    if (trainingsByName.containsKey(row.name)) {
+                        throw new IllegalArgumentException("Training " + row.name + " already exists");
+                    }
+                    Trainer trainer = trainersByName.get(row.trainer);
+                    if (trainer == null) {
+                        throw new IllegalArgumentException("Unknown trainer " + row.trainer);
+                    }
+                    // Checked before the training is created and recorded, so assigning the trainer cannot fail
+                    if (!trainer.getTrainingTypes().contains(row.type)) {
+                        throw new IllegalArgumentException("Trainer " + row.trainer + " cannot conduct " + row.type);
+                    }
+                    Training training = new Training(row.name, row.type);
+                    training.assignTrainer(trainer);
+                    trainingsByName.put(row.name, training);
+                    unaddedTrainings.add(training);
+                    report.trainingImported();
+                }
+                case SESSION -> {
+                    Training training = trainingsByName.get(row.training);
+                    if (training == null) {
+                        throw new IllegalArgumentException("Unknown training " + row.training);
+                    }
+                    // Sessions find their club through the training
+                    addToClub(training);
+                    TrainingSession session = switch (row.sessionKind) {
+                        case GROUP -> new GroupTrainingSession(training, row.level, row.time);
+                        case PERSONAL -> new PersonalTrainingSession(training, row.level, row.time);
+                        case ONLINE -> new OnlineTrainingSession(training, row.level, row.time);
+                        default -> new TrainingSession(training, row.level, row.time, row.maxParticipants);
+                    };
+                    if (row.price > 0) {
+                        session.setPrice(row.price);
+                    }
+                    report.sessionImported();
+                }
+                default -> {
+                    Membership membership = switch (row.membership) {
+                        case STANDARD -> new StandardMembership(sportsClub);
+                        case FULL -> new FullMembership(sportsClub);
+                        default -> null;
+                    };
+                    // Checked before the member is created and recorded, so buying the membership cannot fail
+                    if (membership != null && row.budget < membership.getPrice()) {
+                        throw new IllegalArgumentException("Insufficient funds to purchase membership");
+                    }
+                    Member member = new Member(row.name, row.budget);
+                    if (membership != null) {
+                        member.buyMembership(membership);
+                    }
+                    report.memberImported();
+                }
+            }
+        }
+
+        /**
+         * Add the training to the club when a session first refers to it, together with everything waiting.
+         */
+        private void addToClub(Training training) {
+            if (!clubTrainings.contains(training)) {
+                flush();
+            }
+        }
+
+        /**
+         * Hire and add the waiting trainers and trainings of the club in one batch each.
+         */
+        private void flush() {
+            if (!unhiredTrainers.isEmpty()) {
+                sportsClub.hireNewTrainers(unhiredTrainers);
+                unhiredTrainers.clear();
+            }
+            if (!unaddedTrainings.isEmpty()) {
+                sportsClub.addNewTrainings(unaddedTrainings);
+                clubTrainings.addAll(unaddedTrainings);
+                unaddedTrainings.clear();
+            }
+        }
+    }
+
+    /**
+     * Builder for bulk importer.
+     */
+    public static class Builder {
+
+        private SportsClub sportsClub;
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int maxErrors = DEFAULT_MAX_ERRORS;
+
+        /**
+         * Builder with sports club.
+         * @param sportsClub to import into.
+         * @return this.
+         */
+        public Builder withSportsClub(SportsClub sportsClub) {
+            this.sportsClub = sportsClub;
+            return this;
+        }
+
+        /**
+         * Builder with chunk size.
+         * @param chunkSize rows read and validated at once.
+         * @return this.
+         */
+        public Builder withChunkSize(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("Chunk size must be positive.");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Builder with parallelism.
+         * @param parallelism number of threads validating rows.
+         * @return this.
+         */
+        public Builder withParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive.");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Builder with max errors.
+         * @param maxErrors number of errors kept in the report.
+         * @return this.
+         */
+        public Builder withMaxErrors(int maxErrors) {
+            if (maxErrors < 0) {
+                throw new IllegalArgumentException("Max errors cannot be negative.");
+            }
+            this.maxErrors = maxErrors;
+            return this;
+        }
+
+        /**
+         * Builder for bulk importer.
+         * @return new bulk importer.
+         */
+        public BulkImporter build() {
+            Objects.requireNonNull(sportsClub, "Sports club is required.");
+            return new BulkImporter(this);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ee.taltech.iti0202.importer;
+
+/**
+ * Row which could not be imported.
+ */
+public final class ImportError {
+
+    private final long rowNumber;
+    private final String message;
+
+    /**
+     * Constructor for import error.
+     * @param rowNumber line number of the row, starting from 1.
+     * @param message why the row was rejected.
+     */
+    public ImportError(long rowNumber, String message) {
+        this.rowNumber = rowNumber;
+        this.message = message;
+    }
+
+    /**
+     * Get row number.
+     * @return line number of the row, starting from 1.
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * Get message.
+     * @return why the row was rejected.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "Row " + rowNumber + ": " + message;
+    }
+}
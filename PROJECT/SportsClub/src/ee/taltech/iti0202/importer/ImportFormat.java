@@ -0,0 +1,117 @@
+package ee.taltech.iti0202.importer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Supported import file formats. Every line is one row, empty lines and lines starting with {@code #} are skipped.
+ * <p>
+ * CSV rows start with the record name, the other columns depend on it:
+ * <pre>
+ * trainer,name,types          e.g. trainer,Steve,GYM;TENNIS
+ * training,name,type,trainer  e.g. training,Gym class,GYM,Steve
+ * session,training,kind,level,time[,maxParticipants[,price]]
+ * member,name,budget[,membership]
+ * </pre>
+ * JSON lines are flat objects with the same names as keys, e.g.
+ * {@code {"record":"member","name":"Anton","budget":100,"membership":"full"}}.
+ */
+public enum ImportFormat {
+
+    CSV {
+        @Override
+        Map<String, String> fields(String line) {
+            List<String> values = splitCsv(line);
+            String record = values.get(0).trim().toLowerCase(Locale.ROOT);
+            String[] columns = CSV_COLUMNS.get(record);
+            if (columns == null) {
+                throw new IllegalArgumentException("Unknown record " + values.get(0));
+            }
+            if (values.size() - 1 > columns.length) {
+                throw new IllegalArgumentException("Too many columns for " + record);
+            }
+            Map<String, String> fields = new HashMap<>();
+            fields.put(ImportRow.RECORD, record);
+            for (int i = 1; i < values.size(); i++) {
+                if (!values.get(i).isEmpty()) {
+                    fields.put(columns[i - 1], values.get(i));
+                }
+            }
+            return fields;
+        }
+    },
+
+    JSON_LINES {
+        @Override
+        Map<String, String> fields(String line) {
+            return new JsonLineParser(line).parseObject();
+        }
+    };
+
+    private static final Map<String, String[]> CSV_COLUMNS = Map.of(
+            "trainer", new String[] {"name", "types"},
+            "training", new String[] {"name", "type", "trainer"},
+            "session", new String[] {"training", "kind", "level", "time", "maxParticipants", "price"},
+            "member", new String[] {"name", "budget", "membership"});
+
+    /**
+     * Read the fields of one row.
+     * @param line row without line break.
+     * @return values by field name.
+     * @throws IllegalArgumentException if the row is malformed.
+     */
+    abstract Map<String, String> fields(String line);
+
+    /**
+     * Get format of the file by its extension, .csv or .jsonl / .ndjson.
+     * @param file to import.
+     * @return format.
+     */
+    public static ImportFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        } else if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return JSON_LINES;
+        }
+        throw new IllegalArgumentException("Unknown import file format: " + file.getFileName());
+    }
+
+    /**
+     * Split CSV line into values. Values may be quoted, a quote inside a quoted value is written twice.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"' && value.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Quoted value is not closed");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
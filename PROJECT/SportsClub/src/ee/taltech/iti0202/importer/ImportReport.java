@@ -0,0 +1,103 @@
+package ee.taltech.iti0202.importer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of an import: how many objects of each kind were created and which rows were rejected.
+ * Only the first errors are kept, so a file full of bad rows cannot use up the memory.
+ */
+public final class ImportReport {
+
+    private final int maxErrors;
+    private final List<ImportError> errors = new ArrayList<>();
+    private int trainers;
+    private int trainings;
+    private int sessions;
+    private int members;
+    private long rejected;
+
+    ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    void reject(long rowNumber, String message) {
+        rejected++;
+        if (errors.size() < maxErrors) {
+            errors.add(new ImportError(rowNumber, message));
+        }
+    }
+
+    void trainerImported() {
+        trainers++;
+    }
+
+    void trainingImported() {
+        trainings++;
+    }
+
+    void sessionImported() {
+        sessions++;
+    }
+
+    void memberImported() {
+        members++;
+    }
+
+    /**
+     * Get trainer count.
+     * @return number of imported trainers.
+     */
+    public int getTrainerCount() {
+        return trainers;
+    }
+
+    /**
+     * Get training count.
+     * @return number of imported trainings.
+     */
+    public int getTrainingCount() {
+        return trainings;
+    }
+
+    /**
+     * Get session count.
+     * @return number of imported training sessions.
+     */
+    public int getSessionCount() {
+        return sessions;
+    }
+
+    /**
+     * Get member count.
+     * @return number of imported members.
+     */
+    public int getMemberCount() {
+        return members;
+    }
+
+    /**
+     * Get imported count.
+     * @return number of imported rows.
+     */
+    public long getImportedCount() {
+        return (long) trainers + trainings + sessions + members;
+    }
+
+    /**
+     * Get rejected count.
+     * @return number of rejected rows, also the ones not kept in {@link #getErrors()}.
+     */
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * Get errors.
+     * @return read-only list of the first errors in row order.
+     */
+    public List<ImportError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+}
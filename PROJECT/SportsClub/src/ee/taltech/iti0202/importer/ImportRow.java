@@ -0,0 +1,166 @@
+package ee.taltech.iti0202.importer;
+
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parsed and validated row. Only checks which need nothing but the row itself are done here,
+ * so rows can be validated on any thread; references to other rows are resolved when the row is applied.
+ */
+final class ImportRow {
+
+    static final String RECORD = "record";
+
+    /**
+     * What the row creates.
+     */
+    enum Record {
+        TRAINER, TRAINING, SESSION, MEMBER
+    }
+
+    /**
+     * Kind of training session.
+     */
+    enum SessionKind {
+        SESSION, GROUP, PERSONAL, ONLINE
+    }
+
+    /**
+     * Membership bought for an imported member.
+     */
+    enum MembershipKind {
+        NONE, STANDARD, FULL
+    }
+
+    final long rowNumber;
+    final String error;
+    final Record record;
+    String name;
+    List<TrainingSportType> types;
+    TrainingSportType type;
+    String trainer;
+    String training;
+    SessionKind sessionKind;
+    TrainingSessionLevel level;
+    LocalDateTime time;
+    int maxParticipants;
+    double price;
+    double budget;
+    MembershipKind membership;
+
+    private ImportRow(long rowNumber, Record record, String error) {
+        this.rowNumber = rowNumber;
+        this.record = record;
+        this.error = error;
+    }
+
+    /**
+     * Parse and validate one line.
+     * @param format file format.
+     * @param line row text.
+     * @param rowNumber line number, starting from 1.
+     * @return row, a rejected row if it is invalid, or null if the line is empty or a comment.
+     */
+    static ImportRow parse(ImportFormat format, String line, long rowNumber) {
+        String trimmed = line.strip();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        try {
+            return fromFields(format.fields(trimmed), rowNumber);
+        } catch (IllegalArgumentException e) {
+            return new ImportRow(rowNumber, null, e.getMessage());
+        }
+    }
+
+    private static ImportRow fromFields(Map<String, String> fields, long rowNumber) {
+        Record record = parseEnum(Record.class, RECORD, required(fields, RECORD));
+        ImportRow row = new ImportRow(rowNumber, record, null);
+        switch (record) {
+            case TRAINER -> {
+                row.name = required(fields, "name");
+                row.types = new ArrayList<>();
+                for (String type : required(fields, "types").split(";")) {
+                    row.types.add(parseEnum(TrainingSportType.class, "types", type));
+                }
+            }
+            case TRAINING -> {
+                row.name = required(fields, "name");
+                row.type = parseEnum(TrainingSportType.class, "type", required(fields, "type"));
+                row.trainer = required(fields, "trainer");
+            }
+            case SESSION -> {
+                row.training = required(fields, "training");
+                row.sessionKind = parseEnum(SessionKind.class, "kind", fields.getOrDefault("kind", "session"));
+                row.level = parseEnum(TrainingSessionLevel.class, "level", required(fields, "level"));
+                try {
+                    row.time = LocalDateTime.parse(required(fields, "time"));
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Invalid time " + fields.get("time"));
+                }
+                if (row.sessionKind == SessionKind.SESSION) {
+                    row.maxParticipants = (int) parseNumber(fields, "maxParticipants", Double.NaN);
+                    if (row.maxParticipants <= 0) {
+                        throw new IllegalArgumentException("Max participants must be positive");
+                    }
+                }
+                row.price = parseNumber(fields, "price", 0);
+                if (row.price < 0) {
+                    throw new IllegalArgumentException("Price cannot be negative");
+                }
+            }
+            default -> {
+                row.name = required(fields, "name");
+                row.budget = parseNumber(fields, "budget", Double.NaN);
+                if (row.budget < 0) {
+                    throw new IllegalArgumentException("Budget cannot be negative");
+                }
+                row.membership = parseEnum(MembershipKind.class, "membership",
+                        fields.getOrDefault("membership", "none"));
+            }
+        }
+        return row;
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value.strip();
+    }
+
+    private static double parseNumber(Map<String, String> fields, String name, double defaultValue) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            if (Double.isNaN(defaultValue)) {
+                throw new IllegalArgumentException("Missing " + name);
+            }
+            return defaultValue;
+        }
+        try {
+            double number = Double.parseDouble(value.strip());
+            if (!Double.isFinite(number)) {
+                throw new NumberFormatException();
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name, String value) {
+        try {
+            return Enum.valueOf(type, value.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + " " + value);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ee.taltech.iti0202.importer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Parser for one flat JSON object. Values are strings, numbers, booleans, null or arrays of those;
+ * every value is returned as text and array items are joined with {@code ;}. Nested objects are not supported.
+ */
+final class JsonLineParser {
+
+    private final String text;
+    private int position;
+
+    JsonLineParser(String text) {
+        this.text = text;
+    }
+
+    Map<String, String> parseObject() {
+        Map<String, String> fields = new HashMap<>();
+        expect('{');
+        if (peek() == '}') {
+            position++;
+        } else {
+            do {
+                String key = parseString();
+                expect(':');
+                String value = parseValue();
+                if (value != null) {
+                    fields.put(key, value);
+                }
+            } while (consume(','));
+            expect('}');
+        }
+        if (peek() != 0) {
+            throw error("Unexpected text after object");
+        }
+        return fields;
+    }
+
+    private String parseValue() {
+        char c = peek();
+        if (c == '"') {
+            return parseString();
+        } else if (c == '[') {
+            position++;
+            StringJoiner items = new StringJoiner(";");
+            if (peek() == ']') {
+                position++;
+                return "";
+            }
+            do {
+                String item = parseValue();
+                if (item != null) {
+                    items.add(item);
+                }
+            } while (consume(','));
+            expect(']');
+            return items.toString();
+        } else if (c == '{') {
+            throw error("Nested objects are not supported");
+        }
+        int start = position;
+        while (position < text.length() && "-+.0123456789eEtrufalsn".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        String literal = text.substring(start, position);
+        if (literal.equals("null")) {
+            return null;
+        } else if (literal.equals("true") || literal.equals("false")) {
+            return literal;
+        } else if (literal.isEmpty()) {
+            throw error("Value expected");
+        }
+        try {
+            Double.parseDouble(literal);
+        } catch (NumberFormatException e) {
+            throw error("Invalid value " + literal);
+        }
+        return literal;
+    }
+
+    private String parseString() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            } else if (c != '\\') {
+                value.append(c);
+            } else if (position >= text.length()) {
+                break;
+            } else {
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw error("Invalid escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid escape");
+                        }
+                        position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+        }
+        throw error("String is not closed");
+    }
+
+    private char peek() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private boolean consume(char expected) {
+        if (peek() == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) {
+        if (!consume(expected)) {
+            throw error("'" + expected + "' expected");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at column " + (position + 1));
+    }
+}
@@ -0,0 +1,147 @@
+package ee.taltech.iti0202.journal;
+
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+/**
+ * Journal passing every change to several journals, see {@link Journal#of}.
+ */
+final class CompositeJournal implements Journal {
+
+    private final Journal[] journals;
+
+    CompositeJournal(Journal[] journals) {
+        this.journals = journals;
+    }
+
+    @Override
+    public void clubCreated(SportsClub sportsClub) {
+        for (Journal journal : journals) {
+            journal.clubCreated(sportsClub);
+        }
+    }
+
+    @Override
+    public void trainerCreated(Trainer trainer) {
+        for (Journal journal : journals) {
+            journal.trainerCreated(trainer);
+        }
+    }
+
+    @Override
+    public void trainerTypeAdded(Trainer trainer, TrainingSportType type) {
+        for (Journal journal : journals) {
+            journal.trainerTypeAdded(trainer, type);
+        }
+    }
+
+    @Override
+    public void trainerTypeRemoved(Trainer trainer, TrainingSportType type) {
+        for (Journal journal : journals) {
+            journal.trainerTypeRemoved(trainer, type);
+        }
+    }
+
+    @Override
+    public void trainerHired(SportsClub sportsClub, Trainer trainer) {
+        for (Journal journal : journals) {
+            journal.trainerHired(sportsClub, trainer);
+        }
+    }
+
+    @Override
+    public void trainingCreated(Training training) {
+        for (Journal journal : journals) {
+            journal.trainingCreated(training);
+        }
+    }
+
+    @Override
+    public void trainerAssigned(Training training, Trainer trainer) {
+        for (Journal journal : journals) {
+            journal.trainerAssigned(training, trainer);
+        }
+    }
+
+    @Override
+    public void trainingAdded(SportsClub sportsClub, Training training) {
+        for (Journal journal : journals) {
+            journal.trainingAdded(sportsClub, training);
+        }
+    }
+
+    @Override
+    public void sessionCreated(TrainingSession session) {
+        for (Journal journal : journals) {
+            journal.sessionCreated(session);
+        }
+    }
+
+    @Override
+    public void sessionPriceSet(TrainingSession session) {
+        for (Journal journal : journals) {
+            journal.sessionPriceSet(session);
+        }
+    }
+
+    @Override
+    public void sessionDateSet(TrainingSession session) {
+        for (Journal journal : journals) {
+            journal.sessionDateSet(session);
+        }
+    }
+
+    @Override
+    public void sessionArchived(TrainingSession session) {
+        for (Journal journal : journals) {
+            journal.sessionArchived(session);
+        }
+    }
+
+    @Override
+    public void memberCreated(Member member) {
+        for (Journal journal : journals) {
+            journal.memberCreated(member);
+        }
+    }
+
+    @Override
+    public void memberWorked(Member member) {
+        for (Journal journal : journals) {
+            journal.memberWorked(member);
+        }
+    }
+
+    @Override
+    public void membershipBought(Member member, Membership membership) {
+        for (Journal journal : journals) {
+            journal.membershipBought(member, membership);
+        }
+    }
+
+    @Override
+    public void memberRegistered(Member member, TrainingSession session) {
+        for (Journal journal : journals) {
+            journal.memberRegistered(member, session);
+        }
+    }
+
+    @Override
+    public void memberUnregistered(Member member, TrainingSession session) {
+        for (Journal journal : journals) {
+            journal.memberUnregistered(member, session);
+        }
+    }
+
+    @Override
+    public void monthPassed(SportsClub sportsClub) {
+        for (Journal journal : journals) {
+            journal.monthPassed(sportsClub);
+        }
+    }
+}
@@ -0,0 +1,599 @@
+package ee.taltech.iti0202.journal;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.OnlineTrainingSession;
+import ee.taltech.iti0202.training.PersonalTrainingSession;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of all changes in the sports club system.
+ * Records are encoded into an in-memory batch and a background thread writes the batch with one fsync
+ * (group commit), so many concurrent changes share the cost of a single disk flush.
+ * Opening a journal replays the existing records, which rebuilds the objects in {@link SportsClubSystem}.
+ * Objects are referenced by journal numbers given in creation order, so the file does not depend on object ids.
+ * Only objects created while the journal is open can be recorded, changes of other objects are skipped.
+ * Recorded objects are held weakly, so the journal does not keep removed objects alive.
+ * Recording never throws, as changes are recorded after they have been applied: once a write fails,
+ * later changes are skipped and the failure is thrown from {@link #sync()} and {@link #close()}.
+ * Record layout: payload length (int), type (byte), payload, CRC32 of type and payload (int).
+ */
+public class EventJournal implements Journal, Closeable {
+
+    static final int MAGIC = 0x53434A31;
+    static final int HEADER_SIZE = 4;
+    static final byte KIND_SESSION = 0;
+    static final byte KIND_GROUP = 1;
+    static final byte KIND_PERSONAL = 2;
+    static final byte KIND_ONLINE = 3;
+    static final byte MEMBERSHIP_FULL = 0;
+    static final byte MEMBERSHIP_STANDARD = 1;
+    private static final long FLUSH_INTERVAL_MILLIS = 5;
+    private static final int INITIAL_BATCH_SIZE = 64 * 1024;
+    private static final int MAX_STRING_BYTES = Short.MAX_VALUE;
+
+    private final FileChannel channel;
+    private final boolean waitForDurability;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasPending = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final CRC32 crc = new CRC32();
+    private final JournalRefs refs = new JournalRefs();
+    private final Thread writer;
+    private final int replayedRecords;
+    private final int skippedRecords;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BATCH_SIZE);
+    private ByteBuffer writing = ByteBuffer.allocate(INITIAL_BATCH_SIZE);
+    private int nextRef;
+    private long appendedCount;
+    private long durableCount;
+    private long batchCount;
+    private long skippedChanges;
+    private int recordStart;
+    private IOException failure;
+    private boolean closed;
+
+    private EventJournal(FileChannel channel, boolean waitForDurability, JournalReplayer replayer) {
+        this.channel = channel;
+        this.waitForDurability = waitForDurability;
+        List<Object> replayed = replayer.getObjects();
+        for (int ref = 0; ref < replayed.size(); ref++) {
+            if (replayed.get(ref) != null) {
+                refs.put(replayed.get(ref), ref);
+            }
+        }
+        this.nextRef = replayed.size();
+        this.replayedRecords = replayer.getReplayedRecords();
+        this.skippedRecords = replayer.getSkippedRecords();
+        this.writer = new Thread(this::writeLoop, "sports-club-journal");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Open journal file, replay its records into the sports club system and start recording new changes.
+     * A torn record at the end of the file (e.g. after a crash) is cut off.
+     * @param path journal file, created if missing.
+     * @param waitForDurability if true, every change waits until its record is on disk.
+     * @return open journal, added to the journals of the system.
+     * @throws IOException if the file cannot be read or written, or has a corrupt record before its end.
+     *     Nothing is replayed and the file is left as it was.
+     */
+    public static EventJournal open(Path path, boolean waitForDurability) throws IOException {
+        if (SportsClubSystem.getInstance().getJournals().stream().anyMatch(EventJournal.class::isInstance)) {
+            throw new IllegalStateException("A journal is already open.");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                channel.force(true);
+            }
+            JournalReplayer replayer = new JournalReplayer();
+            long validEnd = replayer.replay(channel);
+            if (validEnd < channel.size()) {
+                channel.truncate(validEnd);
+            }
+            channel.position(validEnd);
+            EventJournal journal = new EventJournal(channel, waitForDurability, replayer);
+            journal.writer.start();
+            SportsClubSystem.getInstance().addJournal(journal);
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get replayed records.
+     * @return number of records applied when the journal was opened.
+     */
+    public int getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * Get skipped records.
+     * @return number of records which could not be applied when the journal was opened.
+     */
+    public int getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    /**
+     * Get skipped changes.
+     * @return number of changes not recorded because they referred to objects unknown to the journal
+     *     or came after a failed write.
+     */
+    public long getSkippedChanges() {
+        lock.lock();
+        try {
+            return skippedChanges;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get batch count.
+     * @return number of batches written, each with one fsync.
+     */
+    public long getBatchCount() {
+        lock.lock();
+        try {
+            return batchCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until every record appended so far is on disk.
+     * @throws UncheckedIOException if a write has failed, changes since then were not recorded.
+     */
+    public void sync() {
+        lock.lock();
+        try {
+            awaitDurable(appendedCount);
+            if (failure != null) {
+                throw new UncheckedIOException("Journal write failed", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the remaining records, stop recording and close the file.
+     * @throws IOException if a batch could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            hasPending.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        SportsClubSystem.getInstance().removeJournal(this);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            long batchEnd;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    hasPending.await(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                ByteBuffer full = pending;
+                pending = writing;
+                writing = full;
+                batchEnd = appendedCount;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            IOException error = null;
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            writing.clear();
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                    durable.signalAll();
+                    return;
+                }
+                durableCount = batchEnd;
+                batchCount++;
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void awaitDurable(long count) {
+        hasPending.signal();
+        while (durableCount < count && failure == null && writer.isAlive()) {
+            durable.awaitUninterruptibly();
+        }
+    }
+
+    private int refOf(Object object) {
+        return refs.get(object);
+    }
+
+    /**
+     * Start a record. Must be called with the lock held.
+     * @return false if the journal no longer accepts records.
+     */
+    private boolean begin(RecordType type, int maxPayload) {
+        if (closed) {
+            return false;
+        }
+        if (failure != null) {
+            skippedChanges++;
+            return false;
+        }
+        int needed = maxPayload + Integer.BYTES * 2 + 1;
+        if (pending.remaining() < needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+            pending.flip();
+            bigger.put(pending);
+            pending = bigger;
+        }
+        recordStart = pending.position();
+        pending.putInt(0);
+        pending.put(type.getCode());
+        return true;
+    }
+
+    /**
+     * Finish the record started with begin and release the lock, waiting for disk if configured.
+     */
+    private void end() {
+        int payloadLength = pending.position() - recordStart - Integer.BYTES - 1;
+        pending.putInt(recordStart, payloadLength);
+        crc.reset();
+        crc.update(pending.array(), recordStart + Integer.BYTES, payloadLength + 1);
+        pending.putInt((int) crc.getValue());
+        appendedCount++;
+        if (waitForDurability) {
+            awaitDurable(appendedCount);
+        }
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_STRING_BYTES);
+        pending.putShort((short) length);
+        pending.put(bytes, 0, length);
+    }
+
+    private void appendRefs(RecordType type, Object first, Object second) {
+        lock.lock();
+        try {
+            int firstRef = refOf(first);
+            int secondRef = second == null ? 0 : refOf(second);
+            if (firstRef < 0 || secondRef < 0) {
+                skippedChanges++;
+                return;
+            }
+            if (!begin(type, Integer.BYTES * 2)) {
+                return;
+            }
+            pending.putInt(firstRef);
+            if (second != null) {
+                pending.putInt(secondRef);
+            }
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void appendTrainerType(RecordType type, Trainer trainer, TrainingSportType sportType) {
+        lock.lock();
+        try {
+            int trainerRef = refOf(trainer);
+            if (trainerRef < 0) {
+                skippedChanges++;
+                return;
+            }
+            if (!begin(type, Integer.BYTES + 1)) {
+                return;
+            }
+            pending.putInt(trainerRef);
+            pending.put((byte) sportType.ordinal());
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clubCreated(SportsClub sportsClub) {
+        lock.lock();
+        try {
+            if (!begin(RecordType.CLUB_CREATED, Integer.BYTES)) {
+                return;
+            }
+            int ref = nextRef++;
+            refs.put(sportsClub, ref);
+            pending.putInt(ref);
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void trainerCreated(Trainer trainer) {
+        String name = trainer.getName();
+        List<TrainingSportType> types = trainer.getTrainingTypes();
+        lock.lock();
+        try {
+            int maxPayload = Integer.BYTES + Short.BYTES + name.length() * 3 + 1 + types.size();
+            if (!begin(RecordType.TRAINER_CREATED, maxPayload)) {
+                return;
+            }
+            int ref = nextRef++;
+            refs.put(trainer, ref);
+            pending.putInt(ref);
+            putString(name);
+            pending.put((byte) types.size());
+            for (TrainingSportType type : types) {
+                pending.put((byte) type.ordinal());
+            }
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void trainerTypeAdded(Trainer trainer, TrainingSportType type) {
+        appendTrainerType(RecordType.TRAINER_TYPE_ADDED, trainer, type);
+    }
+
+    @Override
+    public void trainerTypeRemoved(Trainer trainer, TrainingSportType type) {
+        appendTrainerType(RecordType.TRAINER_TYPE_REMOVED, trainer, type);
+    }
+
+    @Override
+    public void trainerHired(SportsClub sportsClub, Trainer trainer) {
+        appendRefs(RecordType.TRAINER_HIRED, sportsClub, trainer);
+    }
+
+    @Override
+    public void trainingCreated(Training training) {
+        String name = training.getName();
+        lock.lock();
+        try {
+            if (!begin(RecordType.TRAINING_CREATED, Integer.BYTES + Short.BYTES + name.length() * 3 + 1)) {
+                return;
+            }
+            int ref = nextRef++;
+            refs.put(training, ref);
+            pending.putInt(ref);
+            putString(name);
+            pending.put((byte) training.getTrainingSportType().ordinal());
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void trainerAssigned(Training training, Trainer trainer) {
+        appendRefs(RecordType.TRAINER_ASSIGNED, training, trainer);
+    }
+
+    @Override
+    public void trainingAdded(SportsClub sportsClub, Training training) {
+        appendRefs(RecordType.TRAINING_ADDED, sportsClub, training);
+    }
+
+    @Override
+    public void sessionCreated(TrainingSession session) {
+        byte kind = KIND_SESSION;
+        if (session instanceof GroupTrainingSession) {
+            kind = KIND_GROUP;
+        } else if (session instanceof PersonalTrainingSession) {
+            kind = KIND_PERSONAL;
+        } else if (session instanceof OnlineTrainingSession) {
+            kind = KIND_ONLINE;
+        }
+        LocalDateTime time = session.getTime();
+        LocalDate date = session.getDate();
+        lock.lock();
+        try {
+            int trainingRef = refOf(session.getTraining());
+            if (trainingRef < 0) {
+                skippedChanges++;
+                return;
+            }
+            if (!begin(RecordType.SESSION_CREATED, Integer.BYTES * 5 + Long.BYTES + 4)) {
+                return;
+            }
+            int ref = nextRef++;
+            refs.put(session, ref);
+            pending.putInt(ref);
+            pending.put(kind);
+            pending.putInt(trainingRef);
+            pending.put((byte) session.getTrainingSessionLevel().ordinal());
+            pending.putLong(time.toEpochSecond(ZoneOffset.UTC));
+            pending.putInt(time.getNano());
+            pending.putInt(session.getMaxParticipants());
+            pending.putInt(date.getYear());
+            pending.put((byte) date.getMonthValue());
+            pending.put((byte) date.getDayOfMonth());
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sessionPriceSet(TrainingSession session) {
+        double price = session.getPrice();
+        lock.lock();
+        try {
+            int sessionRef = refOf(session);
+            if (sessionRef < 0) {
+                skippedChanges++;
+                return;
+            }
+            if (!begin(RecordType.SESSION_PRICE_SET, Integer.BYTES + Double.BYTES)) {
+                return;
+            }
+            pending.putInt(sessionRef);
+            pending.putDouble(price);
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sessionDateSet(TrainingSession session) {
+        LocalDate date = session.getDate();
+        lock.lock();
+        try {
+            int sessionRef = refOf(session);
+            if (sessionRef < 0) {
+                skippedChanges++;
+                return;
+            }
+            if (!begin(RecordType.SESSION_DATE_SET, Integer.BYTES * 2 + 2)) {
+                return;
+            }
+            pending.putInt(sessionRef);
+            pending.putInt(date.getYear());
+            pending.put((byte) date.getMonthValue());
+            pending.put((byte) date.getDayOfMonth());
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void memberCreated(Member member) {
+        String name = member.getName();
+        lock.lock();
+        try {
+            int maxPayload = Integer.BYTES + Short.BYTES + name.length() * 3 + Double.BYTES + Long.BYTES;
+            if (!begin(RecordType.MEMBER_CREATED, maxPayload)) {
+                return;
+            }
+            int ref = nextRef++;
+            refs.put(member, ref);
+            pending.putInt(ref);
+            putString(name);
+            pending.putDouble(member.getBudget());
+            pending.putLong(member.getKey());
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void memberWorked(Member member) {
+        appendRefs(RecordType.MEMBER_WORKED, member, null);
+    }
+
+    @Override
+    public void membershipBought(Member member, Membership membership) {
+        byte kind = membership instanceof StandardMembership ? MEMBERSHIP_STANDARD : MEMBERSHIP_FULL;
+        lock.lock();
+        try {
+            int memberRef = refOf(member);
+            int clubRef = refOf(membership.getSportsClub());
+            if (memberRef < 0 || clubRef < 0) {
+                skippedChanges++;
+                return;
+            }
+            if (!begin(RecordType.MEMBERSHIP_BOUGHT, Integer.BYTES * 2 + 1)) {
+                return;
+            }
+            pending.putInt(memberRef);
+            pending.putInt(clubRef);
+            pending.put(kind);
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void memberRegistered(Member member, TrainingSession session) {
+        appendRefs(RecordType.MEMBER_REGISTERED, member, session);
+    }
+
+    @Override
+    public void memberUnregistered(Member member, TrainingSession session) {
+        appendRefs(RecordType.MEMBER_UNREGISTERED, member, session);
+    }
+
+    @Override
+    public void monthPassed(SportsClub sportsClub) {
+        appendRefs(RecordType.MONTH_PASSED, sportsClub, null);
+    }
+}
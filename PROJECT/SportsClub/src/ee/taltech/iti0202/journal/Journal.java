@@ -0,0 +1,169 @@
+package ee.taltech.iti0202.journal;
+
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.util.List;
+
+/**
+ * Receives every change of the sports club system after it has been applied.
+ * All methods do nothing by default, {@link #NONE} is used when no journal is open.
+ */
+public interface Journal {
+
+    Journal NONE = new Journal() { };
+
+    /**
+     * Journal passing every change to all given journals in order.
+     * @param journals to combine.
+     * @return combined journal, {@link #NONE} if the list is empty.
+     */
+    static Journal of(List<Journal> journals) {
+        if (journals.isEmpty()) {
+            return NONE;
+        }
+        if (journals.size() == 1) {
+            return journals.get(0);
+        }
+        return new CompositeJournal(journals.toArray(new Journal[0]));
+    }
+
+    /**
+     * New sports club was created.
+     * @param sportsClub created club.
+     */
+    default void clubCreated(SportsClub sportsClub) {
+    }
+
+    /**
+     * New trainer was created.
+     * @param trainer created trainer.
+     */
+    default void trainerCreated(Trainer trainer) {
+    }
+
+    /**
+     * Trainer can conduct a new training type.
+     * @param trainer changed trainer.
+     * @param type added type.
+     */
+    default void trainerTypeAdded(Trainer trainer, TrainingSportType type) {
+    }
+
+    /**
+     * Trainer can no longer conduct a training type.
+     * @param trainer changed trainer.
+     * @param type removed type.
+     */
+    default void trainerTypeRemoved(Trainer trainer, TrainingSportType type) {
+    }
+
+    /**
+     * Sports club hired a trainer.
+     * @param sportsClub hiring club.
+     * @param trainer hired trainer.
+     */
+    default void trainerHired(SportsClub sportsClub, Trainer trainer) {
+    }
+
+    /**
+     * New training was created.
+     * @param training created training.
+     */
+    default void trainingCreated(Training training) {
+    }
+
+    /**
+     * Trainer was assigned to a training.
+     * @param training changed training.
+     * @param trainer assigned trainer.
+     */
+    default void trainerAssigned(Training training, Trainer trainer) {
+    }
+
+    /**
+     * Sports club added a training.
+     * @param sportsClub club.
+     * @param training added training.
+     */
+    default void trainingAdded(SportsClub sportsClub, Training training) {
+    }
+
+    /**
+     * New training session was created.
+     * @param session created session.
+     */
+    default void sessionCreated(TrainingSession session) {
+    }
+
+    /**
+     * Price of a session was changed.
+     * @param session changed session.
+     */
+    default void sessionPriceSet(TrainingSession session) {
+    }
+
+    /**
+     * Date of a session was changed.
+     * @param session changed session.
+     */
+    default void sessionDateSet(TrainingSession session) {
+    }
+
+    /**
+     * Session ended and was moved to the archive, see {@link ee.taltech.iti0202.training.SessionArchive}.
+     * @param session archived session.
+     */
+    default void sessionArchived(TrainingSession session) {
+    }
+
+    /**
+     * New member was created.
+     * @param member created member.
+     */
+    default void memberCreated(Member member) {
+    }
+
+    /**
+     * Member worked and got salary.
+     * @param member member.
+     */
+    default void memberWorked(Member member) {
+    }
+
+    /**
+     * Member bought a membership.
+     * @param member buyer.
+     * @param membership bought membership.
+     */
+    default void membershipBought(Member member, Membership membership) {
+    }
+
+    /**
+     * Member registered to a session.
+     * @param member member.
+     * @param session session.
+     */
+    default void memberRegistered(Member member, TrainingSession session) {
+    }
+
+    /**
+     * Member unregistered from a session.
+     * @param member member.
+     * @param session session.
+     */
+    default void memberUnregistered(Member member, TrainingSession session) {
+    }
+
+    /**
+     * Month passed in a sports club.
+     * @param sportsClub club.
+     */
+    default void monthPassed(SportsClub sportsClub) {
+    }
+}
@@ -0,0 +1,80 @@
+package ee.taltech.iti0202.journal;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Journal numbers of recorded objects, compared by identity. Objects are held weakly: once nothing else
+ * refers to an object it cannot change any more, so its entry is dropped when it is garbage collected.
+ * Not synchronized, the journal guards it with its lock.
+ */
+final class JournalRefs {
+
+    private final Map<Key, Integer> refs = new HashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    /**
+     * Weak key equal to keys of the same object. A collected key is only equal to itself.
+     */
+    private static final class Key extends WeakReference<Object> {
+        private final int hash;
+
+        Key(Object object, ReferenceQueue<Object> queue) {
+            super(object, queue);
+            this.hash = System.identityHashCode(object);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            Object object = get();
+            return object != null && other instanceof Key key && key.get() == object;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Remember the journal number of the object.
+     * @param object recorded object.
+     * @param ref journal number.
+     */
+    void put(Object object, int ref) {
+        expunge();
+        refs.put(new Key(object, collected), ref);
+    }
+
+    /**
+     * Get the journal number of the object.
+     * @param object to look up.
+     * @return journal number or -1 if the object is not recorded.
+     */
+    int get(Object object) {
+        expunge();
+        Integer ref = refs.get(new Key(object, null));
+        return ref == null ? -1 : ref;
+    }
+
+    /**
+     * Get size.
+     * @return number of objects which are still reachable or not yet dropped.
+     */
+    int size() {
+        expunge();
+        return refs.size();
+    }
+
+    private void expunge() {
+        Object key;
+        while ((key = collected.poll()) != null) {
+            refs.remove(key);
+        }
+    }
+}
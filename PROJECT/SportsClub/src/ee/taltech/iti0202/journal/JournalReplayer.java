@@ -0,0 +1,238 @@
+package ee.taltech.iti0202.journal;
+
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.OnlineTrainingSession;
+import ee.taltech.iti0202.training.PersonalTrainingSession;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads journal records and applies them through the normal domain methods, so budgets, discounts,
+ * bonus points and indexes end up exactly as they were. Records which fail to apply are counted and skipped.
+ */
+class JournalReplayer {
+
+    private static final int RECORD_OVERHEAD = Integer.BYTES * 2 + 1;
+    private static final TrainingSportType[] SPORT_TYPES = TrainingSportType.values();
+    private static final TrainingSessionLevel[] LEVELS = TrainingSessionLevel.values();
+
+    private final List<Object> objects = new ArrayList<>();
+    private int replayedRecords;
+    private int skippedRecords;
+
+    /**
+     * Replay all complete records of the journal file. The whole file is checked before anything is applied.
+     * @param channel journal file positioned anywhere.
+     * @return offset after the last complete record, only a torn record at the end of the file is after it.
+     * @throws IOException if reading fails or a record before the end of the file is corrupt.
+     */
+    long replay(FileChannel channel) throws IOException {
+        long validEnd = readRecords(channel, (type, payload) -> { });
+        readRecords(channel, this::apply);
+        return validEnd;
+    }
+
+    /**
+     * Handles one record read from the journal.
+     */
+    private interface RecordHandler {
+        void handle(RecordType type, ByteBuffer payload);
+    }
+
+    /**
+     * Read the records of the journal file in order.
+     * A record which does not fit into the rest of the file was torn while writing and ends the journal,
+     * any other damage is reported, since cutting it off would lose the valid records after it.
+     * @return offset after the last complete record.
+     */
+    private static long readRecords(FileChannel channel, RecordHandler handler) throws IOException {
+        channel.position(0);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        if (input.readInt() != EventJournal.MAGIC) {
+            throw new IllegalArgumentException("File is not a sports club journal.");
+        }
+        long size = channel.size();
+        long validEnd = EventJournal.HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        byte[] record = new byte[256];
+        while (size - validEnd >= RECORD_OVERHEAD) {
+            int payloadLength = input.readInt();
+            if (payloadLength < 0) {
+                throw new IOException("Corrupt journal record length at offset " + validEnd + ".");
+            }
+            if (size - validEnd < RECORD_OVERHEAD + (long) payloadLength) {
+                break;
+            }
+            if (record.length < payloadLength + 1) {
+                record = new byte[Math.max(payloadLength + 1, record.length * 2)];
+            }
+            input.readFully(record, 0, payloadLength + 1);
+            int checksum = input.readInt();
+            crc.reset();
+            crc.update(record, 0, payloadLength + 1);
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Corrupt journal record at offset " + validEnd + ".");
+            }
+            RecordType type = RecordType.fromCode(record[0]);
+            if (type == null) {
+                throw new IOException("Unknown journal record type " + record[0] + " at offset " + validEnd + ".");
+            }
+            handler.handle(type, ByteBuffer.wrap(record, 1, payloadLength));
+            validEnd += RECORD_OVERHEAD + payloadLength;
+        }
+        return validEnd;
+    }
+
+    /**
+     * Get objects.
+     * @return replayed objects by journal number, null where creation failed.
+     */
+    List<Object> getObjects() {
+        return objects;
+    }
+
+    int getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    int getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    private void apply(RecordType type, ByteBuffer payload) {
+        try {
+            applyRecord(type, payload);
+            replayedRecords++;
+        } catch (RuntimeException e) {
+            skippedRecords++;
+        }
+    }
+
+    private void define(int ref, Object object) {
+        while (objects.size() <= ref) {
+            objects.add(null);
+        }
+        objects.set(ref, object);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T object(int ref) {
+        T object = ref >= 0 && ref < objects.size() ? (T) objects.get(ref) : null;
+        if (object == null) {
+            throw new IllegalStateException("Unknown journal reference " + ref);
+        }
+        return object;
+    }
+
+    private static String getString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getShort()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void applyRecord(RecordType type, ByteBuffer payload) {
+        switch (type) {
+            case CLUB_CREATED -> {
+                int ref = payload.getInt();
+                define(ref, null);
+                define(ref, new SportsClub(new ArrayList<>(), new ArrayList<>()));
+            }
+            case TRAINER_CREATED -> {
+                int ref = payload.getInt();
+                define(ref, null);
+                String name = getString(payload);
+                ArrayList<TrainingSportType> types = new ArrayList<>();
+                int count = payload.get();
+                for (int i = 0; i < count; i++) {
+                    types.add(SPORT_TYPES[payload.get()]);
+                }
+                define(ref, new Trainer(name, types));
+            }
+            case TRAINER_TYPE_ADDED -> this.<Trainer>object(payload.getInt())
+                    .addTrainingType(SPORT_TYPES[payload.get()]);
+            case TRAINER_TYPE_REMOVED -> this.<Trainer>object(payload.getInt())
+                    .removeTrainingType(SPORT_TYPES[payload.get()]);
+            case TRAINER_HIRED -> this.<SportsClub>object(payload.getInt())
+                    .hireNewTrainer(object(payload.getInt()));
+            case TRAINING_CREATED -> {
+                int ref = payload.getInt();
+                define(ref, null);
+                String name = getString(payload);
+                define(ref, new Training(name, SPORT_TYPES[payload.get()]));
+            }
+            case TRAINER_ASSIGNED -> this.<Training>object(payload.getInt())
+                    .assignTrainer(object(payload.getInt()));
+            case TRAINING_ADDED -> this.<SportsClub>object(payload.getInt())
+                    .addNewTraining(object(payload.getInt()));
+            case SESSION_CREATED -> replaySessionCreated(payload);
+            case SESSION_PRICE_SET -> this.<TrainingSession>object(payload.getInt())
+                    .setPrice(payload.getDouble());
+            case SESSION_DATE_SET -> this.<TrainingSession>object(payload.getInt())
+                    .setDate(payload.getInt(), payload.get(), payload.get());
+            case MEMBER_CREATED -> {
+                int ref = payload.getInt();
+                define(ref, null);
+                String name = getString(payload);
+                double budget = payload.getDouble();
+                // Journals written before members had keys end after the budget
+                define(ref, payload.remaining() >= Long.BYTES ? new Member(name, budget, payload.getLong())
+                        : new Member(name, budget));
+            }
+            case MEMBER_WORKED -> this.<Member>object(payload.getInt()).work();
+            case MEMBERSHIP_BOUGHT -> {
+                Member member = object(payload.getInt());
+                SportsClub sportsClub = object(payload.getInt());
+                member.buyMembership(payload.get() == EventJournal.MEMBERSHIP_STANDARD
+                        ? new StandardMembership(sportsClub) : new FullMembership(sportsClub));
+            }
+            case MEMBER_REGISTERED -> this.<Member>object(payload.getInt())
+                    .registerToTrainingSession(object(payload.getInt()));
+            case MEMBER_UNREGISTERED -> this.<Member>object(payload.getInt())
+                    .unregisterFromTrainingSession(object(payload.getInt()));
+            case MONTH_PASSED -> this.<SportsClub>object(payload.getInt()).nextMonth();
+            default -> throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    private void replaySessionCreated(ByteBuffer payload) {
+        int ref = payload.getInt();
+        define(ref, null);
+        byte kind = payload.get();
+        Training training = object(payload.getInt());
+        TrainingSessionLevel level = LEVELS[payload.get()];
+        LocalDateTime time = LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC);
+        int maxParticipants = payload.getInt();
+        LocalDate date = LocalDate.of(payload.getInt(), payload.get(), payload.get());
+        TrainingSession session = switch (kind) {
+            case EventJournal.KIND_GROUP -> new GroupTrainingSession(training, level, time);
+            case EventJournal.KIND_PERSONAL -> new PersonalTrainingSession(training, level, time);
+            case EventJournal.KIND_ONLINE -> new OnlineTrainingSession(training, level, time);
+            default -> new TrainingSession(training, level, time, maxParticipants);
+        };
+        if (!session.getDate().equals(date)) {
+            session.setDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+        }
+        define(ref, session);
+    }
+}
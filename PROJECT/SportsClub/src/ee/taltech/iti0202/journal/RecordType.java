@@ -0,0 +1,52 @@
+package ee.taltech.iti0202.journal;
+
+/**
+ * Types of journal records. Codes are written to the file, so they must never change.
+ */
+enum RecordType {
+
+    CLUB_CREATED(1),
+    TRAINER_CREATED(2),
+    TRAINER_TYPE_ADDED(3),
+    TRAINER_TYPE_REMOVED(4),
+    TRAINER_HIRED(5),
+    TRAINING_CREATED(6),
+    TRAINER_ASSIGNED(7),
+    TRAINING_ADDED(8),
+    SESSION_CREATED(9),
+    SESSION_PRICE_SET(10),
+    SESSION_DATE_SET(11),
+    MEMBER_CREATED(12),
+    MEMBER_WORKED(13),
+    MEMBERSHIP_BOUGHT(14),
+    MEMBER_REGISTERED(15),
+    MEMBER_UNREGISTERED(16),
+    MONTH_PASSED(17);
+
+    private static final RecordType[] BY_CODE = new RecordType[values().length + 1];
+
+    static {
+        for (RecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    RecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    byte getCode() {
+        return code;
+    }
+
+    /**
+     * Find record type by its code.
+     * @param code written to the file.
+     * @return type or null if the code is unknown.
+     */
+    static RecordType fromCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
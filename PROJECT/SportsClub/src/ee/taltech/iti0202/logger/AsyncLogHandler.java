@@ -0,0 +1,235 @@
+package ee.taltech.iti0202.logger;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * Handler which puts log records into a bounded ring buffer and lets a background thread publish them
+ * to the delegate handlers in batches, so the logging thread never waits for handler I/O.
+ * The buffer is allocated once; what happens when it is full is decided by the {@link OverflowPolicy}.
+ * Source class and method of the records are not inferred on the background thread, records from
+ * {@link SportsClubLogger} already carry them.
+ */
+public class AsyncLogHandler extends Handler {
+
+    public static final int DEFAULT_SAMPLE_RATE = 10;
+    private static final int MAX_BATCH = 256;
+
+    private final LogRecord[] buffer;
+    private final LogRecord[] batch;
+    private final Handler[] delegates;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private long head;
+    private long tail;
+    private long published;
+    private long overflowCount;
+    private boolean closed;
+
+    /**
+     * Constructor for asynchronous handler.
+     * @param delegates handlers doing the actual publishing.
+     * @param capacity size of the ring buffer.
+     * @param policy what to do when the buffer is full.
+     */
+    public AsyncLogHandler(List<Handler> delegates, int capacity, OverflowPolicy policy) {
+        this(delegates, capacity, policy, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * Constructor for asynchronous handler.
+     * @param delegates handlers doing the actual publishing.
+     * @param capacity size of the ring buffer.
+     * @param policy what to do when the buffer is full.
+     * @param sampleRate with SAMPLE policy, one of this many overflowing records is kept.
+     */
+    public AsyncLogHandler(List<Handler> delegates, int capacity, OverflowPolicy policy, int sampleRate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("Sample rate must be positive.");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Overflow policy must be given.");
+        }
+        this.buffer = new LogRecord[capacity];
+        this.batch = new LogRecord[Math.min(capacity, MAX_BATCH)];
+        this.delegates = delegates.toArray(new Handler[0]);
+        this.policy = policy;
+        this.sampleRate = sampleRate;
+        this.worker = new Thread(this::drainLoop, "sports-club-log-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (record == null || !isLoggable(record)) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            if (tail - head == buffer.length) {
+                if (policy == OverflowPolicy.DROP
+                        || policy == OverflowPolicy.SAMPLE && overflowCount++ % sampleRate != 0) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                while (tail - head == buffer.length && !closed) {
+                    notFull.awaitUninterruptibly();
+                }
+                if (closed) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+            }
+            buffer[(int) (tail % buffer.length)] = record;
+            tail++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            int count = 0;
+            lock.lock();
+            try {
+                while (head == tail && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (head == tail) {
+                    return;
+                }
+                while (head < tail && count < batch.length) {
+                    int slot = (int) (head % buffer.length);
+                    batch[count++] = buffer[slot];
+                    buffer[slot] = null;
+                    head++;
+                }
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            for (int i = 0; i < count; i++) {
+                for (Handler delegate : delegates) {
+                    publishTo(delegate, batch[i]);
+                }
+                batch[i] = null;
+            }
+            lock.lock();
+            try {
+                published += count;
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Publish record to the delegate. A failing delegate is reported to its error manager,
+     * so one bad record does not stop the background thread.
+     */
+    private static void publishTo(Handler delegate, LogRecord record) {
+        try {
+            delegate.publish(record);
+        } catch (RuntimeException e) {
+            delegate.getErrorManager().error("Failed to publish log record.", e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /**
+     * Wait until every record accepted so far has been published, then flush the delegates.
+     */
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            long target = tail;
+            while (published < target && worker.isAlive()) {
+                drained.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Handler delegate : delegates) {
+            delegate.flush();
+        }
+    }
+
+    /**
+     * Publish the remaining records and stop the background thread. Delegates are not closed.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Handler delegate : delegates) {
+            delegate.flush();
+        }
+    }
+
+    /**
+     * Get delegates.
+     * @return handlers the records are published to.
+     */
+    public List<Handler> getDelegates() {
+        return List.of(delegates);
+    }
+
+    /**
+     * Get dropped count.
+     * @return number of records discarded because the buffer was full or the handler closed.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Get capacity.
+     * @return size of the ring buffer.
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Get overflow policy.
+     * @return overflow policy.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return policy;
+    }
+}
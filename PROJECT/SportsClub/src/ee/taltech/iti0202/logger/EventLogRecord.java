@@ -0,0 +1,33 @@
+package ee.taltech.iti0202.logger;
+
+import java.util.logging.LogRecord;
+
+/**
+ * Log record of a structured event. Handlers can read the event code and the raw arguments
+ * instead of parsing the message.
+ */
+public class EventLogRecord extends LogRecord {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LogEvent event;
+
+    /**
+     * Constructor for event record.
+     * @param event logged event.
+     * @param arguments message arguments.
+     */
+    public EventLogRecord(LogEvent event, Object... arguments) {
+        super(event.getLevel(), event.getMessage());
+        this.event = event;
+        setParameters(arguments);
+    }
+
+    /**
+     * Get event.
+     * @return logged event.
+     */
+    public LogEvent getEvent() {
+        return event;
+    }
+}
@@ -0,0 +1,73 @@
+package ee.taltech.iti0202.logger;
+
+import java.util.logging.Level;
+
+/**
+ * Structured log events of the sports club system. The message is a {@link java.text.MessageFormat}
+ * pattern, it is formatted only when the record is published.
+ */
+public enum LogEvent {
+
+    MEMBERSHIP_TYPE_OFFERED("Membership type: {0}"),
+    SPORTS_CLUB_REGISTERED("New sports club has been registered"),
+    SPORTS_CLUB_CREATED("New sports club created"),
+    MEMBER_ADDED_TO_CLUB("New member {0,number,#} is added to the system"),
+    TRAINER_ALREADY_HIRED("Trainer is already working here, cannot be added to the system again"),
+    TRAINER_HIRED("New trainer has been hired"),
+    TRAINERS_HIRED("{0,number,#} new trainers have been hired"),
+    TRAINING_ALREADY_ADDED("Sports club already has this training, it cannot be added to the system"),
+    TRAINING_ADDED("New training has been added"),
+    TRAININGS_ADDED("{0,number,#} new trainings have been added"),
+    MEMBERSHIP_INSUFFICIENT_FUNDS("Member {0,number,#} has insufficient funds to purchase membership"),
+    MEMBERSHIP_ALREADY_BOUGHT("Member {0,number,#} has already gotten this membership"),
+    MEMBERSHIP_BOUGHT("Member {0,number,#} has bought membership. Their budget is decreased by the membership price"),
+    MEMBER_WORKED("Member {0,number,#} worked and got 50 bucks"),
+    MEMBERSHIP_MISSING("Member {0,number,#} does not have any membership"),
+    MEMBERSHIP_WRONG_CLUB("Member {0,number,#} does not have a membership to the same sports club "
+            + "as training session {1,number,#}"),
+    ALREADY_REGISTERED("Member {0,number,#} is already registered for training session {1,number,#}"),
+    SESSION_FULL("Training session {1,number,#} has reached maximum participants"),
+    STANDARD_PACKAGE_LEVEL_DENIED("Member {0,number,#} with standard package can only participate in "
+            + "BEGINNER or INTERMEDIATE training sessions"),
+    SESSION_INSUFFICIENT_FUNDS("Member {0,number,#} has insufficient funds to register to "
+            + "training session {1,number,#}"),
+    MEMBER_REGISTERED("Member {0,number,#} has registered to training session {1,number,#}"),
+    MEMBER_UNREGISTERED("Member {0,number,#} has unregistered from training session {1,number,#}"),
+    SESSION_CREATED("New training session {0,number,#} has been registered"),
+    PARTICIPANT_ADDED("Member {0,number,#} is added to training session {1,number,#}"),
+    PARTICIPANT_REMOVED("Member {0,number,#} is removed from training session {1,number,#}"),
+    WAITLIST_JOINED("Member {0,number,#} is added to the waitlist of training session {1,number,#}"),
+    WAITLIST_PROMOTED("Member {0,number,#} is promoted from the waitlist of training session {1,number,#}"),
+    WAITLIST_PROMOTION_FAILED("Member {0,number,#} cannot be promoted from the waitlist: {1}"),
+    MONTH_PASSED("One month passed and members need to renew memberships"),
+    IMPORT_FINISHED("Import finished, {0,number,#} rows imported and {1,number,#} rows rejected"),
+    SESSIONS_ARCHIVED("{0,number,#} past training sessions have been archived");
+
+    private final Level level;
+    private final String message;
+
+    LogEvent(String message) {
+        this(Level.INFO, message);
+    }
+
+    LogEvent(Level level, String message) {
+        this.level = level;
+        this.message = message;
+    }
+
+    /**
+     * Get level.
+     * @return level the event is logged at.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Get message.
+     * @return message pattern.
+     */
+    public String getMessage() {
+        return message;
+    }
+}
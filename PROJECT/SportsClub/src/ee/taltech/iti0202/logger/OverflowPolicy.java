@@ -0,0 +1,10 @@
+package ee.taltech.iti0202.logger;
+
+/**
+ * What the asynchronous log handler does when its ring buffer is full.
+ * DROP discards the new record, BLOCK waits for free space,
+ * SAMPLE keeps every n-th overflowing record (waiting for space) and discards the rest.
+ */
+public enum OverflowPolicy {
+    DROP, BLOCK, SAMPLE
+}
@@ -1,11 +1,20 @@
 package ee.taltech.iti0202.logger;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
 import java.util.logging.Logger;
 
 public class SportsClubLogger {
 
+    private static final StackWalker CALLER_WALKER =
+            StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
     private static SportsClubLogger instance;
     private final Logger logger = Logger.getLogger(SportsClubLogger.class.getName());
+    private AsyncLogHandler asyncHandler;
+    private Handler[] ownHandlers;
+    private boolean usedParentHandlers;
+    private final ThreadLocal<int[]> quietDepth = ThreadLocal.withInitial(() -> new int[1]);
 
     /**
      * Get instance.
@@ -25,4 +34,159 @@ public class SportsClubLogger {
     public Logger getLogger() {
         return logger;
     }
+
+    /**
+     * Check if event would be logged.
+     * @param event to check.
+     * @return true if the level of the event is enabled.
+     */
+    public boolean isEnabled(LogEvent event) {
+        return logger.isLoggable(event.getLevel()) && quietDepth.get()[0] == 0;
+    }
+
+    /**
+     * Run action without logging any events on the current thread, e.g. when objects are created in bulk.
+     * Other threads keep logging as usual.
+     * @param action to run.
+     */
+    public void runQuietly(Runnable action) {
+        int[] depth = quietDepth.get();
+        depth[0]++;
+        try {
+            action.run();
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    /**
+     * Log event without arguments. Nothing is allocated if the level is disabled.
+     * @param event to log.
+     */
+    public void log(LogEvent event) {
+        if (isEnabled(event)) {
+            publish(new EventLogRecord(event));
+        }
+    }
+
+    /**
+     * Log event with one id argument. Nothing is allocated if the level is disabled.
+     * @param event to log.
+     * @param id first argument.
+     */
+    public void log(LogEvent event, int id) {
+        if (isEnabled(event)) {
+            publish(new EventLogRecord(event, id));
+        }
+    }
+
+    /**
+     * Log event with two id arguments. Nothing is allocated if the level is disabled.
+     * @param event to log.
+     * @param firstId first argument.
+     * @param secondId second argument.
+     */
+    public void log(LogEvent event, int firstId, int secondId) {
+        if (isEnabled(event)) {
+            publish(new EventLogRecord(event, firstId, secondId));
+        }
+    }
+
+    /**
+     * Log event with an id and an object argument. Nothing is allocated if the level is disabled.
+     * @param event to log.
+     * @param id first argument.
+     * @param argument second argument, formatted only when published.
+     */
+    public void log(LogEvent event, int id, Object argument) {
+        if (isEnabled(event)) {
+            publish(new EventLogRecord(event, id, argument));
+        }
+    }
+
+    /**
+     * Log event with an object argument. Nothing is allocated if the level is disabled.
+     * @param event to log.
+     * @param argument formatted only when published.
+     */
+    public void log(LogEvent event, Object argument) {
+        if (isEnabled(event)) {
+            publish(new EventLogRecord(event, argument));
+        }
+    }
+
+    /**
+     * Publish record with the caller of the logger as its source, since the logger would
+     * otherwise infer this class as the source.
+     */
+    private void publish(EventLogRecord record) {
+        record.setLoggerName(logger.getName());
+        StackWalker.StackFrame caller = CALLER_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getDeclaringClass() != SportsClubLogger.class)
+                .findFirst()
+                .orElse(null));
+        if (caller != null) {
+            record.setSourceClassName(caller.getClassName());
+            record.setSourceMethodName(caller.getMethodName());
+        }
+        logger.log(record);
+    }
+
+    /**
+     * Switch to asynchronous logging. Handlers of the logger and its parents are moved behind
+     * an {@link AsyncLogHandler}, so log calls only put the record into a ring buffer.
+     * @param capacity size of the ring buffer.
+     * @param policy what to do when the buffer is full.
+     */
+    public synchronized void enableAsync(int capacity, OverflowPolicy policy) {
+        disableAsync();
+        ownHandlers = logger.getHandlers();
+        usedParentHandlers = logger.getUseParentHandlers();
+        List<Handler> delegates = new ArrayList<>(List.of(ownHandlers));
+        Logger current = logger;
+        while (current.getUseParentHandlers() && current.getParent() != null) {
+            current = current.getParent();
+            delegates.addAll(List.of(current.getHandlers()));
+        }
+        AsyncLogHandler handler = new AsyncLogHandler(delegates, capacity, policy);
+        for (Handler ownHandler : ownHandlers) {
+            logger.removeHandler(ownHandler);
+        }
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        asyncHandler = handler;
+    }
+
+    /**
+     * Switch back to synchronous logging. Records already in the buffer are published first.
+     */
+    public synchronized void disableAsync() {
+        if (asyncHandler == null) {
+            return;
+        }
+        logger.removeHandler(asyncHandler);
+        asyncHandler.close();
+        for (Handler ownHandler : ownHandlers) {
+            logger.addHandler(ownHandler);
+        }
+        logger.setUseParentHandlers(usedParentHandlers);
+        asyncHandler = null;
+        ownHandlers = null;
+    }
+
+    /**
+     * Is async.
+     * @return true if logging is asynchronous.
+     */
+    public synchronized boolean isAsync() {
+        return asyncHandler != null;
+    }
+
+    /**
+     * Get async handler.
+     * @return asynchronous handler or null if logging is synchronous.
+     */
+    public synchronized AsyncLogHandler getAsyncHandler() {
+        return asyncHandler;
+    }
 }
@@ -1,8 +1,12 @@
 package ee.taltech.iti0202.member;
 
 import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.LogEvent;
 import ee.taltech.iti0202.logger.SportsClubLogger;
 import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.registry.Registry;
+import ee.taltech.iti0202.repository.Repositories;
+import ee.taltech.iti0202.repository.Repository;
 import ee.taltech.iti0202.sportsclub.SportsClub;
 import ee.taltech.iti0202.strategy.BonusPointsBasedDiscountStrategy;
 import ee.taltech.iti0202.strategy.CombinedDiscountStrategy;
@@ -12,6 +16,8 @@ import ee.taltech.iti0202.strategy.SportsTypeDiscountStrategy;
 import ee.taltech.iti0202.training.GroupTrainingSession;
 import ee.taltech.iti0202.training.OnlineTrainingSession;
 import ee.taltech.iti0202.training.PersonalTrainingSession;
+import ee.taltech.iti0202.training.SessionArchive;
+import ee.taltech.iti0202.training.Training;
 import ee.taltech.iti0202.training.TrainingSession;
 import ee.taltech.iti0202.training.TrainingSessionLevel;
 import ee.taltech.iti0202.training.TrainingSportType;
@@ -20,25 +26,39 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.logging.Level;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Class for member. Members can buy membership.
  * If not enough budget, members can go working. Members can register to training sessions.
+ * Methods changing the budget or registrations lock the member, so one member can be used from many threads.
  */
 
 public class Member {
 
+    static final AtomicInteger nextId = new AtomicInteger();
+    private final int id;
+    private final long key;
     private final String name;
-    private double budget;
+    private volatile double budget;
     private boolean isFirstSessionFree;
     static final double SALARY = 50;
     private int bonusPoints;
-    private final List<TrainingSession> registeredSessions;
+    private double spentThisMonth;
+    private final Registry<TrainingSession> registeredSessions;
+    private volatile List<TrainingSession> registeredSessionsCopy;
+    private volatile int[] archivedSessionIds = new int[0];
+    private final Object registeredSessionsLock = new Object();
     private final List<Membership> boughtMemberships;
+    private Membership[] membershipsByClubId;
     private static final int FULL_PERSONAL_SES = 20;
     private static final int STANDARD_PERSONAL_SES = 10;
     private static final int FULL_ONLINE_SES = 8;
@@ -52,7 +72,9 @@ public class Member {
     private DiscountStrategy combinedDiscountStrategy;
     private DiscountStrategy sportsTypeDiscountStrategy;
     private int bonusPointsPrevMonth = 0;
-    private List<TrainingSportType> participatedSports;
+    private final int[] sessionsPerSportType;
+    private final List<TrainingSportType> participatedSports;
+    private final List<TrainingSportType> participatedSportsView;
     private int participatedSportPrevMonth = 0;
 
     /**
@@ -61,13 +83,64 @@ public class Member {
      * @param budget
      */
     public Member(String name, double budget) {
+        this(name, budget, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Constructor for member restored from earlier runs.
+     * @param name of the member.
+     * @param budget of the member.
+     * @param key persistent key the member had before.
+     */
+    public Member(String name, double budget, long key) {
+        this(name, budget, key, true);
+    }
+
+    private Member(String name, double budget, long key, boolean register) {
+        this.id = nextId.getAndIncrement();
+        this.key = key;
         this.name = Objects.requireNonNull(name);
         this.budget = budget;
-        this.registeredSessions = new ArrayList<>();
+        this.registeredSessions = new Registry<>(TrainingSession::getId);
+        this.sessionsPerSportType = new int[TrainingSportType.values().length];
         this.participatedSports = new ArrayList<>();
+        this.participatedSportsView = Collections.unmodifiableList(participatedSports);
         this.boughtMemberships = new ArrayList<>();
+        this.membershipsByClubId = new Membership[0];
         this.isFirstSessionFree = true;
         this.bonusPoints = 0;
+        if (register) {
+            SportsClubSystem.getInstance().getJournal().memberCreated(this);
+        }
+    }
+
+    /**
+     * Restore a member stored earlier, e.g. in a file store. Unlike the constructors it registers nothing:
+     * the member is not recorded in the journal.
+     * @param name of the member.
+     * @param budget of the member.
+     * @param key persistent key the member had before.
+     * @return member with a new id.
+     */
+    public static Member restore(String name, double budget, long key) {
+        return new Member(name, budget, key, false);
+    }
+
+    /**
+     * Get the ID of the member.
+     * @return The ID of the member.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the persistent key of the member. Unlike the id it stays the same across runs,
+     * journals, snapshots and stores keep it.
+     * @return key.
+     */
+    public long getKey() {
+        return key;
     }
 
     /**
@@ -94,8 +167,56 @@ public class Member {
         return bonusPoints;
     }
 
-    public void setBonusPoints(int bonusPoints) {
-        this.bonusPoints = bonusPoints;
+    public synchronized void setBonusPoints(int bonusPoints) {
+        addBonusPoints(bonusPoints - this.bonusPoints);
+    }
+
+    /**
+     * Add bonus points and pass the change to the running totals of the clubs of the member.
+     */
+    private void addBonusPoints(int points) {
+        bonusPoints += points;
+        for (Membership membership : boughtMemberships) {
+            membership.getSportsClub().countBonusPoints(points);
+        }
+    }
+
+    /**
+     * Pass a registration change to the running totals of the session's club, if the member belongs to it.
+     */
+    private void countRegistration(TrainingSession trainingSession, int change) {
+        countRegistration(trainingSession.getTraining(), change);
+    }
+
+    private void countRegistration(Training training, int change) {
+        SportsClub sportsClub = training.sportsClubItBelongsTo();
+        if (membershipFor(sportsClub) != null) {
+            sportsClub.countRegistrations(change);
+        }
+    }
+
+    /**
+     * Get money spent on memberships and sessions this month.
+     * @return spent amount.
+     */
+    public double getSpentThisMonth() {
+        return spentThisMonth;
+    }
+
+    public void setSpentThisMonth(double spentThisMonth) {
+        this.spentThisMonth = spentThisMonth;
+    }
+
+    /**
+     * Check if the next personal session with full membership is free.
+     * @return boolean.
+     */
+    public boolean isFirstSessionFree() {
+        return isFirstSessionFree;
+    }
+
+    public void setFirstSessionFree(boolean isFirstSessionFree) {
+        this.isFirstSessionFree = isFirstSessionFree;
     }
 
     /**
@@ -103,7 +224,7 @@ public class Member {
      * @return boolean
      */
     public boolean hasMembership() {
-        return !getBoughtMemberships().isEmpty();
+        return !boughtMemberships.isEmpty();
     }
 
     /**
@@ -112,8 +233,24 @@ public class Member {
      * @return boolean
      */
     public boolean hasMembershipToSportsClub(SportsClub sportsClub) {
-        return boughtMemberships.stream()
-                .anyMatch(membership -> membership.getSportsClub() == sportsClub);
+        return membershipFor(sportsClub) != null;
+    }
+
+    /**
+     * Look up membership of the sports club from the array indexed by sports club id.
+     * @param sportsClub The sports club to find the membership for.
+     * @return membership or null if member has no membership there.
+     */
+    private Membership membershipFor(SportsClub sportsClub) {
+        if (sportsClub == null) {
+            return null;
+        }
+        int clubId = sportsClub.getId();
+        if (clubId >= membershipsByClubId.length) {
+            return null;
+        }
+        Membership membership = membershipsByClubId[clubId];
+        return membership != null && membership.getSportsClub() == sportsClub ? membership : null;
     }
 
     /**
@@ -128,30 +265,54 @@ public class Member {
     /**
      * Method to buy membership if enough money or ahs not gotten one before.
      */
-    public void buyMembership(Membership membership) {
+    public synchronized void buyMembership(Membership membership) {
         double membershipPrice = membership.getPrice();
         SportsClub sportsClub = membership.getSportsClub();
 
         if (budget < membership.getPrice()) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Member has insufficient funds to purchase membership");
+            SportsClubLogger.getInstance().log(LogEvent.MEMBERSHIP_INSUFFICIENT_FUNDS, id);
             throw new IllegalArgumentException("Insufficient funds to purchase membership");
         }
         if (hasMembershipToSportsClub(membership.getSportsClub())) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Member has already gotten this membership");
+            SportsClubLogger.getInstance().log(LogEvent.MEMBERSHIP_ALREADY_BOUGHT, id);
             throw new IllegalArgumentException("Member has already gotten this membership");
         }
 
         double discountPercent = getDiscountStrategy(this, sportsClub);
         membershipPrice = membershipPrice * (1 - discountPercent / 100);
 
-        boughtMemberships.add(membership);
+        addMembership(membership);
         budget -= membershipPrice;
+        spentThisMonth += membershipPrice;
+
+        membership.getSportsClub().addNewMember(this);
+        Repositories repositories = SportsClubSystem.getInstance().getRepositories();
+        repositories.memberships().save(membership);
+        repositories.members().save(this);
+        SportsClubSystem.getInstance().getJournal().membershipBought(this, membership);
+        SportsClubLogger.getInstance().log(LogEvent.MEMBERSHIP_BOUGHT, id);
+    }
 
+    /**
+     * Restore a membership bought earlier, e.g. from a snapshot. Nothing is charged.
+     * @param membership to restore.
+     */
+    public synchronized void restoreMembership(Membership membership) {
+        if (hasMembershipToSportsClub(membership.getSportsClub())) {
+            throw new IllegalArgumentException("Member has already gotten this membership");
+        }
+        addMembership(membership);
         membership.getSportsClub().addNewMember(this);
-        SportsClubLogger.getInstance().getLogger()
-                .log(Level.INFO, "Member has bought membership. Their budget is decreased by the membership price");
+    }
+
+    private void addMembership(Membership membership) {
+        boughtMemberships.add(membership);
+        int clubId = membership.getSportsClubId();
+        if (clubId >= membershipsByClubId.length) {
+            membershipsByClubId = Arrays.copyOf(membershipsByClubId, Math.max(clubId + 1,
+                    2 * membershipsByClubId.length));
+        }
+        membershipsByClubId[clubId] = membership;
     }
 
     /**
@@ -172,88 +333,116 @@ public class Member {
     /**
      * Work to get money. Method made for fun. Everyone deserves to buy membership.
      */
-    public void work() {
+    public synchronized void work() {
         budget += SALARY;
-        SportsClubLogger.getInstance().getLogger().log(Level.INFO, "Member worked and got 50 bucks");
+        SportsClubSystem.getInstance().getJournal().memberWorked(this);
+        SportsClubLogger.getInstance().log(LogEvent.MEMBER_WORKED, id);
     }
 
     /**
      * Method to register to the training session.
+     * The seat is reserved atomically before the budget is debited,
+     * so concurrent registrations can never overbook the session.
      */
-    public void registerToTrainingSession(TrainingSession trainingSession) {
+    public synchronized void registerToTrainingSession(TrainingSession trainingSession) {
         if (!hasMembership()) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Member does not have any membership");
+            SportsClubLogger.getInstance().log(LogEvent.MEMBERSHIP_MISSING, id);
             throw new NullPointerException("Member does not have any membership");
         }
-        if (!hasMembershipToSportsClub(trainingSession.getWhatSportsClubItBelongsTo())) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Member does not have a membership to the "
-                            + "same sports club as the training session");
+        Membership sessionMembership = membershipFor(trainingSession.getWhatSportsClubItBelongsTo());
+        if (sessionMembership == null) {
+            SportsClubLogger.getInstance().log(LogEvent.MEMBERSHIP_WRONG_CLUB, id, trainingSession.getId());
             throw new NullPointerException("Member does not have a membership to the same "
                     + "sports club as the training session");
         }
-        if (registeredSessions.contains(trainingSession)) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Member is already registered for this training session");
+        if (isRegistered(trainingSession)) {
+            SportsClubLogger.getInstance().log(LogEvent.ALREADY_REGISTERED, id, trainingSession.getId());
             throw new IllegalArgumentException("Member is already registered for this training session");
         }
         if (trainingSession.hasReachedMaxParticipants()) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Training session has reached maximum participants");
+            SportsClubLogger.getInstance().log(LogEvent.SESSION_FULL, id, trainingSession.getId());
             throw new IllegalStateException("Training session has reached maximum participants");
         }
 
         double sessionPrice = trainingSession.getPrice();
-        Membership sessionMembership = findMembershipForSportsClub(trainingSession.getWhatSportsClubItBelongsTo());
-        if (hasMembership() && hasMembershipToSportsClub(trainingSession.getWhatSportsClubItBelongsTo())) {
-            if (sessionMembership.getType().equals("standard")) {
-                TrainingSessionLevel sessionLevel = trainingSession.getTrainingSessionLevel();
-                if (sessionLevel == TrainingSessionLevel.ADVANCED) {
-                    SportsClubLogger.getInstance().getLogger()
-                            .log(Level.INFO, "Member with standard package can only participate in "
-                                    + "BEGINNER or INTERMEDIATE training sessions");
-                    throw new IllegalArgumentException("Member with standard package can only participate in "
-                            + "BEGINNER or INTERMEDIATE training sessions");
-                }
+        if (sessionMembership.getType().equals("standard")) {
+            TrainingSessionLevel sessionLevel = trainingSession.getTrainingSessionLevel();
+            if (sessionLevel == TrainingSessionLevel.ADVANCED) {
+                SportsClubLogger.getInstance().log(LogEvent.STANDARD_PACKAGE_LEVEL_DENIED, id);
+                throw new IllegalArgumentException("Member with standard package can only participate in "
+                        + "BEGINNER or INTERMEDIATE training sessions");
             }
         }
 
+        boolean usesFreeSession = false;
         if (trainingSession instanceof PersonalTrainingSession) {
-            if (hasMembership() && hasMembershipToSportsClub(trainingSession.getWhatSportsClubItBelongsTo())) {
-                if (isFirstSessionFree && sessionMembership.getType().equals("full")) {
-                    sessionPrice = 0.0;
-                    isFirstSessionFree = false;
-                } else if (!isFirstSessionFree && sessionMembership.getType().equals("full")) {
-                    sessionPrice = FULL_PRIVATE_SES_PRICE;
-                }
+            if (isFirstSessionFree && sessionMembership.getType().equals("full")) {
+                sessionPrice = 0.0;
+                usesFreeSession = true;
+            } else if (!isFirstSessionFree && sessionMembership.getType().equals("full")) {
+                sessionPrice = FULL_PRIVATE_SES_PRICE;
             }
         }
         if (budget < sessionPrice) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Insufficient funds to register to this session");
+            SportsClubLogger.getInstance().log(LogEvent.SESSION_INSUFFICIENT_FUNDS, id, trainingSession.getId());
             throw new IllegalArgumentException("Insufficient funds to register to this session");
         }
 
-        SportsClubLogger.getInstance().getLogger()
-                .log(Level.INFO, "Member has registered to a new training session");
+        if (!trainingSession.tryAddParticipant(this)) {
+            // Another member took the last seat after the check above
+            SportsClubLogger.getInstance().log(LogEvent.SESSION_FULL, id, trainingSession.getId());
+            throw new IllegalStateException("Training session has reached maximum participants");
+        }
+
+        SportsClubLogger.getInstance().log(LogEvent.MEMBER_REGISTERED, id, trainingSession.getId());
+        if (usesFreeSession) {
+            isFirstSessionFree = false;
+        }
         budget -= sessionPrice;
-        accumulateBonusPoints(trainingSession);
-        registeredSessions.add(trainingSession);
-        trainingSession.addParticipant(this);
+        spentThisMonth += sessionPrice;
+        accumulateBonusPoints(trainingSession, sessionMembership);
+        changeRegisteredSessions(() -> registeredSessions.add(trainingSession));
+        countSportType(trainingSession.getTrainingSportType(), 1);
+        countRegistration(trainingSession, 1);
+        SportsClubSystem.getInstance().getJournal().memberRegistered(this, trainingSession);
+    }
+
+    /**
+     * Register to the training session, or join its waitlist if the session is full.
+     * A waiting member is registered automatically when a seat becomes free.
+     * @param trainingSession to register to.
+     * @return true if registered, false if put on the waitlist.
+     */
+    public boolean registerOrJoinWaitlist(TrainingSession trainingSession) {
+        try {
+            registerToTrainingSession(trainingSession);
+            return true;
+        } catch (IllegalStateException e) {
+            trainingSession.joinWaitlist(this);
+            return false;
+        }
     }
 
     /**
      * Method to unregister from a training session.
+     * The session is updated after the member lock is released,
+     * because freeing the seat may register another member from the waitlist.
      */
     public void unregisterFromTrainingSession(TrainingSession trainingSession) {
-        if (!registeredSessions.contains(trainingSession)) {
-            throw new IllegalArgumentException("Member is not registered for this training session.");
+        if (trainingSession.isArchived()) {
+            throw new IllegalStateException("Archived training session cannot be changed.");
         }
+        synchronized (this) {
+            if (!changeRegisteredSessions(() -> registeredSessions.remove(trainingSession))) {
+                throw new IllegalArgumentException("Member is not registered for this training session.");
+            }
 
-        SportsClubLogger.getInstance().getLogger()
-                .log(Level.INFO, "Member has unregistered from a training session");
-        registeredSessions.remove(trainingSession);
+            SportsClubLogger.getInstance().log(LogEvent.MEMBER_UNREGISTERED, id, trainingSession.getId());
+            countSportType(trainingSession.getTrainingSportType(), -1);
+            countRegistration(trainingSession, -1);
+            // Recorded before the seat is freed, so a member taking the seat is always recorded after this
+            SportsClubSystem.getInstance().getJournal().memberUnregistered(this, trainingSession);
+        }
         trainingSession.removeParticipant(this);
     }
 
@@ -263,11 +452,11 @@ public class Member {
      * @return The membership for the sports club.
      */
     private Membership findMembershipForSportsClub(SportsClub sportsClub) {
-        return boughtMemberships.stream()
-                .filter(membership -> membership.getSportsClub() == sportsClub)
-                .findFirst()
-                .orElseThrow(() ->
-                        new IllegalArgumentException("Member does not have a membership for this sports club"));
+        Membership membership = membershipFor(sportsClub);
+        if (membership == null) {
+            throw new IllegalArgumentException("Member does not have a membership for this sports club");
+        }
+        return membership;
     }
 
     /**
@@ -277,43 +466,252 @@ public class Member {
      */
     public void accumulateBonusPoints(TrainingSession trainingSession) {
         Membership sessionMembership = findMembershipForSportsClub(trainingSession.getWhatSportsClubItBelongsTo());
+        accumulateBonusPoints(trainingSession, sessionMembership);
+    }
+
+    private void accumulateBonusPoints(TrainingSession trainingSession, Membership sessionMembership) {
+        int points = 0;
         if (sessionMembership.getType().equals("full")) {
             if (trainingSession instanceof PersonalTrainingSession) {
-                bonusPoints += FULL_PERSONAL_SES;
+                points = FULL_PERSONAL_SES;
             } else if (trainingSession instanceof GroupTrainingSession) {
-                bonusPoints += FULL_GROUP_SES;
+                points = FULL_GROUP_SES;
             } else if (trainingSession instanceof OnlineTrainingSession) {
-                bonusPoints += FULL_ONLINE_SES;
+                points = FULL_ONLINE_SES;
             }
         } else { // Regular membership
             if (trainingSession instanceof PersonalTrainingSession) {
-                bonusPoints += STANDARD_PERSONAL_SES;
+                points = STANDARD_PERSONAL_SES;
             } else if (trainingSession instanceof GroupTrainingSession) {
-                bonusPoints += STANDARD_GROUP_SES;
+                points = STANDARD_GROUP_SES;
             } else if (trainingSession instanceof OnlineTrainingSession) {
-                bonusPoints += STANDARD_ONLINE_SES;
+                points = STANDARD_ONLINE_SES;
             }
         }
+        addBonusPoints(points);
     }
 
     /**
      * Get all trainings to which member has registered to.
-     * @return list.
+     * The copy is taken after a change and shared until the next change, so it can be read while other
+     * threads register. Its lock is never held while taking another one, so clubs can read it under their lock.
+     * Archived sessions are kept by id only and read back from the archive, they come first.
+     * @return read-only list in registration order.
      */
     public List<TrainingSession> getRegisteredSessions() {
-        return registeredSessions;
+        while (true) {
+            int[] archived = archivedSessionIds;
+            List<TrainingSession> copy = getCurrentRegisteredSessions();
+            if (archived != archivedSessionIds) {
+                // A session was archived in between, it may be missing from both
+                continue;
+            }
+            if (archived.length == 0) {
+                return copy;
+            }
+            SessionArchive archive = SportsClubSystem.getInstance().getSessionArchive();
+            List<TrainingSession> sessions = new ArrayList<>(archived.length + copy.size());
+            for (int sessionId : archived) {
+                TrainingSession session = archive.find(sessionId);
+                if (session != null) {
+                    sessions.add(session);
+                }
+            }
+            sessions.addAll(copy);
+            return Collections.unmodifiableList(sessions);
+        }
+    }
+
+    /**
+     * Get registered sessions which have not been archived, without touching the archive.
+     * @return read-only list in registration order.
+     */
+    public List<TrainingSession> getCurrentRegisteredSessions() {
+        List<TrainingSession> copy = registeredSessionsCopy;
+        if (copy == null) {
+            synchronized (registeredSessionsLock) {
+                copy = List.copyOf(registeredSessions);
+                registeredSessionsCopy = copy;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Get ids of the registered sessions which were archived, see {@link SessionArchive}.
+     * @return copy of the ids in the order the sessions were archived.
+     */
+    public int[] getArchivedSessionIds() {
+        return archivedSessionIds.clone();
+    }
+
+    /**
+     * Get number of registered sessions, archived ones included, without touching the archive.
+     * @return number of sessions.
+     */
+    public int getRegisteredSessionCount() {
+        int[] archived;
+        int current;
+        do {
+            archived = archivedSessionIds;
+            current = getCurrentRegisteredSessions().size();
+        } while (archived != archivedSessionIds);
+        return archived.length + current;
+    }
+
+    /**
+     * Count registered sessions of the trainings which match, archived ones included.
+     * Archived sessions are counted by their training, they are not read back from the archive.
+     * @param matches training of a counted session.
+     * @return number of sessions.
+     */
+    public int countRegisteredSessions(Predicate<Training> matches) {
+        int[] archived;
+        List<TrainingSession> current;
+        do {
+            // A session archived in between may be missing from both
+            archived = archivedSessionIds;
+            current = getCurrentRegisteredSessions();
+        } while (archived != archivedSessionIds);
+        int count = 0;
+        SessionArchive archive = SportsClubSystem.getInstance().getSessionArchive();
+        for (int sessionId : archived) {
+            Training training = archive.getTraining(sessionId);
+            if (training != null && matches.test(training)) {
+                count++;
+            }
+        }
+        for (TrainingSession session : current) {
+            if (matches.test(session.getTraining())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isRegistered(TrainingSession trainingSession) {
+        synchronized (registeredSessionsLock) {
+            return registeredSessions.contains(trainingSession);
+        }
+    }
+
+    /**
+     * Keep only the id of a registered session which was archived, so the member does not keep it in memory.
+     * Only the lock of the registered sessions is taken, so the archive can call it under its own lock.
+     * @param trainingSession archived session.
+     */
+    public void archiveRegisteredSession(TrainingSession trainingSession) {
+        changeRegisteredSessions(() -> {
+            if (!registeredSessions.remove(trainingSession)) {
+                return false;
+            }
+            // Dropped before the ids are published, so a reader seeing the new ids never uses the old copy
+            registeredSessionsCopy = null;
+            int[] archived = Arrays.copyOf(archivedSessionIds, archivedSessionIds.length + 1);
+            archived[archived.length - 1] = trainingSession.getId();
+            archivedSessionIds = archived;
+            return true;
+        });
+    }
+
+    /**
+     * Change the registered sessions while no copy of them is being taken.
+     * Called with the member lock held, so reads under the member lock need no other lock.
+     */
+    private boolean changeRegisteredSessions(BooleanSupplier change) {
+        synchronized (registeredSessionsLock) {
+            boolean changed = change.getAsBoolean();
+            registeredSessionsCopy = null;
+            return changed;
+        }
+    }
+
+    /**
+     * Restore a registration made earlier, e.g. from a snapshot. Nothing is charged and the session is not changed.
+     * @param trainingSession to restore.
+     */
+    public synchronized void restoreRegisteredSession(TrainingSession trainingSession) {
+        if (changeRegisteredSessions(() -> registeredSessions.add(trainingSession))) {
+            countSportType(trainingSession.getTrainingSportType(), 1);
+            countRegistration(trainingSession, 1);
+        }
+    }
+
+    /**
+     * Restore a registration to a session which is in the archive, e.g. from a snapshot.
+     * Nothing is charged and the archive is not changed.
+     * @param sessionId id of the archived session.
+     * @throws IllegalArgumentException if the session is not archived.
+     */
+    public synchronized void restoreArchivedSession(int sessionId) {
+        Training training = SportsClubSystem.getInstance().getSessionArchive().getTraining(sessionId);
+        if (training == null) {
+            throw new IllegalArgumentException("Training session is not archived.");
+        }
+        changeRegisteredSessions(() -> {
+            int[] archived = Arrays.copyOf(archivedSessionIds, archivedSessionIds.length + 1);
+            archived[archived.length - 1] = sessionId;
+            archivedSessionIds = archived;
+            return true;
+        });
+        countSportType(training.getTrainingSportType(), 1);
+        countRegistration(training, 1);
+    }
+
+    /**
+     * Forget all registered sessions, e.g. when a new month starts.
+     * Archived sessions are counted by their training, they are not read back.
+     */
+    public synchronized void clearRegisteredSessions() {
+        SessionArchive archive = SportsClubSystem.getInstance().getSessionArchive();
+        for (int sessionId : archivedSessionIds) {
+            Training training = archive.getTraining(sessionId);
+            if (training != null) {
+                countRegistration(training, -1);
+            }
+        }
+        for (TrainingSession trainingSession : getCurrentRegisteredSessions()) {
+            countRegistration(trainingSession, -1);
+        }
+        changeRegisteredSessions(() -> {
+            registeredSessions.clear();
+            archivedSessionIds = new int[0];
+            return true;
+        });
+        Arrays.fill(sessionsPerSportType, 0);
+        participatedSports.clear();
+    }
+
+    /**
+     * Update number of registered sessions of the sports type.
+     * A sports type is participated while the member has at least one session of it.
+     * @param type of the session.
+     * @param change +1 on registration, -1 on unregistration.
+     */
+    private void countSportType(TrainingSportType type, int change) {
+        int before = sessionsPerSportType[type.ordinal()];
+        sessionsPerSportType[type.ordinal()] = before + change;
+        if (before == 0 && change > 0) {
+            participatedSports.add(type);
+        } else if (before + change == 0) {
+            participatedSports.remove(type);
+        }
     }
 
     /**
      * Get all sports type a member has participated.
-     * @return hashset.
+     * @return read-only list of distinct sports types.
      */
     public List<TrainingSportType> getParticipatedSports() {
-        participatedSports = registeredSessions.stream()
-                .map(TrainingSession::getTrainingSportType)
-                .distinct()
-                .collect(Collectors.toList());
-        return participatedSports;
+        return participatedSportsView;
+    }
+
+    /**
+     * Get number of distinct sports types a member has participated.
+     * @return number.
+     */
+    public int getParticipatedSportsCount() {
+        return participatedSports.size();
     }
 
     /**
@@ -353,7 +751,19 @@ public class Member {
      * @return list.
      */
     public List<Membership> getBoughtMemberships() {
-        return boughtMemberships;
+        return Collections.unmodifiableList(boughtMemberships);
+    }
+
+    /**
+     * Remove all bought memberships, e.g. when a new month starts.
+     */
+    public synchronized void clearBoughtMemberships() {
+        Repository<Membership> repository = SportsClubSystem.getInstance().getRepositories().memberships();
+        for (Membership membership : boughtMemberships) {
+            repository.delete(membership);
+        }
+        boughtMemberships.clear();
+        Arrays.fill(membershipsByClubId, null);
     }
 
     /**
@@ -361,10 +771,11 @@ public class Member {
      * @return A string containing the list of training sessions.
      */
     public String generateTrainingSessionsList() {
-        if (registeredSessions.isEmpty()) {
+        List<TrainingSession> sessions = getRegisteredSessions();
+        if (sessions.isEmpty()) {
             return "No training sessions registered";
         }
-        return registeredSessions.stream()
+        return sessions.stream()
                 .map(session -> session.getName() + " - " + session.getTime().toLocalTime().toString())
                 .collect(Collectors.joining("\n"));
     }
@@ -377,11 +788,7 @@ public class Member {
      * @throws IllegalArgumentException If member does not have a membership for the specified sports club.
      */
     public Membership getMembershipForSportsClub(SportsClub sportsClub) {
-        return boughtMemberships.stream()
-                .filter(membership -> membership.getSportsClub() == sportsClub)
-                .findFirst()
-                .orElseThrow(() ->
-                        new IllegalArgumentException("Member does not have a membership for this sports club"));
+        return findMembershipForSportsClub(sportsClub);
     }
 
     /**
@@ -413,9 +820,7 @@ public class Member {
      * @return A list of training sessions matching the specified level.
      */
     public List<TrainingSession> searchSessionsByLevel(TrainingSessionLevel level) {
-        return SportsClubSystem.getInstance().getTrainingSessions().stream()
-                .filter(session -> session.getTrainingSessionLevel() == level)
-                .collect(Collectors.toList());
+        return SportsClubSystem.getInstance().getSessionIndex().findByLevel(level);
     }
 
     /**
@@ -425,9 +830,7 @@ public class Member {
      * @return A list of training sessions within the specified time range.
      */
     public List<TrainingSession> searchSessionsByTime(LocalDateTime startTime, LocalDateTime endTime) {
-        return SportsClubSystem.getInstance().getTrainingSessions().stream()
-                .filter(session -> session.getTime().isAfter(startTime) && session.getTime().isBefore(endTime))
-                .collect(Collectors.toList());
+        return SportsClubSystem.getInstance().getSessionIndex().findByTimeRange(startTime, endTime);
     }
 
     /**
@@ -436,9 +839,7 @@ public class Member {
      * @return A list of training sessions matching the specified type.
      */
     public List<TrainingSession> searchSessionsByType(TrainingSportType type) {
-        return SportsClubSystem.getInstance().getTrainingSessions().stream()
-                .filter(session -> session.getTrainingSportType() == type)
-                .collect(Collectors.toList());
+        return SportsClubSystem.getInstance().getSessionIndex().findByType(type);
     }
 
     /**
@@ -447,9 +848,7 @@ public class Member {
      * @return A list of training sessions matching the specified criteria.
      */
     public List<TrainingSession> searchSessionsByDayOfWeek(DayOfWeek dayOfWeek) {
-        return SportsClubSystem.getInstance().getTrainingSessions().stream()
-                .filter(session -> session.getDayOfWeek() == dayOfWeek)
-                .collect(Collectors.toList());
+        return SportsClubSystem.getInstance().getSessionIndex().findByDayOfWeek(dayOfWeek);
     }
 
     /**
@@ -459,9 +858,7 @@ public class Member {
      * @return A list of training sessions within the specified date range.
      */
     public List<TrainingSession> searchSessionsByDateRange(LocalDate startDate, LocalDate endDate) {
-        return SportsClubSystem.getInstance().getTrainingSessions().stream()
-                .filter(session -> session.getDate().isAfter(startDate) && session.getDate().isBefore(endDate))
-                .collect(Collectors.toList());
+        return SportsClubSystem.getInstance().getSessionIndex().findByDateRange(startDate, endDate);
     }
 
     /**
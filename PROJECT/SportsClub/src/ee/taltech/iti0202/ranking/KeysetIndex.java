@@ -0,0 +1,219 @@
+package ee.taltech.iti0202.ranking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Items kept in order of a key taken from them, read page by page. Every page ends with a {@link Cursor}
+ * holding the position of its last item, and the next page starts right after that position
+ * (keyset pagination), so a page costs O(log n + page size) however far into the list it is.
+ * <p>
+ * Items with equal keys stay in the order they were added. Pages are read without locking: items added
+ * while a list is paged through show up in a later page if they sort after the cursor, and no other item
+ * is skipped or repeated because of them. An item whose key changes may move past the cursor.
+ * @param <T> type of items, compared by identity.
+ * @param <K> type of the key.
+ */
+public class KeysetIndex<T, K> {
+
+    private final Function<T, K> keyOf;
+    private final Comparator<K> order;
+    private final Map<T, Position<K>> positions = new IdentityHashMap<>();
+    private final NavigableMap<Position<K>, T> items;
+    private long nextSequence;
+
+    /**
+     * Place of an item: its key when it was last updated and the order it was added in.
+     */
+    private record Position<K>(K key, long sequence) {
+    }
+
+    /**
+     * Opaque position in a keyset index, after which the next page starts.
+     * A cursor only works with the index it came from.
+     */
+    public static final class Cursor {
+        private final KeysetIndex<?, ?> index;
+        private final Position<?> position;
+
+        private Cursor(KeysetIndex<?, ?> index, Position<?> position) {
+            this.index = index;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Items of one page and the cursor for the next one.
+     * @param <T> type of items.
+     */
+    public static final class Page<T> {
+        private final List<T> items;
+        private final Cursor nextCursor;
+
+        private Page(List<T> items, Cursor nextCursor) {
+            this.items = Collections.unmodifiableList(items);
+            this.nextCursor = nextCursor;
+        }
+
+        /**
+         * Get items of the page.
+         * @return read-only list of items in order.
+         */
+        public List<T> getItems() {
+            return items;
+        }
+
+        /**
+         * Get cursor for the next page.
+         * @return cursor, null if this is the last page.
+         */
+        public Cursor getNextCursor() {
+            return nextCursor;
+        }
+
+        /**
+         * Check if there may be a next page.
+         * @return boolean.
+         */
+        public boolean hasNext() {
+            return nextCursor != null;
+        }
+    }
+
+    /**
+     * Constructor for empty keyset index.
+     * @param keyOf function giving the current key of an item.
+     * @param order of the keys, the smallest key comes first.
+     */
+    public KeysetIndex(Function<T, K> keyOf, Comparator<K> order) {
+        this.keyOf = keyOf;
+        this.order = order;
+        Comparator<Position<K>> positionOrder = Comparator.comparing(Position::key, order);
+        this.items = new ConcurrentSkipListMap<>(positionOrder.thenComparingLong(Position::sequence));
+    }
+
+    /**
+     * Create index which keeps items in the order they were added.
+     * @param <T> type of items.
+     * @return empty keyset index.
+     */
+    public static <T> KeysetIndex<T, Boolean> inInsertionOrder() {
+        return new KeysetIndex<T, Boolean>(item -> Boolean.TRUE, Comparator.naturalOrder());
+    }
+
+    /**
+     * Add item after the items with an equal key. Adding an item which is already there updates it.
+     * @param item to add.
+     */
+    public synchronized void add(T item) {
+        if (positions.containsKey(item)) {
+            update(item);
+            return;
+        }
+        Position<K> position = new Position<>(keyOf.apply(item), nextSequence++);
+        positions.put(item, position);
+        items.put(position, item);
+    }
+
+    /**
+     * Move item to the position of its current key. Items which are not in the index are ignored.
+     * @param item which changed.
+     */
+    public synchronized void update(T item) {
+        Position<K> position = positions.get(item);
+        if (position == null) {
+            return;
+        }
+        K key = keyOf.apply(item);
+        if (order.compare(key, position.key()) == 0) {
+            return;
+        }
+        Position<K> moved = new Position<>(key, position.sequence());
+        items.remove(position);
+        positions.put(item, moved);
+        items.put(moved, item);
+    }
+
+    /**
+     * Remove item.
+     * @param item to remove.
+     * @return true if the item was in the index.
+     */
+    public synchronized boolean remove(T item) {
+        Position<K> position = positions.remove(item);
+        if (position == null) {
+            return false;
+        }
+        items.remove(position);
+        return true;
+    }
+
+    /**
+     * Remove all items.
+     */
+    public synchronized void clear() {
+        positions.clear();
+        items.clear();
+    }
+
+    /**
+     * Get size.
+     * @return number of items.
+     */
+    public synchronized int size() {
+        return positions.size();
+    }
+
+    /**
+     * Get page of items.
+     * @param after cursor of the previous page, null for the first page.
+     * @param limit maximum number of items in the page.
+     * @return page.
+     */
+    public Page<T> page(Cursor after, int limit) {
+        return page(after, limit, item -> true);
+    }
+
+    /**
+     * Get page of the items which match the filter. Items which do not match are skipped.
+     * @param after cursor of the previous page, null for the first page.
+     * @param limit maximum number of items in the page.
+     * @param filter which items to return.
+     * @return page.
+     * @throws IllegalArgumentException if the limit is not positive or the cursor is from another index.
+     */
+    @SuppressWarnings("unchecked")
+    public Page<T> page(Cursor after, int limit, Predicate<? super T> filter) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        NavigableMap<Position<K>, T> rest = items;
+        if (after != null) {
+            if (after.index != this) {
+                throw new IllegalArgumentException("Cursor is from another index.");
+            }
+            rest = items.tailMap((Position<K>) after.position, false);
+        }
+        List<T> page = new ArrayList<>(Math.min(limit, 64));
+        Position<K> last = null;
+        for (Map.Entry<Position<K>, T> entry : rest.entrySet()) {
+            if (page.size() == limit) {
+                return new Page<>(page, new Cursor(this, Objects.requireNonNull(last)));
+            }
+            if (filter.test(entry.getValue())) {
+                page.add(entry.getValue());
+                last = entry.getKey();
+            }
+        }
+        return new Page<>(page, null);
+    }
+}
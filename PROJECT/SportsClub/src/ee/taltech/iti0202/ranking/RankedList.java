@@ -0,0 +1,304 @@
+package ee.taltech.iti0202.ranking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Items kept in order of a key taken from them, in an order statistics tree (a treap with subtree sizes).
+ * Items with equal keys stay in the order they were added. The key of an item is remembered, so when the
+ * item changes only {@link #update(Object)} is needed to move it, which costs O(log n).
+ * Reading the first k items costs O(log n + k) and finding the rank of an item O(log n).
+ * @param <T> type of ranked items, compared by identity.
+ * @param <K> type of the key.
+ */
+public class RankedList<T, K> {
+
+    private final Function<T, K> keyOf;
+    private final Comparator<K> order;
+    private final Runnable onChange;
+    private final Map<T, Node<T, K>> nodes = new IdentityHashMap<>();
+    private final Random priorities = new Random();
+    private Node<T, K> root;
+    private long nextSequence;
+
+    /**
+     * Node of the tree.
+     */
+    private static final class Node<T, K> {
+        private final T item;
+        private K key;
+        private final long sequence;
+        private final int priority;
+        private int size = 1;
+        private Node<T, K> left;
+        private Node<T, K> right;
+
+        Node(T item, K key, long sequence, int priority) {
+            this.item = item;
+            this.key = key;
+            this.sequence = sequence;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Tree split in two: the nodes before a key and the nodes after it.
+     */
+    private record Split<T, K>(Node<T, K> before, Node<T, K> after) {
+    }
+
+    /**
+     * Constructor for empty ranked list.
+     * @param keyOf function giving the current key of an item.
+     * @param order of the keys, the smallest key is ranked first.
+     */
+    public RankedList(Function<T, K> keyOf, Comparator<K> order) {
+        this(keyOf, order, () -> { });
+    }
+
+    /**
+     * Constructor for empty ranked list which reports changes of its items.
+     * @param keyOf function giving the current key of an item.
+     * @param order of the keys, the smallest key is ranked first.
+     * @param onChange run after every add, update and remove, also when the rank did not change.
+     */
+    public RankedList(Function<T, K> keyOf, Comparator<K> order, Runnable onChange) {
+        this.keyOf = keyOf;
+        this.order = order;
+        this.onChange = onChange;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <T, K> Node<T, K> resize(Node<T, K> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private int compare(K key, long sequence, Node<T, K> node) {
+        int result = order.compare(key, node.key);
+        return result != 0 ? result : Long.compare(sequence, node.sequence);
+    }
+
+    /**
+     * Add item after the items with an equal key. Adding an item which is already ranked updates it.
+     * @param item to add.
+     */
+    public synchronized void add(T item) {
+        if (nodes.containsKey(item)) {
+            update(item);
+            return;
+        }
+        Node<T, K> node = new Node<>(item, keyOf.apply(item), nextSequence++, priorities.nextInt());
+        nodes.put(item, node);
+        root = insert(root, node);
+        onChange.run();
+    }
+
+    /**
+     * Move item to the position of its current key. Items which are not ranked are ignored.
+     * @param item which changed.
+     */
+    public synchronized void update(T item) {
+        Node<T, K> node = nodes.get(item);
+        if (node == null) {
+            return;
+        }
+        K key = keyOf.apply(item);
+        if (order.compare(key, node.key) != 0) {
+            root = delete(root, node.key, node.sequence);
+            node.key = key;
+            node.size = 1;
+            node.left = null;
+            node.right = null;
+            root = insert(root, node);
+        }
+        onChange.run();
+    }
+
+    /**
+     * Remove item.
+     * @param item to remove.
+     * @return true if the item was ranked.
+     */
+    public synchronized boolean remove(T item) {
+        Node<T, K> node = nodes.remove(item);
+        if (node == null) {
+            return false;
+        }
+        root = delete(root, node.key, node.sequence);
+        onChange.run();
+        return true;
+    }
+
+    private Node<T, K> insert(Node<T, K> tree, Node<T, K> node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            Split<T, K> parts = split(tree, node.key, node.sequence);
+            node.left = parts.before();
+            node.right = parts.after();
+            return resize(node);
+        }
+        if (compare(node.key, node.sequence, tree) < 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        return resize(tree);
+    }
+
+    /**
+     * Split tree into nodes before the key and nodes after it.
+     */
+    private Split<T, K> split(Node<T, K> tree, K key, long sequence) {
+        if (tree == null) {
+            return new Split<>(null, null);
+        }
+        if (compare(key, sequence, tree) < 0) {
+            Split<T, K> parts = split(tree.left, key, sequence);
+            tree.left = parts.after();
+            return new Split<>(parts.before(), resize(tree));
+        }
+        Split<T, K> parts = split(tree.right, key, sequence);
+        tree.right = parts.before();
+        return new Split<>(resize(tree), parts.after());
+    }
+
+    private Node<T, K> merge(Node<T, K> left, Node<T, K> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return resize(left);
+        }
+        right.left = merge(left, right.left);
+        return resize(right);
+    }
+
+    private Node<T, K> delete(Node<T, K> tree, K key, long sequence) {
+        if (tree == null) {
+            return null;
+        }
+        int result = compare(key, sequence, tree);
+        if (result == 0) {
+            return merge(tree.left, tree.right);
+        }
+        if (result < 0) {
+            tree.left = delete(tree.left, key, sequence);
+        } else {
+            tree.right = delete(tree.right, key, sequence);
+        }
+        return resize(tree);
+    }
+
+    /**
+     * Get size.
+     * @return number of ranked items.
+     */
+    public synchronized int size() {
+        return size(root);
+    }
+
+    /**
+     * Check if the item is ranked.
+     * @param item to check.
+     * @return boolean.
+     */
+    public synchronized boolean contains(T item) {
+        return nodes.containsKey(item);
+    }
+
+    /**
+     * Get rank of the item.
+     * @param item to find.
+     * @return 0 for the first item, -1 if the item is not ranked.
+     */
+    public synchronized int rankOf(T item) {
+        Node<T, K> node = nodes.get(item);
+        if (node == null) {
+            return -1;
+        }
+        int rank = 0;
+        Node<T, K> tree = root;
+        while (tree != null) {
+            int result = compare(node.key, node.sequence, tree);
+            if (result == 0) {
+                return rank + size(tree.left);
+            }
+            if (result < 0) {
+                tree = tree.left;
+            } else {
+                rank += size(tree.left) + 1;
+                tree = tree.right;
+            }
+        }
+        throw new IllegalStateException("Ranked item is missing from the tree.");
+    }
+
+    /**
+     * Get item at the rank.
+     * @param rank 0 for the first item.
+     * @return item.
+     * @throws IndexOutOfBoundsException if there is no such rank.
+     */
+    public synchronized T get(int rank) {
+        if (rank < 0 || rank >= size(root)) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " is out of bounds.");
+        }
+        Node<T, K> tree = root;
+        while (true) {
+            int leftSize = size(tree.left);
+            if (rank < leftSize) {
+                tree = tree.left;
+            } else if (rank == leftSize) {
+                return tree.item;
+            } else {
+                rank -= leftSize + 1;
+                tree = tree.right;
+            }
+        }
+    }
+
+    /**
+     * Get the first items.
+     * @param count maximum number of items.
+     * @return up to count items in rank order.
+     */
+    public synchronized List<T> top(int count) {
+        List<T> items = new ArrayList<>(Math.max(0, Math.min(count, size(root))));
+        collect(root, count, items);
+        return items;
+    }
+
+    private void collect(Node<T, K> tree, int count, List<T> items) {
+        if (tree == null || items.size() >= count) {
+            return;
+        }
+        collect(tree.left, count, items);
+        if (items.size() < count) {
+            items.add(tree.item);
+            collect(tree.right, count, items);
+        }
+    }
+
+    /**
+     * Get all items.
+     * @return items in rank order.
+     */
+    public synchronized List<T> toList() {
+        return top(Integer.MAX_VALUE);
+    }
+}
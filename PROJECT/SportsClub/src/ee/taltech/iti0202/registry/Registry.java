@@ -0,0 +1,302 @@
+package ee.taltech.iti0202.registry;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Registry of objects keyed by their id, kept in insertion order.
+ * Works as a list, but adding, contains and lookup by id are O(1), and removing, get and indexOf O(log n).
+ * Adding an object which is already registered does nothing.
+ * <p>
+ * Objects are kept in slots in insertion order, removed ones leave an empty slot behind, and a Fenwick tree
+ * over the slots counts the objects before every slot. Empty slots are dropped once they are at least half
+ * of all slots. Reading never changes the registry, but it is not synchronized: a registry shared between
+ * threads must be guarded by its owner.
+ * @param <T> type of registered objects.
+ */
+public class Registry<T> extends AbstractList<T> {
+
+    private static final int INITIAL_SLOTS = 8;
+    private static final int MIN_COMPACT_SLOTS = 32;
+
+    private final ToIntFunction<T> idOf;
+    private final Map<Integer, Integer> slotsById;
+    private Object[] slots = new Object[INITIAL_SLOTS];
+    private int[] counts = new int[INITIAL_SLOTS + 1];
+    private int usedSlots;
+    private int size;
+
+    /**
+     * Constructor for empty registry.
+     * @param idOf function giving the unique id of an object.
+     */
+    public Registry(ToIntFunction<T> idOf) {
+        this.idOf = idOf;
+        this.slotsById = new HashMap<>();
+    }
+
+    /**
+     * Called after an object has been added.
+     * @param item added object.
+     */
+    protected void added(T item) {
+    }
+
+    /**
+     * Called after an object has been removed.
+     * @param item removed object.
+     */
+    protected void removed(T item) {
+    }
+
+    /**
+     * Called after the registry has been cleared.
+     */
+    protected void cleared() {
+    }
+
+    /**
+     * Find object by its id.
+     * @param id of the object.
+     * @return object or null if not registered.
+     */
+    public T findById(int id) {
+        Integer slot = slotsById.get(id);
+        return slot == null ? null : slotAt(slot);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T slotAt(int slot) {
+        return (T) slots[slot];
+    }
+
+    @Override
+    public boolean add(T item) {
+        int id = idOf.applyAsInt(item);
+        if (slotsById.containsKey(id)) {
+            return false;
+        }
+        if (usedSlots == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+            rebuildCounts();
+        }
+        slots[usedSlots] = item;
+        slotsById.put(id, usedSlots);
+        count(usedSlots, 1);
+        usedSlots++;
+        size++;
+        modCount++;
+        added(item);
+        return true;
+    }
+
+    @Override
+    public void add(int position, T item) {
+        if (position != size()) {
+            throw new UnsupportedOperationException("Registry only supports adding to the end.");
+        }
+        add(item);
+    }
+
+    @Override
+    public T get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Index " + position + " out of bounds for length " + size);
+        }
+        // Walk down the Fenwick tree to the slot holding the (position + 1)th object
+        int slot = 0;
+        int remaining = position + 1;
+        for (int step = Integer.highestOneBit(slots.length); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= slots.length && counts[next] < remaining) {
+                slot = next;
+                remaining -= counts[next];
+            }
+        }
+        return slotAt(slot);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return slotOf(object) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int slotOf(Object object) {
+        if (object == null) {
+            return -1;
+        }
+        Integer slot;
+        try {
+            slot = slotsById.get(idOf.applyAsInt((T) object));
+        } catch (ClassCastException e) {
+            return -1;
+        }
+        return slot != null && slots[slot] == object ? slot : -1;
+    }
+
+    @Override
+    public int indexOf(Object object) {
+        int slot = slotOf(object);
+        return slot < 0 ? -1 : countBefore(slot);
+    }
+
+    @Override
+    public int lastIndexOf(Object object) {
+        return indexOf(object);
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        int slot = slotOf(object);
+        if (slot < 0) {
+            return false;
+        }
+        removeSlot(slot);
+        compactIfSparse();
+        return true;
+    }
+
+    private void removeSlot(int slot) {
+        T item = slotAt(slot);
+        slots[slot] = null;
+        slotsById.remove(idOf.applyAsInt(item));
+        count(slot, -1);
+        size--;
+        modCount++;
+        removed(item);
+    }
+
+    @Override
+    public T remove(int position) {
+        T item = get(position);
+        remove(item);
+        return item;
+    }
+
+    @Override
+    public void clear() {
+        slotsById.clear();
+        slots = new Object[INITIAL_SLOTS];
+        counts = new int[INITIAL_SLOTS + 1];
+        usedSlots = 0;
+        size = 0;
+        modCount++;
+        cleared();
+    }
+
+    /**
+     * Add to the count of objects at the slot.
+     */
+    private void count(int slot, int change) {
+        for (int i = slot + 1; i <= slots.length; i += i & -i) {
+            counts[i] += change;
+        }
+    }
+
+    /**
+     * Count objects in the slots before the given one.
+     */
+    private int countBefore(int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += counts[i];
+        }
+        return count;
+    }
+
+    private void rebuildCounts() {
+        counts = new int[slots.length + 1];
+        for (int slot = 0; slot < usedSlots; slot++) {
+            if (slots[slot] != null) {
+                counts[slot + 1]++;
+            }
+        }
+        for (int i = 1; i <= slots.length; i++) {
+            int parent = i + (i & -i);
+            if (parent <= slots.length) {
+                counts[parent] += counts[i];
+            }
+        }
+    }
+
+    /**
+     * Drop the empty slots once they are at least half of the used slots.
+     */
+    private void compactIfSparse() {
+        if (usedSlots < MIN_COMPACT_SLOTS || size * 2 > usedSlots) {
+            return;
+        }
+        int kept = 0;
+        for (int slot = 0; slot < usedSlots; slot++) {
+            if (slots[slot] != null) {
+                T item = slotAt(slot);
+                slots[kept] = item;
+                slotsById.put(idOf.applyAsInt(item), kept);
+                kept++;
+            }
+        }
+        Arrays.fill(slots, kept, usedSlots, null);
+        usedSlots = kept;
+        rebuildCounts();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int next = skipEmpty(0);
+            private int current = -1;
+            private int expectedModCount = modCount;
+
+            private int skipEmpty(int slot) {
+                while (slot < usedSlots && slots[slot] == null) {
+                    slot++;
+                }
+                return slot;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < usedSlots;
+            }
+
+            @Override
+            public T next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= usedSlots) {
+                    throw new NoSuchElementException();
+                }
+                current = next;
+                next = skipEmpty(next + 1);
+                return slotAt(current);
+            }
+
+            @Override
+            public void remove() {
+                if (current < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                // Slots are not compacted while iterating, so the iterator keeps its place
+                removeSlot(current);
+                current = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+}
@@ -0,0 +1,303 @@
+package ee.taltech.iti0202.repository;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * B+tree of long keys and int values stored in pages of the {@link BufferPool}.
+ * Leaves are linked left to right for range scans. Removing does not merge nodes; emptied leaves stay
+ * in the tree and are reused by later inserts into their key range.
+ * <p>
+ * Node layout: {@code [int type][int count][int next leaf]}, then {@code [long key][int value]} entries in leaves;
+ * internal nodes have {@code [int first child]} followed by {@code [long key][int child]} entries,
+ * where the child holds keys greater than or equal to its key.
+ */
+final class BPlusTree {
+
+    static final int NONE = -1;
+    private static final int LEAF = 1;
+    private static final int INTERNAL = 2;
+    private static final int HEADER = Integer.BYTES * 3;
+    private static final int ENTRY = Long.BYTES + Integer.BYTES;
+    static final int MAX_LEAF_ENTRIES = (Page.SIZE - HEADER) / ENTRY;
+    static final int MAX_INTERNAL_ENTRIES = (Page.SIZE - HEADER - Integer.BYTES) / ENTRY;
+
+    private final BufferPool pool;
+    private final IntSupplier allocator;
+    private int root;
+
+    /**
+     * Node read out of its page.
+     */
+    private static final class Node {
+        int page;
+        boolean leaf;
+        int count;
+        int next = NONE;
+        long[] keys;
+        int[] values;
+
+        Node(int capacity) {
+            keys = new long[capacity + 1];
+            values = new int[capacity + 2];
+        }
+    }
+
+    /**
+     * Result of a split: first key of the new right node and its page.
+     */
+    private record Split(long key, int page) {
+    }
+
+    /**
+     * Constructor for tree.
+     * @param pool buffer pool.
+     * @param allocator gives number of a new empty page.
+     * @param root root page, NONE for a new tree.
+     */
+    BPlusTree(BufferPool pool, IntSupplier allocator, int root) {
+        this.pool = pool;
+        this.allocator = allocator;
+        this.root = root;
+        if (root == NONE) {
+            Node node = new Node(MAX_LEAF_ENTRIES);
+            node.page = allocator.getAsInt();
+            node.leaf = true;
+            write(node);
+            this.root = node.page;
+        }
+    }
+
+    int getRoot() {
+        return root;
+    }
+
+    private Node read(int page) {
+        Page pinned = pool.pin(page);
+        try {
+            ByteBuffer data = pinned.getData();
+            boolean leaf = data.getInt(0) == LEAF;
+            Node node = new Node(leaf ? MAX_LEAF_ENTRIES : MAX_INTERNAL_ENTRIES);
+            node.page = page;
+            node.leaf = leaf;
+            node.count = data.getInt(Integer.BYTES);
+            node.next = data.getInt(Integer.BYTES * 2);
+            if (leaf) {
+                for (int i = 0; i < node.count; i++) {
+                    node.keys[i] = data.getLong(HEADER + i * ENTRY);
+                    node.values[i] = data.getInt(HEADER + i * ENTRY + Long.BYTES);
+                }
+            } else {
+                node.values[0] = data.getInt(HEADER);
+                for (int i = 0; i < node.count; i++) {
+                    node.keys[i] = data.getLong(HEADER + Integer.BYTES + i * ENTRY);
+                    node.values[i + 1] = data.getInt(HEADER + Integer.BYTES + i * ENTRY + Long.BYTES);
+                }
+            }
+            return node;
+        } finally {
+            pool.unpin(pinned);
+        }
+    }
+
+    private void write(Node node) {
+        Page pinned = pool.pin(node.page);
+        try {
+            ByteBuffer data = pinned.getData();
+            data.putInt(0, node.leaf ? LEAF : INTERNAL);
+            data.putInt(Integer.BYTES, node.count);
+            data.putInt(Integer.BYTES * 2, node.next);
+            if (node.leaf) {
+                for (int i = 0; i < node.count; i++) {
+                    data.putLong(HEADER + i * ENTRY, node.keys[i]);
+                    data.putInt(HEADER + i * ENTRY + Long.BYTES, node.values[i]);
+                }
+            } else {
+                data.putInt(HEADER, node.values[0]);
+                for (int i = 0; i < node.count; i++) {
+                    data.putLong(HEADER + Integer.BYTES + i * ENTRY, node.keys[i]);
+                    data.putInt(HEADER + Integer.BYTES + i * ENTRY + Long.BYTES, node.values[i + 1]);
+                }
+            }
+            pinned.markDirty();
+        } finally {
+            pool.unpin(pinned);
+        }
+    }
+
+    /**
+     * Index of the first key greater than the key.
+     */
+    private static int upperBound(Node node, long key) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (node.keys[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(Node node, long key) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (node.keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private Node findLeaf(long key) {
+        Node node = read(root);
+        while (!node.leaf) {
+            node = read(node.values[upperBound(node, key)]);
+        }
+        return node;
+    }
+
+    /**
+     * Find value of the key.
+     * @param key to find.
+     * @return value or NONE.
+     */
+    int get(long key) {
+        Node leaf = findLeaf(key);
+        int position = lowerBound(leaf, key);
+        return position < leaf.count && leaf.keys[position] == key ? leaf.values[position] : NONE;
+    }
+
+    /**
+     * Put value for the key.
+     * @param key to put.
+     * @param value to put.
+     * @return previous value or NONE.
+     */
+    int put(long key, int value) {
+        int[] previous = {NONE};
+        Split split = insert(root, key, value, previous);
+        if (split != null) {
+            Node newRoot = new Node(MAX_INTERNAL_ENTRIES);
+            newRoot.page = allocator.getAsInt();
+            newRoot.count = 1;
+            newRoot.values[0] = root;
+            newRoot.keys[0] = split.key();
+            newRoot.values[1] = split.page();
+            write(newRoot);
+            root = newRoot.page;
+        }
+        return previous[0];
+    }
+
+    private Split insert(int page, long key, int value, int[] previous) {
+        Node node = read(page);
+        if (node.leaf) {
+            int position = lowerBound(node, key);
+            if (position < node.count && node.keys[position] == key) {
+                previous[0] = node.values[position];
+                node.values[position] = value;
+                write(node);
+                return null;
+            }
+            System.arraycopy(node.keys, position, node.keys, position + 1, node.count - position);
+            System.arraycopy(node.values, position, node.values, position + 1, node.count - position);
+            node.keys[position] = key;
+            node.values[position] = value;
+            node.count++;
+            if (node.count <= MAX_LEAF_ENTRIES) {
+                write(node);
+                return null;
+            }
+            Node right = new Node(MAX_LEAF_ENTRIES);
+            right.page = allocator.getAsInt();
+            right.leaf = true;
+            int half = node.count / 2;
+            right.count = node.count - half;
+            System.arraycopy(node.keys, half, right.keys, 0, right.count);
+            System.arraycopy(node.values, half, right.values, 0, right.count);
+            node.count = half;
+            right.next = node.next;
+            node.next = right.page;
+            write(right);
+            write(node);
+            return new Split(right.keys[0], right.page);
+        }
+        int child = upperBound(node, key);
+        Split split = insert(node.values[child], key, value, previous);
+        if (split == null) {
+            return null;
+        }
+        System.arraycopy(node.keys, child, node.keys, child + 1, node.count - child);
+        System.arraycopy(node.values, child + 1, node.values, child + 2, node.count - child);
+        node.keys[child] = split.key();
+        node.values[child + 1] = split.page();
+        node.count++;
+        if (node.count <= MAX_INTERNAL_ENTRIES) {
+            write(node);
+            return null;
+        }
+        Node right = new Node(MAX_INTERNAL_ENTRIES);
+        right.page = allocator.getAsInt();
+        int half = node.count / 2;
+        long promoted = node.keys[half];
+        right.count = node.count - half - 1;
+        System.arraycopy(node.keys, half + 1, right.keys, 0, right.count);
+        System.arraycopy(node.values, half + 1, right.values, 0, right.count + 1);
+        node.count = half;
+        write(right);
+        write(node);
+        return new Split(promoted, right.page);
+    }
+
+    /**
+     * Remove key.
+     * @param key to remove.
+     * @return removed value or NONE.
+     */
+    int remove(long key) {
+        Node leaf = findLeaf(key);
+        int position = lowerBound(leaf, key);
+        if (position >= leaf.count || leaf.keys[position] != key) {
+            return NONE;
+        }
+        int value = leaf.values[position];
+        System.arraycopy(leaf.keys, position + 1, leaf.keys, position, leaf.count - position - 1);
+        System.arraycopy(leaf.values, position + 1, leaf.values, position, leaf.count - position - 1);
+        leaf.count--;
+        write(leaf);
+        return value;
+    }
+
+    /**
+     * Visit keys from first (inclusive) to last (exclusive) in order.
+     * @param first smallest key.
+     * @param last key after the largest one.
+     * @param action called with every key.
+     */
+    void scan(long first, long last, LongConsumer action) {
+        Node leaf = findLeaf(first);
+        int position = lowerBound(leaf, first);
+        while (true) {
+            for (; position < leaf.count; position++) {
+                if (leaf.keys[position] >= last) {
+                    return;
+                }
+                action.accept(leaf.keys[position]);
+            }
+            if (leaf.next == NONE) {
+                return;
+            }
+            leaf = read(leaf.next);
+            position = 0;
+        }
+    }
+}
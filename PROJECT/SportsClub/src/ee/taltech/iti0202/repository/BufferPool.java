@@ -0,0 +1,143 @@
+package ee.taltech.iti0202.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fixed number of pages of the store file kept in memory. When a page is needed and the pool is full,
+ * the least recently used page which is not pinned is written back if changed and dropped.
+ * Not thread safe, the {@link FileStore} lock guards it.
+ */
+final class BufferPool {
+
+    private final FileChannel channel;
+    private final int capacity;
+    private final Map<Integer, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private int pageCount;
+    private long hits;
+    private long misses;
+
+    BufferPool(FileChannel channel, int capacity) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.pageCount = (int) (channel.size() / Page.SIZE);
+    }
+
+    /**
+     * Pin page, reading it from the file if it is not in the pool. Every pin needs an {@link #unpin(Page)}.
+     * @param number page number.
+     * @return pinned page.
+     */
+    Page pin(int number) {
+        if (number < 0 || number >= pageCount) {
+            throw new IllegalStateException("Page " + number + " is outside of the store.");
+        }
+        Page page = pages.get(number);
+        if (page == null) {
+            misses++;
+            makeRoom();
+            ByteBuffer data = ByteBuffer.allocate(Page.SIZE);
+            try {
+                long position = (long) number * Page.SIZE;
+                while (data.hasRemaining()) {
+                    int read = channel.read(data, position + data.position());
+                    if (read < 0) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            page = new Page(number, data.clear());
+            pages.put(number, page);
+        } else {
+            hits++;
+        }
+        page.pin();
+        return page;
+    }
+
+    /**
+     * Append an empty page to the file and pin it.
+     * @return pinned page.
+     */
+    Page pinNew() {
+        makeRoom();
+        Page page = new Page(pageCount++, ByteBuffer.allocate(Page.SIZE));
+        page.markDirty();
+        pages.put(page.getNumber(), page);
+        page.pin();
+        return page;
+    }
+
+    void unpin(Page page) {
+        page.unpin();
+    }
+
+    private void makeRoom() {
+        if (pages.size() < capacity) {
+            return;
+        }
+        Iterator<Page> leastRecentlyUsed = pages.values().iterator();
+        while (leastRecentlyUsed.hasNext()) {
+            Page page = leastRecentlyUsed.next();
+            if (!page.isPinned()) {
+                write(page);
+                leastRecentlyUsed.remove();
+                return;
+            }
+        }
+        // Every page is pinned, grow for now; unpinned pages are dropped again later
+    }
+
+    private void write(Page page) {
+        if (!page.isDirty()) {
+            return;
+        }
+        ByteBuffer data = page.getData().duplicate().clear();
+        try {
+            long position = (long) page.getNumber() * Page.SIZE;
+            while (data.hasRemaining()) {
+                channel.write(data, position + data.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        page.clean();
+    }
+
+    /**
+     * Write all changed pages and force them to disk.
+     */
+    void flush() {
+        for (Page page : pages.values()) {
+            write(page);
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int getPageCount() {
+        return pageCount;
+    }
+
+    int getCachedPageCount() {
+        return pages.size();
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,701 @@
+package ee.taltech.iti0202.repository;
+
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.OnlineTrainingSession;
+import ee.taltech.iti0202.training.PersonalTrainingSession;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+
+/**
+ * Repositories stored in a single file of fixed size pages. Page 0 is the header, a {@link BPlusTree} maps
+ * kind and id of every entity to the first page of its record, and records longer than a page continue on
+ * further pages. Pages of removed records are reused. Pages are read through a {@link BufferPool}.
+ * <p>
+ * Entities refer to each other by id. Saving an entity also saves the entities it refers to which are not
+ * stored yet. Loading an entity loads everything it refers to, since domain objects hold direct references.
+ * References are resolved eagerly on purpose: a loaded club brings its members, trainers and sessions along,
+ * so the connected part of the data has to fit in memory. Only records nobody refers to stay on disk.
+ * Loaded objects are restored without registering them anywhere: they are not added to the sports club system,
+ * the session index or the journal, only linked to each other. Set the store as the repositories of the system
+ * to find them there. While an object is in use, finding it again returns the same object.
+ * Call {@link #flush()} or {@link #close()} to make changes durable.
+ */
+public final class FileStore implements Repositories, Closeable {
+
+    /**
+     * Default number of pages kept in memory.
+     */
+    public static final int DEFAULT_POOL_PAGES = 64;
+    private static final int MAGIC = 0x53435354;
+    private static final int VERSION = 3;
+    private static final int NONE = -1;
+    private static final int CLUB = 0;
+    private static final int MEMBER = 1;
+    private static final int TRAINER = 2;
+    private static final int TRAINING = 3;
+    private static final int SESSION = 4;
+    private static final int MEMBERSHIP = 5;
+    private static final int KINDS = 6;
+    private static final int ROOT_POSITION = Integer.BYTES * 2;
+    private static final int FREE_POSITION = Integer.BYTES * 3;
+    private static final int NEXT_ID_POSITION = Integer.BYTES * 4;
+    private static final int CHAIN_HEADER = Integer.BYTES * 2;
+    private static final int CHAIN_DATA = Page.SIZE - CHAIN_HEADER;
+    private static final byte KIND_SESSION = 0;
+    private static final byte KIND_GROUP = 1;
+    private static final byte KIND_PERSONAL = 2;
+    private static final byte KIND_ONLINE = 3;
+    private static final byte MEMBERSHIP_FULL = 0;
+    private static final byte MEMBERSHIP_STANDARD = 1;
+    private static final TrainingSportType[] SPORT_TYPES = TrainingSportType.values();
+    private static final TrainingSessionLevel[] LEVELS = TrainingSessionLevel.values();
+
+    private final FileChannel channel;
+    private final BufferPool pool;
+    private final BPlusTree tree;
+    private final int[] nextIds = new int[KINDS];
+    private int freePage;
+    private final List<Map<Integer, WeakReference<Object>>> loaded = new ArrayList<>();
+    private final List<Map<Object, Integer>> ids = new ArrayList<>();
+    private final Queue<Object> unsaved = new ArrayDeque<>();
+    private final Queue<Runnable> unlinked = new ArrayDeque<>();
+    private int loading;
+    private final Store<SportsClub> clubs = new Store<>(CLUB, SportsClub.class);
+    private final Store<Member> members = new Store<>(MEMBER, Member.class);
+    private final Store<Trainer> trainers = new Store<>(TRAINER, Trainer.class);
+    private final Store<Training> trainings = new Store<>(TRAINING, Training.class);
+    private final Store<TrainingSession> sessions = new Store<>(SESSION, TrainingSession.class);
+    private final Store<Membership> memberships = new Store<>(MEMBERSHIP, Membership.class);
+
+    /**
+     * Repository of one kind of entities in the file.
+     */
+    private final class Store<T> implements Repository<T> {
+
+        private final int kind;
+        private final Class<T> type;
+
+        Store(int kind, Class<T> type) {
+            this.kind = kind;
+            this.type = type;
+        }
+
+        @Override
+        public int save(T entity) {
+            synchronized (FileStore.this) {
+                int id = FileStore.this.save(kind, entity);
+                saveReferenced();
+                return id;
+            }
+        }
+
+        @Override
+        public T findById(int id) {
+            synchronized (FileStore.this) {
+                return type.cast(load(kind, id));
+            }
+        }
+
+        @Override
+        public int idOf(T entity) {
+            synchronized (FileStore.this) {
+                return ids.get(kind).getOrDefault(entity, NONE);
+            }
+        }
+
+        @Override
+        public boolean delete(T entity) {
+            synchronized (FileStore.this) {
+                Integer id = ids.get(kind).remove(entity);
+                if (id == null) {
+                    return false;
+                }
+                loaded.get(kind).remove(id);
+                freeChain(tree.remove(key(kind, id)));
+                return true;
+            }
+        }
+
+        @Override
+        public int count() {
+            synchronized (FileStore.this) {
+                int[] count = {0};
+                tree.scan(key(kind, 0), key(kind + 1, 0), key -> count[0]++);
+                return count[0];
+            }
+        }
+
+        @Override
+        public List<T> findAll() {
+            synchronized (FileStore.this) {
+                List<Integer> stored = new ArrayList<>();
+                tree.scan(key(kind, 0), key(kind + 1, 0), key -> stored.add((int) key));
+                List<T> all = new ArrayList<>(stored.size());
+                for (int id : stored) {
+                    all.add(findById(id));
+                }
+                return all;
+            }
+        }
+    }
+
+    private FileStore(FileChannel channel, int poolPages) throws IOException {
+        this.channel = channel;
+        this.pool = new BufferPool(channel, poolPages);
+        for (int i = 0; i < KINDS; i++) {
+            loaded.add(new HashMap<>());
+            ids.add(new WeakHashMap<>());
+        }
+        if (pool.getPageCount() == 0) {
+            Page header = pool.pinNew();
+            header.getData().putInt(0, MAGIC).putInt(Integer.BYTES, VERSION);
+            pool.unpin(header);
+            freePage = NONE;
+            Arrays.fill(nextIds, 1);
+            this.tree = new BPlusTree(pool, this::allocatePage, BPlusTree.NONE);
+            writeHeader();
+        } else {
+            Page header = pool.pin(0);
+            try {
+                ByteBuffer data = header.getData();
+                if (data.getInt(0) != MAGIC) {
+                    throw new IllegalArgumentException("File is not a sports club store.");
+                }
+                if (data.getInt(Integer.BYTES) != VERSION) {
+                    throw new IllegalArgumentException("Unsupported store version.");
+                }
+                freePage = data.getInt(FREE_POSITION);
+                for (int i = 0; i < KINDS; i++) {
+                    nextIds[i] = data.getInt(NEXT_ID_POSITION + i * Integer.BYTES);
+                }
+                this.tree = new BPlusTree(pool, this::allocatePage, data.getInt(ROOT_POSITION));
+            } finally {
+                pool.unpin(header);
+            }
+        }
+    }
+
+    /**
+     * Open store file with the default buffer pool size, creating it if it does not exist.
+     * @param path store file.
+     * @return opened store.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static FileStore open(Path path) throws IOException {
+        return open(path, DEFAULT_POOL_PAGES);
+    }
+
+    /**
+     * Open store file, creating it if it does not exist.
+     * @param path store file.
+     * @param poolPages number of pages kept in memory, at least 4.
+     * @return opened store.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static FileStore open(Path path, int poolPages) throws IOException {
+        if (poolPages < 4) {
+            throw new IllegalArgumentException("Buffer pool needs at least 4 pages.");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            return new FileStore(channel, poolPages);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Repository<SportsClub> clubs() {
+        return clubs;
+    }
+
+    @Override
+    public Repository<Member> members() {
+        return members;
+    }
+
+    @Override
+    public Repository<Trainer> trainers() {
+        return trainers;
+    }
+
+    @Override
+    public Repository<Training> trainings() {
+        return trainings;
+    }
+
+    @Override
+    public Repository<TrainingSession> sessions() {
+        return sessions;
+    }
+
+    @Override
+    public Repository<Membership> memberships() {
+        return memberships;
+    }
+
+    /**
+     * Get page count.
+     * @return number of pages in the file.
+     */
+    public synchronized int getPageCount() {
+        return pool.getPageCount();
+    }
+
+    /**
+     * Get buffer pool hits.
+     * @return number of page reads served from memory.
+     */
+    public synchronized long getPoolHits() {
+        return pool.getHits();
+    }
+
+    /**
+     * Get buffer pool misses.
+     * @return number of page reads which went to the file.
+     */
+    public synchronized long getPoolMisses() {
+        return pool.getMisses();
+    }
+
+    /**
+     * Write all changes to the file.
+     * @throws IOException if writing fails.
+     */
+    public synchronized void flush() throws IOException {
+        writeHeader();
+        try {
+            pool.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Flush and close the file.
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static long key(int kind, int id) {
+        return (long) kind << Integer.SIZE | id;
+    }
+
+    private void writeHeader() {
+        Page header = pool.pin(0);
+        try {
+            ByteBuffer data = header.getData();
+            data.putInt(ROOT_POSITION, tree.getRoot());
+            data.putInt(FREE_POSITION, freePage);
+            for (int i = 0; i < KINDS; i++) {
+                data.putInt(NEXT_ID_POSITION + i * Integer.BYTES, nextIds[i]);
+            }
+            header.markDirty();
+        } finally {
+            pool.unpin(header);
+        }
+    }
+
+    private int allocatePage() {
+        if (freePage == NONE) {
+            Page page = pool.pinNew();
+            pool.unpin(page);
+            return page.getNumber();
+        }
+        Page page = pool.pin(freePage);
+        try {
+            int number = freePage;
+            freePage = page.getData().getInt(0);
+            Arrays.fill(page.getData().array(), (byte) 0);
+            page.markDirty();
+            return number;
+        } finally {
+            pool.unpin(page);
+        }
+    }
+
+    private void freeChain(int first) {
+        int number = first;
+        while (number != NONE) {
+            Page page = pool.pin(number);
+            try {
+                int next = page.getData().getInt(0);
+                page.getData().putInt(0, freePage);
+                page.markDirty();
+                freePage = number;
+                number = next;
+            } finally {
+                pool.unpin(page);
+            }
+        }
+    }
+
+    private int writeChain(byte[] record) {
+        int first = allocatePage();
+        int number = first;
+        int offset = 0;
+        while (true) {
+            int length = Math.min(CHAIN_DATA, record.length - offset);
+            int next = offset + length < record.length ? allocatePage() : NONE;
+            Page page = pool.pin(number);
+            try {
+                ByteBuffer data = page.getData();
+                data.putInt(0, next);
+                data.putInt(Integer.BYTES, length);
+                data.put(CHAIN_HEADER, record, offset, length);
+                page.markDirty();
+            } finally {
+                pool.unpin(page);
+            }
+            offset += length;
+            if (next == NONE) {
+                return first;
+            }
+            number = next;
+        }
+    }
+
+    private byte[] readChain(int first) {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        int number = first;
+        while (number != NONE) {
+            Page page = pool.pin(number);
+            try {
+                ByteBuffer data = page.getData();
+                record.write(data.array(), CHAIN_HEADER, data.getInt(Integer.BYTES));
+                number = data.getInt(0);
+            } finally {
+                pool.unpin(page);
+            }
+        }
+        return record.toByteArray();
+    }
+
+    /**
+     * Give the entity an id and queue it for writing.
+     */
+    private int save(int kind, Object entity) {
+        int id = idFor(kind, entity);
+        unsaved.add(kind);
+        unsaved.add(entity);
+        return id;
+    }
+
+    /**
+     * Get id of a referenced entity, saving it if it is not stored yet.
+     */
+    private int reference(int kind, Object entity) {
+        if (entity == null) {
+            return NONE;
+        }
+        Integer id = ids.get(kind).get(entity);
+        return id != null ? id : save(kind, entity);
+    }
+
+    private int idFor(int kind, Object entity) {
+        Integer id = ids.get(kind).get(entity);
+        if (id == null) {
+            id = nextIds[kind]++;
+            ids.get(kind).put(entity, id);
+            loaded.get(kind).put(id, new WeakReference<>(entity));
+        }
+        return id;
+    }
+
+    private void saveReferenced() {
+        while (!unsaved.isEmpty()) {
+            int kind = (Integer) unsaved.poll();
+            Object entity = unsaved.poll();
+            int id = ids.get(kind).get(entity);
+            byte[] record = encode(kind, entity);
+            freeChain(tree.put(key(kind, id), writeChain(record)));
+        }
+    }
+
+    private byte[] encode(int kind, Object entity) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            switch (kind) {
+                case CLUB -> encodeClub(out, (SportsClub) entity);
+                case MEMBER -> encodeMember(out, (Member) entity);
+                case TRAINER -> encodeTrainer(out, (Trainer) entity);
+                case TRAINING -> encodeTraining(out, (Training) entity);
+                case SESSION -> encodeSession(out, (TrainingSession) entity);
+                default -> encodeMembership(out, (Membership) entity);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeIds(DataOutputStream out, int kind, Collection<?> entities) throws IOException {
+        out.writeInt(entities.size());
+        for (Object entity : entities) {
+            out.writeInt(reference(kind, entity));
+        }
+    }
+
+    private void encodeClub(DataOutputStream out, SportsClub club) throws IOException {
+        out.writeDouble(club.getAverageNumPreviousMonth());
+        out.writeDouble(club.getAverageBonusPointsPrevMonth());
+        writeIds(out, TRAINER, club.getAllTrainers());
+        writeIds(out, TRAINING, club.getAllTrainings());
+    }
+
+    private void encodeTrainer(DataOutputStream out, Trainer trainer) throws IOException {
+        out.writeUTF(trainer.getName());
+        out.writeInt(trainer.getTrainingTypes().size());
+        for (TrainingSportType type : trainer.getTrainingTypes()) {
+            out.writeByte(type.ordinal());
+        }
+    }
+
+    private void encodeTraining(DataOutputStream out, Training training) throws IOException {
+        out.writeUTF(training.getName());
+        out.writeByte(training.getTrainingSportType().ordinal());
+        out.writeInt(reference(TRAINER, training.getTrainer()));
+        out.writeInt(reference(CLUB, training.sportsClubItBelongsTo()));
+        out.writeBoolean(training.isAddedToSportsClub());
+        writeIds(out, SESSION, training.getCurrentSessions());
+    }
+
+    private void encodeMembership(DataOutputStream out, Membership membership) throws IOException {
+        out.writeByte(membership instanceof StandardMembership ? MEMBERSHIP_STANDARD : MEMBERSHIP_FULL);
+        out.writeInt(reference(CLUB, membership.getSportsClub()));
+    }
+
+    private void encodeSession(DataOutputStream out, TrainingSession session) throws IOException {
+        if (session instanceof GroupTrainingSession) {
+            out.writeByte(KIND_GROUP);
+        } else if (session instanceof PersonalTrainingSession) {
+            out.writeByte(KIND_PERSONAL);
+        } else if (session instanceof OnlineTrainingSession) {
+            out.writeByte(KIND_ONLINE);
+        } else {
+            out.writeByte(KIND_SESSION);
+        }
+        out.writeInt(reference(TRAINING, session.getTraining()));
+        out.writeByte(session.getTrainingSessionLevel().ordinal());
+        out.writeLong(session.getTime().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(session.getTime().getNano());
+        out.writeInt(session.getMaxParticipants());
+        out.writeDouble(session.getPrice());
+        out.writeLong(session.getDate().toEpochDay());
+        writeIds(out, MEMBER, session.getParticipants());
+    }
+
+    private void encodeMember(DataOutputStream out, Member member) throws IOException {
+        out.writeUTF(member.getName());
+        out.writeDouble(member.getBudget());
+        out.writeInt(member.getBonusPoints());
+        out.writeInt(member.getRegisteredSesPrevMonth());
+        out.writeInt(member.getParticipatedSportPrevMonth());
+        out.writeInt(member.getBonusPointsPrevMonth());
+        out.writeBoolean(member.isFirstSessionFree());
+        out.writeDouble(member.getSpentThisMonth());
+        out.writeLong(member.getKey());
+        writeIds(out, MEMBERSHIP, member.getBoughtMemberships());
+        writeIds(out, SESSION, member.getRegisteredSessions());
+    }
+
+    /**
+     * Find loaded entity or read it from the file. Links which may lead back to the entity are made after the
+     * outermost load has created its objects.
+     */
+    private Object load(int kind, int id) {
+        WeakReference<Object> reference = loaded.get(kind).get(id);
+        Object entity = reference == null ? null : reference.get();
+        if (entity != null) {
+            return entity;
+        }
+        int first = tree.get(key(kind, id));
+        if (first == NONE) {
+            return null;
+        }
+        loading++;
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(readChain(first)));
+            entity = switch (kind) {
+                case CLUB -> decodeClub(in);
+                case MEMBER -> decodeMember(in);
+                case TRAINER -> decodeTrainer(in);
+                case TRAINING -> decodeTraining(in);
+                case SESSION -> decodeSession(in);
+                default -> decodeMembership(in);
+            };
+            ids.get(kind).put(entity, id);
+            loaded.get(kind).put(id, new WeakReference<>(entity));
+            if (loading == 1) {
+                while (!unlinked.isEmpty()) {
+                    unlinked.poll().run();
+                }
+            }
+            return entity;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            loading--;
+        }
+    }
+
+    private int[] readIds(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private <T> ArrayList<T> loadAll(int kind, int[] stored, Class<T> type) {
+        ArrayList<T> entities = new ArrayList<>(stored.length);
+        for (int id : stored) {
+            Object entity = load(kind, id);
+            if (entity != null) {
+                entities.add(type.cast(entity));
+            }
+        }
+        return entities;
+    }
+
+    private SportsClub decodeClub(DataInputStream in) throws IOException {
+        double averageNum = in.readDouble();
+        double averageBonus = in.readDouble();
+        ArrayList<Trainer> clubTrainers = loadAll(TRAINER, readIds(in), Trainer.class);
+        ArrayList<Training> clubTrainings = loadAll(TRAINING, readIds(in), Training.class);
+        SportsClub club = SportsClub.restore(clubTrainers, clubTrainings);
+        club.setAverageNumPreviousMonth(averageNum);
+        club.setAverageBonusPointsPrevMonth(averageBonus);
+        return club;
+    }
+
+    private Trainer decodeTrainer(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        ArrayList<TrainingSportType> types = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            types.add(SPORT_TYPES[in.readByte()]);
+        }
+        return Trainer.restore(name, types);
+    }
+
+    private Training decodeTraining(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        TrainingSportType type = SPORT_TYPES[in.readByte()];
+        Training training = Training.restore(name, type, (Trainer) load(TRAINER, in.readInt()));
+        int club = in.readInt();
+        training.setIsAddedToSportsClub(in.readBoolean());
+        int[] sessionIds = readIds(in);
+        unlinked.add(() -> {
+            SportsClub sportsClub = (SportsClub) load(CLUB, club);
+            if (sportsClub != null) {
+                training.setSportsClubItBelongsTo(sportsClub);
+            }
+            // Every session links itself to the training once its participants are restored
+            loadAll(SESSION, sessionIds, TrainingSession.class);
+        });
+        return training;
+    }
+
+    private Membership decodeMembership(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        SportsClub club = (SportsClub) load(CLUB, in.readInt());
+        if (club == null) {
+            throw new IllegalStateException("Membership refers to a removed sports club.");
+        }
+        return kind == MEMBERSHIP_STANDARD ? new StandardMembership(club) : new FullMembership(club);
+    }
+
+    private TrainingSession decodeSession(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        Training training = (Training) load(TRAINING, in.readInt());
+        if (training == null) {
+            throw new IllegalStateException("Training session refers to a removed training.");
+        }
+        TrainingSessionLevel level = LEVELS[in.readByte()];
+        LocalDateTime time = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        int maxParticipants = in.readInt();
+        TrainingSession session = switch (kind) {
+            case KIND_GROUP -> GroupTrainingSession.restore(training, level, time);
+            case KIND_PERSONAL -> PersonalTrainingSession.restore(training, level, time);
+            case KIND_ONLINE -> OnlineTrainingSession.restore(training, level, time);
+            default -> TrainingSession.restore(training, level, time, maxParticipants);
+        };
+        double price = in.readDouble();
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        int[] participants = readIds(in);
+        unlinked.add(() -> {
+            session.restoreState(price, date, loadAll(MEMBER, participants, Member.class));
+            training.restoreSession(session);
+        });
+        return session;
+    }
+
+    private Member decodeMember(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        double budget = in.readDouble();
+        int bonusPoints = in.readInt();
+        int registeredSesPrevMonth = in.readInt();
+        int participatedSportPrevMonth = in.readInt();
+        int bonusPointsPrevMonth = in.readInt();
+        boolean firstSessionFree = in.readBoolean();
+        double spentThisMonth = in.readDouble();
+        Member member = Member.restore(name, budget, in.readLong());
+        member.setBonusPoints(bonusPoints);
+        member.setRegisteredSesPrevMonth(registeredSesPrevMonth);
+        member.setParticipatedSportPrevMonth(participatedSportPrevMonth);
+        member.setBonusPointsPrevMonth(bonusPointsPrevMonth);
+        member.setFirstSessionFree(firstSessionFree);
+        member.setSpentThisMonth(spentThisMonth);
+        int[] boughtMemberships = readIds(in);
+        int[] registeredSessions = readIds(in);
+        unlinked.add(() -> {
+            loadAll(MEMBERSHIP, boughtMemberships, Membership.class).forEach(member::restoreMembership);
+            loadAll(SESSION, registeredSessions, TrainingSession.class).forEach(member::restoreRegisteredSession);
+        });
+        return member;
+    }
+}
@@ -0,0 +1,77 @@
+package ee.taltech.iti0202.repository;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+
+/**
+ * Repositories kept in memory, the default repositories of the sports club system.
+ * Sports clubs, members and training sessions are stored under their own ids.
+ */
+public class InMemoryRepositories implements Repositories {
+
+    private final Repository<SportsClub> clubs = new InMemoryRepository<>(SportsClub::getId);
+    private final Repository<Member> members = new InMemoryRepository<>(Member::getId);
+    private final Repository<Trainer> trainers = new InMemoryRepository<>();
+    private final Repository<Training> trainings = new InMemoryRepository<>();
+    private final Repository<TrainingSession> sessions = new InMemoryRepository<>(TrainingSession::getId);
+    private final Repository<Membership> memberships = new InMemoryRepository<>();
+
+    /**
+     * Create repositories holding everything in the sports club system.
+     * @param sportsClubSystem to copy.
+     * @return filled repositories.
+     */
+    public static InMemoryRepositories of(SportsClubSystem sportsClubSystem) {
+        InMemoryRepositories repositories = new InMemoryRepositories();
+        for (SportsClub sportsClub : sportsClubSystem.getSportsClubsInArea()) {
+            repositories.clubs.save(sportsClub);
+            sportsClub.getAllTrainers().forEach(repositories.trainers::save);
+            sportsClub.getAllTrainings().forEach(repositories.trainings::save);
+            for (Member member : sportsClub.getAllMembers()) {
+                repositories.members.save(member);
+                member.getBoughtMemberships().forEach(repositories.memberships::save);
+            }
+        }
+        for (TrainingSession session : sportsClubSystem.getTrainingSessions()) {
+            repositories.sessions.save(session);
+            repositories.trainings.save(session.getTraining());
+            repositories.trainers.save(session.getTrainer());
+        }
+        return repositories;
+    }
+
+    @Override
+    public Repository<SportsClub> clubs() {
+        return clubs;
+    }
+
+    @Override
+    public Repository<Member> members() {
+        return members;
+    }
+
+    @Override
+    public Repository<Trainer> trainers() {
+        return trainers;
+    }
+
+    @Override
+    public Repository<Training> trainings() {
+        return trainings;
+    }
+
+    @Override
+    public Repository<TrainingSession> sessions() {
+        return sessions;
+    }
+
+    @Override
+    public Repository<Membership> memberships() {
+        return memberships;
+    }
+}
@@ -0,0 +1,85 @@
+package ee.taltech.iti0202.repository;
+
+import ee.taltech.iti0202.registry.Registry;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Repository keeping entities in a {@link Registry}. Entities which have an id of their own are stored under it,
+ * others get ids in the order they are saved.
+ * @param <T> type of stored entities.
+ */
+public class InMemoryRepository<T> implements Repository<T> {
+
+    private final ToIntFunction<T> idOf;
+    private final Map<T, Integer> assignedIds;
+    private final Registry<T> entities;
+    private int nextId = 1;
+
+    /**
+     * Constructor for repository of entities with own ids.
+     * @param idOf function giving the id of an entity.
+     */
+    public InMemoryRepository(ToIntFunction<T> idOf) {
+        this.idOf = idOf;
+        this.assignedIds = null;
+        this.entities = new Registry<>(idOf);
+    }
+
+    /**
+     * Constructor for repository giving ids to entities.
+     */
+    public InMemoryRepository() {
+        this.assignedIds = new IdentityHashMap<>();
+        this.idOf = entity -> assignedIds.getOrDefault(entity, -1);
+        this.entities = new Registry<>(idOf);
+    }
+
+    @Override
+    public synchronized int save(T entity) {
+        if (assignedIds != null && !assignedIds.containsKey(entity)) {
+            assignedIds.put(entity, nextId++);
+        }
+        T stored = entities.findById(idOf.applyAsInt(entity));
+        if (stored != null && stored != entity) {
+            entities.remove(stored);
+        }
+        entities.add(entity);
+        return idOf.applyAsInt(entity);
+    }
+
+    @Override
+    public synchronized T findById(int id) {
+        return entities.findById(id);
+    }
+
+    @Override
+    public synchronized int idOf(T entity) {
+        return entities.contains(entity) ? idOf.applyAsInt(entity) : -1;
+    }
+
+    @Override
+    public synchronized boolean delete(T entity) {
+        boolean removed = entities.remove(entity);
+        if (removed && assignedIds != null) {
+            assignedIds.remove(entity);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized int count() {
+        return entities.size();
+    }
+
+    @Override
+    public synchronized List<T> findAll() {
+        List<T> all = new ArrayList<>(entities);
+        all.sort((first, second) -> Integer.compare(idOf.applyAsInt(first), idOf.applyAsInt(second)));
+        return all;
+    }
+}
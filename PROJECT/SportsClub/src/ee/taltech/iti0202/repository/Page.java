@@ -0,0 +1,60 @@
+package ee.taltech.iti0202.repository;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Page of the store file held by the {@link BufferPool}. A page is only used while it is pinned.
+ */
+final class Page {
+
+    static final int SIZE = 4096;
+
+    private final int number;
+    private final ByteBuffer data;
+    private int pins;
+    private boolean dirty;
+
+    Page(int number, ByteBuffer data) {
+        this.number = number;
+        this.data = data;
+    }
+
+    int getNumber() {
+        return number;
+    }
+
+    /**
+     * Get data. Changing it requires {@link #markDirty()}.
+     * @return page content, absolute reads and writes only.
+     */
+    ByteBuffer getData() {
+        return data;
+    }
+
+    void markDirty() {
+        dirty = true;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void clean() {
+        dirty = false;
+    }
+
+    void pin() {
+        pins++;
+    }
+
+    void unpin() {
+        if (pins == 0) {
+            throw new IllegalStateException("Page " + number + " is not pinned.");
+        }
+        pins--;
+    }
+
+    boolean isPinned() {
+        return pins > 0;
+    }
+}
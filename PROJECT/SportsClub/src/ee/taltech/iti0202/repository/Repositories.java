@@ -0,0 +1,50 @@
+package ee.taltech.iti0202.repository;
+
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+
+/**
+ * Repositories of all sports club entities kept by one store.
+ */
+public interface Repositories {
+
+    /**
+     * Get sports club repository.
+     * @return repository of sports clubs.
+     */
+    Repository<SportsClub> clubs();
+
+    /**
+     * Get member repository.
+     * @return repository of members.
+     */
+    Repository<Member> members();
+
+    /**
+     * Get trainer repository.
+     * @return repository of trainers.
+     */
+    Repository<Trainer> trainers();
+
+    /**
+     * Get training repository.
+     * @return repository of trainings.
+     */
+    Repository<Training> trainings();
+
+    /**
+     * Get training session repository.
+     * @return repository of training sessions.
+     */
+    Repository<TrainingSession> sessions();
+
+    /**
+     * Get membership repository.
+     * @return repository of memberships.
+     */
+    Repository<Membership> memberships();
+}
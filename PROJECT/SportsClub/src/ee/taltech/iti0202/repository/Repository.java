@@ -0,0 +1,50 @@
+package ee.taltech.iti0202.repository;
+
+import java.util.List;
+
+/**
+ * Storage of one kind of sports club entities. Every stored entity has an id given by the repository.
+ * @param <T> type of stored entities.
+ */
+public interface Repository<T> {
+
+    /**
+     * Store entity. A new entity gets an id, an already stored one is replaced under its id.
+     * @param entity to store.
+     * @return id of the entity.
+     */
+    int save(T entity);
+
+    /**
+     * Find entity by its id.
+     * @param id of the entity.
+     * @return entity or null if nothing is stored under the id.
+     */
+    T findById(int id);
+
+    /**
+     * Get id of a stored entity.
+     * @param entity to look up.
+     * @return id or -1 if the entity is not stored.
+     */
+    int idOf(T entity);
+
+    /**
+     * Remove entity.
+     * @param entity to remove.
+     * @return true if the entity was stored.
+     */
+    boolean delete(T entity);
+
+    /**
+     * Get count.
+     * @return number of stored entities.
+     */
+    int count();
+
+    /**
+     * Get all stored entities.
+     * @return entities in the order of their ids.
+     */
+    List<T> findAll();
+}
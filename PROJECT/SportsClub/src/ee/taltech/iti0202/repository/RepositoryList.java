@@ -0,0 +1,150 @@
+package ee.taltech.iti0202.repository;
+
+import ee.taltech.iti0202.registry.Registry;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * List of entities kept in memory by their own id and in insertion order, writing through to a repository.
+ * Adding saves an entity, removing deletes it, reads never go to the repository.
+ * The repository is only read by {@link #load()}, e.g. after it was replaced.
+ * Methods are synchronized and iterators go over a copy, so the list can be shared between threads.
+ * @param <T> type of stored entities.
+ */
+public class RepositoryList<T> extends Registry<T> {
+
+    private final Supplier<Repository<T>> repository;
+    private boolean loading;
+
+    /**
+     * Constructor for empty list. The repository is asked for on every change, so it can be replaced.
+     * @param idOf function giving the own id of an entity.
+     * @param repository gives the current repository.
+     */
+    public RepositoryList(ToIntFunction<T> idOf, Supplier<Repository<T>> repository) {
+        super(idOf);
+        this.repository = repository;
+    }
+
+    /**
+     * Replace the entities in the list with the ones stored in the current repository, in the order of their ids.
+     * Nothing is written to the repository.
+     */
+    public synchronized void load() {
+        loading = true;
+        try {
+            super.clear();
+            for (T item : repository.get().findAll()) {
+                super.add(item);
+            }
+        } finally {
+            loading = false;
+        }
+    }
+
+    @Override
+    protected void added(T item) {
+        if (!loading) {
+            repository.get().save(item);
+        }
+    }
+
+    @Override
+    protected void removed(T item) {
+        repository.get().delete(item);
+    }
+
+    @Override
+    public synchronized T findById(int id) {
+        return super.findById(id);
+    }
+
+    @Override
+    public synchronized boolean add(T item) {
+        return super.add(item);
+    }
+
+    @Override
+    public synchronized T get(int position) {
+        return super.get(position);
+    }
+
+    @Override
+    public synchronized int size() {
+        return super.size();
+    }
+
+    @Override
+    public synchronized boolean contains(Object object) {
+        return super.contains(object);
+    }
+
+    @Override
+    public synchronized int indexOf(Object object) {
+        return super.indexOf(object);
+    }
+
+    @Override
+    public synchronized boolean remove(Object object) {
+        return super.remove(object);
+    }
+
+    @Override
+    public synchronized T remove(int position) {
+        return super.remove(position);
+    }
+
+    @Override
+    public synchronized void clear() {
+        Repository<T> stored = repository.get();
+        Iterator<T> items = super.iterator();
+        while (items.hasNext()) {
+            stored.delete(items.next());
+        }
+        super.clear();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        List<T> items;
+        synchronized (this) {
+            items = new ArrayList<>(size());
+            Iterator<T> all = super.iterator();
+            while (all.hasNext()) {
+                items.add(all.next());
+            }
+        }
+        return new Iterator<>() {
+            private int next;
+            private T current;
+
+            @Override
+            public boolean hasNext() {
+                return next < items.size();
+            }
+
+            @Override
+            public T next() {
+                if (next >= items.size()) {
+                    throw new NoSuchElementException();
+                }
+                current = items.get(next++);
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if (current == null) {
+                    throw new IllegalStateException();
+                }
+                RepositoryList.this.remove(current);
+                current = null;
+            }
+        };
+    }
+}
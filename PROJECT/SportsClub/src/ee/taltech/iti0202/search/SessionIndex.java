@@ -0,0 +1,399 @@
+package ee.taltech.iti0202.search;
+
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index over all training sessions in the system.
+ * Sessions are bucketed by level, sports type and day of the week, and ordered by start time and date,
+ * so searches only touch the sessions that match instead of scanning every session.
+ * Every session also gets a dense id, and per-attribute bitmaps over those ids back {@link SessionQuery}.
+ * Ids of removed sessions are left empty and reclaimed by renumbering the sessions once at least half
+ * of the ids are empty, so the order of the sessions stays the order they were added in.
+ * Interval trees, system-wide and per club, answer which sessions overlap a time window.
+ */
+public class SessionIndex {
+
+    private static final BitSet EMPTY = new BitSet();
+    private static final int MIN_COMPACT_SIZE = 64;
+
+    private final Map<TrainingSessionLevel, Set<TrainingSession>> byLevel;
+    private final Map<TrainingSportType, Set<TrainingSession>> byType;
+    private final Map<DayOfWeek, Set<TrainingSession>> byDayOfWeek;
+    private final NavigableMap<LocalDateTime, Set<TrainingSession>> byTime;
+    private final NavigableMap<LocalDate, Set<TrainingSession>> byDate;
+    private final Map<TrainingSession, Integer> denseIds;
+    private final List<TrainingSession> sessionsById;
+    private final BitSet allBits;
+    private final Map<TrainingSessionLevel, BitSet> levelBits;
+    private final Map<TrainingSportType, BitSet> typeBits;
+    private final Map<DayOfWeek, BitSet> dayBits;
+    private final Map<SportsClub, BitSet> clubBits;
+    private final SessionIntervalTree intervals;
+    private final Map<SportsClub, SessionIntervalTree> clubIntervals;
+    private int freeIds;
+
+    /**
+     * Constructor for an empty session index.
+     */
+    public SessionIndex() {
+        this.byLevel = new EnumMap<>(TrainingSessionLevel.class);
+        this.byType = new EnumMap<>(TrainingSportType.class);
+        this.byDayOfWeek = new EnumMap<>(DayOfWeek.class);
+        this.byTime = new TreeMap<>();
+        this.byDate = new TreeMap<>();
+        this.denseIds = new IdentityHashMap<>();
+        this.sessionsById = new ArrayList<>();
+        this.allBits = new BitSet();
+        this.levelBits = new EnumMap<>(TrainingSessionLevel.class);
+        this.typeBits = new EnumMap<>(TrainingSportType.class);
+        this.dayBits = new EnumMap<>(DayOfWeek.class);
+        this.clubBits = new HashMap<>();
+        this.intervals = new SessionIntervalTree();
+        this.clubIntervals = new HashMap<>();
+    }
+
+    /**
+     * Add session to every bucket it belongs to.
+     * @param session to add.
+     */
+    public void add(TrainingSession session) {
+        LocalDate date = session.getDate();
+        byLevel.computeIfAbsent(session.getTrainingSessionLevel(), key -> new LinkedHashSet<>()).add(session);
+        byType.computeIfAbsent(session.getTrainingSportType(), key -> new LinkedHashSet<>()).add(session);
+        byDayOfWeek.computeIfAbsent(date.getDayOfWeek(), key -> new LinkedHashSet<>()).add(session);
+        byTime.computeIfAbsent(session.getTime(), key -> new LinkedHashSet<>()).add(session);
+        byDate.computeIfAbsent(date, key -> new LinkedHashSet<>()).add(session);
+
+        Integer id = denseIds.get(session);
+        if (id == null) {
+            id = sessionsById.size();
+            sessionsById.add(session);
+            denseIds.put(session, id);
+        }
+        allBits.set(id);
+        levelBits.computeIfAbsent(session.getTrainingSessionLevel(), key -> new BitSet()).set(id);
+        typeBits.computeIfAbsent(session.getTrainingSportType(), key -> new BitSet()).set(id);
+        dayBits.computeIfAbsent(date.getDayOfWeek(), key -> new BitSet()).set(id);
+        clubBits.computeIfAbsent(session.getWhatSportsClubItBelongsTo(), key -> new BitSet()).set(id);
+
+        intervals.add(session);
+        clubIntervals.computeIfAbsent(session.getWhatSportsClubItBelongsTo(), key -> new SessionIntervalTree())
+                .add(session);
+    }
+
+    /**
+     * Remove session from the index and release its dense id.
+     * @param session to remove.
+     * @return true if the session was indexed.
+     */
+    public boolean remove(TrainingSession session) {
+        boolean removed = detach(session);
+        Integer id = denseIds.remove(session);
+        if (id != null) {
+            sessionsById.set(id, null);
+            freeIds++;
+            if (sessionsById.size() >= MIN_COMPACT_SIZE && freeIds * 2 >= sessionsById.size()) {
+                compact();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Take session out of every bucket while its indexed attributes change, it keeps its dense id.
+     * Must be called before the attributes change and followed by {@link #add(TrainingSession)} afterwards.
+     * @param session to take out.
+     * @return true if the session was indexed.
+     */
+    public boolean detach(TrainingSession session) {
+        LocalDate date = session.getDate();
+        boolean removed = removeFrom(byLevel, session.getTrainingSessionLevel(), session);
+        removeFrom(byType, session.getTrainingSportType(), session);
+        removeFrom(byDayOfWeek, date.getDayOfWeek(), session);
+        removeFrom(byTime, session.getTime(), session);
+        removeFrom(byDate, date, session);
+
+        Integer id = denseIds.get(session);
+        if (id != null) {
+            allBits.clear(id);
+            clearBit(levelBits, session.getTrainingSessionLevel(), id);
+            clearBit(typeBits, session.getTrainingSportType(), id);
+            clearBit(dayBits, date.getDayOfWeek(), id);
+            clearBit(clubBits, session.getWhatSportsClubItBelongsTo(), id);
+        }
+
+        intervals.remove(session);
+        SessionIntervalTree clubTree = clubIntervals.get(session.getWhatSportsClubItBelongsTo());
+        if (clubTree != null) {
+            clubTree.remove(session);
+            if (clubTree.size() == 0) {
+                clubIntervals.remove(session.getWhatSportsClubItBelongsTo());
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Remove all sessions from the index.
+     */
+    public void clear() {
+        byLevel.clear();
+        byType.clear();
+        byDayOfWeek.clear();
+        byTime.clear();
+        byDate.clear();
+        denseIds.clear();
+        sessionsById.clear();
+        freeIds = 0;
+        allBits.clear();
+        levelBits.clear();
+        typeBits.clear();
+        dayBits.clear();
+        clubBits.clear();
+        intervals.clear();
+        clubIntervals.clear();
+    }
+
+    /**
+     * Get sessions with the given level.
+     * @param level of the session.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findByLevel(TrainingSessionLevel level) {
+        return copyOf(byLevel.get(level));
+    }
+
+    /**
+     * Get sessions with the given sports type.
+     * @param type of the session.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findByType(TrainingSportType type) {
+        return copyOf(byType.get(type));
+    }
+
+    /**
+     * Get sessions taking place on the given day of the week.
+     * @param dayOfWeek of the session date.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findByDayOfWeek(DayOfWeek dayOfWeek) {
+        return copyOf(byDayOfWeek.get(dayOfWeek));
+    }
+
+    /**
+     * Get sessions starting strictly between the given times, ordered by start time.
+     * @param startTime exclusive lower bound.
+     * @param endTime exclusive upper bound.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        if (!startTime.isBefore(endTime)) {
+            return new ArrayList<>();
+        }
+        return flatten(byTime.subMap(startTime, false, endTime, false).values());
+    }
+
+    /**
+     * Get sessions with a date strictly between the given dates, ordered by date.
+     * @param startDate exclusive lower bound.
+     * @param endDate exclusive upper bound.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        if (!startDate.isBefore(endDate)) {
+            return new ArrayList<>();
+        }
+        return flatten(byDate.subMap(startDate, false, endDate, false).values());
+    }
+
+    /**
+     * Get sessions which overlap the window [from, to), ordered by start time.
+     * @param from inclusive start of the window.
+     * @param to exclusive end of the window.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        return intervals.findOverlapping(from, to);
+    }
+
+    /**
+     * Get sessions of the sports club which overlap the window [from, to), ordered by start time.
+     * @param sportsClub the sessions belong to.
+     * @param from inclusive start of the window.
+     * @param to exclusive end of the window.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findOverlapping(SportsClub sportsClub, LocalDateTime from, LocalDateTime to) {
+        SessionIntervalTree clubTree = clubIntervals.get(sportsClub);
+        return clubTree == null ? new ArrayList<>() : clubTree.findOverlapping(from, to);
+    }
+
+    /**
+     * Get sessions running at the given instant, ordered by start time.
+     * @param instant point in time.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findRunningAt(LocalDateTime instant) {
+        return intervals.findRunningAt(instant);
+    }
+
+    /**
+     * Get sessions of the sports club running at the given instant, ordered by start time.
+     * @param sportsClub the sessions belong to.
+     * @param instant point in time.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findRunningAt(SportsClub sportsClub, LocalDateTime instant) {
+        SessionIntervalTree clubTree = clubIntervals.get(sportsClub);
+        return clubTree == null ? new ArrayList<>() : clubTree.findRunningAt(instant);
+    }
+
+    /**
+     * Get bitmap of all indexed sessions.
+     * @return bitmap over dense ids, must not be modified.
+     */
+    BitSet allBits() {
+        return allBits;
+    }
+
+    BitSet levelBits(TrainingSessionLevel level) {
+        return levelBits.getOrDefault(level, EMPTY);
+    }
+
+    BitSet typeBits(TrainingSportType type) {
+        return typeBits.getOrDefault(type, EMPTY);
+    }
+
+    BitSet dayBits(DayOfWeek dayOfWeek) {
+        return dayBits.getOrDefault(dayOfWeek, EMPTY);
+    }
+
+    BitSet clubBits(SportsClub sportsClub) {
+        return clubBits.getOrDefault(sportsClub, EMPTY);
+    }
+
+    /**
+     * Build bitmap of sessions with a date in the given range.
+     * @param startDate inclusive lower bound.
+     * @param endDate inclusive upper bound.
+     * @return new bitmap over dense ids.
+     */
+    BitSet dateRangeBits(LocalDate startDate, LocalDate endDate) {
+        BitSet bits = new BitSet();
+        if (startDate.isAfter(endDate)) {
+            return bits;
+        }
+        for (Set<TrainingSession> bucket : byDate.subMap(startDate, true, endDate, true).values()) {
+            for (TrainingSession session : bucket) {
+                bits.set(denseIds.get(session));
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Get number of dense ids, empty ones included.
+     * @return number of ids.
+     */
+    int idCount() {
+        return sessionsById.size();
+    }
+
+    /**
+     * Get session by its dense id.
+     * @param id dense id.
+     * @return session.
+     */
+    TrainingSession sessionAt(int id) {
+        return sessionsById.get(id);
+    }
+
+    /**
+     * Give the remaining sessions new ids without gaps, in the same order, and move their bits along.
+     */
+    private void compact() {
+        int[] newIds = new int[sessionsById.size()];
+        List<TrainingSession> compacted = new ArrayList<>(sessionsById.size() - freeIds);
+        for (int id = 0; id < sessionsById.size(); id++) {
+            TrainingSession session = sessionsById.get(id);
+            if (session != null) {
+                newIds[id] = compacted.size();
+                denseIds.put(session, compacted.size());
+                compacted.add(session);
+            }
+        }
+        sessionsById.clear();
+        sessionsById.addAll(compacted);
+        freeIds = 0;
+        BitSet moved = renumber(allBits, newIds);
+        allBits.clear();
+        allBits.or(moved);
+        renumber(levelBits, newIds);
+        renumber(typeBits, newIds);
+        renumber(dayBits, newIds);
+        renumber(clubBits, newIds);
+    }
+
+    private static <K> void renumber(Map<K, BitSet> index, int[] newIds) {
+        index.replaceAll((key, bits) -> renumber(bits, newIds));
+        index.values().removeIf(BitSet::isEmpty);
+    }
+
+    private static BitSet renumber(BitSet bits, int[] newIds) {
+        BitSet moved = new BitSet();
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            moved.set(newIds[id]);
+        }
+        return moved;
+    }
+
+    private static <K> void clearBit(Map<K, BitSet> index, K key, int id) {
+        BitSet bits = index.get(key);
+        if (bits != null) {
+            bits.clear(id);
+        }
+    }
+
+    private static <K> boolean removeFrom(Map<K, Set<TrainingSession>> index, K key, TrainingSession session) {
+        Set<TrainingSession> bucket = index.get(key);
+        if (bucket == null || !bucket.remove(session)) {
+            return false;
+        }
+        if (bucket.isEmpty()) {
+            index.remove(key);
+        }
+        return true;
+    }
+
+    private static List<TrainingSession> copyOf(Set<TrainingSession> bucket) {
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+    }
+
+    private static List<TrainingSession> flatten(Collection<Set<TrainingSession>> buckets) {
+        List<TrainingSession> result = new ArrayList<>();
+        for (Set<TrainingSession> bucket : buckets) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,231 @@
+package ee.taltech.iti0202.search;
+
+import ee.taltech.iti0202.training.TrainingSession;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interval tree over the [start, end) times of training sessions.
+ * Balanced (AVL) tree ordered by start time, where every node also knows the latest end time in its subtree.
+ * Subtrees which end before the searched window are skipped, so a search costs O(log n + k).
+ */
+public class SessionIntervalTree {
+
+    private Node root;
+    private long nextSequence = 0;
+    private final Map<TrainingSession, Node> nodes = new IdentityHashMap<>();
+
+    /**
+     * Node of the tree. Sequence number keeps sessions with the same start time apart.
+     */
+    private static final class Node {
+        private final TrainingSession session;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final long sequence;
+        private LocalDateTime maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        Node(TrainingSession session, long sequence) {
+            this.session = session;
+            this.start = session.getTime();
+            this.end = session.getEndTime();
+            this.sequence = sequence;
+            this.maxEnd = end;
+        }
+
+        int compareTo(Node other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Add session to the tree.
+     * @param session to add.
+     */
+    public void add(TrainingSession session) {
+        if (nodes.containsKey(session)) {
+            return;
+        }
+        Node node = new Node(session, nextSequence++);
+        nodes.put(session, node);
+        root = insert(root, node);
+    }
+
+    /**
+     * Remove session from the tree.
+     * @param session to remove.
+     * @return true if the session was in the tree.
+     */
+    public boolean remove(TrainingSession session) {
+        Node node = nodes.remove(session);
+        if (node == null) {
+            return false;
+        }
+        root = delete(root, node);
+        return true;
+    }
+
+    /**
+     * Remove all sessions.
+     */
+    public void clear() {
+        root = null;
+        nodes.clear();
+    }
+
+    /**
+     * Get number of sessions in the tree.
+     * @return size.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Get sessions which overlap the window [from, to), ordered by start time.
+     * @param from inclusive start of the window.
+     * @param to exclusive end of the window.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<TrainingSession> result = new ArrayList<>();
+        if (from.isBefore(to)) {
+            collect(root, from, to, result);
+        }
+        return result;
+    }
+
+    /**
+     * Get sessions which are running at the given instant, ordered by start time.
+     * @param instant point in time.
+     * @return list of sessions.
+     */
+    public List<TrainingSession> findRunningAt(LocalDateTime instant) {
+        List<TrainingSession> result = new ArrayList<>();
+        collect(root, instant, instant.plusNanos(1), result);
+        return result;
+    }
+
+    private static void collect(Node node, LocalDateTime from, LocalDateTime to, List<TrainingSession> result) {
+        if (node == null || !node.maxEnd.isAfter(from)) {
+            // Nothing in this subtree ends after the window starts
+            return;
+        }
+        collect(node.left, from, to, result);
+        if (!node.start.isBefore(to)) {
+            // This node and the whole right subtree start after the window
+            return;
+        }
+        if (node.end.isAfter(from)) {
+            result.add(node.session);
+        }
+        collect(node.right, from, to, result);
+    }
+
+    private static Node insert(Node current, Node node) {
+        if (current == null) {
+            return node;
+        }
+        if (node.compareTo(current) < 0) {
+            current.left = insert(current.left, node);
+        } else {
+            current.right = insert(current.right, node);
+        }
+        return rebalance(current);
+    }
+
+    private static Node delete(Node current, Node node) {
+        if (current == null) {
+            return null;
+        }
+        int comparison = node.compareTo(current);
+        if (comparison < 0) {
+            current.left = delete(current.left, node);
+        } else if (comparison > 0) {
+            current.right = delete(current.right, node);
+        } else {
+            if (current.left == null) {
+                return current.right;
+            }
+            if (current.right == null) {
+                return current.left;
+            }
+            Node successor = current.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(current.right);
+            successor.left = current.left;
+            return rebalance(successor);
+        }
+        return rebalance(current);
+    }
+
+    private static Node deleteMin(Node current) {
+        if (current.left == null) {
+            return current.right;
+        }
+        current.left = deleteMin(current.left);
+        return rebalance(current);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node newRoot = node.left;
+        node.left = newRoot.right;
+        newRoot.right = node;
+        update(node);
+        update(newRoot);
+        return newRoot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node newRoot = node.right;
+        node.right = newRoot.left;
+        newRoot.left = node;
+        update(node);
+        update(newRoot);
+        return newRoot;
+    }
+}
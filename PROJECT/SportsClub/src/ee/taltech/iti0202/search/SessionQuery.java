@@ -0,0 +1,257 @@
+package ee.taltech.iti0202.search;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Combined search over training sessions, e.g. ADVANCED SWIMMING on Tuesdays between 9 and 12 next week.
+ * Level, sports type, day, date range and club are answered by intersecting the bitmaps of the session index.
+ * Start time of day and free places change per session, so they are checked only on the remaining candidates.
+ * Only the requested page of sessions is collected.
+ */
+public final class SessionQuery {
+
+    private final TrainingSessionLevel level;
+    private final TrainingSportType type;
+    private final DayOfWeek dayOfWeek;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final SportsClub sportsClub;
+    private final LocalTime startTimeOfDay;
+    private final LocalTime endTimeOfDay;
+    private final boolean onlyWithFreePlaces;
+    private final int offset;
+    private final int limit;
+
+    private SessionQuery(Builder builder) {
+        this.level = builder.level;
+        this.type = builder.type;
+        this.dayOfWeek = builder.dayOfWeek;
+        this.startDate = builder.startDate;
+        this.endDate = builder.endDate;
+        this.sportsClub = builder.sportsClub;
+        this.startTimeOfDay = builder.startTimeOfDay;
+        this.endTimeOfDay = builder.endTimeOfDay;
+        this.onlyWithFreePlaces = builder.onlyWithFreePlaces;
+        this.offset = builder.offset;
+        this.limit = builder.limit;
+    }
+
+    /**
+     * Run the query against the sessions of the sports club system.
+     * @return page of matching sessions.
+     */
+    public List<TrainingSession> execute() {
+        return execute(SportsClubSystem.getInstance().getSessionIndex());
+    }
+
+    /**
+     * Run the query against the given index.
+     * @param index session index.
+     * @return page of matching sessions, in the order the sessions were added.
+     */
+    public List<TrainingSession> execute(SessionIndex index) {
+        BitSet candidates = candidates(index);
+        List<TrainingSession> page = new ArrayList<>();
+        int skipped = 0;
+        for (int id = candidates.nextSetBit(0); id >= 0 && page.size() < limit; id = candidates.nextSetBit(id + 1)) {
+            TrainingSession session = index.sessionAt(id);
+            if (!matchesResidual(session)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(session);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Count all sessions matching the query, ignoring the page.
+     * @return number of matching sessions.
+     */
+    public int count() {
+        return count(SportsClubSystem.getInstance().getSessionIndex());
+    }
+
+    /**
+     * Count all sessions in the given index matching the query, ignoring the page.
+     * @param index session index.
+     * @return number of matching sessions.
+     */
+    public int count(SessionIndex index) {
+        BitSet candidates = candidates(index);
+        if (!hasResidualPredicates()) {
+            return candidates.cardinality();
+        }
+        int count = 0;
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            if (matchesResidual(index.sessionAt(id))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private BitSet candidates(SessionIndex index) {
+        BitSet result = (BitSet) index.allBits().clone();
+        if (level != null) {
+            result.and(index.levelBits(level));
+        }
+        if (type != null) {
+            result.and(index.typeBits(type));
+        }
+        if (dayOfWeek != null) {
+            result.and(index.dayBits(dayOfWeek));
+        }
+        if (sportsClub != null) {
+            result.and(index.clubBits(sportsClub));
+        }
+        if (startDate != null && !result.isEmpty()) {
+            result.and(index.dateRangeBits(startDate, endDate));
+        }
+        return result;
+    }
+
+    private boolean hasResidualPredicates() {
+        return startTimeOfDay != null || onlyWithFreePlaces;
+    }
+
+    private boolean matchesResidual(TrainingSession session) {
+        if (startTimeOfDay != null) {
+            LocalTime time = session.getTime().toLocalTime();
+            if (time.isBefore(startTimeOfDay) || time.isAfter(endTimeOfDay)) {
+                return false;
+            }
+        }
+        return !onlyWithFreePlaces || !session.hasReachedMaxParticipants();
+    }
+
+    /**
+     * Builder for session query. Criteria that are not set match every session.
+     */
+    public static class Builder {
+        private static final int DEFAULT_LIMIT = Integer.MAX_VALUE;
+
+        private TrainingSessionLevel level;
+        private TrainingSportType type;
+        private DayOfWeek dayOfWeek;
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private SportsClub sportsClub;
+        private LocalTime startTimeOfDay;
+        private LocalTime endTimeOfDay;
+        private boolean onlyWithFreePlaces;
+        private int offset = 0;
+        private int limit = DEFAULT_LIMIT;
+
+        /**
+         * Match sessions with this level.
+         * @param level of the session.
+         * @return this.
+         */
+        public Builder withLevel(TrainingSessionLevel level) {
+            this.level = Objects.requireNonNull(level);
+            return this;
+        }
+
+        /**
+         * Match sessions with this sports type.
+         * @param type of the session.
+         * @return this.
+         */
+        public Builder withSportType(TrainingSportType type) {
+            this.type = Objects.requireNonNull(type);
+            return this;
+        }
+
+        /**
+         * Match sessions taking place on this day of the week.
+         * @param dayOfWeek of the session date.
+         * @return this.
+         */
+        public Builder onDayOfWeek(DayOfWeek dayOfWeek) {
+            this.dayOfWeek = Objects.requireNonNull(dayOfWeek);
+            return this;
+        }
+
+        /**
+         * Match sessions with a date in the range.
+         * @param startDate inclusive start date.
+         * @param endDate inclusive end date.
+         * @return this.
+         */
+        public Builder betweenDates(LocalDate startDate, LocalDate endDate) {
+            this.startDate = Objects.requireNonNull(startDate);
+            this.endDate = Objects.requireNonNull(endDate);
+            return this;
+        }
+
+        /**
+         * Match sessions starting in the range of the day.
+         * @param startTimeOfDay inclusive earliest start.
+         * @param endTimeOfDay inclusive latest start.
+         * @return this.
+         */
+        public Builder startingBetween(LocalTime startTimeOfDay, LocalTime endTimeOfDay) {
+            this.startTimeOfDay = Objects.requireNonNull(startTimeOfDay);
+            this.endTimeOfDay = Objects.requireNonNull(endTimeOfDay);
+            return this;
+        }
+
+        /**
+         * Match sessions of trainings which belong to this sports club.
+         * @param sportsClub of the session.
+         * @return this.
+         */
+        public Builder inSportsClub(SportsClub sportsClub) {
+            this.sportsClub = Objects.requireNonNull(sportsClub);
+            return this;
+        }
+
+        /**
+         * Match only sessions which have not reached maximum participants.
+         * @return this.
+         */
+        public Builder withFreePlaces() {
+            this.onlyWithFreePlaces = true;
+            return this;
+        }
+
+        /**
+         * Return only one page of the results.
+         * @param offset number of matching sessions to skip.
+         * @param limit maximum number of sessions to return.
+         * @return this.
+         */
+        public Builder page(int offset, int limit) {
+            if (offset < 0 || limit <= 0) {
+                throw new IllegalArgumentException("Offset cannot be negative and limit must be positive.");
+            }
+            this.offset = offset;
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Build session query.
+         * @return new query.
+         */
+        public SessionQuery build() {
+            return new SessionQuery(this);
+        }
+    }
+}
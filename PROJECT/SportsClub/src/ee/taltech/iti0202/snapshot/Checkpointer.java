@@ -0,0 +1,745 @@
+package ee.taltech.iti0202.snapshot;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.OnlineTrainingSession;
+import ee.taltech.iti0202.training.PersonalTrainingSession;
+import ee.taltech.iti0202.training.SessionArchive;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental checkpoints of the sports club system into a directory of segments, see {@link Segment}.
+ * <p>
+ * Every object gets a key when it is first written and keeps it. A journal marks the objects which change,
+ * {@link #checkpoint()} writes only those (and objects they reach which have no key yet) into a delta segment,
+ * so the cost of a checkpoint depends on how much changed, not on how much there is.
+ * A session which is archived gets an empty record and is written once more as an archived record from the
+ * archive columns; its key is freed, so the checkpointer does not keep archived sessions in memory.
+ * After {@link #getCompactionThreshold()} deltas they are merged with the base into a new base
+ * in the background; the merge works on the stored records and never touches the live objects.
+ */
+public final class Checkpointer implements Closeable {
+
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 8;
+
+    private static final TrainingSportType[] SPORT_TYPES = TrainingSportType.values();
+    private static final TrainingSessionLevel[] LEVELS = TrainingSessionLevel.values();
+    /** Kinds of objects with keys in the graph, archived sessions have keys of their own. */
+    private static final int KINDS = 5;
+
+    private final Path directory;
+    private final ObjectGraph keys = new ObjectGraph();
+    private final DirtyTracker tracker = new DirtyTracker();
+    private final int[] writtenKeys = new int[KINDS];
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<Integer, Integer> archivedKeys = new HashMap<>();
+    private int nextArchivedKey;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int compactionThreshold;
+    private long nextSequence;
+    private boolean compacting;
+    private int lastCheckpointRecords;
+    private int compactionCount;
+    private volatile IOException compactionFailure;
+
+    private Checkpointer(Path directory, int compactionThreshold) {
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Open checkpoints in the directory with the default compaction threshold.
+     * @param directory checkpoint directory, created if missing.
+     * @return checkpointer.
+     * @throws IOException if reading or writing fails.
+     */
+    public static Checkpointer open(Path directory) throws IOException {
+        return open(directory, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Open checkpoints in the directory. If it has segments, the objects in them are created first;
+     * otherwise the current sports club system is written as the base.
+     * Changes are tracked from then on until the checkpointer is closed.
+     * @param directory checkpoint directory, created if missing.
+     * @param compactionThreshold number of deltas after which they are merged into the base.
+     * @return checkpointer.
+     * @throws IOException if reading or writing fails.
+     */
+    public static Checkpointer open(Path directory, int compactionThreshold) throws IOException {
+        if (compactionThreshold < 1) {
+            throw new IllegalArgumentException("Compaction threshold must be positive.");
+        }
+        Files.createDirectories(directory);
+        Checkpointer checkpointer = new Checkpointer(directory, compactionThreshold);
+        synchronized (checkpointer) {
+            if (checkpointer.findSegments()) {
+                checkpointer.restore();
+                SportsClubSystem.getInstance().addJournal(checkpointer.tracker);
+            } else {
+                // Tracked before the base is written, so whatever changes meanwhile is written again in the next delta.
+                SportsClubSystem.getInstance().addJournal(checkpointer.tracker);
+                List<SessionArchive.Row> archived = checkpointer.keys.addSystem(SportsClubSystem.getInstance());
+                checkpointer.writeSegment(true, newMarks(), archived, new TreeMap<>());
+            }
+        }
+        return checkpointer;
+    }
+
+    /**
+     * Write objects changed since the previous checkpoint into a new delta segment.
+     * @return number of objects written.
+     * @throws IOException if writing fails, or the last background compaction failed.
+     */
+    public synchronized int checkpoint() throws IOException {
+        IOException failure = compactionFailure;
+        if (failure != null) {
+            compactionFailure = null;
+            throw failure;
+        }
+        BitSet[] marked = newMarks();
+        TreeMap<Long, byte[]> records = new TreeMap<>();
+        List<SessionArchive.Row> archived = new ArrayList<>();
+        SessionArchive archive = SportsClubSystem.getInstance().getSessionArchive();
+        for (TrainingSession session : tracker.takeArchived()) {
+            int key = keys.sessions.indexOf(session);
+            if (key != SnapshotFormat.NONE) {
+                keys.sessions.remove(key);
+                records.put(Segment.recordKey(Segment.SESSION, key), new byte[0]);
+            }
+            SessionArchive.Row row = archive.getRow(session.getId());
+            if (row != null) {
+                archived.add(row);
+                // Participants now refer to the archived record
+                for (Member participant : row.participants()) {
+                    marked[Segment.MEMBER].set(memberKey(participant));
+                }
+            }
+        }
+        for (SportsClub club : tracker.takeClubs()) {
+            keys.addClub(club);
+            marked[Segment.CLUB].set(keys.clubs.indexOf(club));
+        }
+        for (Trainer trainer : tracker.takeTrainers()) {
+            keys.addTrainer(trainer);
+            marked[Segment.TRAINER].set(keys.trainers.indexOf(trainer));
+        }
+        for (Training training : tracker.takeTrainings()) {
+            keys.addTraining(training);
+            marked[Segment.TRAINING].set(keys.trainings.indexOf(training));
+        }
+        for (TrainingSession session : tracker.takeSessions()) {
+            int key = sessionKey(session);
+            if (key != SnapshotFormat.NONE) {
+                marked[Segment.SESSION].set(key);
+            }
+        }
+        for (Member member : tracker.takeMembers()) {
+            keys.addMember(member);
+            marked[Segment.MEMBER].set(keys.members.indexOf(member));
+        }
+        int written = writeSegment(false, marked, archived, records);
+        if (segments.size() > compactionThreshold && !compacting) {
+            compacting = true;
+            compactor.execute(this::compactInBackground);
+        }
+        return written;
+    }
+
+    /**
+     * Merge the base and all deltas into a new base right away.
+     * @throws IOException if reading or writing fails.
+     */
+    public void compact() throws IOException {
+        List<Segment> merged;
+        synchronized (this) {
+            while (compacting) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for compaction.", e);
+                }
+            }
+            compacting = true;
+            merged = List.copyOf(segments);
+        }
+        try {
+            merge(merged);
+        } finally {
+            synchronized (this) {
+                compacting = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Get number of segments, the base included.
+     * @return segment count.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Get number of objects written by the last checkpoint.
+     * @return object count.
+     */
+    public synchronized int getLastCheckpointRecords() {
+        return lastCheckpointRecords;
+    }
+
+    /**
+     * Get number of finished compactions.
+     * @return compaction count.
+     */
+    public synchronized int getCompactionCount() {
+        return compactionCount;
+    }
+
+    /**
+     * Get compaction threshold.
+     * @return number of deltas after which they are merged into the base.
+     */
+    public int getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Get number of objects changed since the last checkpoint.
+     * @return dirty object count.
+     */
+    public int getDirtyCount() {
+        return tracker.size();
+    }
+
+    /**
+     * Stop tracking changes and wait for a running compaction. Nothing is written.
+     */
+    @Override
+    public void close() {
+        SportsClubSystem.getInstance().removeJournal(tracker);
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void compactInBackground() {
+        List<Segment> merged;
+        synchronized (this) {
+            merged = List.copyOf(segments);
+        }
+        try {
+            merge(merged);
+        } catch (IOException e) {
+            compactionFailure = e;
+        } finally {
+            synchronized (this) {
+                compacting = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Merge segments into a base with the sequence of the last of them, then drop them.
+     * Checkpoints written meanwhile have higher sequences and stay after the new base.
+     */
+    private void merge(List<Segment> merged) throws IOException {
+        if (merged.size() < 2) {
+            return;
+        }
+        TreeMap<Long, byte[]> records = new TreeMap<>();
+        for (Segment segment : merged) {
+            segment.readInto(records);
+        }
+        // Nothing older than the base is left for the archived session records to hide
+        records.values().removeIf(state -> state.length == 0);
+        Segment base = new Segment(directory, true, merged.get(merged.size() - 1).getSequence());
+        base.write(records);
+        synchronized (this) {
+            segments.removeAll(merged);
+            segments.add(0, base);
+            compactionCount++;
+        }
+        for (Segment segment : merged) {
+            Files.deleteIfExists(segment.getPath());
+        }
+    }
+
+    /**
+     * Find the newest base and the deltas after it. Segments older than the base are left over
+     * from a compaction which was interrupted before it could delete them.
+     * @return true if there is a base.
+     */
+    private boolean findSegments() throws IOException {
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Segment segment = Segment.of(file);
+                if (segment != null) {
+                    found.add(segment);
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(Segment::getSequence).thenComparing(Segment::isBase));
+        Segment base = null;
+        for (Segment segment : found) {
+            if (segment.isBase()) {
+                base = segment;
+            }
+        }
+        if (base == null) {
+            return false;
+        }
+        for (Segment segment : found) {
+            if (segment.getSequence() < base.getSequence()
+                    || segment.getSequence() == base.getSequence() && segment != base) {
+                Files.deleteIfExists(segment.getPath());
+            } else {
+                segments.add(segment);
+            }
+        }
+        nextSequence = found.get(found.size() - 1).getSequence() + 1;
+        return true;
+    }
+
+    private static BitSet[] newMarks() {
+        BitSet[] marked = new BitSet[KINDS];
+        for (int i = 0; i < KINDS; i++) {
+            marked[i] = new BitSet();
+        }
+        return marked;
+    }
+
+    /**
+     * Write the archived sessions, the marked objects and every object which got a key since the last segment.
+     * Writing an object can give keys to objects it reaches, those are written as well.
+     */
+    private int writeSegment(boolean base, BitSet[] marked, List<SessionArchive.Row> archived,
+                             TreeMap<Long, byte[]> records) throws IOException {
+        try {
+            for (SessionArchive.Row row : archived) {
+                int key = archivedKeys.computeIfAbsent(row.id(), id -> nextArchivedKey++);
+                records.put(Segment.recordKey(Segment.ARCHIVED, key), encodeArchived(row));
+            }
+            boolean more = true;
+            while (more) {
+                more = false;
+                markNewKeys(marked);
+                for (int kind = 0; kind < KINDS; kind++) {
+                    for (int key = marked[kind].nextSetBit(0); key >= 0; key = marked[kind].nextSetBit(key + 1)) {
+                        marked[kind].clear(key);
+                        records.put(Segment.recordKey(kind, key), encode(kind, key));
+                        more = true;
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!base && records.isEmpty()) {
+            lastCheckpointRecords = 0;
+            return 0;
+        }
+        Segment segment = new Segment(directory, base, nextSequence++);
+        segment.write(records);
+        segments.add(segment);
+        lastCheckpointRecords = records.size();
+        return records.size();
+    }
+
+    private void markNewKeys(BitSet[] marked) {
+        int[] sizes = {keys.trainers.size(), keys.trainings.size(), keys.clubs.size(), keys.sessions.size(),
+                keys.members.size()};
+        for (int kind = 0; kind < KINDS; kind++) {
+            marked[kind].set(writtenKeys[kind], sizes[kind]);
+            writtenKeys[kind] = sizes[kind];
+        }
+    }
+
+    private byte[] encode(int kind, int key) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            switch (kind) {
+                case Segment.TRAINER -> encodeTrainer(out, keys.trainers.get(key));
+                case Segment.TRAINING -> encodeTraining(out, keys.trainings.get(key));
+                case Segment.CLUB -> encodeClub(out, keys.clubs.get(key));
+                case Segment.SESSION -> encodeSession(out, keys.sessions.get(key));
+                default -> encodeMember(out, keys.members.get(key));
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeKeys(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readKeys(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private int clubKey(SportsClub club) {
+        if (club == null) {
+            return SnapshotFormat.NONE;
+        }
+        keys.addClub(club);
+        return keys.clubs.indexOf(club);
+    }
+
+    private int trainerKey(Trainer trainer) {
+        if (trainer == null) {
+            return SnapshotFormat.NONE;
+        }
+        keys.addTrainer(trainer);
+        return keys.trainers.indexOf(trainer);
+    }
+
+    private int trainingKey(Training training) {
+        keys.addTraining(training);
+        return keys.trainings.indexOf(training);
+    }
+
+    /**
+     * Get key of the session.
+     * @return key, {@link SnapshotFormat#NONE} if the session was archived meanwhile.
+     */
+    private int sessionKey(TrainingSession session) {
+        keys.addSession(session);
+        return keys.sessions.indexOf(session);
+    }
+
+    private int memberKey(Member member) {
+        keys.addMember(member);
+        return keys.members.indexOf(member);
+    }
+
+    private void encodeTrainer(DataOutputStream out, Trainer trainer) throws IOException {
+        List<TrainingSportType> types;
+        synchronized (trainer) {
+            types = List.copyOf(trainer.getTrainingTypes());
+        }
+        out.writeUTF(trainer.getName());
+        writeKeys(out, types.stream().mapToInt(TrainingSportType::ordinal).toArray());
+    }
+
+    private void encodeTraining(DataOutputStream out, Training training) throws IOException {
+        out.writeUTF(training.getName());
+        out.writeByte(training.getTrainingSportType().ordinal());
+        out.writeInt(trainerKey(training.getTrainer()));
+        out.writeInt(clubKey(training.sportsClubItBelongsTo()));
+        out.writeBoolean(training.isAddedToSportsClub());
+    }
+
+    private void encodeClub(DataOutputStream out, SportsClub club) throws IOException {
+        List<Trainer> trainers;
+        List<Training> trainings;
+        synchronized (club) {
+            trainers = List.copyOf(club.getAllTrainers());
+            trainings = List.copyOf(club.getAllTrainings());
+        }
+        out.writeDouble(club.getAverageNumPreviousMonth());
+        out.writeDouble(club.getAverageBonusPointsPrevMonth());
+        writeKeys(out, trainers.stream().mapToInt(this::trainerKey).toArray());
+        writeKeys(out, trainings.stream().mapToInt(this::trainingKey).toArray());
+    }
+
+    private void encodeSession(DataOutputStream out, TrainingSession session) throws IOException {
+        List<Member> participants;
+        synchronized (session) {
+            participants = List.copyOf(session.getParticipants());
+        }
+        int kind = session instanceof GroupTrainingSession ? SnapshotFormat.KIND_GROUP
+                : session instanceof PersonalTrainingSession ? SnapshotFormat.KIND_PERSONAL
+                : session instanceof OnlineTrainingSession ? SnapshotFormat.KIND_ONLINE
+                : SnapshotFormat.KIND_SESSION;
+        out.writeByte(kind);
+        out.writeInt(trainingKey(session.getTraining()));
+        out.writeByte(session.getTrainingSessionLevel().ordinal());
+        out.writeLong(session.getTime().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(session.getTime().getNano());
+        out.writeInt(session.getMaxParticipants());
+        out.writeDouble(session.getPrice());
+        out.writeLong(session.getDate().toEpochDay());
+        writeKeys(out, participants.stream().mapToInt(this::memberKey).toArray());
+    }
+
+    private byte[] encodeArchived(SessionArchive.Row row) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(row.kind());
+            out.writeInt(trainingKey(row.training()));
+            out.writeByte(row.level().ordinal());
+            out.writeLong(row.time().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(row.time().getNano());
+            out.writeInt(row.maxParticipants());
+            out.writeDouble(row.price());
+            out.writeLong(row.date().toEpochDay());
+            writeKeys(out, row.participants().stream().mapToInt(this::memberKey).toArray());
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void encodeMember(DataOutputStream out, Member member) throws IOException {
+        List<Membership> memberships;
+        List<TrainingSession> sessions;
+        int[] archived;
+        synchronized (member) {
+            out.writeUTF(member.getName());
+            out.writeDouble(member.getBudget());
+            out.writeInt(member.getBonusPoints());
+            out.writeInt(member.getRegisteredSesPrevMonth());
+            out.writeInt(member.getParticipatedSportPrevMonth());
+            out.writeInt(member.getBonusPointsPrevMonth());
+            out.writeBoolean(member.isFirstSessionFree());
+            out.writeLong(member.getKey());
+            memberships = List.copyOf(member.getBoughtMemberships());
+            sessions = member.getCurrentRegisteredSessions();
+            archived = member.getArchivedSessionIds();
+        }
+        writeKeys(out, memberships.stream()
+                .mapToInt(membership -> clubKey(membership.getSportsClub()) * 2
+                        + (membership instanceof StandardMembership ? SnapshotFormat.MEMBERSHIP_STANDARD
+                        : SnapshotFormat.MEMBERSHIP_FULL))
+                .toArray());
+        writeKeys(out, sessions.stream().mapToInt(this::sessionKey)
+                .filter(key -> key != SnapshotFormat.NONE).toArray());
+        // Sessions archived after this checkpoint started are written with the member next time
+        writeKeys(out, Arrays.stream(archived).filter(archivedKeys::containsKey).map(archivedKeys::get).toArray());
+    }
+
+    /**
+     * Create the objects of all segments, in the same order as {@link Snapshot} does.
+     * Keys are taken over, so later checkpoints keep writing objects under the same keys.
+     */
+    private void restore() throws IOException {
+        TreeMap<Long, byte[]> records = new TreeMap<>();
+        for (Segment segment : segments) {
+            segment.readInto(records);
+        }
+        for (Map.Entry<Long, byte[]> record : ofKind(records, Segment.TRAINER).entrySet()) {
+            DataInputStream in = input(record.getValue());
+            String name = in.readUTF();
+            ArrayList<TrainingSportType> types = new ArrayList<>();
+            for (int type : readKeys(in)) {
+                types.add(SPORT_TYPES[type]);
+            }
+            keys.trainers.put(Segment.keyOf(record.getKey()), new Trainer(name, types));
+        }
+        for (Map.Entry<Long, byte[]> record : ofKind(records, Segment.TRAINING).entrySet()) {
+            DataInputStream in = input(record.getValue());
+            keys.trainings.put(Segment.keyOf(record.getKey()), new Training(in.readUTF(), SPORT_TYPES[in.readByte()]));
+        }
+        for (Map.Entry<Long, byte[]> record : ofKind(records, Segment.CLUB).entrySet()) {
+            DataInputStream in = input(record.getValue());
+            double averageNum = in.readDouble();
+            double averageBonus = in.readDouble();
+            ArrayList<Trainer> trainers = new ArrayList<>();
+            for (int key : readKeys(in)) {
+                trainers.add(object(keys.trainers, key));
+            }
+            ArrayList<Training> trainings = new ArrayList<>();
+            for (int key : readKeys(in)) {
+                trainings.add(object(keys.trainings, key));
+            }
+            SportsClub club = new SportsClub(trainers, trainings);
+            club.setAverageNumPreviousMonth(averageNum);
+            club.setAverageBonusPointsPrevMonth(averageBonus);
+            keys.clubs.put(Segment.keyOf(record.getKey()), club);
+        }
+        for (Map.Entry<Long, byte[]> record : ofKind(records, Segment.TRAINING).entrySet()) {
+            DataInputStream in = input(record.getValue());
+            Training training = object(keys.trainings, Segment.keyOf(record.getKey()));
+            in.readUTF();
+            in.readByte();
+            int trainer = in.readInt();
+            int club = in.readInt();
+            if (trainer != SnapshotFormat.NONE) {
+                training.assignTrainer(object(keys.trainers, trainer));
+            }
+            if (club != SnapshotFormat.NONE) {
+                training.setSportsClubItBelongsTo(object(keys.clubs, club));
+            }
+            training.setIsAddedToSportsClub(in.readBoolean());
+        }
+        for (Map.Entry<Long, byte[]> record : ofKind(records, Segment.SESSION).entrySet()) {
+            if (record.getValue().length > 0) {
+                keys.sessions.put(Segment.keyOf(record.getKey()), restoreSession(input(record.getValue())));
+            }
+        }
+        for (Map.Entry<Long, byte[]> record : ofKind(records, Segment.MEMBER).entrySet()) {
+            DataInputStream in = input(record.getValue());
+            String name = in.readUTF();
+            double budget = in.readDouble();
+            int bonusPoints = in.readInt();
+            int registeredSesPrevMonth = in.readInt();
+            int participatedSportPrevMonth = in.readInt();
+            int bonusPointsPrevMonth = in.readInt();
+            boolean firstSessionFree = in.readBoolean();
+            Member member = new Member(name, budget, in.readLong());
+            member.setBonusPoints(bonusPoints);
+            member.setRegisteredSesPrevMonth(registeredSesPrevMonth);
+            member.setParticipatedSportPrevMonth(participatedSportPrevMonth);
+            member.setBonusPointsPrevMonth(bonusPointsPrevMonth);
+            member.setFirstSessionFree(firstSessionFree);
+            keys.members.put(Segment.keyOf(record.getKey()), member);
+        }
+        Map<Integer, Integer> archivedIds = new HashMap<>();
+        for (Map.Entry<Long, byte[]> record : ofKind(records, Segment.ARCHIVED).entrySet()) {
+            int key = Segment.keyOf(record.getKey());
+            int id = restoreArchived(input(record.getValue()));
+            archivedIds.put(key, id);
+            archivedKeys.put(id, key);
+            nextArchivedKey = Math.max(nextArchivedKey, key + 1);
+        }
+        for (Map.Entry<Long, byte[]> record : ofKind(records, Segment.MEMBER).entrySet()) {
+            DataInputStream in = input(record.getValue());
+            Member member = object(keys.members, Segment.keyOf(record.getKey()));
+            in.readUTF();
+            in.skipNBytes(Double.BYTES + Integer.BYTES * 4 + 1 + Long.BYTES);
+            for (int entry : readKeys(in)) {
+                SportsClub club = object(keys.clubs, entry / 2);
+                member.restoreMembership(entry % 2 == SnapshotFormat.MEMBERSHIP_STANDARD
+                        ? new StandardMembership(club) : new FullMembership(club));
+            }
+            for (int key : readKeys(in)) {
+                member.restoreRegisteredSession(object(keys.sessions, key));
+            }
+            for (int key : readKeys(in)) {
+                Integer id = archivedIds.get(key);
+                if (id == null) {
+                    throw new IOException("Checkpoint refers to a missing archived session " + key);
+                }
+                member.restoreArchivedSession(id);
+            }
+        }
+        for (Map.Entry<Long, byte[]> record : ofKind(records, Segment.SESSION).entrySet()) {
+            if (record.getValue().length == 0) {
+                continue;
+            }
+            DataInputStream in = input(record.getValue());
+            TrainingSession session = object(keys.sessions, Segment.keyOf(record.getKey()));
+            in.skipNBytes(1 + Integer.BYTES + 1 + Long.BYTES + Integer.BYTES * 2 + Double.BYTES + Long.BYTES);
+            for (int key : readKeys(in)) {
+                session.addParticipant(object(keys.members, key));
+            }
+        }
+        markNewKeys(newMarks());
+    }
+
+    private TrainingSession restoreSession(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        Training training = object(keys.trainings, in.readInt());
+        TrainingSessionLevel level = LEVELS[in.readByte()];
+        LocalDateTime time = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        int maxParticipants = in.readInt();
+        double price = in.readDouble();
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        TrainingSession session = switch (kind) {
+            case SnapshotFormat.KIND_GROUP -> new GroupTrainingSession(training, level, time);
+            case SnapshotFormat.KIND_PERSONAL -> new PersonalTrainingSession(training, level, time);
+            case SnapshotFormat.KIND_ONLINE -> new OnlineTrainingSession(training, level, time);
+            default -> new TrainingSession(training, level, time, maxParticipants);
+        };
+        session.setPrice(price);
+        if (!session.getDate().equals(date)) {
+            session.setDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+        }
+        return session;
+    }
+
+    /**
+     * Add a stored archived session to the archive of the system.
+     * @return new id of the session.
+     */
+    private int restoreArchived(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        Training training = object(keys.trainings, in.readInt());
+        TrainingSessionLevel level = LEVELS[in.readByte()];
+        LocalDateTime time = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        int maxParticipants = in.readInt();
+        double price = in.readDouble();
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        List<Member> participants = new ArrayList<>();
+        for (int key : readKeys(in)) {
+            participants.add(object(keys.members, key));
+        }
+        return SportsClubSystem.getInstance().getSessionArchive().restore(new SessionArchive.Row(SnapshotFormat.NONE,
+                training, kind, level, time, maxParticipants, price, date, participants));
+    }
+
+    private static SortedMap<Long, byte[]> ofKind(TreeMap<Long, byte[]> records, int kind) {
+        return records.subMap(Segment.recordKey(kind, 0), Segment.recordKey(kind + 1, 0));
+    }
+
+    private static DataInputStream input(byte[] state) {
+        return new DataInputStream(new ByteArrayInputStream(state));
+    }
+
+    private static <T> T object(IndexedObjects<T> objects, int key) throws IOException {
+        T object = key >= 0 && key < objects.size() ? objects.get(key) : null;
+        if (object == null) {
+            throw new IOException("Checkpoint refers to a missing object " + key);
+        }
+        return object;
+    }
+}
@@ -0,0 +1,170 @@
+package ee.taltech.iti0202.snapshot;
+
+import ee.taltech.iti0202.journal.Journal;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Journal which only remembers which objects changed since they were last taken.
+ * An object changed while it is being written is marked again, so it is written once more next time.
+ */
+final class DirtyTracker implements Journal {
+
+    private final Set<SportsClub> clubs = ConcurrentHashMap.newKeySet();
+    private final Set<Trainer> trainers = ConcurrentHashMap.newKeySet();
+    private final Set<Training> trainings = ConcurrentHashMap.newKeySet();
+    private final Set<TrainingSession> sessions = ConcurrentHashMap.newKeySet();
+    private final Set<Member> members = ConcurrentHashMap.newKeySet();
+    private final Set<TrainingSession> archived = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Take all changed objects of one kind, they are no longer marked afterwards.
+     */
+    private static <T> List<T> take(Set<T> dirty) {
+        List<T> taken = new ArrayList<>(dirty.size());
+        for (T object : dirty) {
+            if (dirty.remove(object)) {
+                taken.add(object);
+            }
+        }
+        return taken;
+    }
+
+    List<SportsClub> takeClubs() {
+        return take(clubs);
+    }
+
+    List<Trainer> takeTrainers() {
+        return take(trainers);
+    }
+
+    List<Training> takeTrainings() {
+        return take(trainings);
+    }
+
+    List<TrainingSession> takeSessions() {
+        return take(sessions);
+    }
+
+    List<Member> takeMembers() {
+        return take(members);
+    }
+
+    List<TrainingSession> takeArchived() {
+        return take(archived);
+    }
+
+    int size() {
+        return clubs.size() + trainers.size() + trainings.size() + sessions.size() + members.size()
+                + archived.size();
+    }
+
+    @Override
+    public void clubCreated(SportsClub sportsClub) {
+        clubs.add(sportsClub);
+    }
+
+    @Override
+    public void trainerCreated(Trainer trainer) {
+        trainers.add(trainer);
+    }
+
+    @Override
+    public void trainerTypeAdded(Trainer trainer, TrainingSportType type) {
+        trainers.add(trainer);
+    }
+
+    @Override
+    public void trainerTypeRemoved(Trainer trainer, TrainingSportType type) {
+        trainers.add(trainer);
+    }
+
+    @Override
+    public void trainerHired(SportsClub sportsClub, Trainer trainer) {
+        clubs.add(sportsClub);
+        trainers.add(trainer);
+    }
+
+    @Override
+    public void trainingCreated(Training training) {
+        trainings.add(training);
+    }
+
+    @Override
+    public void trainerAssigned(Training training, Trainer trainer) {
+        trainings.add(training);
+        trainers.add(trainer);
+    }
+
+    @Override
+    public void trainingAdded(SportsClub sportsClub, Training training) {
+        clubs.add(sportsClub);
+        trainings.add(training);
+    }
+
+    @Override
+    public void sessionCreated(TrainingSession session) {
+        sessions.add(session);
+        trainings.add(session.getTraining());
+    }
+
+    @Override
+    public void sessionPriceSet(TrainingSession session) {
+        sessions.add(session);
+    }
+
+    @Override
+    public void sessionDateSet(TrainingSession session) {
+        sessions.add(session);
+    }
+
+    @Override
+    public void sessionArchived(TrainingSession session) {
+        sessions.remove(session);
+        archived.add(session);
+    }
+
+    @Override
+    public void memberCreated(Member member) {
+        members.add(member);
+    }
+
+    @Override
+    public void memberWorked(Member member) {
+        members.add(member);
+    }
+
+    @Override
+    public void membershipBought(Member member, Membership membership) {
+        members.add(member);
+        clubs.add(membership.getSportsClub());
+    }
+
+    @Override
+    public void memberRegistered(Member member, TrainingSession session) {
+        members.add(member);
+        sessions.add(session);
+    }
+
+    @Override
+    public void memberUnregistered(Member member, TrainingSession session) {
+        members.add(member);
+        sessions.add(session);
+    }
+
+    @Override
+    public void monthPassed(SportsClub sportsClub) {
+        clubs.add(sportsClub);
+        members.addAll(sportsClub.getAllMembers());
+    }
+}
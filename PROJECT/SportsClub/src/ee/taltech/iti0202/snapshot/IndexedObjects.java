@@ -0,0 +1,67 @@
+package ee.taltech.iti0202.snapshot;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Objects of one kind with their dense index, in the order they were added.
+ * @param <T> type of objects.
+ */
+final class IndexedObjects<T> {
+
+    private final Map<T, Integer> indexes = new IdentityHashMap<>();
+    private final List<T> objects = new ArrayList<>();
+
+    /**
+     * Add object with the next index.
+     * @param object to add, null is ignored.
+     * @return true if the object was not indexed before.
+     */
+    boolean add(T object) {
+        if (object == null || indexes.containsKey(object)) {
+            return false;
+        }
+        indexes.put(object, objects.size());
+        objects.add(object);
+        return true;
+    }
+
+    /**
+     * Put object at the given index, e.g. when indexes are read back from a file.
+     * @param index of the object.
+     * @param object to put.
+     */
+    void put(int index, T object) {
+        while (objects.size() <= index) {
+            objects.add(null);
+        }
+        objects.set(index, object);
+        indexes.put(object, index);
+    }
+
+    /**
+     * Forget the object at the index, its index is not given to another object.
+     * @param index of the object.
+     */
+    void remove(int index) {
+        T object = objects.set(index, null);
+        if (object != null) {
+            indexes.remove(object);
+        }
+    }
+
+    int indexOf(T object) {
+        Integer index = object == null ? null : indexes.get(object);
+        return index == null ? SnapshotFormat.NONE : index;
+    }
+
+    int size() {
+        return objects.size();
+    }
+
+    T get(int index) {
+        return objects.get(index);
+    }
+}
@@ -0,0 +1,132 @@
+package ee.taltech.iti0202.snapshot;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.Membership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.SessionArchive;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+
+import java.util.List;
+
+/**
+ * Dense indexes of every object reachable from the added objects.
+ * Objects can be added later again, only objects not seen before get new indexes.
+ * Only current sessions are indexed. Archived sessions are never read back from the archive,
+ * their rows are walked for the trainings and members they refer to.
+ */
+final class ObjectGraph {
+
+    final IndexedObjects<SportsClub> clubs = new IndexedObjects<>();
+    final IndexedObjects<Trainer> trainers = new IndexedObjects<>();
+    final IndexedObjects<Training> trainings = new IndexedObjects<>();
+    final IndexedObjects<TrainingSession> sessions = new IndexedObjects<>();
+    final IndexedObjects<Member> members = new IndexedObjects<>();
+    private int walkedSessions;
+    private int walkedMembers;
+
+    /**
+     * Add everything reachable from the sports clubs, training sessions and archived sessions of the system.
+     * @param system sports club system.
+     * @return rows of the archived sessions, in the order they were archived.
+     */
+    List<SessionArchive.Row> addSystem(SportsClubSystem system) {
+        for (SportsClub club : system.getSportsClubsInArea()) {
+            addClubAndLinks(club);
+        }
+        for (TrainingSession session : system.getTrainingSessions()) {
+            addSessionAndLinks(session);
+        }
+        List<SessionArchive.Row> archived = system.getSessionArchive().getRows();
+        for (SessionArchive.Row row : archived) {
+            addTrainingAndLinks(row.training());
+            for (Member participant : row.participants()) {
+                members.add(participant);
+            }
+        }
+        walk();
+        return archived;
+    }
+
+    void addClub(SportsClub club) {
+        addClubAndLinks(club);
+        walk();
+    }
+
+    void addTrainer(Trainer trainer) {
+        trainers.add(trainer);
+    }
+
+    void addTraining(Training training) {
+        addTrainingAndLinks(training);
+        walk();
+    }
+
+    void addSession(TrainingSession session) {
+        addSessionAndLinks(session);
+        walk();
+    }
+
+    void addMember(Member member) {
+        members.add(member);
+        walk();
+    }
+
+    /**
+     * Sessions can reach members, members can reach more sessions and clubs.
+     */
+    private void walk() {
+        while (walkedSessions < sessions.size() || walkedMembers < members.size()) {
+            for (; walkedSessions < sessions.size(); walkedSessions++) {
+                for (Member participant : sessions.get(walkedSessions).getParticipants()) {
+                    members.add(participant);
+                }
+            }
+            for (; walkedMembers < members.size(); walkedMembers++) {
+                Member member = members.get(walkedMembers);
+                for (Membership membership : member.getBoughtMemberships()) {
+                    addClubAndLinks(membership.getSportsClub());
+                }
+                for (TrainingSession session : member.getCurrentRegisteredSessions()) {
+                    addSessionAndLinks(session);
+                }
+            }
+        }
+    }
+
+    private void addClubAndLinks(SportsClub club) {
+        if (!clubs.add(club)) {
+            return;
+        }
+        for (Trainer trainer : club.getAllTrainers()) {
+            trainers.add(trainer);
+        }
+        for (Training training : club.getAllTrainings()) {
+            addTrainingAndLinks(training);
+        }
+        for (Member member : club.getAllMembers()) {
+            members.add(member);
+        }
+    }
+
+    private void addTrainingAndLinks(Training training) {
+        if (!trainings.add(training)) {
+            return;
+        }
+        trainers.add(training.getTrainer());
+        if (training.sportsClubItBelongsTo() != null) {
+            addClubAndLinks(training.sportsClubItBelongsTo());
+        }
+        for (TrainingSession session : training.getCurrentSessions()) {
+            addSessionAndLinks(session);
+        }
+    }
+
+    private void addSessionAndLinks(TrainingSession session) {
+        if (!session.isArchived() && sessions.add(session)) {
+            addTrainingAndLinks(session.getTraining());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ee.taltech.iti0202.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint segment file. A base segment holds every object, a delta segment only the objects
+ * which changed after the previous segment. Each record is the whole state of one object under its key,
+ * so a later record simply replaces an earlier one. An empty session record means the session was archived,
+ * from then on it is stored as an archived record under a key of its own.
+ * <p>
+ * Layout: {@code [int magic][int version][long sequence][int count]} followed by
+ * {@code [byte kind][int key][int length][state]} records and a CRC32 of everything before it.
+ */
+final class Segment {
+
+    static final int MAGIC = 0x53434431;
+    static final int VERSION = 3;
+
+    static final int TRAINER = 0;
+    static final int TRAINING = 1;
+    static final int CLUB = 2;
+    static final int SESSION = 3;
+    static final int MEMBER = 4;
+    static final int ARCHIVED = 5;
+
+    private static final Pattern NAME = Pattern.compile("(base|delta)-(\\d+)\\.ckpt");
+
+    private final Path path;
+    private final boolean base;
+    private final long sequence;
+
+    Segment(Path directory, boolean base, long sequence) {
+        this.path = directory.resolve(String.format("%s-%010d.ckpt", base ? "base" : "delta", sequence));
+        this.base = base;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Get segment of the file.
+     * @param file in the checkpoint directory.
+     * @return segment, null if the file is not a segment.
+     */
+    static Segment of(Path file) {
+        Matcher matcher = NAME.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Segment(file.getParent(), matcher.group(1).equals("base"), Long.parseLong(matcher.group(2)));
+    }
+
+    /**
+     * Record key, sorts records by kind first and key second.
+     */
+    static long recordKey(int kind, int key) {
+        return (long) kind << Integer.SIZE | key;
+    }
+
+    static int kindOf(long recordKey) {
+        return (int) (recordKey >>> Integer.SIZE);
+    }
+
+    static int keyOf(long recordKey) {
+        return (int) recordKey;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    boolean isBase() {
+        return base;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Write records into the segment file. The file is written next to it and moved into place,
+     * so a segment is either complete or missing.
+     * @param records state by record key.
+     * @throws IOException if writing fails.
+     */
+    void write(Map<Long, byte[]> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sequence);
+        out.writeInt(records.size());
+        for (Map.Entry<Long, byte[]> record : records.entrySet()) {
+            out.writeByte(kindOf(record.getKey()));
+            out.writeInt(keyOf(record.getKey()));
+            out.writeInt(record.getValue().length);
+            out.write(record.getValue());
+        }
+        out.flush();
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        out.flush();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read records of the segment file over the given records.
+     * @param records state by record key, records of this segment replace the ones already there.
+     * @throws IOException if reading fails or the file is damaged.
+     */
+    void readInto(Map<Long, byte[]> records) throws IOException {
+        byte[] content = Files.readAllBytes(path);
+        if (content.length < Integer.BYTES * 4 + Long.BYTES) {
+            throw new IOException("Checkpoint segment is damaged: " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length - Integer.BYTES);
+        if ((int) crc.getValue() != ByteBuffer.wrap(content).getInt(content.length - Integer.BYTES)) {
+            throw new IOException("Checkpoint segment is damaged: " + path);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != sequence) {
+            throw new IOException("File is not a checkpoint segment: " + path);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int kind = in.readByte();
+            int key = in.readInt();
+            byte[] state = new byte[in.readInt()];
+            in.readFully(state);
+            records.put(recordKey(kind, key), state);
+        }
+    }
+}
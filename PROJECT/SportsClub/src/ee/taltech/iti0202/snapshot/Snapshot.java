@@ -0,0 +1,589 @@
+package ee.taltech.iti0202.snapshot;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.OnlineTrainingSession;
+import ee.taltech.iti0202.training.PersonalTrainingSession;
+import ee.taltech.iti0202.training.SessionArchive;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+
+/**
+ * Snapshot file mapped into memory with {@link FileChannel#map}.
+ * Sports clubs, trainers and trainings are few, they are created when the snapshot is loaded.
+ * Members and training sessions are created on first access; until then their fields can be read
+ * straight from the mapped columns without creating any objects.
+ * Creating a member also creates the sessions it is registered to and their participants, so the
+ * returned objects are always complete. Created objects register themselves in the sports club system
+ * like any other new object.
+ * <p>
+ * A sports club only knows the members and sessions created so far: its member list, averages, session
+ * totals, sessions by time and rankings are partial until {@link #materializeAll()} is called.
+ * The club counts and averages of the snapshot ({@link #getClubMemberCount(int)} and the like) are read
+ * from the mapped columns and are right without creating anything.
+ * <p>
+ * Archived sessions go back into the {@link SessionArchive} of the system, never into the current sessions.
+ * An archived session is added to the archive together with its participants when a member registered to
+ * it is created, the rest by {@link #materializeAll()}.
+ */
+public final class Snapshot {
+
+    private static final TrainingSportType[] SPORT_TYPES = TrainingSportType.values();
+    private static final TrainingSessionLevel[] LEVELS = TrainingSessionLevel.values();
+
+    private final ByteBuffer buffer;
+    private final int[] counts = new int[SnapshotFormat.COUNTS];
+    private final int[] offsets = new int[SnapshotFormat.SECTIONS];
+    private final String[] strings;
+    private final SportsClub[] clubs;
+    private final Trainer[] trainers;
+    private final Training[] trainings;
+    private final TrainingSession[] sessions;
+    private final Member[] members;
+    private final int[] archivedIds;
+    private final Queue<Integer> unlinkedSessions = new ArrayDeque<>();
+    private final Queue<Integer> unlinkedMembers = new ArrayDeque<>();
+    private int materializedSessions;
+    private int materializedMembers;
+
+    private Snapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != SnapshotFormat.MAGIC) {
+            throw new IllegalArgumentException("File is not a sports club snapshot.");
+        }
+        if (buffer.getInt(Integer.BYTES) != SnapshotFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version.");
+        }
+        int position = Integer.BYTES * 2;
+        for (int i = 0; i < SnapshotFormat.COUNTS; i++, position += Integer.BYTES) {
+            counts[i] = buffer.getInt(position);
+        }
+        for (int i = 0; i < SnapshotFormat.SECTIONS; i++, position += Long.BYTES) {
+            offsets[i] = Math.toIntExact(buffer.getLong(position));
+        }
+        this.strings = new String[counts[SnapshotFormat.STRING_COUNT]];
+        this.clubs = new SportsClub[counts[SnapshotFormat.CLUB_COUNT]];
+        this.trainers = new Trainer[counts[SnapshotFormat.TRAINER_COUNT]];
+        this.trainings = new Training[counts[SnapshotFormat.TRAINING_COUNT]];
+        this.sessions = new TrainingSession[counts[SnapshotFormat.SESSION_COUNT]];
+        this.members = new Member[counts[SnapshotFormat.MEMBER_COUNT]];
+        this.archivedIds = new int[counts[SnapshotFormat.ARCHIVED_COUNT]];
+        Arrays.fill(archivedIds, SnapshotFormat.NONE);
+    }
+
+    /**
+     * Map the snapshot file and create its sports clubs, trainers and trainings.
+     * @param path snapshot file written by {@link SnapshotWriter}.
+     * @return loaded snapshot.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static Snapshot load(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Snapshot snapshot = new Snapshot(buffer);
+        snapshot.createClubs();
+        return snapshot;
+    }
+
+    private int intAt(int section, int index) {
+        return buffer.getInt(offsets[section] + index * Integer.BYTES);
+    }
+
+    private double doubleAt(int section, int index) {
+        return buffer.getDouble(offsets[section] + index * Double.BYTES);
+    }
+
+    private byte byteAt(int section, int index) {
+        return buffer.get(offsets[section] + index);
+    }
+
+    private int listSize(int section, int index) {
+        return buffer.getInt(offsets[section] + index * Integer.BYTES * 2 + Integer.BYTES);
+    }
+
+    private int listValue(int section, int index, int position) {
+        int start = buffer.getInt(offsets[section] + index * Integer.BYTES * 2);
+        return intAt(SnapshotFormat.INT_POOL, start + position);
+    }
+
+    private String string(int index) {
+        String value = strings[index];
+        if (value == null) {
+            int start = intAt(SnapshotFormat.STRING_OFFSETS, index);
+            byte[] bytes = new byte[intAt(SnapshotFormat.STRING_OFFSETS, index + 1) - start];
+            buffer.get(offsets[SnapshotFormat.STRING_BYTES] + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    private void createClubs() {
+        for (int i = 0; i < trainers.length; i++) {
+            ArrayList<TrainingSportType> types = new ArrayList<>();
+            for (int t = 0; t < listSize(SnapshotFormat.TRAINER_TYPES, i); t++) {
+                types.add(SPORT_TYPES[listValue(SnapshotFormat.TRAINER_TYPES, i, t)]);
+            }
+            trainers[i] = new Trainer(string(intAt(SnapshotFormat.TRAINER_NAME, i)), types);
+        }
+        for (int i = 0; i < trainings.length; i++) {
+            trainings[i] = new Training(string(intAt(SnapshotFormat.TRAINING_NAME, i)),
+                    SPORT_TYPES[byteAt(SnapshotFormat.TRAINING_TYPE, i)]);
+        }
+        for (int i = 0; i < clubs.length; i++) {
+            ArrayList<Trainer> clubTrainers = new ArrayList<>();
+            for (int t = 0; t < listSize(SnapshotFormat.CLUB_TRAINERS, i); t++) {
+                clubTrainers.add(trainers[listValue(SnapshotFormat.CLUB_TRAINERS, i, t)]);
+            }
+            ArrayList<Training> clubTrainings = new ArrayList<>();
+            for (int t = 0; t < listSize(SnapshotFormat.CLUB_TRAININGS, i); t++) {
+                clubTrainings.add(trainings[listValue(SnapshotFormat.CLUB_TRAININGS, i, t)]);
+            }
+            clubs[i] = new SportsClub(clubTrainers, clubTrainings);
+            clubs[i].setAverageNumPreviousMonth(doubleAt(SnapshotFormat.CLUB_AVERAGE_NUM, i));
+            clubs[i].setAverageBonusPointsPrevMonth(doubleAt(SnapshotFormat.CLUB_AVERAGE_BONUS, i));
+        }
+        for (int i = 0; i < trainings.length; i++) {
+            int trainer = intAt(SnapshotFormat.TRAINING_TRAINER, i);
+            if (trainer != SnapshotFormat.NONE) {
+                trainings[i].assignTrainer(trainers[trainer]);
+            }
+            trainings[i].setIsAddedToSportsClub(byteAt(SnapshotFormat.TRAINING_ADDED, i) == 1);
+            int club = intAt(SnapshotFormat.TRAINING_CLUB, i);
+            if (club != SnapshotFormat.NONE) {
+                trainings[i].setSportsClubItBelongsTo(clubs[club]);
+            }
+        }
+    }
+
+    /**
+     * Get sports club count.
+     * @return number of sports clubs in the snapshot.
+     */
+    public int getSportsClubCount() {
+        return clubs.length;
+    }
+
+    /**
+     * Get sports club by its index in the snapshot.
+     * @param index of the club.
+     * @return sports club.
+     */
+    public SportsClub getSportsClub(int index) {
+        return clubs[index];
+    }
+
+    /**
+     * Get trainer count.
+     * @return number of trainers in the snapshot.
+     */
+    public int getTrainerCount() {
+        return trainers.length;
+    }
+
+    /**
+     * Get trainer by its index in the snapshot.
+     * @param index of the trainer.
+     * @return trainer.
+     */
+    public Trainer getTrainer(int index) {
+        return trainers[index];
+    }
+
+    /**
+     * Get training count.
+     * @return number of trainings in the snapshot.
+     */
+    public int getTrainingCount() {
+        return trainings.length;
+    }
+
+    /**
+     * Get training by its index in the snapshot.
+     * @param index of the training.
+     * @return training.
+     */
+    public Training getTraining(int index) {
+        return trainings[index];
+    }
+
+    /**
+     * Get session count.
+     * @return number of training sessions in the snapshot.
+     */
+    public int getSessionCount() {
+        return sessions.length;
+    }
+
+    /**
+     * Get archived session count.
+     * @return number of archived training sessions in the snapshot.
+     */
+    public int getArchivedSessionCount() {
+        return archivedIds.length;
+    }
+
+    /**
+     * Get member count.
+     * @return number of members in the snapshot.
+     */
+    public int getMemberCount() {
+        return members.length;
+    }
+
+    /**
+     * Get materialized session count.
+     * @return number of training sessions created so far.
+     */
+    public synchronized int getMaterializedSessionCount() {
+        return materializedSessions;
+    }
+
+    /**
+     * Get materialized member count.
+     * @return number of members created so far.
+     */
+    public synchronized int getMaterializedMemberCount() {
+        return materializedMembers;
+    }
+
+    /**
+     * Get member name without creating the member.
+     * @param index of the member.
+     * @return name.
+     */
+    public String getMemberName(int index) {
+        Objects.checkIndex(index, members.length);
+        synchronized (this) {
+            return string(intAt(SnapshotFormat.MEMBER_NAME, index));
+        }
+    }
+
+    /**
+     * Get member budget without creating the member.
+     * @param index of the member.
+     * @return budget at the time of the snapshot.
+     */
+    public double getMemberBudget(int index) {
+        Objects.checkIndex(index, members.length);
+        return doubleAt(SnapshotFormat.MEMBER_BUDGET, index);
+    }
+
+    /**
+     * Get session training without creating the session.
+     * @param index of the session.
+     * @return training of the session.
+     */
+    public Training getSessionTraining(int index) {
+        Objects.checkIndex(index, sessions.length);
+        return trainings[intAt(SnapshotFormat.SESSION_TRAINING, index)];
+    }
+
+    /**
+     * Get session level without creating the session.
+     * @param index of the session.
+     * @return level.
+     */
+    public TrainingSessionLevel getSessionLevel(int index) {
+        Objects.checkIndex(index, sessions.length);
+        return LEVELS[byteAt(SnapshotFormat.SESSION_LEVEL, index)];
+    }
+
+    /**
+     * Get session start time without creating the session.
+     * @param index of the session.
+     * @return time.
+     */
+    public LocalDateTime getSessionTime(int index) {
+        Objects.checkIndex(index, sessions.length);
+        return LocalDateTime.ofEpochSecond(buffer.getLong(offsets[SnapshotFormat.SESSION_START] + index * Long.BYTES),
+                intAt(SnapshotFormat.SESSION_NANO, index), ZoneOffset.UTC);
+    }
+
+    /**
+     * Get session price without creating the session.
+     * @param index of the session.
+     * @return price.
+     */
+    public double getSessionPrice(int index) {
+        Objects.checkIndex(index, sessions.length);
+        return doubleAt(SnapshotFormat.SESSION_PRICE, index);
+    }
+
+    /**
+     * Get number of free places of the session without creating it.
+     * @param index of the session.
+     * @return free places.
+     */
+    public int getSessionFreePlaces(int index) {
+        Objects.checkIndex(index, sessions.length);
+        return intAt(SnapshotFormat.SESSION_MAX, index) - listSize(SnapshotFormat.SESSION_PARTICIPANTS, index);
+    }
+
+    /**
+     * Get number of members of the club without creating them.
+     * @param club index of the club.
+     * @return number of members with a membership to the club.
+     */
+    public int getClubMemberCount(int club) {
+        Objects.checkIndex(club, clubs.length);
+        int count = 0;
+        for (int i = 0; i < members.length; i++) {
+            if (hasMembership(i, club)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get number of sessions of the club's trainings without creating them, archived ones included.
+     * @param club index of the club.
+     * @return number of sessions.
+     */
+    public int getClubSessionCount(int club) {
+        Objects.checkIndex(club, clubs.length);
+        int count = 0;
+        for (int i = 0; i < sessions.length; i++) {
+            if (isClubSession(i, club)) {
+                count++;
+            }
+        }
+        for (int i = 0; i < archivedIds.length; i++) {
+            if (isClubArchivedSession(i, club)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the average number of the club's sessions per member without creating them,
+     * as {@link SportsClub#calculateAverageSessionsPerParticipant()} gives after {@link #materializeAll()}.
+     * @param club index of the club.
+     * @return average, 0 if the club has no members or registrations.
+     */
+    public double getClubAverageSessionsPerParticipant(int club) {
+        Objects.checkIndex(club, clubs.length);
+        int memberCount = 0;
+        long registrations = 0;
+        for (int i = 0; i < members.length; i++) {
+            if (hasMembership(i, club)) {
+                memberCount++;
+                for (int s = 0; s < listSize(SnapshotFormat.MEMBER_SESSIONS, i); s++) {
+                    if (isClubSession(listValue(SnapshotFormat.MEMBER_SESSIONS, i, s), club)) {
+                        registrations++;
+                    }
+                }
+                for (int s = 0; s < listSize(SnapshotFormat.MEMBER_ARCHIVED, i); s++) {
+                    if (isClubArchivedSession(listValue(SnapshotFormat.MEMBER_ARCHIVED, i, s), club)) {
+                        registrations++;
+                    }
+                }
+            }
+        }
+        return memberCount > 0 && registrations > 0 ? (double) registrations / memberCount : 0.0;
+    }
+
+    /**
+     * Get the average bonus points of the club's members without creating them,
+     * as {@link SportsClub#calculateAverageBonusPoints()} gives after {@link #materializeAll()}.
+     * @param club index of the club.
+     * @return average, 0 if the club has no members.
+     */
+    public double getClubAverageBonusPoints(int club) {
+        Objects.checkIndex(club, clubs.length);
+        int memberCount = 0;
+        long bonusPoints = 0;
+        for (int i = 0; i < members.length; i++) {
+            if (hasMembership(i, club)) {
+                memberCount++;
+                bonusPoints += intAt(SnapshotFormat.MEMBER_BONUS, i);
+            }
+        }
+        return memberCount > 0 ? (double) bonusPoints / memberCount : 0.0;
+    }
+
+    private boolean hasMembership(int member, int club) {
+        for (int i = 0; i < listSize(SnapshotFormat.MEMBER_MEMBERSHIPS, member); i++) {
+            if (listValue(SnapshotFormat.MEMBER_MEMBERSHIPS, member, i) / 2 == club) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isClubSession(int session, int club) {
+        return intAt(SnapshotFormat.TRAINING_CLUB, intAt(SnapshotFormat.SESSION_TRAINING, session)) == club;
+    }
+
+    private boolean isClubArchivedSession(int archived, int club) {
+        return intAt(SnapshotFormat.TRAINING_CLUB, intAt(SnapshotFormat.ARCHIVED_TRAINING, archived)) == club;
+    }
+
+    /**
+     * Get member, creating it (and everything it is connected to) on first access.
+     * Only the connected members and sessions are created, see the class comment for what a club
+     * can answer before {@link #materializeAll()}.
+     * @param index of the member.
+     * @return member.
+     */
+    public synchronized Member getMember(int index) {
+        Member member = memberAt(index);
+        linkPending();
+        return member;
+    }
+
+    /**
+     * Get training session, creating it (and everything it is connected to) on first access.
+     * Only the connected members and sessions are created, see the class comment for what a club
+     * can answer before {@link #materializeAll()}.
+     * @param index of the session.
+     * @return training session.
+     */
+    public synchronized TrainingSession getSession(int index) {
+        TrainingSession session = sessionAt(index);
+        linkPending();
+        return session;
+    }
+
+    /**
+     * Create all members and training sessions which have not been accessed yet.
+     */
+    public synchronized void materializeAll() {
+        for (int i = 0; i < sessions.length; i++) {
+            sessionAt(i);
+        }
+        for (int i = 0; i < archivedIds.length; i++) {
+            archivedAt(i);
+        }
+        for (int i = 0; i < members.length; i++) {
+            memberAt(i);
+        }
+        linkPending();
+    }
+
+    private Member memberAt(int index) {
+        Member member = members[index];
+        if (member == null) {
+            member = new Member(string(intAt(SnapshotFormat.MEMBER_NAME, index)),
+                    doubleAt(SnapshotFormat.MEMBER_BUDGET, index),
+                    buffer.getLong(offsets[SnapshotFormat.MEMBER_KEY] + index * Long.BYTES));
+            member.setBonusPoints(intAt(SnapshotFormat.MEMBER_BONUS, index));
+            member.setRegisteredSesPrevMonth(intAt(SnapshotFormat.MEMBER_PREV_SESSIONS, index));
+            member.setParticipatedSportPrevMonth(intAt(SnapshotFormat.MEMBER_PREV_SPORTS, index));
+            member.setBonusPointsPrevMonth(intAt(SnapshotFormat.MEMBER_PREV_BONUS, index));
+            member.setFirstSessionFree(byteAt(SnapshotFormat.MEMBER_FIRST_FREE, index) == 1);
+            members[index] = member;
+            materializedMembers++;
+            unlinkedMembers.add(index);
+        }
+        return member;
+    }
+
+    private TrainingSession sessionAt(int index) {
+        TrainingSession session = sessions[index];
+        if (session == null) {
+            Training training = trainings[intAt(SnapshotFormat.SESSION_TRAINING, index)];
+            TrainingSessionLevel level = LEVELS[byteAt(SnapshotFormat.SESSION_LEVEL, index)];
+            LocalDateTime time = getSessionTime(index);
+            session = switch (byteAt(SnapshotFormat.SESSION_KIND, index)) {
+                case SnapshotFormat.KIND_GROUP -> new GroupTrainingSession(training, level, time);
+                case SnapshotFormat.KIND_PERSONAL -> new PersonalTrainingSession(training, level, time);
+                case SnapshotFormat.KIND_ONLINE -> new OnlineTrainingSession(training, level, time);
+                default -> new TrainingSession(training, level, time, intAt(SnapshotFormat.SESSION_MAX, index));
+            };
+            session.setPrice(doubleAt(SnapshotFormat.SESSION_PRICE, index));
+            LocalDate date = LocalDate.ofEpochDay(intAt(SnapshotFormat.SESSION_DATE, index));
+            if (!session.getDate().equals(date)) {
+                session.setDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+            }
+            sessions[index] = session;
+            materializedSessions++;
+            unlinkedSessions.add(index);
+        }
+        return session;
+    }
+
+    /**
+     * Add the archived session to the archive of the system, creating its participants.
+     * @return id of the archived session.
+     */
+    private int archivedAt(int index) {
+        if (archivedIds[index] == SnapshotFormat.NONE) {
+            List<Member> participants = new ArrayList<>();
+            for (int i = 0; i < listSize(SnapshotFormat.ARCHIVED_PARTICIPANTS, index); i++) {
+                participants.add(memberAt(listValue(SnapshotFormat.ARCHIVED_PARTICIPANTS, index, i)));
+            }
+            LocalDateTime time = LocalDateTime.ofEpochSecond(
+                    buffer.getLong(offsets[SnapshotFormat.ARCHIVED_START] + index * Long.BYTES),
+                    intAt(SnapshotFormat.ARCHIVED_NANO, index), ZoneOffset.UTC);
+            archivedIds[index] = SportsClubSystem.getInstance().getSessionArchive().restore(new SessionArchive.Row(
+                    SnapshotFormat.NONE, trainings[intAt(SnapshotFormat.ARCHIVED_TRAINING, index)],
+                    byteAt(SnapshotFormat.ARCHIVED_KIND, index), LEVELS[byteAt(SnapshotFormat.ARCHIVED_LEVEL, index)],
+                    time, intAt(SnapshotFormat.ARCHIVED_MAX, index), doubleAt(SnapshotFormat.ARCHIVED_PRICE, index),
+                    LocalDate.ofEpochDay(intAt(SnapshotFormat.ARCHIVED_DATE, index)), participants));
+        }
+        return archivedIds[index];
+    }
+
+    /**
+     * Connect created members and sessions. Connecting may create more objects, so repeat until done.
+     * Participants of a session and sessions of a member are separate lists, each keeps its own order.
+     */
+    private void linkPending() {
+        while (!unlinkedMembers.isEmpty() || !unlinkedSessions.isEmpty()) {
+            Integer memberIndex = unlinkedMembers.poll();
+            if (memberIndex != null) {
+                Member member = members[memberIndex];
+                for (int i = 0; i < listSize(SnapshotFormat.MEMBER_MEMBERSHIPS, memberIndex); i++) {
+                    int entry = listValue(SnapshotFormat.MEMBER_MEMBERSHIPS, memberIndex, i);
+                    SportsClub club = clubs[entry / 2];
+                    member.restoreMembership(entry % 2 == SnapshotFormat.MEMBERSHIP_STANDARD
+                            ? new StandardMembership(club) : new FullMembership(club));
+                }
+                for (int i = 0; i < listSize(SnapshotFormat.MEMBER_SESSIONS, memberIndex); i++) {
+                    member.restoreRegisteredSession(sessionAt(listValue(SnapshotFormat.MEMBER_SESSIONS,
+                            memberIndex, i)));
+                }
+                for (int i = 0; i < listSize(SnapshotFormat.MEMBER_ARCHIVED, memberIndex); i++) {
+                    member.restoreArchivedSession(archivedAt(listValue(SnapshotFormat.MEMBER_ARCHIVED,
+                            memberIndex, i)));
+                }
+            }
+            Integer sessionIndex = unlinkedSessions.poll();
+            if (sessionIndex != null) {
+                TrainingSession session = sessions[sessionIndex];
+                for (int i = 0; i < listSize(SnapshotFormat.SESSION_PARTICIPANTS, sessionIndex); i++) {
+                    session.addParticipant(memberAt(listValue(SnapshotFormat.SESSION_PARTICIPANTS,
+                            sessionIndex, i)));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ee.taltech.iti0202.snapshot;
+
+/**
+ * Layout of the binary snapshot file.
+ * The header holds the object counts and the offset of every section. Objects are referred to by dense
+ * indexes in their section, strings by their index in the string table and variable length lists
+ * (trainers of a club, participants of a session, ...) by offset and count in the shared int pool.
+ * Sessions and members are stored column by column, so one field of all objects is read sequentially.
+ * Archived sessions have columns of their own, apart from the current ones, and members refer to the
+ * archived sessions they were registered to by their index in those columns.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x53435331;
+    static final int VERSION = 3;
+
+    static final int STRING_COUNT = 0;
+    static final int CLUB_COUNT = 1;
+    static final int TRAINER_COUNT = 2;
+    static final int TRAINING_COUNT = 3;
+    static final int SESSION_COUNT = 4;
+    static final int MEMBER_COUNT = 5;
+    static final int INT_POOL_SIZE = 6;
+    static final int ARCHIVED_COUNT = 7;
+    static final int COUNTS = 8;
+
+    static final int STRING_OFFSETS = 0;
+    static final int STRING_BYTES = 1;
+    static final int INT_POOL = 2;
+    static final int CLUB_AVERAGE_NUM = 3;
+    static final int CLUB_AVERAGE_BONUS = 4;
+    static final int CLUB_TRAINERS = 5;
+    static final int CLUB_TRAININGS = 6;
+    static final int TRAINER_NAME = 7;
+    static final int TRAINER_TYPES = 8;
+    static final int TRAINING_NAME = 9;
+    static final int TRAINING_TYPE = 10;
+    static final int TRAINING_TRAINER = 11;
+    static final int TRAINING_CLUB = 12;
+    static final int TRAINING_ADDED = 13;
+    static final int SESSION_KIND = 14;
+    static final int SESSION_TRAINING = 15;
+    static final int SESSION_LEVEL = 16;
+    static final int SESSION_START = 17;
+    static final int SESSION_NANO = 18;
+    static final int SESSION_MAX = 19;
+    static final int SESSION_PRICE = 20;
+    static final int SESSION_DATE = 21;
+    static final int SESSION_PARTICIPANTS = 22;
+    static final int MEMBER_NAME = 23;
+    static final int MEMBER_BUDGET = 24;
+    static final int MEMBER_BONUS = 25;
+    static final int MEMBER_PREV_SESSIONS = 26;
+    static final int MEMBER_PREV_SPORTS = 27;
+    static final int MEMBER_PREV_BONUS = 28;
+    static final int MEMBER_FIRST_FREE = 29;
+    static final int MEMBER_MEMBERSHIPS = 30;
+    static final int MEMBER_SESSIONS = 31;
+    static final int MEMBER_KEY = 32;
+    static final int ARCHIVED_KIND = 33;
+    static final int ARCHIVED_TRAINING = 34;
+    static final int ARCHIVED_LEVEL = 35;
+    static final int ARCHIVED_START = 36;
+    static final int ARCHIVED_NANO = 37;
+    static final int ARCHIVED_MAX = 38;
+    static final int ARCHIVED_PRICE = 39;
+    static final int ARCHIVED_DATE = 40;
+    static final int ARCHIVED_PARTICIPANTS = 41;
+    static final int MEMBER_ARCHIVED = 42;
+    static final int SECTIONS = 43;
+
+    static final int HEADER_SIZE = Integer.BYTES * (2 + COUNTS) + Long.BYTES * SECTIONS;
+
+    static final byte KIND_SESSION = 0;
+    static final byte KIND_GROUP = 1;
+    static final byte KIND_PERSONAL = 2;
+    static final byte KIND_ONLINE = 3;
+    static final int MEMBERSHIP_FULL = 0;
+    static final int MEMBERSHIP_STANDARD = 1;
+    static final int NONE = -1;
+
+    private SnapshotFormat() {
+    }
+}
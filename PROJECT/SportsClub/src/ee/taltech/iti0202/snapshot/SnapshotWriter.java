@@ -0,0 +1,266 @@
+package ee.taltech.iti0202.snapshot;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.OnlineTrainingSession;
+import ee.taltech.iti0202.training.PersonalTrainingSession;
+import ee.taltech.iti0202.training.SessionArchive;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSportType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the whole sports club system into a binary snapshot file, see {@link SnapshotFormat}.
+ * Everything reachable from the sports clubs and training sessions of the system is written, and the
+ * archived sessions are written from the archive columns without reading them back.
+ * The file is written next to the target and moved over it, so a crash never leaves a half written snapshot.
+ */
+public final class SnapshotWriter {
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final ObjectGraph graph = new ObjectGraph();
+    private final IndexedObjects<SportsClub> clubs = graph.clubs;
+    private final IndexedObjects<Trainer> trainers = graph.trainers;
+    private final IndexedObjects<Training> trainings = graph.trainings;
+    private final IndexedObjects<TrainingSession> sessions = graph.sessions;
+    private final IndexedObjects<Member> members = graph.members;
+    private final Map<Integer, Integer> archivedIndexes = new HashMap<>();
+    private List<SessionArchive.Row> archived = List.of();
+    private final ByteArrayOutputStream intPoolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream intPool = new DataOutputStream(intPoolBytes);
+    private int intPoolSize;
+
+    private SnapshotWriter() {
+    }
+
+    /**
+     * Write snapshot of the sports club system.
+     * @param path snapshot file, replaced if it exists.
+     * @throws IOException if writing fails.
+     */
+    public static void write(Path path) throws IOException {
+        SnapshotWriter writer = new SnapshotWriter();
+        writer.archived = writer.graph.addSystem(SportsClubSystem.getInstance());
+        byte[] content;
+        try {
+            content = writer.encode();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int intern(String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(value, id);
+            strings.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * Append a list to the int pool and write its offset and count into the column.
+     */
+    private void writeList(DataOutputStream column, int[] values) throws IOException {
+        column.writeInt(intPoolSize);
+        column.writeInt(values.length);
+        for (int value : values) {
+            intPool.writeInt(value);
+        }
+        intPoolSize += values.length;
+    }
+
+    private static int sessionKind(TrainingSession session) {
+        if (session instanceof GroupTrainingSession) {
+            return SnapshotFormat.KIND_GROUP;
+        } else if (session instanceof PersonalTrainingSession) {
+            return SnapshotFormat.KIND_PERSONAL;
+        } else if (session instanceof OnlineTrainingSession) {
+            return SnapshotFormat.KIND_ONLINE;
+        }
+        return SnapshotFormat.KIND_SESSION;
+    }
+
+    private byte[] encode() {
+        ByteArrayOutputStream[] sections = new ByteArrayOutputStream[SnapshotFormat.SECTIONS];
+        DataOutputStream[] out = new DataOutputStream[SnapshotFormat.SECTIONS];
+        for (int i = 0; i < SnapshotFormat.SECTIONS; i++) {
+            sections[i] = new ByteArrayOutputStream();
+            out[i] = new DataOutputStream(sections[i]);
+        }
+        try {
+            encodeClubs(out);
+            encodeTrainers(out);
+            encodeTrainings(out);
+            encodeSessions(out);
+            encodeArchived(out);
+            encodeMembers(out);
+            int stringOffset = 0;
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out[SnapshotFormat.STRING_OFFSETS].writeInt(stringOffset);
+                out[SnapshotFormat.STRING_BYTES].write(bytes);
+                stringOffset += bytes.length;
+            }
+            out[SnapshotFormat.STRING_OFFSETS].writeInt(stringOffset);
+            intPool.flush();
+            intPoolBytes.writeTo(out[SnapshotFormat.INT_POOL]);
+
+            ByteArrayOutputStream file = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(file);
+            header.writeInt(SnapshotFormat.MAGIC);
+            header.writeInt(SnapshotFormat.VERSION);
+            int[] counts = new int[SnapshotFormat.COUNTS];
+            counts[SnapshotFormat.STRING_COUNT] = strings.size();
+            counts[SnapshotFormat.CLUB_COUNT] = clubs.size();
+            counts[SnapshotFormat.TRAINER_COUNT] = trainers.size();
+            counts[SnapshotFormat.TRAINING_COUNT] = trainings.size();
+            counts[SnapshotFormat.SESSION_COUNT] = sessions.size();
+            counts[SnapshotFormat.MEMBER_COUNT] = members.size();
+            counts[SnapshotFormat.INT_POOL_SIZE] = intPoolSize;
+            counts[SnapshotFormat.ARCHIVED_COUNT] = archived.size();
+            for (int count : counts) {
+                header.writeInt(count);
+            }
+            long offset = SnapshotFormat.HEADER_SIZE;
+            for (int i = 0; i < SnapshotFormat.SECTIONS; i++) {
+                out[i].flush();
+                header.writeLong(offset);
+                offset += sections[i].size();
+            }
+            if (offset > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot is too large to be mapped.");
+            }
+            header.flush();
+            for (ByteArrayOutputStream section : sections) {
+                section.writeTo(file);
+            }
+            return file.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void encodeClubs(DataOutputStream[] out) throws IOException {
+        for (int i = 0; i < clubs.size(); i++) {
+            SportsClub club = clubs.get(i);
+            out[SnapshotFormat.CLUB_AVERAGE_NUM].writeDouble(club.getAverageNumPreviousMonth());
+            out[SnapshotFormat.CLUB_AVERAGE_BONUS].writeDouble(club.getAverageBonusPointsPrevMonth());
+            writeList(out[SnapshotFormat.CLUB_TRAINERS], club.getAllTrainers().stream()
+                    .mapToInt(trainers::indexOf).toArray());
+            writeList(out[SnapshotFormat.CLUB_TRAININGS], club.getAllTrainings().stream()
+                    .mapToInt(trainings::indexOf).toArray());
+        }
+    }
+
+    private void encodeTrainers(DataOutputStream[] out) throws IOException {
+        for (int i = 0; i < trainers.size(); i++) {
+            Trainer trainer = trainers.get(i);
+            out[SnapshotFormat.TRAINER_NAME].writeInt(intern(trainer.getName()));
+            writeList(out[SnapshotFormat.TRAINER_TYPES], trainer.getTrainingTypes().stream()
+                    .mapToInt(TrainingSportType::ordinal).toArray());
+        }
+    }
+
+    private void encodeTrainings(DataOutputStream[] out) throws IOException {
+        for (int i = 0; i < trainings.size(); i++) {
+            Training training = trainings.get(i);
+            out[SnapshotFormat.TRAINING_NAME].writeInt(intern(training.getName()));
+            out[SnapshotFormat.TRAINING_TYPE].writeByte(training.getTrainingSportType().ordinal());
+            out[SnapshotFormat.TRAINING_TRAINER].writeInt(trainers.indexOf(training.getTrainer()));
+            out[SnapshotFormat.TRAINING_CLUB].writeInt(clubs.indexOf(training.sportsClubItBelongsTo()));
+            out[SnapshotFormat.TRAINING_ADDED].writeByte(training.isAddedToSportsClub() ? 1 : 0);
+        }
+    }
+
+    private void encodeSessions(DataOutputStream[] out) throws IOException {
+        for (int i = 0; i < sessions.size(); i++) {
+            TrainingSession session = sessions.get(i);
+            out[SnapshotFormat.SESSION_KIND].writeByte(sessionKind(session));
+            out[SnapshotFormat.SESSION_TRAINING].writeInt(trainings.indexOf(session.getTraining()));
+            out[SnapshotFormat.SESSION_LEVEL].writeByte(session.getTrainingSessionLevel().ordinal());
+            out[SnapshotFormat.SESSION_START].writeLong(session.getTime().toEpochSecond(ZoneOffset.UTC));
+            out[SnapshotFormat.SESSION_NANO].writeInt(session.getTime().getNano());
+            out[SnapshotFormat.SESSION_MAX].writeInt(session.getMaxParticipants());
+            out[SnapshotFormat.SESSION_PRICE].writeDouble(session.getPrice());
+            out[SnapshotFormat.SESSION_DATE].writeInt((int) session.getDate().toEpochDay());
+            writeList(out[SnapshotFormat.SESSION_PARTICIPANTS], session.getParticipants().stream()
+                    .mapToInt(members::indexOf).toArray());
+        }
+    }
+
+    private void encodeArchived(DataOutputStream[] out) throws IOException {
+        for (int i = 0; i < archived.size(); i++) {
+            SessionArchive.Row row = archived.get(i);
+            archivedIndexes.put(row.id(), i);
+            out[SnapshotFormat.ARCHIVED_KIND].writeByte(row.kind());
+            out[SnapshotFormat.ARCHIVED_TRAINING].writeInt(trainings.indexOf(row.training()));
+            out[SnapshotFormat.ARCHIVED_LEVEL].writeByte(row.level().ordinal());
+            out[SnapshotFormat.ARCHIVED_START].writeLong(row.time().toEpochSecond(ZoneOffset.UTC));
+            out[SnapshotFormat.ARCHIVED_NANO].writeInt(row.time().getNano());
+            out[SnapshotFormat.ARCHIVED_MAX].writeInt(row.maxParticipants());
+            out[SnapshotFormat.ARCHIVED_PRICE].writeDouble(row.price());
+            out[SnapshotFormat.ARCHIVED_DATE].writeInt((int) row.date().toEpochDay());
+            writeList(out[SnapshotFormat.ARCHIVED_PARTICIPANTS], row.participants().stream()
+                    .mapToInt(members::indexOf).toArray());
+        }
+    }
+
+    private void encodeMembers(DataOutputStream[] out) throws IOException {
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            out[SnapshotFormat.MEMBER_NAME].writeInt(intern(member.getName()));
+            out[SnapshotFormat.MEMBER_BUDGET].writeDouble(member.getBudget());
+            out[SnapshotFormat.MEMBER_BONUS].writeInt(member.getBonusPoints());
+            out[SnapshotFormat.MEMBER_PREV_SESSIONS].writeInt(member.getRegisteredSesPrevMonth());
+            out[SnapshotFormat.MEMBER_PREV_SPORTS].writeInt(member.getParticipatedSportPrevMonth());
+            out[SnapshotFormat.MEMBER_PREV_BONUS].writeInt(member.getBonusPointsPrevMonth());
+            out[SnapshotFormat.MEMBER_FIRST_FREE].writeByte(member.isFirstSessionFree() ? 1 : 0);
+            out[SnapshotFormat.MEMBER_KEY].writeLong(member.getKey());
+            writeList(out[SnapshotFormat.MEMBER_MEMBERSHIPS], member.getBoughtMemberships().stream()
+                    .mapToInt(membership -> clubs.indexOf(membership.getSportsClub()) * 2
+                            + (membership instanceof StandardMembership ? SnapshotFormat.MEMBERSHIP_STANDARD
+                            : SnapshotFormat.MEMBERSHIP_FULL))
+                    .toArray());
+            writeList(out[SnapshotFormat.MEMBER_SESSIONS], member.getCurrentRegisteredSessions().stream()
+                    .mapToInt(sessions::indexOf).toArray());
+            // Sessions archived after the rows were taken are left out
+            writeList(out[SnapshotFormat.MEMBER_ARCHIVED], Arrays.stream(member.getArchivedSessionIds())
+                    .filter(archivedIndexes::containsKey).map(archivedIndexes::get).toArray());
+        }
+    }
+}
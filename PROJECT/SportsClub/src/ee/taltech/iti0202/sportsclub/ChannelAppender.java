@@ -0,0 +1,112 @@
+package ee.taltech.iti0202.sportsclub;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Appendable which encodes text as UTF-8 into a channel through two fixed buffers,
+ * so text of any length is written without building it in memory.
+ * The buffers are kept, one appender can be used for many writes. Call {@link #flush()} when done.
+ */
+public final class ChannelAppender implements Appendable, Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final WritableByteChannel channel;
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * Constructor for channel appender with default buffer size.
+     * @param channel to write into, not closed by the appender.
+     */
+    public ChannelAppender(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor for channel appender.
+     * @param channel to write into, not closed by the appender.
+     * @param bufferSize number of characters buffered before they are written.
+     */
+    public ChannelAppender(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < 2) {
+            throw new IllegalArgumentException("Buffer size must be at least 2.");
+        }
+        this.channel = channel;
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.bytes = ByteBuffer.allocate((int) (bufferSize * encoder.maxBytesPerChar()));
+    }
+
+    @Override
+    public ChannelAppender append(CharSequence text) throws IOException {
+        return append(text == null ? "null" : text, 0, text == null ? 4 : text.length());
+    }
+
+    @Override
+    public ChannelAppender append(CharSequence text, int start, int end) throws IOException {
+        if (text == null) {
+            return append("null", start, end);
+        }
+        for (int i = start; i < end; i++) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            chars.put(text.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public ChannelAppender append(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put(c);
+        return this;
+    }
+
+    /**
+     * Write all buffered text into the channel. The appender can be used again afterwards.
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public void flush() throws IOException {
+        encode(true);
+        while (encoder.flush(bytes) == CoderResult.OVERFLOW) {
+            drain();
+        }
+        drain();
+        encoder.reset();
+    }
+
+    /**
+     * Encode buffered characters. Half of a surrogate pair stays in the buffer until the rest arrives.
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (encoder.encode(chars, bytes, endOfInput) == CoderResult.OVERFLOW) {
+            drain();
+        }
+        chars.compact();
+        drain();
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -1,37 +1,103 @@
 package ee.taltech.iti0202.sportsclub;
 
 import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.history.ClubHistory;
+import ee.taltech.iti0202.journal.Journal;
+import ee.taltech.iti0202.logger.LogEvent;
 import ee.taltech.iti0202.logger.SportsClubLogger;
 import ee.taltech.iti0202.member.Member;
 import ee.taltech.iti0202.membership.FullMembership;
 import ee.taltech.iti0202.membership.Membership;
 import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.ranking.KeysetIndex;
+import ee.taltech.iti0202.ranking.RankedList;
+import ee.taltech.iti0202.registry.Registry;
+import ee.taltech.iti0202.repository.Repositories;
+import ee.taltech.iti0202.repository.Repository;
 import ee.taltech.iti0202.trainer.Trainer;
 import ee.taltech.iti0202.training.Training;
 import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.logging.Level;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Sets up new sports club and holds all members, trainers, trainings and sessions in the system.
  */
 public class SportsClub {
 
-    private List<Member> allMembers;
+    private final Registry<Member> allMembers;
+    private volatile List<Member> allMembersCopy;
     private List<Trainer> allTrainers;
     private List<Training> allTrainings;
+    private final Set<Trainer> hiredTrainers = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Training> addedTrainings = Collections.newSetFromMap(new IdentityHashMap<>());
     private List<Membership> memberships;
-    static int nextId = 0;
+    static final AtomicInteger nextId = new AtomicInteger();
     private final int id;
     int totalSessions = 0;
     private double averageNumPreviousMonth = 0.0;
     private double averageNum = 0.0;
     private double averageBonusPointsPrevMonth = 0.0;
     private double averageBonusPoints = 0.0;
+    private final AtomicInteger memberCount = new AtomicInteger();
+    private final LongAdder registrationTotal = new LongAdder();
+    private final LongAdder bonusPointTotal = new LongAdder();
+    private final AtomicLong version = new AtomicLong();
+    private final ViewCache viewCache = new ViewCache();
+    private final RankedList<Training, Long> trainingRanking = new RankedList<>(SportsClub::trainingRank,
+            Comparator.reverseOrder(), this::markModified);
+    private final RankedList<Trainer, TrainerRank> trainerRanking = new RankedList<>(TrainerRank::of,
+            TrainerRank.ORDER, this::markModified);
+    private final KeysetIndex<TrainingSession, LocalTime> sessionsByTime = new KeysetIndex<>(
+            (TrainingSession session) -> session.getTime().toLocalTime(), Comparator.naturalOrder());
+    private final KeysetIndex<TrainingSession, SessionRank> sessionsByRank = new KeysetIndex<>(SessionRank::of,
+            SessionRank.ORDER);
+    private final KeysetIndex<Member, Boolean> memberPages = KeysetIndex.inInsertionOrder();
+    private ClubHistory history;
+
+    /**
+     * Rank key of a trainer: more training types first, then more participants, then by name.
+     */
+    private record TrainerRank(int types, int participants, String name) {
+        private static final Comparator<TrainerRank> ORDER = Comparator
+                .comparingInt((TrainerRank rank) -> -rank.types())
+                .thenComparingInt(rank -> -rank.participants())
+                .thenComparing(TrainerRank::name);
+
+        private static TrainerRank of(Trainer trainer) {
+            return new TrainerRank(trainer.getTotalTrainingTypes(), trainer.getTotalTrainerParticipants(),
+                    trainer.getName());
+        }
+    }
+
+    /**
+     * Sort key of a session in {@link #getSortedTrainingSessions()}: level, then participants, then time.
+     */
+    private record SessionRank(TrainingSessionLevel level, int participants, LocalDateTime time) {
+        private static final Comparator<SessionRank> ORDER = Comparator
+                .comparing(SessionRank::level)
+                .thenComparingInt(SessionRank::participants)
+                .thenComparing(SessionRank::time);
+
+        private static SessionRank of(TrainingSession session) {
+            return new SessionRank(session.getTrainingSessionLevel(), session.getParticipants().size(),
+                    session.getTime());
+        }
+    }
 
     /**
      * Constructor for sports club.
@@ -39,23 +105,58 @@ public class SportsClub {
      * @param allTrainings
      */
     public SportsClub(ArrayList<Trainer> allTrainers, ArrayList<Training> allTrainings) {
-        this.id = nextId;
-        nextId++;
-        this.allMembers = new ArrayList<>();
+        this(allTrainers, allTrainings, true);
+    }
+
+    private SportsClub(ArrayList<Trainer> allTrainers, ArrayList<Training> allTrainings, boolean register) {
+        this.id = nextId.getAndIncrement();
+        this.allMembers = new Registry<>(Member::getId);
         this.allTrainers = allTrainers;
         this.allTrainings = allTrainings;
+        hiredTrainers.addAll(allTrainers);
+        addedTrainings.addAll(allTrainings);
+        for (Trainer trainer : allTrainers) {
+            trainer.addRanking(trainerRanking);
+        }
+        for (Training training : allTrainings) {
+            track(training);
+        }
 
         // Initialize memberships
         this.memberships = new ArrayList<>();
         memberships.add(new FullMembership(this));
         memberships.add(new StandardMembership(this));
+        if (!register) {
+            return;
+        }
         for (Membership membership : memberships) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Membership type: " + membership.getClass().getSimpleName());
+            SportsClubLogger.getInstance().log(LogEvent.MEMBERSHIP_TYPE_OFFERED, membership.getType());
         }
 
+        Repositories repositories = SportsClubSystem.getInstance().getRepositories();
+        allTrainers.forEach(repositories.trainers()::save);
+        allTrainings.forEach(repositories.trainings()::save);
         SportsClubSystem.getInstance().addSportsClub(this);
-        SportsClubLogger.getInstance().getLogger().log(Level.INFO, "New sports club has been registered");
+        Journal journal = SportsClubSystem.getInstance().getJournal();
+        journal.clubCreated(this);
+        for (Trainer trainer : allTrainers) {
+            journal.trainerHired(this, trainer);
+        }
+        for (Training training : allTrainings) {
+            journal.trainingAdded(this, training);
+        }
+        SportsClubLogger.getInstance().log(LogEvent.SPORTS_CLUB_REGISTERED);
+    }
+
+    /**
+     * Restore a sports club stored earlier, e.g. in a file store. Unlike the constructor it registers nothing:
+     * the club is not added to the sports club system, its repositories or the journal.
+     * @param allTrainers hired trainers.
+     * @param allTrainings added trainings.
+     * @return sports club with a new id.
+     */
+    public static SportsClub restore(ArrayList<Trainer> allTrainers, ArrayList<Training> allTrainings) {
+        return new SportsClub(allTrainers, allTrainings, false);
     }
 
     /**
@@ -66,21 +167,146 @@ public class SportsClub {
         return id;
     }
 
+    /**
+     * Get modification version of the club. It grows with every change of the club, its trainers, trainings,
+     * sessions and members, e.g. hiring, adding trainings, registering, unregistering, buying a membership
+     * and passing a month. Changes made directly to the lists returned by the getters are not seen.
+     * @return version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Changes of trainings and trainers are reported by the rankings, which see all of them.
+     */
+    private void markModified() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Drop the cached views after a session of the club was archived, so they do not keep it in memory.
+     * Called by the training of the session.
+     */
+    public void forgetArchivedSessions() {
+        markModified();
+        viewCache.clear();
+    }
+
+    /**
+     * Get number of view reads answered from the cache, see {@link #getVersion()}.
+     * @return hits.
+     */
+    public long getViewCacheHits() {
+        return viewCache.getHits();
+    }
+
+    /**
+     * Get number of view reads which had to be computed.
+     * @return misses.
+     */
+    public long getViewCacheMisses() {
+        return viewCache.getMisses();
+    }
+
     /**
      * Get all members of the club.
-     * @return list of members.
+     * The copy is taken under the club lock after a change and shared until the next change,
+     * so it can be read while other threads add members.
+     * @return read-only list of members.
      */
     public List<Member> getAllMembers() {
-        return allMembers;
+        List<Member> copy = allMembersCopy;
+        if (copy == null) {
+            synchronized (this) {
+                copy = List.copyOf(allMembers);
+                allMembersCopy = copy;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Get page of the members in the order they joined, see {@link KeysetIndex}.
+     * @param after cursor of the previous page, null for the first page.
+     * @param limit maximum number of members.
+     * @return page of members.
+     */
+    public KeysetIndex.Page<Member> getAllMembers(KeysetIndex.Cursor after, int limit) {
+        return memberPages.page(after, limit);
     }
 
     /**
      * Method to add new members to the system.
+     * A member who is still listed, e.g. after buying the membership again, is not added twice.
      * @param member
      */
-    public void addNewMember(Member member) {
-        SportsClubLogger.getInstance().getLogger().log(Level.INFO, "New member is added to the system");
-        allMembers.add(member);
+    public synchronized void addNewMember(Member member) {
+        if (!allMembers.add(member)) {
+            return;
+        }
+        SportsClubLogger.getInstance().log(LogEvent.MEMBER_ADDED_TO_CLUB, member.getId());
+        allMembersCopy = null;
+        memberPages.add(member);
+        memberCount.incrementAndGet();
+        registrationTotal.add(countClubSessions(member));
+        bonusPointTotal.add(member.getBonusPoints());
+        markModified();
+    }
+
+    private int countClubSessions(Member member) {
+        return member.countRegisteredSessions(training -> training.sportsClubItBelongsTo() == this);
+    }
+
+    /**
+     * Update the running total of registrations of the members to sessions of this club.
+     * Called by {@link Member} when a member with a membership here registers or unregisters.
+     * @param change number of added registrations, negative if removed.
+     */
+    public void countRegistrations(int change) {
+        registrationTotal.add(change);
+    }
+
+    /**
+     * Update the running total of bonus points of the members.
+     * Called by {@link Member} when bonus points of a member with a membership here change.
+     * @param change of bonus points.
+     */
+    public void countBonusPoints(int change) {
+        bonusPointTotal.add(change);
+    }
+
+    /**
+     * Move the registrations to sessions of the training into or out of the running totals,
+     * after the training moved to another club. Only the moved registrations are added,
+     * so registrations counted meanwhile are kept.
+     * @param training which moved.
+     * @param arrived true if it moved to this club, false if it moved away.
+     */
+    public void countMovedTraining(Training training, boolean arrived) {
+        int moved = 0;
+        for (Member member : getAllMembers()) {
+            moved += member.countRegisteredSessions(registered -> registered == training);
+        }
+        registrationTotal.add(arrived ? moved : -moved);
+    }
+
+    /**
+     * Count the running totals again from the members. The difference is added to the totals,
+     * so changes counted while the members are read are kept.
+     */
+    public synchronized void recountTotals() {
+        long registrationsBefore = registrationTotal.sum();
+        long bonusPointsBefore = bonusPointTotal.sum();
+        int registrations = 0;
+        int bonusPoints = 0;
+        for (Member member : allMembers) {
+            registrations += countClubSessions(member);
+            bonusPoints += member.getBonusPoints();
+        }
+        memberCount.set(allMembers.size());
+        registrationTotal.add(registrations - registrationsBefore);
+        bonusPointTotal.add(bonusPoints - bonusPointsBefore);
     }
 
 
@@ -97,16 +323,43 @@ public class SportsClub {
      * @param trainer
      */
     public void hireNewTrainer(Trainer trainer) {
-        if (allTrainers.contains(trainer)) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Trainer is already working here, cannot be added to the system again");
+        if (!hiredTrainers.add(trainer)) {
+            SportsClubLogger.getInstance().log(LogEvent.TRAINER_ALREADY_HIRED);
             throw new IllegalArgumentException("The trainer is already working here");
         }
-        SportsClubLogger.getInstance().getLogger().log(Level.INFO, "New trainer has been hired");
+        SportsClubLogger.getInstance().log(LogEvent.TRAINER_HIRED);
         allTrainers.add(trainer);
+        SportsClubSystem.getInstance().getRepositories().trainers().save(trainer);
+        trainer.addRanking(trainerRanking);
+        SportsClubSystem.getInstance().getJournal().trainerHired(this, trainer);
     }
 
 
+    /**
+     * Hire many new trainers at once. Already hired trainers are looked up in the set of hired trainers,
+     * and one event is logged for the whole batch.
+     * @param trainers to hire, none of them may be hired already.
+     */
+    public void hireNewTrainers(Collection<Trainer> trainers) {
+        Set<Trainer> batch = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Trainer trainer : trainers) {
+            if (hiredTrainers.contains(trainer) || !batch.add(trainer)) {
+                SportsClubLogger.getInstance().log(LogEvent.TRAINER_ALREADY_HIRED);
+                throw new IllegalArgumentException("The trainer is already working here");
+            }
+        }
+        hiredTrainers.addAll(batch);
+        allTrainers.addAll(trainers);
+        Repository<Trainer> repository = SportsClubSystem.getInstance().getRepositories().trainers();
+        Journal journal = SportsClubSystem.getInstance().getJournal();
+        for (Trainer trainer : trainers) {
+            repository.save(trainer);
+            trainer.addRanking(trainerRanking);
+            journal.trainerHired(this, trainer);
+        }
+        SportsClubLogger.getInstance().log(LogEvent.TRAINERS_HIRED, trainers.size());
+    }
+
     /**
      * Get all trainings of the club.
      * @return list of trainings.
@@ -120,15 +373,53 @@ public class SportsClub {
      * @param training
      */
     public void addNewTraining(Training training) {
-        if (allTrainings.contains(training)) {
-            SportsClubLogger.getInstance().getLogger()
-                    .log(Level.INFO, "Sports club already has this training, it cannot be added to the system");
+        if (!addedTrainings.add(training)) {
+            SportsClubLogger.getInstance().log(LogEvent.TRAINING_ALREADY_ADDED);
             throw new IllegalArgumentException("The training already exists");
         }
-        SportsClubLogger.getInstance().getLogger().log(Level.INFO, "New training has been added");
+        SportsClubLogger.getInstance().log(LogEvent.TRAINING_ADDED);
         allTrainings.add(training);
+        SportsClubSystem.getInstance().getRepositories().trainings().save(training);
+        track(training);
         training.setIsAddedToSportsClub(true);
         training.setSportsClubItBelongsTo(this);
+        SportsClubSystem.getInstance().getJournal().trainingAdded(this, training);
+    }
+
+    /**
+     * Add many new trainings at once. Already added trainings are looked up in the set of added trainings,
+     * and one event is logged for the whole batch.
+     * @param trainings to add, none of them may be added already.
+     */
+    public void addNewTrainings(Collection<Training> trainings) {
+        Set<Training> batch = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Training training : trainings) {
+            if (addedTrainings.contains(training) || !batch.add(training)) {
+                SportsClubLogger.getInstance().log(LogEvent.TRAINING_ALREADY_ADDED);
+                throw new IllegalArgumentException("The training already exists");
+            }
+        }
+        addedTrainings.addAll(batch);
+        allTrainings.addAll(trainings);
+        Repository<Training> repository = SportsClubSystem.getInstance().getRepositories().trainings();
+        Journal journal = SportsClubSystem.getInstance().getJournal();
+        for (Training training : trainings) {
+            repository.save(training);
+            track(training);
+            training.setIsAddedToSportsClub(true);
+            training.setSportsClubItBelongsTo(this);
+            journal.trainingAdded(this, training);
+        }
+        SportsClubLogger.getInstance().log(LogEvent.TRAININGS_ADDED, trainings.size());
+    }
+
+    /**
+     * Keep the training ranked and its sessions in the session indexes of the club.
+     */
+    private void track(Training training) {
+        training.addSessionPages(sessionsByTime);
+        training.addSessionPages(sessionsByRank);
+        training.addRanking(trainingRanking);
     }
 
     /**
@@ -141,13 +432,37 @@ public class SportsClub {
 
     /**
      * Method to sequence training sessions based on the number of participants and sessions.
-     * @return A list of trainings with the largest number of participants, sorted by session count.
+     * The trainings are kept ranked as participants and sessions change, so nothing is sorted here.
+     * @return A read-only list of trainings with the largest number of participants, sorted by session count.
      */
     public List<Training> sequenceTrainingSessions() {
-        return allTrainings.stream()
-                .sorted(Comparator.<Training>comparingInt(training -> training.getTotalParticipants())
-                        .thenComparingInt(training -> training.getTotalSessionsNumber()).reversed())
-                .collect(Collectors.toList());
+        return viewCache.get(ViewCache.View.TRAINING_SEQUENCE, version.get(),
+                () -> Collections.unmodifiableList(trainingRanking.toList()));
+    }
+
+    /**
+     * Get the trainings which would be first in {@link #sequenceTrainingSessions()}.
+     * @param count maximum number of trainings.
+     * @return up to count trainings.
+     */
+    public List<Training> getTopTrainings(int count) {
+        return trainingRanking.top(count);
+    }
+
+    /**
+     * Get the position of the training in {@link #sequenceTrainingSessions()}.
+     * @param training to find.
+     * @return 0 for the first training, -1 if the training is not in this club.
+     */
+    public int getTrainingRank(Training training) {
+        return trainingRanking.rankOf(training);
+    }
+
+    /**
+     * Rank key of a training, participants first and session count second. Both counts fit into an int.
+     */
+    private static long trainingRank(Training training) {
+        return (long) training.getTotalParticipants() << Integer.SIZE | training.getTotalSessionsNumber();
     }
 
     /**
@@ -155,80 +470,157 @@ public class SportsClub {
      * @return An overview string containing the information.
      */
     public String getOverview() {
-        StringBuilder overview = new StringBuilder();
-        overview.append("Offered Trainings:\n");
-        overview.append(getOfferedTrainingsOverview());
-        overview.append("\nTraining Sessions:\n");
-        overview.append(getTrainingSessionsOverview());
-        overview.append("\nParticipants:\n");
-        overview.append(getParticipantsOverview());
-        overview.append("\nMembers:\n");
-        overview.append(getMembersOverview());
-        overview.append("\nTrainers:\n");
-        overview.append(getTrainersOverview());
-        return overview.toString();
-    }
-
-    private String getOfferedTrainingsOverview() {
-        List<String> trainingNames = allTrainings.stream()
-                .map(Training::getName)
-                .collect(Collectors.toList());
-        return String.join(", ", trainingNames);
-    }
-
-    private String getTrainingSessionsOverview() {
+        return viewCache.get(ViewCache.View.OVERVIEW, version.get(), () -> {
+            StringBuilder overview = new StringBuilder();
+            try {
+                writeOverview(overview);
+            } catch (IOException e) {
+                // StringBuilder does not throw
+                throw new UncheckedIOException(e);
+            }
+            return overview.toString();
+        });
+    }
+
+    /**
+     * Write the overview of {@link #getOverview()} section by section, without building it in memory first.
+     * Use {@link ChannelAppender} to write it into a channel.
+     * @param out where the overview is written.
+     * @throws IOException if writing fails.
+     */
+    public void writeOverview(Appendable out) throws IOException {
+        out.append("Offered Trainings:\n");
+        String separator = "";
+        for (Training training : allTrainings) {
+            out.append(separator).append(training.getName());
+            separator = ", ";
+        }
+        out.append("\nTraining Sessions:\n");
+        writeTrainingSessionsOverview(out);
+        out.append("\nParticipants:\n");
+        writeParticipantsOverview(out);
+        out.append("\nMembers:\n");
+        separator = "";
+        for (Member member : getAllMembers()) {
+            out.append(separator).append(member.getName());
+            separator = ", ";
+        }
+        out.append("\nTrainers:\n");
+        separator = "";
+        for (Trainer trainer : allTrainers) {
+            out.append(separator).append(trainer.getName());
+            separator = ", ";
+        }
+    }
+
+    private void writeTrainingSessionsOverview(Appendable out) throws IOException {
         List<String> sessionDetails = allTrainings.stream()
                 .flatMap(training -> training.getTotalSessions().stream())
                 .map(session -> session.getName() + " - " + session.getTime().toLocalTime().toString())
                 .sorted()
-                .collect(Collectors.toList());
-        return String.join("\n", sessionDetails);
+                .toList();
+        writeJoined(out, sessionDetails, "\n");
     }
 
-    private String getParticipantsOverview() {
+    private void writeParticipantsOverview(Appendable out) throws IOException {
         List<String> participantNames = allTrainings.stream()
                 .flatMap(training -> training.getTotalSessions().stream())
                 .flatMap(session -> session.getParticipants().stream())
                 .map(Member::getName)
                 .distinct()
-                .collect(Collectors.toList());
-        return String.join(", ", participantNames);
-    }
-
-    private String getMembersOverview() {
-        List<String> memberNames = allMembers.stream()
-                .map(Member::getName)
-                .collect(Collectors.toList());
-        return String.join(", ", memberNames);
+                .toList();
+        writeJoined(out, participantNames, ", ");
     }
 
-    private String getTrainersOverview() {
-        List<String> trainerNames = allTrainers.stream()
-                .map(Trainer::getName)
-                .collect(Collectors.toList());
-        return String.join(", ", trainerNames);
+    private static void writeJoined(Appendable out, List<String> items, String separator) throws IOException {
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.append(separator);
+            }
+            out.append(items.get(i));
+        }
     }
 
     /**
      * Method to show training sessions arranged by the sports club sorted by time.
      * NB! THIS METHOD IS TESTED IN TrainingSessionExtraTestclass.
-     * @return List of training sessions arranged by the sports club sorted by time.
+     * @return Read-only list of training sessions arranged by the sports club sorted by time.
      */
     public List<TrainingSession> getClubSessionsByTime() {
-        return allTrainings.stream()
+        return viewCache.get(ViewCache.View.SESSIONS_BY_TIME, version.get(), () -> allTrainings.stream()
                 .filter(Training::isAddedToSportsClub) // Filter only the trainings arranged by the sports club
                 .flatMap(training -> training.getTotalSessions().stream())
                 .sorted(Comparator.comparing(session -> session.getTime().toLocalTime()))
-                .collect(Collectors.toList());
+                .toList());
+    }
+
+    /**
+     * Get page of {@link #getClubSessionsByTime()} from an index kept sorted by time,
+     * sessions at the same time in the order they were created. Archived sessions are left out,
+     * see {@link #getSessionsOverlapping(LocalDateTime, LocalDateTime)}.
+     * @param after cursor of the previous page, null for the first page.
+     * @param limit maximum number of sessions.
+     * @return page of sessions.
+     */
+    public KeysetIndex.Page<TrainingSession> getClubSessionsByTime(KeysetIndex.Cursor after, int limit) {
+        return sessionsByTime.page(after, limit, session -> session.getTraining().isAddedToSportsClub());
+    }
+
+    /**
+     * Get sessions of this sports club which overlap the given time window, archived sessions included.
+     * @param from inclusive start of the window.
+     * @param to exclusive end of the window.
+     * @return list of sessions ordered by start time.
+     */
+    public List<TrainingSession> getSessionsOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<TrainingSession> sessions = SportsClubSystem.getInstance().getSessionArchive()
+                .findOverlapping(this, from, to);
+        if (sessions.isEmpty()) {
+            return SportsClubSystem.getInstance().getSessionIndex().findOverlapping(this, from, to);
+        }
+        sessions.addAll(SportsClubSystem.getInstance().getSessionIndex().findOverlapping(this, from, to));
+        sessions.sort(Comparator.comparing(TrainingSession::getTime));
+        return sessions;
+    }
+
+    /**
+     * Get sessions of this sports club which are running at the given time, archived sessions included.
+     * @param time point in time.
+     * @return list of sessions ordered by start time.
+     */
+    public List<TrainingSession> getSessionsRunningAt(LocalDateTime time) {
+        List<TrainingSession> sessions = SportsClubSystem.getInstance().getSessionArchive()
+                .findRunningAt(this, time);
+        if (sessions.isEmpty()) {
+            return SportsClubSystem.getInstance().getSessionIndex().findRunningAt(this, time);
+        }
+        sessions.addAll(SportsClubSystem.getInstance().getSessionIndex().findRunningAt(this, time));
+        sessions.sort(Comparator.comparing(TrainingSession::getTime));
+        return sessions;
     }
 
     /**
      * Rank training sessions by type (BEGINNER, INTERMEDIATE; ADVANCED).
      * If the level is the same, the training sessions must be ordered according to the number of participants.
      * If the number of participants is also the same, the training sessions must be ordered by time.
-     * @return sorted list of sessions
+     * @return read-only sorted list of sessions
      */
     public List<TrainingSession> getSortedTrainingSessions() {
+        return viewCache.get(ViewCache.View.SORTED_SESSIONS, version.get(), this::sortTrainingSessions);
+    }
+
+    /**
+     * Get page of {@link #getSortedTrainingSessions()} from an index kept sorted as participants change,
+     * equal sessions in the order they were created. Archived sessions are left out.
+     * @param after cursor of the previous page, null for the first page.
+     * @param limit maximum number of sessions.
+     * @return page of sessions.
+     */
+    public KeysetIndex.Page<TrainingSession> getSortedTrainingSessions(KeysetIndex.Cursor after, int limit) {
+        return sessionsByRank.page(after, limit);
+    }
+
+    private List<TrainingSession> sortTrainingSessions() {
         Comparator<TrainingSession> comparator = Comparator
                 .comparing(TrainingSession::getTrainingSessionLevel)
                 .thenComparingInt(session -> session.getParticipants().size())
@@ -241,7 +633,7 @@ public class SportsClub {
 
         List<TrainingSession> sortedSessions = allSessions.stream()
                 .sorted(comparator)
-                .collect(Collectors.toList());
+                .toList();
 
         return sortedSessions;
     }
@@ -249,38 +641,57 @@ public class SportsClub {
     /**
      * Sorts trainers based on the number of specializations (training types),
      * number of registered members, and alphabetical order of first name.
-     * @return List of trainers sorted by the specified criteria.
+     * The trainers are kept ranked as their training types and participants change, so nothing is sorted here.
+     * @return Read-only list of trainers sorted by the specified criteria.
      */
     public List<Trainer> getSortedTrainers() {
-        return allTrainers.stream()
-                .sorted(Comparator
-                        .<Trainer>comparingInt(trainer -> -trainer.getTotalTrainingTypes())
-                        .thenComparingInt(trainer -> -trainer.getTotalTrainerParticipants())
-                        .thenComparing(Trainer::getName))
-                .collect(Collectors.toList());
+        return viewCache.get(ViewCache.View.SORTED_TRAINERS, version.get(),
+                () -> Collections.unmodifiableList(trainerRanking.toList()));
+    }
+
+    /**
+     * Get the trainers which would be first in {@link #getSortedTrainers()}.
+     * @param count maximum number of trainers.
+     * @return up to count trainers.
+     */
+    public List<Trainer> getTopTrainers(int count) {
+        return trainerRanking.top(count);
     }
 
     /**
      * Simulate the passage of a month for this sports club.
      * This method removes memberships for all members in each sports club.
      * This method works as helper method for sports club system.
+     * If the club has a history, the month is archived there before anything is cleared.
      */
     public void nextMonth() {
+        if (history != null) {
+            history.archiveMonth(this);
+        }
         setAverageNumPreviousMonth(calculateAverageSessionsPerParticipant());
         setAverageBonusPointsPrevMonth(calculateAverageBonusPoints());
-        for (Member member : allMembers) {
-            int regSesPrev = member.getRegisteredSessions().size();
-            int sportTypePrev = member.getParticipatedSports().size();
+        for (Member member : getAllMembers()) {
+            int regSesPrev = member.getRegisteredSessionCount();
+            int sportTypePrev = member.getParticipatedSportsCount();
             int bonusPointsPrev = member.getBonusPoints();
             member.setRegisteredSesPrevMonth(regSesPrev);
             member.setParticipatedSportPrevMonth(sportTypePrev);
             member.setBonusPointsPrevMonth(bonusPointsPrev);
-            member.getBoughtMemberships().clear();
-            member.getRegisteredSessions().clear();
-            member.getParticipatedSports().clear();
+            // Cleared while the memberships remain, so other clubs of the member update their totals
+            member.clearRegisteredSessions();
             member.setBonusPoints(0);
+            member.clearBoughtMemberships();
+            member.setSpentThisMonth(0);
         }
-        this.allMembers.clear();
+        // Recorded while the members are still listed, so journals can see whom the month changed
+        SportsClubSystem.getInstance().getJournal().monthPassed(this);
+        synchronized (this) {
+            this.allMembers.clear();
+            allMembersCopy = null;
+            memberPages.clear();
+            recountTotals();
+        }
+        markModified();
     }
 
     /**
@@ -292,6 +703,22 @@ public class SportsClub {
         return averageNum;
     }
 
+    /**
+     * Get history.
+     * @return history where every month is archived before it is cleared, null if months are not archived.
+     */
+    public ClubHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Archive every month into the history before {@link #nextMonth()} clears it.
+     * @param history of this club, null to stop archiving.
+     */
+    public void setHistory(ClubHistory history) {
+        this.history = history;
+    }
+
     /**
      * Get average points for members.
      * @return number.
@@ -328,43 +755,24 @@ public class SportsClub {
     /**
      * Calculate the average number of sessions per participant.
      * Total number of registration on session / number of people.
+     * Reads running totals kept up to date by registrations and memberships.
      * @return The average sessions per participant.
      */
     public double calculateAverageSessionsPerParticipant() {
-        if (allMembers.isEmpty()) {
-            return 0.0;
-        }
-        int totalSessions = 0;
-        int totalParticipants = 0;
-        for (Member member : allMembers) {
-            // Filter the member's registered sessions that belong to this sports club
-            long clubSessionsCount = member.getRegisteredSessions().stream()
-                    .filter(session -> session.getTraining().sportsClubItBelongsTo() == this)
-                    .count();
-            totalSessions += clubSessionsCount;
-            totalParticipants += 1;
-        }
-        return totalSessions > 0 ? (double) totalSessions / totalParticipants : 0.0;
+        int members = memberCount.get();
+        long registrations = registrationTotal.sum();
+        return members > 0 && registrations > 0 ? (double) registrations / members : 0.0;
     }
 
     /**
      * Calculate the average number of points per participant.
      * Total number of registration on points / number of people.
+     * Reads running totals kept up to date by bonus point changes and memberships.
      * @return The average points per participant.
      */
     public double calculateAverageBonusPoints() {
-        if (allMembers.isEmpty()) {
-            return 0.0;
-        }
-        int totalPoints = 0;
-        int totalParticipants = 0;
-
-        for (Member member : allMembers) {
-            totalPoints += member.getBonusPoints();
-            totalParticipants++;
-        }
-
-        return totalParticipants > 0 ? (double) totalPoints / totalParticipants : 0.0;
+        int members = memberCount.get();
+        return members > 0 ? (double) bonusPointTotal.sum() / members : 0.0;
     }
 
     public static class Builder {
@@ -423,7 +831,7 @@ public class SportsClub {
          * @return new Sports club.
          */
         public SportsClub build() {
-            SportsClubLogger.getInstance().getLogger().log(Level.INFO, "New sports club created");
+            SportsClubLogger.getInstance().log(LogEvent.SPORTS_CLUB_CREATED);
             SportsClub sportsClub = new SportsClub((ArrayList<Trainer>) allTrainers,
                     (ArrayList<Training>) allTrainings);
             SportsClubSystem.getInstance().addSportsClub(sportsClub);
@@ -0,0 +1,74 @@
+package ee.taltech.iti0202.sportsclub;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Last result of every view of a sports club together with the club version it was computed at.
+ * A result is reused while the version of the club stays the same.
+ */
+final class ViewCache {
+
+    /**
+     * Cached views of the sports club.
+     */
+    enum View {
+        OVERVIEW,
+        SESSIONS_BY_TIME,
+        SORTED_SESSIONS,
+        TRAINING_SEQUENCE,
+        SORTED_TRAINERS
+    }
+
+    private record Entry(long version, Object value) {
+    }
+
+    private final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(View.values().length);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Get the result of the view at the version, computing it if the cached one is older.
+     * The version must be read before the club is read, so a change made while computing makes the result old.
+     * @param view to get.
+     * @param version of the club.
+     * @param compute computes the result from the club.
+     * @return result, shared between callers.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(View view, long version, Supplier<T> compute) {
+        Entry entry = entries.get(view.ordinal());
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return (T) entry.value();
+        }
+        misses.increment();
+        T value = compute.get();
+        Entry computed = new Entry(version, value);
+        while (entry == null || entry.version() < version) {
+            if (entries.compareAndSet(view.ordinal(), entry, computed)) {
+                break;
+            }
+            entry = entries.get(view.ordinal());
+        }
+        return value;
+    }
+
+    /**
+     * Drop all cached results, e.g. when they may hold objects which should be freed.
+     */
+    void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, null);
+        }
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+}
@@ -1,11 +1,15 @@
 package ee.taltech.iti0202.trainer;
 
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.ranking.RankedList;
 import ee.taltech.iti0202.training.Training;
 import ee.taltech.iti0202.training.TrainingSportType;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Conducts trainings and training sessions.
@@ -18,6 +22,8 @@ public class Trainer {
     private final String name;
     private final List<TrainingSportType> trainingTypes;
     private List<Training> assignedTrainings;
+    private final LongAdder totalParticipants;
+    private final List<RankedList<Trainer, ?>> rankings = new CopyOnWriteArrayList<>();
 
     /**
      * Constructor for trainer.
@@ -26,9 +32,28 @@ public class Trainer {
      * @param trainingTypes
      */
     public Trainer(String name, ArrayList<TrainingSportType> trainingTypes) {
+        this(name, trainingTypes, true);
+    }
+
+    private Trainer(String name, List<TrainingSportType> trainingTypes, boolean register) {
         this.name = Objects.requireNonNull(name);
         this.trainingTypes = new ArrayList<>(trainingTypes);
         this.assignedTrainings = new ArrayList<>();
+        this.totalParticipants = new LongAdder();
+        if (register) {
+            SportsClubSystem.getInstance().getJournal().trainerCreated(this);
+        }
+    }
+
+    /**
+     * Restore a trainer stored earlier, e.g. in a file store. Unlike the constructor it registers nothing:
+     * the trainer is not recorded in the journal.
+     * @param name of the trainer.
+     * @param trainingTypes the trainer can conduct.
+     * @return trainer.
+     */
+    public static Trainer restore(String name, List<TrainingSportType> trainingTypes) {
+        return new Trainer(name, trainingTypes, false);
     }
 
     /**
@@ -48,6 +73,8 @@ public class Trainer {
             throw new IllegalArgumentException("Training type is already in the list.");
         }
         trainingTypes.add(trainingType);
+        updateRankings();
+        SportsClubSystem.getInstance().getJournal().trainerTypeAdded(this, trainingType);
     }
 
     /**
@@ -59,6 +86,8 @@ public class Trainer {
             throw new IllegalArgumentException("Training type is not in the list.");
         }
         trainingTypes.remove(trainingType);
+        updateRankings();
+        SportsClubSystem.getInstance().getJournal().trainerTypeRemoved(this, trainingType);
     }
 
     /**
@@ -82,12 +111,32 @@ public class Trainer {
      * @return Integer.
      */
     public Integer getTotalTrainerParticipants() {
-        int totalParticipants = 0;
-        for (Training training : getAssignedTrainings()) {
-            int addParticipants = training.getTotalParticipants();
-            totalParticipants += addParticipants;
+        return totalParticipants.intValue();
+    }
+
+    /**
+     * Update participants total when participants of an assigned training change.
+     * Striped counter, so sessions of different trainings can update it in parallel.
+     * @param count change in participants.
+     */
+    public void addToTotalParticipants(int count) {
+        totalParticipants.add(count);
+        updateRankings();
+    }
+
+    /**
+     * Keep the trainer at the right place in the ranking while its training types and participants change.
+     * @param ranking containing the trainer.
+     */
+    public void addRanking(RankedList<Trainer, ?> ranking) {
+        rankings.add(ranking);
+        ranking.add(this);
+    }
+
+    private void updateRankings() {
+        for (RankedList<Trainer, ?> ranking : rankings) {
+            ranking.update(this);
         }
-        return totalParticipants;
     }
 
     /**
@@ -28,6 +28,28 @@ public class GroupTrainingSession extends TrainingSession {
         setPrice(DEFAULT_PRICE);
     }
 
+    /**
+     * Constructor for a restored session, e.g. read back from the archive.
+     * @param id of the session.
+     * @param training
+     * @param level
+     * @param time
+     */
+    GroupTrainingSession(int id, Training training, TrainingSessionLevel level, LocalDateTime time) {
+        super(id, training, level, time, DEFAULT_MAX_PARTICIPANTS);
+    }
+
+    /**
+     * Restore a session stored earlier, see {@link TrainingSession#restore}.
+     * @param training of the session.
+     * @param level of the session.
+     * @param time of the session.
+     * @return session with a new id, registered nowhere.
+     */
+    public static GroupTrainingSession restore(Training training, TrainingSessionLevel level, LocalDateTime time) {
+        return new GroupTrainingSession(nextId.getAndIncrement(), training, level, time);
+    }
+
     /**
      * Check if time is between 9:00 and 15:00
      * @param time
@@ -0,0 +1,103 @@
+package ee.taltech.iti0202.training;
+
+import java.util.Arrays;
+
+/**
+ * Map from non-negative int keys to int values in two int arrays, with open addressing and linear probing.
+ * Entries can only be added, which is all the archive needs. Not synchronized.
+ */
+final class IntIndex {
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = newKeys(INITIAL_CAPACITY);
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static int slotOf(int key, int mask) {
+        // Spread the bits, ids are often consecutive
+        return (key * 0x9E3779B9 >>> 7) & mask;
+    }
+
+    /**
+     * Get value of the key.
+     * @param key non-negative key.
+     * @return value or -1 if the key is not in the index.
+     */
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask);; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Put value of the key, replacing an earlier one.
+     * @param key non-negative key.
+     * @param value to put.
+     */
+    void put(int key, int value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key cannot be negative.");
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        if (insert(keys, values, key, value)) {
+            size++;
+        }
+    }
+
+    private static boolean insert(int[] keys, int[] values, int key, int value) {
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        boolean added = keys[slot] == EMPTY;
+        keys[slot] = key;
+        values[slot] = value;
+        return added;
+    }
+
+    private void resize(int capacity) {
+        int[] newKeys = newKeys(capacity);
+        int[] newValues = new int[capacity];
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                insert(newKeys, newValues, keys[slot], values[slot]);
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    /**
+     * Get size.
+     * @return number of keys.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Remove all keys.
+     */
+    void clear() {
+        keys = newKeys(INITIAL_CAPACITY);
+        values = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+}
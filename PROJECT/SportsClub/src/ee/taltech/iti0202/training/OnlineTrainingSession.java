@@ -20,6 +20,28 @@ public class OnlineTrainingSession extends TrainingSession {
         setPrice(DEFAULT_PRICE);
     }
 
+    /**
+     * Constructor for a restored session, e.g. read back from the archive.
+     * @param id of the session.
+     * @param training
+     * @param level
+     * @param time
+     */
+    OnlineTrainingSession(int id, Training training, TrainingSessionLevel level, LocalDateTime time) {
+        super(id, training, level, time, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Restore a session stored earlier, see {@link TrainingSession#restore}.
+     * @param training of the session.
+     * @param level of the session.
+     * @param time of the session.
+     * @return session with a new id, registered nowhere.
+     */
+    public static OnlineTrainingSession restore(Training training, TrainingSessionLevel level, LocalDateTime time) {
+        return new OnlineTrainingSession(nextId.getAndIncrement(), training, level, time);
+    }
+
     /**
      * Builder for online training session.
      */
@@ -29,6 +29,28 @@ public class PersonalTrainingSession extends TrainingSession {
         setPrice(DEFAULT_PRICE);
     }
 
+    /**
+     * Constructor for a restored session, e.g. read back from the archive.
+     * @param id of the session.
+     * @param training
+     * @param level
+     * @param time
+     */
+    PersonalTrainingSession(int id, Training training, TrainingSessionLevel level, LocalDateTime time) {
+        super(id, training, level, time, DEFAULT_MAX_PARTICIPANTS);
+    }
+
+    /**
+     * Restore a session stored earlier, see {@link TrainingSession#restore}.
+     * @param training of the session.
+     * @param level of the session.
+     * @param time of the session.
+     * @return session with a new id, registered nowhere.
+     */
+    public static PersonalTrainingSession restore(Training training, TrainingSessionLevel level, LocalDateTime time) {
+        return new PersonalTrainingSession(nextId.getAndIncrement(), training, level, time);
+    }
+
     /**
      * // Check if time is between 14:00 and 18:00. End time also must be before 18:00.
      * @param time
@@ -0,0 +1,430 @@
+package ee.taltech.iti0202.training;
+
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only tier for training sessions which have ended. Every archived session is one row of primitive
+ * columns, and its participants are member ids in a shared int pool. Trainings and members are stored once
+ * and referred to by index and id. Members are held weakly, a member nobody else refers to is left out
+ * when a session is read back. Participants keep only the ids of their archived sessions.
+ * <p>
+ * A session is created again from its row when it is asked for, and the same object is returned while it is
+ * in use. Rows are found by id through a primitive index, and an array of rows ordered by start time lets
+ * time window searches binary search the columns and only create the sessions which match.
+ * Weak references are dropped through a reference queue once their object is collected.
+ * Archived sessions cannot be changed, see {@link TrainingSession#isArchived()}.
+ */
+public final class SessionArchive {
+
+    public static final byte KIND_SESSION = 0;
+    public static final byte KIND_GROUP = 1;
+    public static final byte KIND_PERSONAL = 2;
+    public static final byte KIND_ONLINE = 3;
+    private static final TrainingSessionLevel[] LEVELS = TrainingSessionLevel.values();
+    private static final int INITIAL_ROWS = 16;
+
+    private final List<Training> trainings = new ArrayList<>();
+    private final Map<Training, Integer> trainingIndexes = new IdentityHashMap<>();
+    private final Map<Integer, Ref<Member>> members = new HashMap<>();
+    private final Map<Integer, Ref<TrainingSession>> loaded = new HashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final IntIndex rowsById = new IntIndex();
+    private int rows;
+    private int[] rowsByStart = new int[INITIAL_ROWS];
+    private int maxDurationSeconds;
+    private int[] ids = new int[INITIAL_ROWS];
+    private int[] trainingColumn = new int[INITIAL_ROWS];
+    private byte[] kinds = new byte[INITIAL_ROWS];
+    private byte[] levels = new byte[INITIAL_ROWS];
+    private long[] startSeconds = new long[INITIAL_ROWS];
+    private int[] startNanos = new int[INITIAL_ROWS];
+    private int[] durationSeconds = new int[INITIAL_ROWS];
+    private int[] maxParticipants = new int[INITIAL_ROWS];
+    private double[] prices = new double[INITIAL_ROWS];
+    private int[] epochDays = new int[INITIAL_ROWS];
+    private int[] participantStarts = new int[INITIAL_ROWS + 1];
+    private int[] participantIds = new int[INITIAL_ROWS];
+
+    /**
+     * Columns of one archived session, e.g. for writing the archive into a file.
+     * @param id of the session.
+     * @param training of the session.
+     * @param kind of the session, one of the {@code KIND_} constants.
+     * @param level of the session.
+     * @param time start time of the session.
+     * @param maxParticipants of the session.
+     * @param price of the session.
+     * @param date of the session.
+     * @param participants which are still in memory, in the order they registered.
+     */
+    public record Row(int id, Training training, byte kind, TrainingSessionLevel level, LocalDateTime time,
+                      int maxParticipants, double price, LocalDate date, List<Member> participants) {
+    }
+
+    /**
+     * Weak reference which knows the id it is stored under, so it can be dropped once it is collected.
+     */
+    private static final class Ref<T> extends WeakReference<T> {
+        private final int id;
+
+        Ref(T referent, int id, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.id = id;
+        }
+    }
+
+    /**
+     * Drop the references whose objects have been collected.
+     */
+    private void expunge() {
+        Object reference;
+        while ((reference = collected.poll()) != null) {
+            Ref<?> ref = (Ref<?>) reference;
+            members.remove(ref.id, ref);
+            loaded.remove(ref.id, ref);
+        }
+    }
+
+    /**
+     * Add session to the archive and remove it from its training. The session becomes read-only.
+     * Removing it from the system is up to the caller.
+     * @param session to archive.
+     * @throws IllegalArgumentException if the session is already archived.
+     */
+    public synchronized void archive(TrainingSession session) {
+        if (rowsById.get(session.getId()) >= 0) {
+            throw new IllegalArgumentException("Training session is already archived.");
+        }
+        expunge();
+        session.markArchived();
+        List<Member> participants = session.getParticipants();
+        append(session.getId(), session.getTraining(), kindOf(session), session.getTrainingSessionLevel(),
+                session.getTime(), (int) session.getDuration().getSeconds(), session.getMaxParticipants(),
+                session.getPrice(), session.getDate(), participants);
+        for (Member member : participants) {
+            member.archiveRegisteredSession(session);
+        }
+        loaded.put(session.getId(), new Ref<>(session, session.getId(), collected));
+        session.getTraining().archiveSession(session);
+    }
+
+    /**
+     * Add a session archived earlier, e.g. read from a file, under a new id. It is added to its training,
+     * but not to its participants: only the members who were still registered to it keep it,
+     * see {@link Member#restoreArchivedSession(int)}.
+     * @param row columns of the session, its id is not used.
+     * @return new id of the session.
+     */
+    public synchronized int restore(Row row) {
+        expunge();
+        int id = TrainingSession.nextId.getAndIncrement();
+        append(id, row.training(), row.kind(), row.level(), row.time(),
+                (int) TrainingSession.DURATION.getSeconds(), row.maxParticipants(), row.price(), row.date(),
+                row.participants());
+        row.training().restoreArchivedSession(id, row.participants().size());
+        return id;
+    }
+
+    private void append(int id, Training training, byte kind, TrainingSessionLevel level, LocalDateTime time,
+                        int duration, int max, double price, LocalDate date, List<Member> participants) {
+        if (rows == ids.length) {
+            grow();
+        }
+        Integer trainingIndex = trainingIndexes.get(training);
+        if (trainingIndex == null) {
+            trainingIndex = trainings.size();
+            trainings.add(training);
+            trainingIndexes.put(training, trainingIndex);
+        }
+        ids[rows] = id;
+        trainingColumn[rows] = trainingIndex;
+        kinds[rows] = kind;
+        levels[rows] = (byte) level.ordinal();
+        startSeconds[rows] = time.toEpochSecond(ZoneOffset.UTC);
+        startNanos[rows] = time.getNano();
+        durationSeconds[rows] = duration;
+        maxParticipants[rows] = max;
+        prices[rows] = price;
+        epochDays[rows] = (int) date.toEpochDay();
+        int start = participantStarts[rows];
+        if (start + participants.size() > participantIds.length) {
+            participantIds = Arrays.copyOf(participantIds, Math.max(participantIds.length * 2,
+                    start + participants.size()));
+        }
+        for (int i = 0; i < participants.size(); i++) {
+            Member member = participants.get(i);
+            Ref<Member> known = members.get(member.getId());
+            if (known == null || known.get() == null) {
+                members.put(member.getId(), new Ref<>(member, member.getId(), collected));
+            }
+            participantIds[start + i] = member.getId();
+        }
+        participantStarts[rows + 1] = start + participants.size();
+        rowsById.put(id, rows);
+        insertByStart(rows);
+        maxDurationSeconds = Math.max(maxDurationSeconds, duration);
+        rows++;
+    }
+
+    private void grow() {
+        int capacity = rows * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        trainingColumn = Arrays.copyOf(trainingColumn, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        startSeconds = Arrays.copyOf(startSeconds, capacity);
+        startNanos = Arrays.copyOf(startNanos, capacity);
+        durationSeconds = Arrays.copyOf(durationSeconds, capacity);
+        maxParticipants = Arrays.copyOf(maxParticipants, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        participantStarts = Arrays.copyOf(participantStarts, capacity + 1);
+        rowsByStart = Arrays.copyOf(rowsByStart, capacity);
+    }
+
+    /**
+     * Put the row into the rows ordered by start time, after the rows which start at the same time.
+     * Sessions mostly end in start order, so the row usually goes to the end.
+     */
+    private void insertByStart(int row) {
+        int position = firstStartingAtOrAfter(startSeconds[row], startNanos[row] + 1);
+        System.arraycopy(rowsByStart, position, rowsByStart, position + 1, rows - position);
+        rowsByStart[position] = row;
+    }
+
+    /**
+     * Binary search the rows ordered by start time.
+     * @return position of the first row which starts at or after the given time.
+     */
+    private int firstStartingAtOrAfter(long second, int nano) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int row = rowsByStart[middle];
+            if (compare(startSeconds[row], startNanos[row], second, nano) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static byte kindOf(TrainingSession session) {
+        if (session instanceof GroupTrainingSession) {
+            return KIND_GROUP;
+        } else if (session instanceof PersonalTrainingSession) {
+            return KIND_PERSONAL;
+        } else if (session instanceof OnlineTrainingSession) {
+            return KIND_ONLINE;
+        }
+        return KIND_SESSION;
+    }
+
+    /**
+     * Get size.
+     * @return number of archived sessions.
+     */
+    public synchronized int size() {
+        return rows;
+    }
+
+    /**
+     * Check if the session with the id is archived.
+     * @param id of the session.
+     * @return boolean.
+     */
+    public synchronized boolean contains(int id) {
+        return rowsById.get(id) >= 0;
+    }
+
+    /**
+     * Get number of participants of an archived session without reading the session back.
+     * @param id of the session.
+     * @return number of participants, -1 if the session is not archived.
+     */
+    public synchronized int getParticipantCount(int id) {
+        int row = rowsById.get(id);
+        return row < 0 ? -1 : participantStarts[row + 1] - participantStarts[row];
+    }
+
+    /**
+     * Get training of an archived session without reading the session back.
+     * @param id of the session.
+     * @return training, null if the session is not archived.
+     */
+    public synchronized Training getTraining(int id) {
+        int row = rowsById.get(id);
+        return row < 0 ? null : trainings.get(trainingColumn[row]);
+    }
+
+    /**
+     * Get date of an archived session without reading the session back.
+     * @param id of the session.
+     * @return date, null if the session is not archived.
+     */
+    public synchronized LocalDate getDate(int id) {
+        int row = rowsById.get(id);
+        return row < 0 ? null : LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    /**
+     * Get price of an archived session without reading the session back.
+     * @param id of the session.
+     * @return price, 0 if the session is not archived.
+     */
+    public synchronized double getPrice(int id) {
+        int row = rowsById.get(id);
+        return row < 0 ? 0 : prices[row];
+    }
+
+    /**
+     * Get columns of an archived session without reading the session back.
+     * @param id of the session.
+     * @return row, null if the session is not archived.
+     */
+    public synchronized Row getRow(int id) {
+        int row = rowsById.get(id);
+        if (row < 0) {
+            return null;
+        }
+        expunge();
+        return rowAt(row);
+    }
+
+    /**
+     * Get columns of all archived sessions in the order they were archived.
+     * @return list of rows.
+     */
+    public synchronized List<Row> getRows() {
+        expunge();
+        List<Row> found = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            found.add(rowAt(row));
+        }
+        return found;
+    }
+
+    private Row rowAt(int row) {
+        return new Row(ids[row], trainings.get(trainingColumn[row]), kinds[row], LEVELS[levels[row]],
+                LocalDateTime.ofEpochSecond(startSeconds[row], startNanos[row], ZoneOffset.UTC),
+                maxParticipants[row], prices[row], LocalDate.ofEpochDay(epochDays[row]), participantsAt(row));
+    }
+
+    private List<Member> participantsAt(int row) {
+        List<Member> participants = new ArrayList<>(participantStarts[row + 1] - participantStarts[row]);
+        for (int i = participantStarts[row]; i < participantStarts[row + 1]; i++) {
+            Ref<Member> participant = members.get(participantIds[i]);
+            Member member = participant == null ? null : participant.get();
+            if (member != null) {
+                participants.add(member);
+            }
+        }
+        return participants;
+    }
+
+    /**
+     * Find archived session by its id.
+     * @param id of the session.
+     * @return read-only session or null if it is not archived.
+     */
+    public synchronized TrainingSession find(int id) {
+        int row = rowsById.get(id);
+        if (row < 0) {
+            return null;
+        }
+        expunge();
+        return load(row);
+    }
+
+    /**
+     * Get archived sessions of the sports club which overlap the window [from, to), ordered by start time.
+     * @param sportsClub the sessions belong to.
+     * @param from inclusive start of the window.
+     * @param to exclusive end of the window.
+     * @return list of read-only sessions.
+     */
+    public synchronized List<TrainingSession> findOverlapping(SportsClub sportsClub, LocalDateTime from,
+                                                              LocalDateTime to) {
+        expunge();
+        long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+        long toSecond = to.toEpochSecond(ZoneOffset.UTC);
+        List<TrainingSession> found = new ArrayList<>();
+        // No session is longer than the longest one, so earlier ones end before the window
+        int end = firstStartingAtOrAfter(toSecond, to.getNano());
+        for (int i = firstStartingAtOrAfter(fromSecond - maxDurationSeconds, from.getNano()); i < end; i++) {
+            int row = rowsByStart[i];
+            if (trainings.get(trainingColumn[row]).sportsClubItBelongsTo() != sportsClub) {
+                continue;
+            }
+            long endSecond = startSeconds[row] + durationSeconds[row];
+            if (compare(endSecond, startNanos[row], fromSecond, from.getNano()) > 0) {
+                found.add(load(row));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get archived sessions of the sports club running at the given instant, ordered by start time.
+     * @param sportsClub the sessions belong to.
+     * @param instant point in time.
+     * @return list of read-only sessions.
+     */
+    public synchronized List<TrainingSession> findRunningAt(SportsClub sportsClub, LocalDateTime instant) {
+        return findOverlapping(sportsClub, instant, instant.plusNanos(1));
+    }
+
+    private static int compare(long firstSecond, int firstNano, long secondSecond, int secondNano) {
+        int result = Long.compare(firstSecond, secondSecond);
+        return result != 0 ? result : Integer.compare(firstNano, secondNano);
+    }
+
+    /**
+     * Remove all archived sessions.
+     */
+    public synchronized void clear() {
+        trainings.clear();
+        trainingIndexes.clear();
+        members.clear();
+        rowsById.clear();
+        loaded.clear();
+        rows = 0;
+        maxDurationSeconds = 0;
+    }
+
+    private TrainingSession load(int row) {
+        Ref<TrainingSession> reference = loaded.get(ids[row]);
+        TrainingSession session = reference == null ? null : reference.get();
+        if (session != null) {
+            return session;
+        }
+        Training training = trainings.get(trainingColumn[row]);
+        TrainingSessionLevel level = LEVELS[levels[row]];
+        LocalDateTime time = LocalDateTime.ofEpochSecond(startSeconds[row], startNanos[row], ZoneOffset.UTC);
+        session = switch (kinds[row]) {
+            case KIND_GROUP -> new GroupTrainingSession(ids[row], training, level, time);
+            case KIND_PERSONAL -> new PersonalTrainingSession(ids[row], training, level, time);
+            case KIND_ONLINE -> new OnlineTrainingSession(ids[row], training, level, time);
+            default -> new TrainingSession(ids[row], training, level, time, maxParticipants[row]);
+        };
+        session.restoreState(prices[row], LocalDate.ofEpochDay(epochDays[row]), participantsAt(row));
+        session.markArchived();
+        loaded.put(ids[row], new Ref<>(session, ids[row], collected));
+        return session;
+    }
+}
@@ -0,0 +1,89 @@
+package ee.taltech.iti0202.training;
+
+import ee.taltech.iti0202.member.Member;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * FIFO waitlist of a training session. Lock-free: the queue and the member lookup are concurrent collections.
+ * Leaving the list only drops the lookup entry, the stale queue entry is skipped when it reaches the head.
+ */
+class SessionWaitlist {
+
+    private final Deque<Entry> queue = new ConcurrentLinkedDeque<>();
+    private final Map<Member, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Place of a member in the queue.
+     */
+    private static final class Entry {
+        private final Member member;
+
+        Entry(Member member) {
+            this.member = member;
+        }
+    }
+
+    /**
+     * Add member to the end of the list.
+     * @param member to add.
+     * @return false if member is already waiting.
+     */
+    boolean add(Member member) {
+        Entry entry = new Entry(member);
+        if (entries.putIfAbsent(member, entry) != null) {
+            return false;
+        }
+        queue.offerLast(entry);
+        return true;
+    }
+
+    /**
+     * Put member back to the head of the list, when promotion lost the seat to someone else.
+     * @param member to put back.
+     */
+    void pushBack(Member member) {
+        Entry entry = new Entry(member);
+        if (entries.putIfAbsent(member, entry) == null) {
+            queue.offerFirst(entry);
+        }
+    }
+
+    /**
+     * Remove member from the list.
+     * @param member to remove.
+     * @return true if member was waiting.
+     */
+    boolean remove(Member member) {
+        return entries.remove(member) != null;
+    }
+
+    /**
+     * Take the member at the head of the list.
+     * @return member or null if nobody is waiting.
+     */
+    Member poll() {
+        Entry entry;
+        while ((entry = queue.pollFirst()) != null) {
+            if (entries.remove(entry.member, entry)) {
+                return entry.member;
+            }
+        }
+        return null;
+    }
+
+    boolean contains(Member member) {
+        return entries.containsKey(member);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+}
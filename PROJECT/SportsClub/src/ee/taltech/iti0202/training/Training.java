@@ -1,12 +1,23 @@
 package ee.taltech.iti0202.training;
 
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.ranking.KeysetIndex;
+import ee.taltech.iti0202.ranking.RankedList;
+import ee.taltech.iti0202.search.SessionIndex;
 import ee.taltech.iti0202.sportsclub.SportsClub;
 import ee.taltech.iti0202.trainer.Trainer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Training sets up information about sports club activities.
@@ -18,7 +29,11 @@ public class Training {
     private Trainer trainer;
     private final TrainingSportType type;
     private final Map<TrainingSession, Integer> sessionsMap;
-    private int totalParticipants = 0;
+    private int[] archivedSessionIds = new int[0];
+    private int archivedSessionCount;
+    private final LongAdder totalParticipants = new LongAdder();
+    private final List<RankedList<Training, ?>> rankings = new CopyOnWriteArrayList<>();
+    private final List<KeysetIndex<TrainingSession, ?>> sessionPages = new CopyOnWriteArrayList<>();
     private boolean isAddedToSportsClub;
     private SportsClub sportsClub;
 
@@ -28,10 +43,34 @@ public class Training {
      * @param type
      */
     public Training(String name, TrainingSportType type) {
+        this(name, type, true);
+    }
+
+    private Training(String name, TrainingSportType type, boolean register) {
         this.name = Objects.requireNonNull(name);
         this.type = Objects.requireNonNull(type);
         this.sessionsMap = new HashMap<>();
         this.isAddedToSportsClub = false;
+        if (register) {
+            SportsClubSystem.getInstance().getJournal().trainingCreated(this);
+        }
+    }
+
+    /**
+     * Restore a training stored earlier, e.g. in a file store. Unlike the constructor it registers nothing:
+     * the training and its trainer are not recorded in the journal.
+     * @param name of the training.
+     * @param type sports type of the training.
+     * @param trainer conducting the training, null if none.
+     * @return training without sessions, see {@link #restoreSession(TrainingSession)}.
+     */
+    public static Training restore(String name, TrainingSportType type, Trainer trainer) {
+        Training training = new Training(name, type, false);
+        if (trainer != null) {
+            training.trainer = trainer;
+            trainer.getAssignedTrainings().add(training);
+        }
+        return training;
     }
 
     /**
@@ -84,6 +123,8 @@ public class Training {
         }
         this.trainer = trainer;
         trainer.getAssignedTrainings().add(this);
+        trainer.addToTotalParticipants(getTotalParticipants());
+        SportsClubSystem.getInstance().getJournal().trainerAssigned(this, trainer);
     }
 
     /**
@@ -96,9 +137,59 @@ public class Training {
             throw new IllegalArgumentException("The session is not associated with this training.");
         }
         sessionsMap.put(session, session.getParticipants().size());
+        for (KeysetIndex<TrainingSession, ?> pages : sessionPages) {
+            pages.add(session);
+        }
         incrementTotalParticipants(session.getParticipants().size());
     }
 
+    /**
+     * Add a restored session of this training, see {@link TrainingSession#restoreState}.
+     * The session is not added to the sports club system. Adding it again does nothing.
+     * @param session restored session of this training.
+     */
+    public void restoreSession(TrainingSession session) {
+        if (!sessionsMap.containsKey(session)) {
+            registerTrainingSession(session);
+        }
+    }
+
+    /**
+     * Keep the training at the right place in the ranking while its participant and session counts change.
+     * @param ranking containing the training.
+     */
+    public void addRanking(RankedList<Training, ?> ranking) {
+        rankings.add(ranking);
+        ranking.add(this);
+    }
+
+    private void updateRankings() {
+        for (RankedList<Training, ?> ranking : rankings) {
+            ranking.update(this);
+        }
+    }
+
+    /**
+     * Keep the current sessions of the training in the index while sessions are added and their participants
+     * change. Archived sessions are removed from the index.
+     * @param pages index of sessions.
+     */
+    public void addSessionPages(KeysetIndex<TrainingSession, ?> pages) {
+        sessionPages.add(pages);
+        for (TrainingSession session : getCurrentSessions()) {
+            pages.add(session);
+        }
+    }
+
+    /**
+     * Move the session to its new place in the session indexes after its participants changed.
+     */
+    void updateSessionPages(TrainingSession session) {
+        for (KeysetIndex<TrainingSession, ?> pages : sessionPages) {
+            pages.update(session);
+        }
+    }
+
     /**
      * Return if it is added to sports club.
      * @return boolean.
@@ -124,7 +215,28 @@ public class Training {
     }
 
     public void setSportsClubItBelongsTo(SportsClub sportsClub) {
+        // Sessions are indexed by club, so move already indexed sessions along with the training
+        SessionIndex sessionIndex = SportsClubSystem.getInstance().getSessionIndex();
+        List<TrainingSession> indexedSessions = new ArrayList<>();
+        for (TrainingSession session : sessionsMap.keySet()) {
+            if (sessionIndex.detach(session)) {
+                indexedSessions.add(session);
+            }
+        }
+        SportsClub previous = this.sportsClub;
         this.sportsClub = sportsClub;
+        for (TrainingSession session : indexedSessions) {
+            sessionIndex.add(session);
+        }
+        // Registrations to the sessions now count for the new club
+        if (previous != sportsClub && getTotalSessionsNumber() > 0) {
+            if (previous != null) {
+                previous.countMovedTraining(this, false);
+            }
+            if (sportsClub != null) {
+                sportsClub.countMovedTraining(this, true);
+            }
+        }
     }
 
     /**
@@ -143,11 +255,19 @@ public class Training {
     }
 
     protected void incrementTotalParticipants(int count) {
-        totalParticipants += count;
+        totalParticipants.add(count);
+        if (trainer != null) {
+            trainer.addToTotalParticipants(count);
+        }
+        updateRankings();
     }
 
     protected void decrementTotalParticipants(int count) {
-        totalParticipants -= count;
+        totalParticipants.add(-count);
+        if (trainer != null) {
+            trainer.addToTotalParticipants(-count);
+        }
+        updateRankings();
     }
 
     /**
@@ -155,7 +275,7 @@ public class Training {
      * @return The total number of participants.
      */
     public int getTotalParticipants() {
-        return totalParticipants;
+        return totalParticipants.intValue();
     }
 
     /**
@@ -163,15 +283,74 @@ public class Training {
      * @return The total number of sessions.
      */
     public int getTotalSessionsNumber() {
-        return sessionsMap.size();
+        return sessionsMap.size() + archivedSessionCount;
     }
 
     /**
-     * Get the total number of sessions created from this training.
-     * @return The total number of sessions.
+     * Get all sessions created from this training. Archived sessions are read back from the archive.
+     * @return The sessions, read-only.
      */
     public Set<TrainingSession> getTotalSessions() {
-        return sessionsMap.keySet();
+        if (archivedSessionCount == 0) {
+            return Collections.unmodifiableSet(sessionsMap.keySet());
+        }
+        SessionArchive archive = SportsClubSystem.getInstance().getSessionArchive();
+        Set<TrainingSession> sessions = new LinkedHashSet<>();
+        for (int i = 0; i < archivedSessionCount; i++) {
+            TrainingSession session = archive.find(archivedSessionIds[i]);
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        sessions.addAll(sessionsMap.keySet());
+        return Collections.unmodifiableSet(sessions);
+    }
+
+    /**
+     * Get sessions which have not been archived yet, without touching the archive.
+     * @return The current and future sessions, read-only.
+     */
+    public Set<TrainingSession> getCurrentSessions() {
+        return Collections.unmodifiableSet(sessionsMap.keySet());
+    }
+
+    /**
+     * Move the session out of this training and its session indexes, only its id is kept.
+     */
+    void archiveSession(TrainingSession session) {
+        if (sessionsMap.remove(session) == null) {
+            return;
+        }
+        for (KeysetIndex<TrainingSession, ?> pages : sessionPages) {
+            pages.remove(session);
+        }
+        if (sportsClub != null) {
+            sportsClub.forgetArchivedSessions();
+        }
+        if (archivedSessionCount == archivedSessionIds.length) {
+            archivedSessionIds = Arrays.copyOf(archivedSessionIds, Math.max(4, archivedSessionCount * 2));
+        }
+        archivedSessionIds[archivedSessionCount++] = session.getId();
+    }
+
+    /**
+     * Get ids of the archived sessions of this training, which can be read from the {@link SessionArchive}
+     * without reading the sessions back.
+     * @return copy of the ids in the order the sessions were archived.
+     */
+    public int[] getArchivedSessionIds() {
+        return Arrays.copyOf(archivedSessionIds, archivedSessionCount);
+    }
+
+    /**
+     * Keep the id of a session restored into the archive and count its participants.
+     */
+    void restoreArchivedSession(int id, int participantCount) {
+        if (archivedSessionCount == archivedSessionIds.length) {
+            archivedSessionIds = Arrays.copyOf(archivedSessionIds, Math.max(4, archivedSessionCount * 2));
+        }
+        archivedSessionIds[archivedSessionCount++] = id;
+        incrementTotalParticipants(participantCount);
     }
 
     /**
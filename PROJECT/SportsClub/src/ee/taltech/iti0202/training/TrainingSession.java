@@ -1,21 +1,24 @@
 package ee.taltech.iti0202.training;
 
 import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.LogEvent;
 import ee.taltech.iti0202.logger.SportsClubLogger;
 import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.registry.Registry;
+import ee.taltech.iti0202.search.SessionIndex;
 import ee.taltech.iti0202.sportsclub.SportsClub;
 import ee.taltech.iti0202.trainer.Trainer;
 
+import java.time.DateTimeException;
 import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.logging.Level;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Session is a training at specific time. Can be created if training has assigned trainer
@@ -24,15 +27,22 @@ import java.util.logging.Level;
 
 public class TrainingSession {
 
+    static final AtomicInteger nextId = new AtomicInteger();
+    private final int id;
     private final Training training;
     private final TrainingSessionLevel level;
     private final LocalDateTime time;
     private final Integer maxParticipants;
-    private final List<Member> participants;
+    private final Registry<Member> participants;
+    private volatile List<Member> participantsCopy;
+    private final AtomicInteger reservedSeats;
+    private final SessionWaitlist waitlist;
     private SportsClub sportsClub;
     private Duration duration;
     private double price;
+    private volatile boolean archived;
     private static final int MINUTES = 30;
+    static final Duration DURATION = Duration.ofHours(1).plusMinutes(MINUTES);
 
     // Date components
     private int dayOfMonth;
@@ -52,12 +62,15 @@ public class TrainingSession {
         if (training.getTrainer() == null) {
             throw new IllegalStateException("Training cannot be conducted without a trainer.");
         }
+        this.id = nextId.getAndIncrement();
         this.level = Objects.requireNonNull(level);
         this.time = Objects.requireNonNull(time);
-        this.duration = Duration.ofHours(1).plusMinutes(MINUTES);
+        this.duration = DURATION;
         this.maxParticipants = Objects.requireNonNull(maxParticipants);
         this.price = 0;
-        this.participants = new ArrayList<>();
+        this.participants = new Registry<>(Member::getId);
+        this.reservedSeats = new AtomicInteger();
+        this.waitlist = new SessionWaitlist();
 
         // Initialize date components with current date
         LocalDate currentDate = LocalDate.now();
@@ -67,7 +80,85 @@ public class TrainingSession {
 
         training.registerTrainingSession(this);
         SportsClubSystem.getInstance().addTrainingSession(this);
-        SportsClubLogger.getInstance().getLogger().log(Level.INFO, "New training session has been registered");
+        SportsClubSystem.getInstance().getJournal().sessionCreated(this);
+        SportsClubLogger.getInstance().log(LogEvent.SESSION_CREATED, id);
+    }
+
+    /**
+     * Constructor for a restored session, e.g. read back from the {@link SessionArchive}.
+     * The session is not registered anywhere.
+     * @param id of the session.
+     * @param training
+     * @param level
+     * @param time
+     * @param maxParticipants
+     */
+    TrainingSession(int id, Training training, TrainingSessionLevel level, LocalDateTime time, int maxParticipants) {
+        this.id = id;
+        this.training = training;
+        this.level = level;
+        this.time = time;
+        this.duration = DURATION;
+        this.maxParticipants = maxParticipants;
+        this.participants = new Registry<>(Member::getId);
+        this.reservedSeats = new AtomicInteger();
+        this.waitlist = new SessionWaitlist();
+    }
+
+    /**
+     * Restore a session stored earlier, e.g. in a file store. Unlike the constructors it registers nothing:
+     * the session is not added to its training, the sports club system or the journal.
+     * @param training of the session.
+     * @param level of the session.
+     * @param time of the session.
+     * @param maxParticipants of the session.
+     * @return session with a new id.
+     */
+    public static TrainingSession restore(Training training, TrainingSessionLevel level, LocalDateTime time,
+                                          int maxParticipants) {
+        return new TrainingSession(nextId.getAndIncrement(), training, level, time, maxParticipants);
+    }
+
+    /**
+     * Fill in the state of a restored session. Its training is not told, see {@link Training#restoreSession}.
+     * @param price of the session.
+     * @param date of the session.
+     * @param members participants of the session.
+     */
+    public void restoreState(double price, LocalDate date, List<Member> members) {
+        this.price = price;
+        this.dayOfMonth = date.getDayOfMonth();
+        this.month = date.getMonthValue();
+        this.year = date.getYear();
+        participants.addAll(members);
+        participantsCopy = null;
+        reservedSeats.set(participants.size());
+    }
+
+    /**
+     * Check if the session has ended and was moved to the archive. Archived sessions cannot be changed.
+     * @return boolean.
+     */
+    public boolean isArchived() {
+        return archived;
+    }
+
+    void markArchived() {
+        archived = true;
+    }
+
+    private void checkNotArchived() {
+        if (archived) {
+            throw new IllegalStateException("Archived training session cannot be changed.");
+        }
+    }
+
+    /**
+     * Get the ID of the training session.
+     * @return The ID of the training session.
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -121,6 +212,7 @@ public class TrainingSession {
      * @param dayOfMonth
      */
     public void setDate(int year, int month, int dayOfMonth) {
+        checkNotArchived();
         if (dayOfMonth < 1 || dayOfMonth > LAST_DAY) {
             throw new IllegalArgumentException("Invalid day of month.");
         }
@@ -130,9 +222,22 @@ public class TrainingSession {
         if (year < 0) {
             throw new IllegalArgumentException("Invalid year.");
         }
+        try {
+            LocalDate.of(year, month, dayOfMonth);
+        } catch (DateTimeException e) {
+            // Dates like 31.02, checked before anything is changed
+            throw new IllegalArgumentException("Invalid date.", e);
+        }
+        // Date is part of the search index, so re-index the session around the change
+        SessionIndex sessionIndex = SportsClubSystem.getInstance().getSessionIndex();
+        boolean indexed = sessionIndex.detach(this);
         this.dayOfMonth = dayOfMonth;
         this.month = month;
         this.year = year;
+        if (indexed) {
+            sessionIndex.add(this);
+        }
+        SportsClubSystem.getInstance().getJournal().sessionDateSet(this);
     }
 
     /**
@@ -219,8 +324,10 @@ public class TrainingSession {
      * @param price
      */
     public void setPrice(double price) {
+        checkNotArchived();
         if (price >= 0) {
             this.price = price;
+            SportsClubSystem.getInstance().getJournal().sessionPriceSet(this);
         } else {
             throw new IllegalArgumentException("Price cannot be negative.");
         }
@@ -228,18 +335,92 @@ public class TrainingSession {
 
     /**
      * Return list who registered to the session.
-     * @return list.
+     * The copy is taken under the session lock after a change and shared until the next change,
+     * so it can be read while other threads register.
+     * @return read-only list in registration order.
      */
     public List<Member> getParticipants() {
-        return participants;
+        List<Member> copy = participantsCopy;
+        if (copy == null) {
+            synchronized (this) {
+                copy = List.copyOf(participants);
+                participantsCopy = copy;
+            }
+        }
+        return copy;
     }
 
     /**
      * Checks if the maximum number of participants has been reached.
+     * Reads the seat counter, so it never waits for a lock.
      * @return True if max participants reached, otherwise false.
      */
     public boolean hasReachedMaxParticipants() {
-        return participants.size() >= maxParticipants;
+        return reservedSeats.get() >= maxParticipants;
+    }
+
+    /**
+     * Get number of taken seats, including seats reserved by registrations in progress.
+     * @return number of seats.
+     */
+    public int getReservedSeats() {
+        return reservedSeats.get();
+    }
+
+    /**
+     * Take one seat if the session is not full, using compare-and-set instead of a lock.
+     * @return true if a seat was reserved, false if the session is full.
+     */
+    public boolean tryReserveSeat() {
+        while (true) {
+            int taken = reservedSeats.get();
+            if (taken >= maxParticipants) {
+                return false;
+            }
+            if (reservedSeats.compareAndSet(taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back a seat taken with tryReserveSeat.
+     */
+    public void releaseSeat() {
+        while (true) {
+            int taken = reservedSeats.get();
+            if (taken == 0 || reservedSeats.compareAndSet(taken, taken - 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reserve a seat for the member and add them if the session is not full.
+     * The seat is taken atomically first, so concurrent registrations cannot overbook.
+     * @param member to add.
+     * @return true if the member was added, false if the session is full.
+     * @throws IllegalArgumentException if the member is already a participant.
+     */
+    public boolean tryAddParticipant(Member member) {
+        checkNotArchived();
+        if (!tryReserveSeat()) {
+            return false;
+        }
+        boolean added;
+        synchronized (this) {
+            added = participants.add(member);
+            participantsCopy = null;
+        }
+        if (!added) {
+            releaseSeat();
+            SportsClubLogger.getInstance().log(LogEvent.ALREADY_REGISTERED, member.getId(), id);
+            throw new IllegalArgumentException("Member is already registered for this training session");
+        }
+        SportsClubLogger.getInstance().log(LogEvent.PARTICIPANT_ADDED, member.getId(), id);
+        training.updateSessionPages(this);
+        training.incrementTotalParticipants(1);
+        return true;
     }
 
     /**
@@ -249,10 +430,22 @@ public class TrainingSession {
      * @param member
      */
     public void addParticipant(Member member) {
-        SportsClubLogger.getInstance().getLogger()
-                .log(Level.INFO, "Member is added to a new training session");
-        participants.add(member);
-        training.incrementTotalParticipants(1);
+        checkNotArchived();
+        SportsClubLogger.getInstance().log(LogEvent.PARTICIPANT_ADDED, member.getId(), id);
+        boolean added;
+        synchronized (this) {
+            added = participants.add(member);
+            participantsCopy = null;
+        }
+        if (added) {
+            reservedSeats.incrementAndGet();
+            training.updateSessionPages(this);
+            training.incrementTotalParticipants(1);
+        }
+    }
+
+    private synchronized boolean isParticipant(Member member) {
+        return participants.contains(member);
     }
 
     /**
@@ -260,10 +453,96 @@ public class TrainingSession {
      * @param member
      */
     public void removeParticipant(Member member) {
-        SportsClubLogger.getInstance().getLogger()
-                .log(Level.INFO, "Member is removed from this training session");
-        participants.remove(member);
-        training.decrementTotalParticipants(1);
+        checkNotArchived();
+        SportsClubLogger.getInstance().log(LogEvent.PARTICIPANT_REMOVED, member.getId(), id);
+        boolean removed;
+        synchronized (this) {
+            removed = participants.remove(member);
+            participantsCopy = null;
+        }
+        if (removed) {
+            releaseSeat();
+            training.updateSessionPages(this);
+            training.decrementTotalParticipants(1);
+            promoteFromWaitlist();
+        }
+    }
+
+    /**
+     * Put member on the waitlist of the session.
+     * If a seat has become free in the meantime, the waitlist is promoted right away.
+     * @param member to add.
+     * @return false if member is already on the waitlist.
+     * @throws IllegalArgumentException if the member is already a participant.
+     */
+    public boolean joinWaitlist(Member member) {
+        checkNotArchived();
+        if (isParticipant(member)) {
+            SportsClubLogger.getInstance().log(LogEvent.ALREADY_REGISTERED, member.getId(), id);
+            throw new IllegalArgumentException("Member is already registered for this training session");
+        }
+        if (!waitlist.add(member)) {
+            return false;
+        }
+        SportsClubLogger.getInstance().log(LogEvent.WAITLIST_JOINED, member.getId(), id);
+        if (!hasReachedMaxParticipants()) {
+            promoteFromWaitlist();
+        }
+        return true;
+    }
+
+    /**
+     * Remove member from the waitlist of the session.
+     * @param member to remove.
+     * @return true if member was on the waitlist.
+     */
+    public boolean leaveWaitlist(Member member) {
+        return waitlist.remove(member);
+    }
+
+    /**
+     * Check if member is waiting for a seat.
+     * @param member to check.
+     * @return boolean.
+     */
+    public boolean isOnWaitlist(Member member) {
+        return waitlist.contains(member);
+    }
+
+    /**
+     * Get number of members waiting for a seat.
+     * @return number.
+     */
+    public int getWaitlistSize() {
+        return waitlist.size();
+    }
+
+    /**
+     * Register members from the head of the waitlist while there are free seats.
+     * Members who can no longer register (e.g. not enough budget or already a participant) are dropped
+     * from the list. If someone else takes the seat first, the member goes back to the head of the list.
+     */
+    public void promoteFromWaitlist() {
+        while (!hasReachedMaxParticipants() && !waitlist.isEmpty()) {
+            Member member = waitlist.poll();
+            if (member == null) {
+                return;
+            }
+            try {
+                member.registerToTrainingSession(this);
+                SportsClubLogger.getInstance().log(LogEvent.WAITLIST_PROMOTED, member.getId(), id);
+            } catch (IllegalStateException e) {
+                if (!hasReachedMaxParticipants()) {
+                    // The seat was not lost, so retrying would fail the same way
+                    SportsClubLogger.getInstance().log(LogEvent.WAITLIST_PROMOTION_FAILED, member.getId(),
+                            e.getMessage());
+                    continue;
+                }
+                waitlist.pushBack(member);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                SportsClubLogger.getInstance().log(LogEvent.WAITLIST_PROMOTION_FAILED, member.getId(), e.getMessage());
+            }
+        }
     }
 
     /**
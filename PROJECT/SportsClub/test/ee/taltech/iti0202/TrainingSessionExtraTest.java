@@ -469,6 +469,22 @@ public class TrainingSessionExtraTest {
         assertEquals(gymTrainer.getName(), sportsClub.getSortedTrainers().get(3).getName());
     }
 
+    @Test
+    void testSortedTrainersFollowChanges() {
+        member1.buyMembership(fullMembership);
+        member1.registerToTrainingSession(groupSession);
+        assertEquals(List.of(groupTrainer, privateTrainer), sportsClub.getTopTrainers(2));
+
+        gymTrainer.addTrainingType(TrainingSportType.SWIMMING);
+        gymTrainer.addTrainingType(TrainingSportType.TENNIS);
+        gymTrainer.addTrainingType(TrainingSportType.BOX);
+        assertEquals(List.of(gymTrainer, groupTrainer), sportsClub.getTopTrainers(2));
+
+        member1.unregisterFromTrainingSession(groupSession);
+        assertEquals(List.of(gymTrainer, privateTrainer, groupTrainer, onlineTrainer),
+                sportsClub.getSortedTrainers());
+    }
+
     @Test
     void testNextMonthCanClearMembership() {
         member2.work();
@@ -567,6 +583,18 @@ public class TrainingSessionExtraTest {
         assertEquals(0, member1.getParticipatedSports().size());
     }
 
+    @Test
+    void testUnregisteringLastSessionOfSportRemovesSportType() {
+        member1.buyMembership(fullMembership);
+        member1.registerToTrainingSession(groupSession);
+        member1.registerToTrainingSession(groupSession2);
+        member1.registerToTrainingSession(personalSession);
+        member1.unregisterFromTrainingSession(groupSession);
+        assertEquals(2, member1.getParticipatedSportsCount());
+        member1.unregisterFromTrainingSession(groupSession2);
+        assertEquals(List.of(TrainingSportType.GYM), member1.getParticipatedSports());
+    }
+
     /**
      * Test member gets discount.
      */
@@ -0,0 +1,192 @@
+package ee.taltech.iti0202.history;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClubHistoryTest {
+
+    @TempDir
+    Path directory;
+    private Path file;
+    private Level previousLevel;
+    private SportsClub sportsClub;
+    private Trainer trainer;
+    private Training gymTraining;
+    private Training tennisTraining;
+    private Member anton;
+    private Member nike;
+    private ClubHistory history;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+        trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .addTrainingType(TrainingSportType.TENNIS)
+                .build();
+        sportsClub = new SportsClub.Builder().withTrainer(trainer).build();
+        gymTraining = createTraining(TrainingSportType.GYM);
+        tennisTraining = createTraining(TrainingSportType.TENNIS);
+        anton = new Member("Anton", 500.0);
+        nike = new Member("Nike", 500.0);
+        file = directory.resolve("club.history");
+        history = ClubHistory.open(file);
+        sportsClub.setHistory(history);
+    }
+
+    /**
+     * Close history and restore logging.
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        history.close();
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    private Training createTraining(TrainingSportType type) {
+        Training training = new Training.Builder()
+                .withName(type.name())
+                .withTrainingSportType(type)
+                .build();
+        sportsClub.addNewTraining(training);
+        training.assignTrainer(trainer);
+        return training;
+    }
+
+    /**
+     * Create session dated in the month, counting from the month the history starts in.
+     */
+    private TrainingSession createSession(Training training, int month, double price) {
+        LocalDate date = LocalDate.now().withDayOfMonth(1).plusMonths(month);
+        TrainingSession session = new TrainingSession(training, TrainingSessionLevel.BEGINNER,
+                date.atTime(10, 0), 10);
+        session.setDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+        session.setPrice(price);
+        return session;
+    }
+
+    private void playMonth(int month, boolean nikeJoins) {
+        TrainingSession gymSession = createSession(gymTraining, month, 10.0);
+        TrainingSession tennisSession = createSession(tennisTraining, month, 0.0);
+        anton.buyMembership(new FullMembership(sportsClub));
+        anton.registerToTrainingSession(gymSession);
+        anton.registerToTrainingSession(tennisSession);
+        if (nikeJoins) {
+            nike.buyMembership(new FullMembership(sportsClub));
+            nike.registerToTrainingSession(tennisSession);
+        }
+        sportsClub.nextMonth();
+    }
+
+    @Test
+    void testEveryMonthIsArchivedBeforeItIsCleared() {
+        playMonth(0, true);
+        playMonth(1, false);
+        assertEquals(2, history.getMonthCount());
+        assertEquals(YearMonth.now(), history.getMonth(0));
+        assertEquals(YearMonth.now().plusMonths(1), history.getMonth(1));
+        assertEquals(2, history.getMemberCount(0));
+        assertEquals(1, history.getMemberCount(1));
+        assertEquals(2, history.getSessionCount(1));
+        assertEquals(LocalDate.now(), history.getArchivedOn(0));
+        assertArrayEquals(new double[] {3, 2}, history.sumPerMonth(MemberColumn.SESSIONS));
+        assertArrayEquals(new double[] {2, 2}, history.memberTrend(anton.getKey(), MemberColumn.SPORT_TYPES));
+        assertTrue(Double.isNaN(history.memberTrend(nike.getKey(), MemberColumn.SESSIONS)[1]));
+        assertArrayEquals(new int[] {2, 1}, history.countMembersWithSport(TrainingSportType.TENNIS));
+        assertArrayEquals(new long[] {1, 1}, history.participantsPerMonth(TrainingSportType.GYM));
+        assertArrayEquals(new long[] {3, 2}, history.participantsPerMonth(null));
+        // Spend is counted per month, each month starts from zero
+        double[] spend = history.memberTrend(anton.getKey(), MemberColumn.SPEND);
+        assertTrue(spend[0] > 0);
+        assertTrue(spend[1] > 0 && spend[1] < 100);
+        assertEquals(0.0, anton.getSpentThisMonth());
+    }
+
+    @Test
+    void testHistoryIsReadBackAndTornBlockIsCut() throws IOException {
+        playMonth(0, true);
+        playMonth(1, false);
+        history.close();
+        long fullSize = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(fullSize - 5);
+        }
+        history = ClubHistory.open(file);
+        assertEquals(1, history.getMonthCount());
+        assertArrayEquals(new double[] {3}, history.sumPerMonth(MemberColumn.SESSIONS));
+
+        sportsClub.setHistory(history);
+        // The sessions of the cut month are still there and are archived again
+        anton.buyMembership(new FullMembership(sportsClub));
+        sportsClub.nextMonth();
+        assertEquals(2, history.getMonthCount());
+        assertEquals(YearMonth.now().plusMonths(1), history.getMonth(1));
+        assertEquals(fullSize, Files.size(file));
+    }
+
+    @Test
+    void testSessionsAreArchivedOnlyInTheirMonth() {
+        TrainingSession session = createSession(gymTraining, 0, 10.0);
+        anton.buyMembership(new FullMembership(sportsClub));
+        anton.registerToTrainingSession(session);
+        sportsClub.nextMonth();
+        sportsClub.nextMonth();
+        sportsClub.nextMonth();
+        assertArrayEquals(new long[] {1, 0, 0}, history.participantsPerMonth(null));
+        assertEquals(0, history.getSessionCount(2));
+    }
+
+    @Test
+    void testMembersAreFollowedAcrossRuns() throws IOException {
+        playMonth(0, true);
+        history.close();
+        history = ClubHistory.open(file);
+        sportsClub.setHistory(history);
+        // The member of the next run has a new id, but the same key
+        Member antonAgain = new Member("Anton", 500.0, anton.getKey());
+        antonAgain.buyMembership(new FullMembership(sportsClub));
+        antonAgain.registerToTrainingSession(createSession(gymTraining, 1, 10.0));
+        sportsClub.nextMonth();
+        assertTrue(antonAgain.getId() != anton.getId());
+        assertArrayEquals(new double[] {2, 1}, history.memberTrend(anton.getKey(), MemberColumn.SESSIONS));
+    }
+
+    @Test
+    void testOpenRejectsOtherFiles() throws IOException {
+        Path other = directory.resolve("other");
+        Files.write(other, new byte[64]);
+        assertThrows(IllegalArgumentException.class, () -> ClubHistory.open(other));
+    }
+}
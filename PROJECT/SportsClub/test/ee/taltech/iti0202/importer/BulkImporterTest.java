@@ -0,0 +1,240 @@
+package ee.taltech.iti0202.importer;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.journal.Journal;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkImporterTest {
+
+    private static final String CSV = """
+            # trainers first
+            trainer,Steve,GYM;TENNIS
+            training,Gym class,GYM,Steve
+            training,"Tennis, morning",TENNIS,Steve
+            session,Gym class,group,BEGINNER,2024-05-20T10:00,,5.5
+            session,"Tennis, morning",session,ADVANCED,2024-05-21T08:00,3
+            member,Anton,100,full
+            member,Nike,80,standard
+            member,Loner,70
+            """;
+
+    @TempDir
+    Path directory;
+    private SportsClub sportsClub;
+    private Level previousLevel;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        SportsClubSystem.getInstance().getSportsClubsInArea().clear();
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+        sportsClub = new SportsClub.Builder().build();
+    }
+
+    /**
+     * Restore logging.
+     */
+    @AfterEach
+    void tearDown() {
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    private BulkImporter importer(int chunkSize) {
+        return new BulkImporter.Builder()
+                .withSportsClub(sportsClub)
+                .withChunkSize(chunkSize)
+                .withParallelism(3)
+                .build();
+    }
+
+    @Test
+    void testCsvCreatesAllObjects() throws IOException {
+        ImportReport report = importer(2).importFrom(new StringReader(CSV), ImportFormat.CSV);
+        assertEquals(0, report.getRejectedCount());
+        assertEquals(1, report.getTrainerCount());
+        assertEquals(2, report.getTrainingCount());
+        assertEquals(2, report.getSessionCount());
+        assertEquals(3, report.getMemberCount());
+        assertEquals(1, sportsClub.getAllTrainers().size());
+        assertEquals(List.of("Gym class", "Tennis, morning"), sportsClub.getAllTrainings().stream()
+                .map(training -> training.getName()).collect(Collectors.toList()));
+        assertEquals(2, sportsClub.getAllMembers().size());
+
+        List<TrainingSession> sessions = SportsClubSystem.getInstance().getTrainingSessions();
+        assertEquals(2, sessions.size());
+        assertInstanceOf(GroupTrainingSession.class, sessions.get(0));
+        assertEquals(5.5, sessions.get(0).getPrice());
+        assertEquals(3, sessions.get(1).getMaxParticipants());
+        assertEquals(sportsClub, sessions.get(1).getWhatSportsClubItBelongsTo());
+    }
+
+    @Test
+    void testJsonLinesFileIsImported() throws IOException {
+        Path file = directory.resolve("region.jsonl");
+        Files.writeString(file, """
+                {"record": "trainer", "name": "Steve", "types": ["GYM"]}
+                {"record": "training", "name": "Gym class", "type": "GYM", "trainer": "Steve"}
+                {"record": "session", "training": "Gym class", "kind": "personal", "level": "BEGINNER",
+                {"record": "session", "training": "Gym class", "kind": "online", "level": "BEGINNER", \
+                "time": "2024-05-20T10:00"}
+                {"record": "member", "name": "Anton \\"The Tank\\"", "budget": 100.5, "membership": null}
+                """);
+        ImportReport report = importer(BulkImporter.DEFAULT_CHUNK_SIZE).importFile(file);
+        assertEquals(4, report.getImportedCount());
+        assertEquals(1, report.getRejectedCount());
+        assertEquals(3, report.getErrors().get(0).getRowNumber());
+        assertEquals(1, SportsClubSystem.getInstance().getTrainingSessions().size());
+        assertTrue(sportsClub.getAllMembers().isEmpty());
+    }
+
+    @Test
+    void testBadRowsAreReportedAndSkipped() throws IOException {
+        String rows = """
+                trainer,Steve,GYM
+                trainer,Steve,BOX
+                training,Boxing,BOX,Steve
+                training,Gym class,GYM,Nobody
+                session,Gym class,group,BEGINNER,2024-05-20T10:00
+                session,Gym class,session,BEGINNER,2024-05-20T10:00
+                member,Anton,-5
+                member,Poor,10,full
+                member,Rich,500,gold
+                unknown,row
+                member,Nike,80,standard
+                """;
+        ImportReport report = importer(3).importFrom(new StringReader(rows), ImportFormat.CSV);
+        assertEquals(2, report.getImportedCount());
+        assertEquals(9, report.getRejectedCount());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), report.getErrors().stream()
+                .map(ImportError::getRowNumber).collect(Collectors.toList()));
+        assertEquals("Unknown trainer Nobody", report.getErrors().get(2).getMessage());
+        assertEquals(List.of("Nike"), sportsClub.getAllMembers().stream()
+                .map(Member::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testRejectedRowsCreateNothing() throws IOException {
+        List<String> created = new ArrayList<>();
+        Journal journal = new Journal() {
+            @Override
+            public void memberCreated(Member member) {
+                created.add(member.getName());
+            }
+
+            @Override
+            public void trainingCreated(Training training) {
+                created.add(training.getName());
+            }
+        };
+        SportsClubSystem.getInstance().addJournal(journal);
+        try {
+            String rows = """
+                    trainer,Steve,GYM
+                    training,Boxing,BOX,Steve
+                    member,Poor,10,full
+                    member,Nike,80,standard
+                    """;
+            ImportReport report = importer(2).importFrom(new StringReader(rows), ImportFormat.CSV);
+            assertEquals(2, report.getRejectedCount());
+        } finally {
+            SportsClubSystem.getInstance().removeJournal(journal);
+        }
+        assertEquals(List.of("Nike"), created);
+    }
+
+    @Test
+    void testErrorListIsBounded() throws IOException {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            rows.append("member,Member ").append(i).append(",oops\n");
+        }
+        ImportReport report = new BulkImporter.Builder()
+                .withSportsClub(sportsClub)
+                .withMaxErrors(10)
+                .build()
+                .importFrom(new StringReader(rows.toString()), ImportFormat.CSV);
+        assertEquals(50, report.getRejectedCount());
+        assertEquals(10, report.getErrors().size());
+    }
+
+    @Test
+    void testTrainingsAreAddedWhenSessionsFirstReferToThem() throws IOException {
+        StringBuilder rows = new StringBuilder("trainer,Steve,GYM\n");
+        for (int i = 0; i < 300; i++) {
+            rows.append("training,Gym ").append(i).append(",GYM,Steve\n");
+            if (i % 3 == 0) {
+                rows.append("session,Gym ").append(i).append(",group,BEGINNER,2024-05-20T10:00\n");
+            }
+        }
+        ImportReport report = importer(64).importFrom(new StringReader(rows.toString()), ImportFormat.CSV);
+        assertEquals(0, report.getRejectedCount());
+        assertEquals(300, sportsClub.getAllTrainings().size());
+        for (int i = 0; i < 300; i++) {
+            assertEquals("Gym " + i, sportsClub.getAllTrainings().get(i).getName());
+        }
+        List<TrainingSession> sessions = SportsClubSystem.getInstance().getTrainingSessions();
+        assertEquals(100, sessions.size());
+        assertTrue(sessions.stream().allMatch(session -> session.getWhatSportsClubItBelongsTo() == sportsClub));
+        assertThrows(IllegalArgumentException.class,
+                () -> sportsClub.addNewTrainings(List.of(sportsClub.getAllTrainings().get(0))));
+    }
+
+    @Test
+    void testOnlyOneSummaryIsLogged() throws IOException {
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.INFO);
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        SportsClubLogger.getInstance().getLogger().addHandler(handler);
+        boolean useParentHandlers = SportsClubLogger.getInstance().getLogger().getUseParentHandlers();
+        SportsClubLogger.getInstance().getLogger().setUseParentHandlers(false);
+        try {
+            importer(4).importFrom(new StringReader(CSV), ImportFormat.CSV);
+        } finally {
+            SportsClubLogger.getInstance().getLogger().removeHandler(handler);
+            SportsClubLogger.getInstance().getLogger().setUseParentHandlers(useParentHandlers);
+        }
+        assertEquals(1, records.size());
+    }
+}
@@ -0,0 +1,271 @@
+package ee.taltech.iti0202.journal;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventJournalTest {
+
+    @TempDir
+    Path directory;
+    private Path journalFile;
+    private Level previousLevel;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        journalFile = directory.resolve("sports-club.journal");
+        clearSystem();
+    }
+
+    /**
+     * Make sure no journal stays installed.
+     */
+    @AfterEach
+    void tearDown() {
+        for (Journal journal : SportsClubSystem.getInstance().getJournals()) {
+            SportsClubSystem.getInstance().removeJournal(journal);
+        }
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    private void clearSystem() {
+        SportsClubSystem.getInstance().getSportsClubsInArea().clear();
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+    }
+
+    private void buildHistory() {
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        Training training = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        SportsClub sportsClub = new SportsClub.Builder().build();
+        sportsClub.hireNewTrainer(trainer);
+        sportsClub.addNewTraining(training);
+        training.assignTrainer(trainer);
+        TrainingSession session = new TrainingSession(training, TrainingSessionLevel.BEGINNER,
+                LocalDate.now().atTime(12, 0), 2);
+        session.setPrice(10.0);
+        session.setDate(2024, 5, 20);
+
+        Member anton = new Member("Anton", 100.0);
+        Member nike = new Member("Nike", 50.0);
+        anton.buyMembership(new FullMembership(sportsClub));
+        nike.buyMembership(new StandardMembership(sportsClub));
+        nike.work();
+        anton.registerToTrainingSession(session);
+        nike.registerToTrainingSession(session);
+        anton.unregisterFromTrainingSession(session);
+    }
+
+    @Test
+    void testReplayRebuildsObjectGraph() throws IOException {
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            buildHistory();
+            journal.sync();
+        }
+        clearSystem();
+
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            assertEquals(0, journal.getSkippedRecords());
+            assertTrue(journal.getReplayedRecords() > 0);
+            List<SportsClub> clubs = SportsClubSystem.getInstance().getSportsClubsInArea();
+            assertEquals(1, clubs.size());
+            SportsClub sportsClub = clubs.get(0);
+            assertEquals("Steve", sportsClub.getAllTrainers().get(0).getName());
+            assertEquals(1, sportsClub.getAllTrainings().size());
+
+            TrainingSession session = SportsClubSystem.getInstance().getTrainingSessions().get(0);
+            assertEquals(10.0, session.getPrice());
+            assertEquals(LocalDate.of(2024, 5, 20), session.getDate());
+            assertEquals(1, session.getParticipants().size());
+            Member nike = session.getParticipants().get(0);
+            assertEquals("Nike", nike.getName());
+            assertEquals(50.0 - 40.0 + 50.0 - 10.0, nike.getBudget(), 1e-9);
+            assertEquals(List.of(session), nike.getRegisteredSessions());
+            assertEquals(2, sportsClub.getAllMembers().size());
+            assertEquals(1, session.getTraining().getTotalParticipants());
+        }
+    }
+
+    @Test
+    void testChangesAfterReplayAreAppended() throws IOException {
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            buildHistory();
+            assertEquals(0, journal.getSkippedChanges());
+        }
+        clearSystem();
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            SportsClub sportsClub = SportsClubSystem.getInstance().getSportsClubsInArea().get(0);
+            sportsClub.nextMonth();
+            assertEquals(0, journal.getSkippedChanges());
+        }
+        clearSystem();
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            assertEquals(0, journal.getSkippedRecords());
+            SportsClub sportsClub = SportsClubSystem.getInstance().getSportsClubsInArea().get(0);
+            assertTrue(sportsClub.getAllMembers().isEmpty());
+        }
+    }
+
+    @Test
+    void testTornTailIsCutOff() throws IOException {
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            buildHistory();
+            assertEquals(0, journal.getSkippedChanges());
+        }
+        long size = Files.size(journalFile);
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        clearSystem();
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            assertEquals(0, journal.getSkippedRecords());
+            TrainingSession session = SportsClubSystem.getInstance().getTrainingSessions().get(0);
+            // The last record, unregistering Anton, was torn
+            assertEquals(2, session.getParticipants().size());
+        }
+        assertTrue(Files.size(journalFile) < size - 3);
+    }
+
+    @Test
+    void testFailedWriteDoesNotFailChanges() throws Exception {
+        EventJournal journal = EventJournal.open(journalFile, true);
+        Field channelField = EventJournal.class.getDeclaredField("channel");
+        channelField.setAccessible(true);
+        ((FileChannel) channelField.get(journal)).close();
+
+        // The change is applied even though its record cannot be written
+        Member anton = new Member("Anton", 100.0);
+        Member nike = new Member("Nike", 50.0);
+        assertEquals("Anton", anton.getName());
+        assertEquals("Nike", nike.getName());
+        assertTrue(journal.getSkippedChanges() > 0);
+        assertThrows(UncheckedIOException.class, journal::sync);
+        assertThrows(IOException.class, journal::close);
+    }
+
+    @Test
+    void testOnlyOneJournalCanBeOpen() throws IOException {
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            assertThrows(IllegalStateException.class,
+                    () -> EventJournal.open(directory.resolve("other.journal"), false));
+            assertEquals(List.of(journal), SportsClubSystem.getInstance().getJournals().stream()
+                    .filter(EventJournal.class::isInstance)
+                    .toList());
+        }
+    }
+
+    @Test
+    void testCorruptRecordBeforeEndFailsAndKeepsFile() throws IOException {
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            buildHistory();
+            assertEquals(0, journal.getSkippedChanges());
+        }
+        byte[] bytes = Files.readAllBytes(journalFile);
+        // Damage the payload of the first record, the records after it are still valid
+        bytes[10] ^= 0x7F;
+        Files.write(journalFile, bytes);
+        clearSystem();
+        assertThrows(IOException.class, () -> EventJournal.open(journalFile, false));
+        assertArrayEquals(bytes, Files.readAllBytes(journalFile));
+        assertTrue(SportsClubSystem.getInstance().getSportsClubsInArea().isEmpty());
+        assertTrue(SportsClubSystem.getInstance().getJournals().stream().noneMatch(EventJournal.class::isInstance));
+    }
+
+    @Test
+    void testJournalDoesNotKeepObjectsAlive() throws IOException, InterruptedException {
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            WeakReference<Trainer> trainer = new WeakReference<>(createTrainer());
+            for (int i = 0; i < 50 && trainer.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertNull(trainer.get());
+            assertEquals(0, journal.getSkippedChanges());
+        }
+    }
+
+    private static Trainer createTrainer() {
+        return new Trainer.Builder()
+                .withName("Temporary")
+                .addTrainingType(TrainingSportType.BOX)
+                .build();
+    }
+
+    @Test
+    void testConcurrentDurableChangesShareFsync() throws Exception {
+        final int threads = 8;
+        final int workPerThread = 200;
+        List<Member> members = new ArrayList<>();
+        try (EventJournal journal = EventJournal.open(journalFile, true)) {
+            for (int i = 0; i < threads; i++) {
+                members.add(new Member("Member " + i, 0.0));
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Member member : members) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < workPerThread; i++) {
+                        member.work();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            assertTrue(journal.getBatchCount() < threads * workPerThread);
+        }
+        try (EventJournal journal = EventJournal.open(journalFile, false)) {
+            assertEquals(threads + threads * workPerThread, journal.getReplayedRecords());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ee.taltech.iti0202.logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogHandlerTest {
+
+    private RecordingHandler target;
+    private AsyncLogHandler handler;
+
+    /**
+     * Handler remembering published messages, optionally waiting for a gate before publishing.
+     */
+    private static class RecordingHandler extends Handler {
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        private CountDownLatch gate = new CountDownLatch(0);
+
+        @Override
+        public void publish(LogRecord record) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            messages.add(record.getMessage());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        target = new RecordingHandler();
+    }
+
+    /**
+     * Stop the background thread.
+     */
+    @AfterEach
+    void tearDown() {
+        if (handler != null) {
+            handler.close();
+        }
+    }
+
+    @Test
+    void testRecordsArePublishedInOrder() {
+        handler = new AsyncLogHandler(List.of(target), 8, OverflowPolicy.BLOCK);
+        for (int i = 0; i < 100; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message " + i));
+        }
+        handler.flush();
+        assertEquals(100, target.messages.size());
+        assertEquals("message 0", target.messages.get(0));
+        assertEquals("message 99", target.messages.get(99));
+        assertEquals(0, handler.getDroppedCount());
+    }
+
+    @Test
+    void testDropPolicyDiscardsWhenFull() {
+        CountDownLatch gate = new CountDownLatch(1);
+        target.gate = gate;
+        handler = new AsyncLogHandler(List.of(target), 4, OverflowPolicy.DROP);
+        for (int i = 0; i < 50; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message " + i));
+        }
+        gate.countDown();
+        handler.flush();
+        assertTrue(handler.getDroppedCount() > 0);
+        assertEquals(50, target.messages.size() + handler.getDroppedCount());
+    }
+
+    @Test
+    void testSamplePolicyKeepsSomeOverflowingRecords() throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        target.gate = gate;
+        handler = new AsyncLogHandler(List.of(target), 4, OverflowPolicy.SAMPLE, 5);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                handler.publish(new LogRecord(Level.INFO, "message " + i));
+            }
+        });
+        producer.start();
+        gate.countDown();
+        producer.join();
+        handler.flush();
+        assertEquals(100, target.messages.size() + handler.getDroppedCount());
+    }
+
+    @Test
+    void testInvalidConfigurationThrows() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AsyncLogHandler(List.of(target), 0, OverflowPolicy.DROP));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AsyncLogHandler(List.of(target), 4, OverflowPolicy.SAMPLE, 0));
+    }
+
+    @Test
+    void testCloseDrainsRemainingRecords() {
+        handler = new AsyncLogHandler(List.of(target), 16, OverflowPolicy.BLOCK);
+        handler.publish(new LogRecord(Level.INFO, "last"));
+        handler.close();
+        assertEquals(List.of("last"), target.messages);
+        handler.publish(new LogRecord(Level.INFO, "after close"));
+        assertEquals(1, handler.getDroppedCount());
+    }
+
+    @Test
+    void testFailingDelegateDoesNotStopPublishing() {
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        Handler failing = new RecordingHandler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getMessage().equals("bad")) {
+                    throw new IllegalStateException("broken");
+                }
+                super.publish(record);
+            }
+        };
+        failing.setErrorManager(new ErrorManager() {
+            @Override
+            public void error(String message, Exception exception, int code) {
+                errors.add(exception);
+            }
+        });
+        handler = new AsyncLogHandler(List.of(failing, target), 8, OverflowPolicy.BLOCK);
+        handler.publish(new LogRecord(Level.INFO, "bad"));
+        handler.publish(new LogRecord(Level.INFO, "good"));
+        handler.flush();
+        assertEquals(List.of("bad", "good"), target.messages);
+        assertEquals(List.of("good"), ((RecordingHandler) failing).messages);
+        assertEquals(1, errors.size());
+        assertEquals("broken", errors.get(0).getMessage());
+    }
+
+    @Test
+    void testSportsClubLoggerSwitchesToAsyncAndBack() {
+        SportsClubLogger sportsClubLogger = SportsClubLogger.getInstance();
+        sportsClubLogger.getLogger().addHandler(target);
+        try {
+            sportsClubLogger.enableAsync(32, OverflowPolicy.BLOCK);
+            assertTrue(sportsClubLogger.isAsync());
+            assertFalse(sportsClubLogger.getLogger().getUseParentHandlers());
+            assertTrue(sportsClubLogger.getAsyncHandler().getDelegates().contains(target));
+            sportsClubLogger.getLogger().log(Level.SEVERE, "async message");
+            sportsClubLogger.getAsyncHandler().flush();
+            assertEquals(List.of("async message"), target.messages);
+        } finally {
+            sportsClubLogger.disableAsync();
+            sportsClubLogger.getLogger().removeHandler(target);
+        }
+        assertFalse(sportsClubLogger.isAsync());
+        assertTrue(sportsClubLogger.getLogger().getUseParentHandlers());
+        assertNull(sportsClubLogger.getAsyncHandler());
+    }
+}
@@ -0,0 +1,93 @@
+package ee.taltech.iti0202.logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SportsClubLoggerTest {
+
+    private final List<LogRecord> records = new ArrayList<>();
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    private SportsClubLogger sportsClubLogger;
+    private Level previousLevel;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        sportsClubLogger = SportsClubLogger.getInstance();
+        previousLevel = sportsClubLogger.getLogger().getLevel();
+        sportsClubLogger.getLogger().addHandler(handler);
+    }
+
+    /**
+     * Restore logger.
+     */
+    @AfterEach
+    void tearDown() {
+        sportsClubLogger.getLogger().removeHandler(handler);
+        sportsClubLogger.getLogger().setLevel(previousLevel);
+    }
+
+    @Test
+    void testEventIsFormattedWithArguments() {
+        sportsClubLogger.getLogger().setLevel(Level.INFO);
+        sportsClubLogger.log(LogEvent.MEMBER_REGISTERED, 1234, 7);
+        assertEquals(1, records.size());
+        EventLogRecord record = (EventLogRecord) records.get(0);
+        assertEquals(LogEvent.MEMBER_REGISTERED, record.getEvent());
+        assertEquals(Level.INFO, record.getLevel());
+        assertEquals("Member 1234 has registered to training session 7",
+                new SimpleFormatter().formatMessage(record));
+    }
+
+    @Test
+    void testSourceIsTheCallerOfTheLogger() {
+        sportsClubLogger.getLogger().setLevel(Level.INFO);
+        sportsClubLogger.log(LogEvent.MONTH_PASSED);
+        assertEquals(SportsClubLoggerTest.class.getName(), records.get(0).getSourceClassName());
+        assertEquals("testSourceIsTheCallerOfTheLogger", records.get(0).getSourceMethodName());
+    }
+
+    @Test
+    void testEventWithoutArgumentsKeepsMessage() {
+        sportsClubLogger.getLogger().setLevel(Level.INFO);
+        sportsClubLogger.log(LogEvent.MONTH_PASSED);
+        assertEquals("One month passed and members need to renew memberships",
+                new SimpleFormatter().formatMessage(records.get(0)));
+    }
+
+    @Test
+    void testDisabledLevelPublishesNothing() {
+        sportsClubLogger.getLogger().setLevel(Level.OFF);
+        assertFalse(sportsClubLogger.isEnabled(LogEvent.MEMBER_REGISTERED));
+        sportsClubLogger.log(LogEvent.MEMBER_REGISTERED, 1, 2);
+        sportsClubLogger.log(LogEvent.MEMBERSHIP_TYPE_OFFERED, "full");
+        assertTrue(records.isEmpty());
+    }
+}
@@ -0,0 +1,258 @@
+package ee.taltech.iti0202.member;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentRegistrationTest {
+
+    private static final int THREADS = 8;
+    private static final int MEMBERS = 400;
+    private static final int SESSIONS = 40;
+    private static final int MAX_PARTICIPANTS = 15;
+    private static final int ATTEMPTS_PER_THREAD = 3000;
+    private static final double SESSION_PRICE = 3.0;
+    private static final double START_BUDGET = 90.0;
+    private static final double MEMBERSHIP_PRICE = 60.0;
+
+    private SportsClub sportsClub;
+    private Training training;
+    private List<Member> members;
+    private List<TrainingSession> sessions;
+    private Level previousLevel;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        training = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        sportsClub = new SportsClub.Builder().build();
+        sportsClub.addNewTraining(training);
+        training.assignTrainer(trainer);
+
+        sessions = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            TrainingSession session = new TrainingSession(training, TrainingSessionLevel.BEGINNER,
+                    LocalDateTime.now(), MAX_PARTICIPANTS);
+            session.setPrice(SESSION_PRICE);
+            sessions.add(session);
+        }
+        members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            Member member = new Member("Member " + i, START_BUDGET);
+            member.buyMembership(new FullMembership(sportsClub));
+            members.add(member);
+        }
+    }
+
+    /**
+     * Restore logging.
+     */
+    @AfterEach
+    void tearDown() {
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    @Test
+    void testConcurrentRegistrationsKeepCapacityAndBudgetInvariants() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicIntegerArray paidRegistrations = new AtomicIntegerArray(MEMBERS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    int memberIndex = random.nextInt(MEMBERS);
+                    Member member = members.get(memberIndex);
+                    TrainingSession session = sessions.get(random.nextInt(SESSIONS));
+                    try {
+                        if (random.nextInt(4) == 0) {
+                            member.unregisterFromTrainingSession(session);
+                        } else {
+                            member.registerToTrainingSession(session);
+                            paidRegistrations.incrementAndGet(memberIndex);
+                        }
+                    } catch (IllegalArgumentException | IllegalStateException expected) {
+                        // Full session, insufficient funds or not registered
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int totalParticipants = 0;
+        for (TrainingSession session : sessions) {
+            assertTrue(session.getParticipants().size() <= MAX_PARTICIPANTS);
+            totalParticipants += session.getParticipants().size();
+            for (Member participant : session.getParticipants()) {
+                assertTrue(participant.getRegisteredSessions().contains(session));
+            }
+        }
+        int totalRegistrations = 0;
+        for (int i = 0; i < MEMBERS; i++) {
+            Member member = members.get(i);
+            assertTrue(member.getBudget() >= 0);
+            assertEquals(START_BUDGET - MEMBERSHIP_PRICE - paidRegistrations.get(i) * SESSION_PRICE,
+                    member.getBudget(), 1e-9);
+            totalRegistrations += member.getRegisteredSessions().size();
+            for (TrainingSession session : member.getRegisteredSessions()) {
+                assertTrue(session.getParticipants().contains(member));
+            }
+        }
+        assertEquals(totalParticipants, totalRegistrations);
+        assertEquals(totalParticipants, training.getTotalParticipants());
+    }
+
+    @Test
+    void testListsCanBeReadWhileRegistering() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS / 2; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    Member member = members.get(random.nextInt(MEMBERS));
+                    TrainingSession session = sessions.get(random.nextInt(SESSIONS));
+                    try {
+                        if (random.nextInt(4) == 0) {
+                            member.unregisterFromTrainingSession(session);
+                        } else {
+                            member.registerToTrainingSession(session);
+                        }
+                    } catch (IllegalArgumentException | IllegalStateException expected) {
+                        // Full session, insufficient funds or not registered
+                    }
+                }
+                return null;
+            }));
+        }
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < THREADS / 2; t++) {
+            Random random = new Random(THREADS + t);
+            readers.add(executor.submit(() -> {
+                start.await();
+                while (!done.get()) {
+                    TrainingSession session = sessions.get(random.nextInt(SESSIONS));
+                    Member member = members.get(random.nextInt(MEMBERS));
+                    assertTrue(session.getParticipants().stream().allMatch(Objects::nonNull));
+                    assertTrue(member.getRegisteredSessions().stream().allMatch(Objects::nonNull));
+                    assertEquals(MEMBERS, sportsClub.getAllMembers().size());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        done.set(true);
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void testConcurrentSeatReservationsNeverExceedCapacity() throws Exception {
+        TrainingSession session = sessions.get(0);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int reserved = 0;
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (session.tryReserveSeat()) {
+                        reserved++;
+                    }
+                }
+                return reserved;
+            }));
+        }
+        start.countDown();
+        int reserved = 0;
+        for (Future<Integer> future : futures) {
+            reserved += future.get();
+        }
+        executor.shutdown();
+        assertEquals(MAX_PARTICIPANTS, reserved);
+        assertEquals(MAX_PARTICIPANTS, session.getReservedSeats());
+    }
+
+    @Test
+    void testConcurrentlyCreatedMembersGetUniqueIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Integer> ids = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    ids.add(new Member("Member", START_BUDGET).getId());
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+        Set<Integer> ids = new HashSet<>();
+        int created = 0;
+        for (Future<List<Integer>> future : futures) {
+            List<Integer> threadIds = future.get();
+            ids.addAll(threadIds);
+            created += threadIds.size();
+        }
+        executor.shutdown();
+        assertEquals(created, ids.size());
+    }
+}
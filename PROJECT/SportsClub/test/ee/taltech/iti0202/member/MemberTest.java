@@ -387,6 +387,14 @@ class MemberTest {
         assertEquals(2, member1.getRegisteredSessions().size());
     }
 
+    @Test
+    void testClearBoughtMembershipsRemovesMembershipToSportsClub() {
+        member1.buyMembership(standardMembership);
+        member1.clearBoughtMemberships();
+        assertFalse(member1.hasMembershipToSportsClub(sportsClub));
+        assertThrows(IllegalArgumentException.class, () -> member1.getMembershipForSportsClub(sportsClub));
+    }
+
     @Test
     void testSearchSessionsByLevel() {
         setUpTrainingSessions();
@@ -0,0 +1,99 @@
+package ee.taltech.iti0202.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetIndexTest {
+
+    /**
+     * Item with a score which changes.
+     */
+    private static final class Item {
+        private int score;
+
+        Item(int score) {
+            this.score = score;
+        }
+    }
+
+    private final KeysetIndex<Item, Integer> index = new KeysetIndex<>((Item item) -> item.score,
+            Comparator.<Integer>naturalOrder());
+
+    private List<Item> readAll(int limit) {
+        List<Item> read = new ArrayList<>();
+        KeysetIndex.Page<Item> page = index.page(null, limit);
+        read.addAll(page.getItems());
+        while (page.hasNext()) {
+            page = index.page(page.getNextCursor(), limit);
+            read.addAll(page.getItems());
+        }
+        return read;
+    }
+
+    @Test
+    void testPagesFollowKeysAndAddingOrder() {
+        Random random = new Random(7);
+        List<Item> added = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Item item = new Item(random.nextInt(40));
+            added.add(item);
+            index.add(item);
+        }
+        for (int i = 0; i < 200; i++) {
+            Item item = added.get(random.nextInt(added.size()));
+            item.score = random.nextInt(40);
+            index.update(item);
+        }
+        assertTrue(index.remove(added.remove(0)));
+        List<Item> expected = new ArrayList<>(added);
+        expected.sort(Comparator.comparingInt(item -> item.score));
+        for (int limit : new int[] {1, 7, 499, 1000}) {
+            assertEquals(expected, readAll(limit));
+        }
+        assertEquals(499, index.size());
+    }
+
+    @Test
+    void testAddingBetweenPagesSkipsNothing() {
+        List<Item> first = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Item item = new Item(i * 10);
+            first.add(item);
+            index.add(item);
+        }
+        KeysetIndex.Page<Item> page = index.page(null, 4);
+        assertEquals(first.subList(0, 4), page.getItems());
+
+        Item before = new Item(5);
+        Item after = new Item(45);
+        index.add(before);
+        index.add(after);
+        page = index.page(page.getNextCursor(), 3);
+        assertEquals(List.of(first.get(4), after, first.get(5)), page.getItems());
+        page = index.page(page.getNextCursor(), 10);
+        assertEquals(first.subList(6, 10), page.getItems());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testInsertionOrderAndFilter() {
+        KeysetIndex<String, Boolean> names = KeysetIndex.inInsertionOrder();
+        names.add("Mari");
+        names.add("Anton");
+        names.add("Nike");
+        assertEquals(List.of("Mari", "Nike"), names.page(null, 5, name -> !name.startsWith("A")).getItems());
+        KeysetIndex.Page<String> page = names.page(null, 2);
+        assertEquals(List.of("Nike"), names.page(page.getNextCursor(), 2).getItems());
+        assertThrows(IllegalArgumentException.class, () -> index.page(page.getNextCursor(), 2));
+        assertThrows(IllegalArgumentException.class, () -> names.page(null, 0));
+    }
+}
@@ -0,0 +1,96 @@
+package ee.taltech.iti0202.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankedListTest {
+
+    /**
+     * Item with a score which changes.
+     */
+    private static final class Item {
+        private int score;
+
+        Item(int score) {
+            this.score = score;
+        }
+    }
+
+    private final RankedList<Item, Integer> ranking = new RankedList<>((Item item) -> item.score,
+            Comparator.<Integer>reverseOrder());
+
+    /**
+     * Items sorted the slow way, equal scores in the order they were added.
+     */
+    private static List<Item> sorted(List<Item> added) {
+        List<Item> expected = new ArrayList<>(added);
+        expected.sort(Comparator.comparingInt((Item item) -> item.score).reversed());
+        return expected;
+    }
+
+    @Test
+    void testEqualKeysKeepAddingOrder() {
+        Item first = new Item(5);
+        Item second = new Item(5);
+        Item best = new Item(9);
+        ranking.add(first);
+        ranking.add(second);
+        ranking.add(best);
+        assertEquals(List.of(best, first, second), ranking.toList());
+        assertEquals(2, ranking.rankOf(second));
+        assertEquals(List.of(best, first), ranking.top(2));
+        assertEquals(first, ranking.get(1));
+    }
+
+    @Test
+    void testUpdatedItemsMove() {
+        Item low = new Item(1);
+        Item high = new Item(2);
+        ranking.add(low);
+        ranking.add(high);
+        low.score = 3;
+        ranking.update(low);
+        assertEquals(List.of(low, high), ranking.toList());
+        assertTrue(ranking.remove(low));
+        assertFalse(ranking.remove(low));
+        assertEquals(-1, ranking.rankOf(low));
+        assertEquals(List.of(high), ranking.toList());
+        assertThrows(IndexOutOfBoundsException.class, () -> ranking.get(1));
+    }
+
+    @Test
+    void testRandomChangesMatchSorting() {
+        Random random = new Random(42);
+        List<Item> added = new ArrayList<>();
+        for (int step = 0; step < 5000; step++) {
+            int action = random.nextInt(10);
+            if (action < 3 || added.isEmpty()) {
+                Item item = new Item(random.nextInt(50));
+                added.add(item);
+                ranking.add(item);
+            } else if (action < 9) {
+                Item item = added.get(random.nextInt(added.size()));
+                item.score += random.nextInt(11) - 5;
+                ranking.update(item);
+            } else {
+                ranking.remove(added.remove(random.nextInt(added.size())));
+            }
+        }
+        List<Item> expected = sorted(added);
+        assertEquals(expected, ranking.toList());
+        assertEquals(expected.subList(0, 10), ranking.top(10));
+        for (int i = 0; i < expected.size(); i += 17) {
+            assertEquals(i, ranking.rankOf(expected.get(i)));
+            assertEquals(expected.get(i), ranking.get(i));
+        }
+    }
+}
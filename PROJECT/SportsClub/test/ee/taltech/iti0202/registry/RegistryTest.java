@@ -0,0 +1,98 @@
+package ee.taltech.iti0202.registry;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegistryTest {
+
+    private Registry<SportsClub> registry;
+    private SportsClub sportsClub1;
+    private SportsClub sportsClub2;
+    private SportsClub sportsClub3;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        SportsClubSystem.getInstance().getSportsClubsInArea().clear();
+        registry = new Registry<>(SportsClub::getId);
+        sportsClub1 = new SportsClub.Builder().build();
+        sportsClub2 = new SportsClub.Builder().build();
+        sportsClub3 = new SportsClub.Builder().build();
+        registry.add(sportsClub1);
+        registry.add(sportsClub2);
+        registry.add(sportsClub3);
+    }
+
+    @Test
+    void testAddingSameObjectTwiceKeepsOneEntry() {
+        assertFalse(registry.add(sportsClub2));
+        assertEquals(List.of(sportsClub1, sportsClub2, sportsClub3), registry);
+    }
+
+    @Test
+    void testFindById() {
+        assertSame(sportsClub2, registry.findById(sportsClub2.getId()));
+        assertNull(registry.findById(-1));
+    }
+
+    @Test
+    void testRemoveKeepsInsertionOrder() {
+        assertTrue(registry.remove(sportsClub2));
+        assertFalse(registry.contains(sportsClub2));
+        assertEquals(sportsClub3, registry.get(1));
+        assertEquals(List.of(sportsClub1, sportsClub3), registry);
+    }
+
+    @Test
+    void testIteratorRemove() {
+        Iterator<SportsClub> iterator = registry.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(List.of(sportsClub2, sportsClub3), registry);
+    }
+
+    @Test
+    void testSystemLooksUpClubById() {
+        assertSame(sportsClub3, SportsClubSystem.getInstance().getSportsClub(sportsClub3.getId()));
+    }
+
+    @Test
+    void testMixedChangesMatchList() {
+        Registry<Integer> numbers = new Registry<>(Integer::intValue);
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(3);
+        for (int step = 0; step < 5000; step++) {
+            int number = random.nextInt(120); // boxed values stay identical
+            if (random.nextInt(3) > 0) {
+                assertEquals(!expected.contains(number), numbers.add(number));
+                if (!expected.contains(number)) {
+                    expected.add(number);
+                }
+            } else if (!expected.isEmpty()) {
+                int position = random.nextInt(expected.size());
+                assertEquals(expected.remove(position), numbers.remove(position));
+            }
+            if (!expected.isEmpty()) {
+                int position = random.nextInt(expected.size());
+                assertEquals(expected.get(position), numbers.get(position));
+                assertEquals(position, numbers.indexOf(expected.get(position)));
+            }
+        }
+        assertEquals(expected, numbers);
+    }
+}
@@ -0,0 +1,289 @@
+package ee.taltech.iti0202.repository;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.journal.Journal;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStoreTest {
+
+    @TempDir
+    Path directory;
+    private Path storeFile;
+    private Level previousLevel;
+    private SportsClub sportsClub;
+    private Member anton;
+    private Member nike;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        storeFile = directory.resolve("sports-club.store");
+        clearSystem();
+
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        Training gym = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        sportsClub = new SportsClub.Builder().withTrainer(trainer).build();
+        sportsClub.addNewTraining(gym);
+        gym.assignTrainer(trainer);
+        TrainingSession morning = new GroupTrainingSession(gym, TrainingSessionLevel.BEGINNER,
+                LocalDate.now().atTime(10, 0));
+        morning.setDate(2024, 5, 20);
+        TrainingSession noon = new TrainingSession(gym, TrainingSessionLevel.ADVANCED,
+                LocalDate.now().atTime(12, 0), 3);
+        noon.setPrice(7.5);
+
+        anton = new Member("Anton", 100.0);
+        nike = new Member("Nike", 80.0);
+        anton.buyMembership(new FullMembership(sportsClub));
+        nike.buyMembership(new StandardMembership(sportsClub));
+        anton.registerToTrainingSession(noon);
+        anton.registerToTrainingSession(morning);
+        nike.registerToTrainingSession(morning);
+    }
+
+    /**
+     * Restore logging.
+     */
+    @AfterEach
+    void tearDown() {
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    private void clearSystem() {
+        SportsClubSystem.getInstance().getSportsClubsInArea().clear();
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+    }
+
+    @Test
+    void testSavingMemberSavesEverythingItRefersTo() throws IOException {
+        try (FileStore store = FileStore.open(storeFile)) {
+            int id = store.members().save(anton);
+            assertEquals(id, store.members().idOf(anton));
+            assertEquals(2, store.members().count());
+            assertEquals(2, store.sessions().count());
+            assertEquals(1, store.clubs().count());
+            assertEquals(1, store.trainings().count());
+            assertEquals(1, store.trainers().count());
+            assertEquals(2, store.memberships().count());
+            assertSame(anton, store.members().findById(id));
+        }
+    }
+
+    @Test
+    void testEntitiesAreLoadedAfterReopening() throws IOException {
+        int antonId;
+        try (FileStore store = FileStore.open(storeFile)) {
+            antonId = store.members().save(anton);
+        }
+        clearSystem();
+        List<Object> recorded = new ArrayList<>();
+        Journal recorder = new Journal() {
+            @Override
+            public void clubCreated(SportsClub sportsClub) {
+                recorded.add(sportsClub);
+            }
+
+            @Override
+            public void memberCreated(Member member) {
+                recorded.add(member);
+            }
+
+            @Override
+            public void sessionCreated(TrainingSession session) {
+                recorded.add(session);
+            }
+        };
+        SportsClubSystem.getInstance().addJournal(recorder);
+
+        try (FileStore store = FileStore.open(storeFile)) {
+            Member loaded = store.members().findById(antonId);
+            assertEquals("Anton", loaded.getName());
+            assertEquals(anton.getBudget(), loaded.getBudget());
+            assertEquals(anton.getBonusPoints(), loaded.getBonusPoints());
+            assertEquals(2, loaded.getRegisteredSessions().size());
+            TrainingSession noon = loaded.getRegisteredSessions().get(0);
+            assertEquals(7.5, noon.getPrice());
+            assertEquals(List.of(loaded), noon.getParticipants());
+            TrainingSession morning = loaded.getRegisteredSessions().get(1);
+            assertEquals(LocalDate.of(2024, 5, 20), morning.getDate());
+            assertEquals(2, morning.getParticipants().size());
+            assertTrue(morning instanceof GroupTrainingSession);
+
+            SportsClub club = store.clubs().findAll().get(0);
+            assertSame(club, loaded.getBoughtMemberships().get(0).getSportsClub());
+            assertSame(club, noon.getTraining().sportsClubItBelongsTo());
+            assertEquals(2, club.getAllMembers().size());
+            assertEquals("standard", club.getAllMembers().get(1).getMembershipForSportsClub(club).getType());
+            assertEquals(2, noon.getTraining().getTotalSessionsNumber());
+            assertEquals(3, noon.getTraining().getTotalParticipants());
+
+            // Loaded objects are only linked to each other, nothing is registered or recorded again
+            assertTrue(SportsClubSystem.getInstance().getSportsClubsInArea().isEmpty());
+            assertTrue(SportsClubSystem.getInstance().getTrainingSessions().isEmpty());
+            assertTrue(SportsClubSystem.getInstance().getSessionIndex().findByType(TrainingSportType.GYM).isEmpty());
+            assertEquals(List.of(), recorded);
+        } finally {
+            SportsClubSystem.getInstance().removeJournal(recorder);
+        }
+    }
+
+    @Test
+    void testSystemCanStoreItsEntitiesInTheStore() throws IOException {
+        SportsClubSystem system = SportsClubSystem.getInstance();
+        Repositories previous = system.getRepositories();
+        try (FileStore store = FileStore.open(storeFile)) {
+            system.setRepositories(store);
+            Trainer trainer = new Trainer.Builder()
+                    .withName("Mari")
+                    .addTrainingType(TrainingSportType.TENNIS)
+                    .build();
+            Training tennis = new Training.Builder()
+                    .withName("Tennis")
+                    .withTrainingSportType(TrainingSportType.TENNIS)
+                    .build();
+            SportsClub club = new SportsClub.Builder().withTrainer(trainer).build();
+            club.addNewTraining(tennis);
+            tennis.assignTrainer(trainer);
+            TrainingSession session = new TrainingSession(tennis, TrainingSessionLevel.BEGINNER,
+                    LocalDate.now().atTime(10, 0), 5);
+            Member mari = new Member("Mari", 100.0);
+            mari.buyMembership(new FullMembership(club));
+
+            assertEquals(List.of(club), system.getSportsClubsInArea());
+            assertSame(club, system.getSportsClub(club.getId()));
+            assertSame(session, system.getTrainingSession(session.getId()));
+            assertEquals(List.of(session), system.getSessionIndex().findByType(TrainingSportType.TENNIS));
+            assertEquals(1, store.trainers().count());
+            assertEquals(1, store.members().count());
+            assertEquals(1, store.memberships().count());
+            assertTrue(previous.clubs().idOf(club) < 0);
+        } finally {
+            system.setRepositories(previous);
+        }
+        assertEquals(2, system.getTrainingSessions().size());
+
+        try (FileStore store = FileStore.open(storeFile)) {
+            system.setRepositories(store);
+            assertEquals(1, system.getSportsClubsInArea().size());
+            TrainingSession session = system.getTrainingSessions().get(0);
+            assertEquals("Tennis", session.getTraining().getName());
+            assertEquals(List.of(session), system.getSessionIndex().findByType(TrainingSportType.TENNIS));
+        } finally {
+            system.setRepositories(previous);
+        }
+    }
+
+    @Test
+    void testManyRecordsSplitTreeAndEvictPages() throws IOException {
+        List<Integer> trainerIds = new ArrayList<>();
+        try (FileStore store = FileStore.open(storeFile, 4)) {
+            for (int i = 0; i < 2000; i++) {
+                ArrayList<TrainingSportType> types = new ArrayList<>(List.of(TrainingSportType.values()[i % 4]));
+                trainerIds.add(store.trainers().save(new Trainer("Trainer " + i, types)));
+            }
+            assertTrue(store.getPageCount() > 2000);
+        }
+        try (FileStore store = FileStore.open(storeFile, 4)) {
+            assertEquals(2000, store.trainers().count());
+            for (int i = 0; i < 2000; i += 97) {
+                Trainer trainer = store.trainers().findById(trainerIds.get(i));
+                assertEquals("Trainer " + i, trainer.getName());
+                assertEquals(List.of(TrainingSportType.values()[i % 4]), trainer.getTrainingTypes());
+            }
+            List<Trainer> all = store.trainers().findAll();
+            assertEquals("Trainer 0", all.get(0).getName());
+            assertEquals("Trainer 1999", all.get(1999).getName());
+            assertTrue(store.getPoolMisses() > store.getPageCount());
+            assertTrue(store.getPoolHits() > 0);
+        }
+    }
+
+    @Test
+    void testLongRecordSpansSeveralPages() throws IOException {
+        String name = "x".repeat(10_000);
+        int id;
+        try (FileStore store = FileStore.open(storeFile, 4)) {
+            id = store.members().save(new Member(name, 5.0));
+        }
+        try (FileStore store = FileStore.open(storeFile, 4)) {
+            assertEquals(name, store.members().findById(id).getName());
+        }
+    }
+
+    @Test
+    void testDeletedRecordsFreeTheirPages() throws IOException {
+        try (FileStore store = FileStore.open(storeFile)) {
+            Member big = new Member("y".repeat(20_000), 5.0);
+            int id = store.members().save(big);
+            int pages = store.getPageCount();
+            assertTrue(store.members().delete(big));
+            assertEquals(-1, store.members().idOf(big));
+            assertNull(store.members().findById(id));
+            assertEquals(0, store.members().count());
+
+            store.members().save(new Member("z".repeat(20_000), 5.0));
+            assertEquals(pages, store.getPageCount());
+            assertTrue(!store.members().delete(big));
+        }
+    }
+
+    @Test
+    void testOpenRejectsOtherFiles() throws IOException {
+        Path other = directory.resolve("other");
+        Files.write(other, new byte[8192]);
+        assertThrows(IllegalArgumentException.class, () -> FileStore.open(other));
+    }
+
+    @Test
+    void testInMemoryRepositoriesHoldSystem() {
+        InMemoryRepositories repositories = InMemoryRepositories.of(SportsClubSystem.getInstance());
+        assertSame(sportsClub, repositories.clubs().findById(sportsClub.getId()));
+        assertSame(nike, repositories.members().findById(nike.getId()));
+        assertEquals(2, repositories.sessions().count());
+        assertEquals(1, repositories.trainers().count());
+        assertEquals(1, repositories.trainings().count());
+        assertEquals(2, repositories.memberships().count());
+        Trainer trainer = sportsClub.getAllTrainers().get(0);
+        assertEquals(1, repositories.trainers().idOf(trainer));
+        assertTrue(repositories.trainers().delete(trainer));
+        assertEquals(-1, repositories.trainers().idOf(trainer));
+    }
+}
@@ -0,0 +1,142 @@
+package ee.taltech.iti0202.search;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionIndexTest {
+
+    private SportsClubSystem sportsClubSystem;
+    private SessionIndex sessionIndex;
+    private TrainingSession gymSession1;
+    private TrainingSession gymSession2;
+    private TrainingSession swimmingSession;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        sportsClubSystem = SportsClubSystem.getInstance();
+        sportsClubSystem.getSportsClubsInArea().clear();
+        sportsClubSystem.getTrainingSessions().clear();
+        sessionIndex = sportsClubSystem.getSessionIndex();
+
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .addTrainingType(TrainingSportType.SWIMMING)
+                .build();
+        Training trainingGym = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        Training trainingSwimming = new Training.Builder()
+                .withName("Swimming")
+                .withTrainingSportType(TrainingSportType.SWIMMING)
+                .build();
+        SportsClub sportsClub = new SportsClub.Builder().build();
+        sportsClub.addNewTraining(trainingGym);
+        sportsClub.addNewTraining(trainingSwimming);
+        trainingGym.assignTrainer(trainer);
+        trainingSwimming.assignTrainer(trainer);
+
+        gymSession1 = new TrainingSession.Builder()
+                .withTraining(trainingGym)
+                .withLevel(TrainingSessionLevel.BEGINNER)
+                .withTime(12, 15)
+                .withMaxParticipants(6)
+                .build();
+        gymSession2 = new TrainingSession.Builder()
+                .withTraining(trainingGym)
+                .withLevel(TrainingSessionLevel.ADVANCED)
+                .withTime(10, 30)
+                .withMaxParticipants(6)
+                .build();
+        swimmingSession = new TrainingSession.Builder()
+                .withTraining(trainingSwimming)
+                .withLevel(TrainingSessionLevel.BEGINNER)
+                .withTime(16, 0)
+                .withMaxParticipants(6)
+                .build();
+    }
+
+    @Test
+    void testFindByLevel() {
+        assertEquals(List.of(gymSession1, swimmingSession), sessionIndex.findByLevel(TrainingSessionLevel.BEGINNER));
+        assertTrue(sessionIndex.findByLevel(TrainingSessionLevel.INTERMEDIATE).isEmpty());
+    }
+
+    @Test
+    void testFindByType() {
+        assertEquals(List.of(gymSession1, gymSession2), sessionIndex.findByType(TrainingSportType.GYM));
+    }
+
+    @Test
+    void testFindByTimeRangeIsOrderedByStartTime() {
+        LocalDateTime startTime = LocalDateTime.now().withHour(10).withMinute(0);
+        LocalDateTime endTime = LocalDateTime.now().withHour(13).withMinute(0);
+        assertEquals(List.of(gymSession2, gymSession1), sessionIndex.findByTimeRange(startTime, endTime));
+    }
+
+    @Test
+    void testSetDateMovesSessionToNewDay() {
+        gymSession1.setDate(2024, 6, 19);
+        swimmingSession.setDate(2024, 6, 20);
+        assertEquals(List.of(gymSession1), sessionIndex.findByDayOfWeek(DayOfWeek.WEDNESDAY));
+        assertEquals(List.of(gymSession1, swimmingSession),
+                sessionIndex.findByDateRange(LocalDate.of(2024, 6, 18), LocalDate.of(2024, 6, 21)));
+    }
+
+    @Test
+    void testClearingSystemSessionsClearsIndex() {
+        sportsClubSystem.getTrainingSessions().clear();
+        assertTrue(sessionIndex.findByType(TrainingSportType.GYM).isEmpty());
+    }
+
+    @Test
+    void testRemovingSessionFromSystemRemovesItFromIndex() {
+        sportsClubSystem.getTrainingSessions().remove(gymSession1);
+        assertEquals(List.of(swimmingSession), sessionIndex.findByLevel(TrainingSessionLevel.BEGINNER));
+    }
+
+    @Test
+    void testRemovedSessionsReleaseTheirIds() {
+        SessionIndex index = new SessionIndex();
+        List<TrainingSession> sessions = List.of(gymSession1, gymSession2, swimmingSession);
+        for (int i = 0; i < 100; i++) {
+            for (TrainingSession session : sessions) {
+                index.add(session);
+            }
+            index.remove(gymSession2);
+            index.remove(gymSession1);
+            if (i < 99) {
+                index.remove(swimmingSession);
+            }
+        }
+        index.add(gymSession1);
+        assertTrue(index.idCount() < 64);
+        assertEquals(List.of(swimmingSession, gymSession1), new SessionQuery.Builder().build().execute(index));
+    }
+
+    @Test
+    void testSetDateKeepsOrderOfSessions() {
+        gymSession1.setDate(2024, 6, 19);
+        assertEquals(List.of(gymSession1, gymSession2, swimmingSession),
+                new SessionQuery.Builder().build().execute(sessionIndex));
+    }
+}
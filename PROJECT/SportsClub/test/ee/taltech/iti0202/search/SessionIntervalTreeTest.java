@@ -0,0 +1,110 @@
+package ee.taltech.iti0202.search;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionIntervalTreeTest {
+
+    private SportsClub sportsClub;
+    private Training training;
+    private TrainingSession morningSession;
+    private TrainingSession noonSession;
+    private TrainingSession eveningSession;
+    private LocalDate today;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        SportsClubSystem sportsClubSystem = SportsClubSystem.getInstance();
+        sportsClubSystem.getSportsClubsInArea().clear();
+        sportsClubSystem.getTrainingSessions().clear();
+        today = LocalDate.now();
+
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        training = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        sportsClub = new SportsClub.Builder().build();
+        sportsClub.addNewTraining(training);
+        training.assignTrainer(trainer);
+
+        morningSession = createSession(9, 0);
+        noonSession = createSession(10, 0);
+        eveningSession = createSession(18, 0);
+    }
+
+    private TrainingSession createSession(int hour, int minute) {
+        return new TrainingSession.Builder()
+                .withTraining(training)
+                .withLevel(TrainingSessionLevel.BEGINNER)
+                .withTime(hour, minute)
+                .withMaxParticipants(6)
+                .build();
+    }
+
+    private LocalDateTime at(int hour, int minute) {
+        return LocalDateTime.of(today, LocalTime.of(hour, minute));
+    }
+
+    @Test
+    void testSessionsRunningAtInstant() {
+        // Sessions last 1.5 hours, so 9:00-10:30 and 10:00-11:30 both run at 10:15
+        assertEquals(List.of(morningSession, noonSession), sportsClub.getSessionsRunningAt(at(10, 15)));
+        assertEquals(List.of(noonSession), sportsClub.getSessionsRunningAt(at(10, 30)));
+        assertTrue(sportsClub.getSessionsRunningAt(at(12, 0)).isEmpty());
+    }
+
+    @Test
+    void testSessionsOverlappingWindow() {
+        assertEquals(List.of(noonSession, eveningSession), sportsClub.getSessionsOverlapping(at(11, 0), at(18, 1)));
+        assertTrue(sportsClub.getSessionsOverlapping(at(11, 30), at(18, 0)).isEmpty());
+    }
+
+    @Test
+    void testSystemWideSearchMatchesLinearScan() {
+        List<TrainingSession> sessions = new ArrayList<>(List.of(morningSession, noonSession, eveningSession));
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            sessions.add(createSession(random.nextInt(24), random.nextInt(60)));
+        }
+        for (int i = 0; i < 50; i++) {
+            TrainingSession removed = sessions.remove(random.nextInt(sessions.size()));
+            SportsClubSystem.getInstance().getTrainingSessions().remove(removed);
+        }
+        SessionIndex index = SportsClubSystem.getInstance().getSessionIndex();
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime from = at(random.nextInt(24), random.nextInt(60));
+            LocalDateTime to = from.plusMinutes(1 + random.nextInt(180));
+            List<TrainingSession> expected = sessions.stream()
+                    .filter(session -> session.getTime().isBefore(to) && session.getEndTime().isAfter(from))
+                    .collect(Collectors.toList());
+            List<TrainingSession> actual = index.findOverlapping(from, to);
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+        }
+    }
+}
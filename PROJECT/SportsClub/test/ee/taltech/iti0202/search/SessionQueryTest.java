@@ -0,0 +1,139 @@
+package ee.taltech.iti0202.search;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SessionQueryTest {
+
+    private SportsClub sportsClub;
+    private SportsClub otherClub;
+    private TrainingSession swimmingTuesday;
+    private TrainingSession swimmingTuesdayLate;
+    private TrainingSession swimmingWednesday;
+    private TrainingSession gymTuesday;
+    private TrainingSession otherClubSwimming;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        SportsClubSystem sportsClubSystem = SportsClubSystem.getInstance();
+        sportsClubSystem.getSportsClubsInArea().clear();
+        sportsClubSystem.getTrainingSessions().clear();
+
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .addTrainingType(TrainingSportType.SWIMMING)
+                .build();
+        sportsClub = new SportsClub.Builder().build();
+        otherClub = new SportsClub.Builder().build();
+        Training swimming = createTraining(sportsClub, TrainingSportType.SWIMMING, trainer);
+        Training gym = createTraining(sportsClub, TrainingSportType.GYM, trainer);
+        Training otherSwimming = createTraining(otherClub, TrainingSportType.SWIMMING, trainer);
+
+        swimmingTuesday = createSession(swimming, TrainingSessionLevel.ADVANCED, 10, 18);
+        swimmingTuesdayLate = createSession(swimming, TrainingSessionLevel.ADVANCED, 16, 18);
+        swimmingWednesday = createSession(swimming, TrainingSessionLevel.ADVANCED, 10, 19);
+        gymTuesday = createSession(gym, TrainingSessionLevel.ADVANCED, 10, 18);
+        otherClubSwimming = createSession(otherSwimming, TrainingSessionLevel.ADVANCED, 10, 18);
+    }
+
+    private Training createTraining(SportsClub club, TrainingSportType type, Trainer trainer) {
+        Training training = new Training.Builder()
+                .withName(type.name())
+                .withTrainingSportType(type)
+                .build();
+        club.addNewTraining(training);
+        training.assignTrainer(trainer);
+        return training;
+    }
+
+    private TrainingSession createSession(Training training, TrainingSessionLevel level, int hour, int day) {
+        TrainingSession session = new TrainingSession.Builder()
+                .withTraining(training)
+                .withLevel(level)
+                .withTime(hour, 0)
+                .withMaxParticipants(1)
+                .build();
+        session.setDate(2024, 6, day);
+        return session;
+    }
+
+    @Test
+    void testQueryCombinesAllCriteria() {
+        List<TrainingSession> result = new SessionQuery.Builder()
+                .withLevel(TrainingSessionLevel.ADVANCED)
+                .withSportType(TrainingSportType.SWIMMING)
+                .onDayOfWeek(DayOfWeek.TUESDAY)
+                .startingBetween(LocalTime.of(9, 0), LocalTime.of(12, 0))
+                .betweenDates(LocalDate.of(2024, 6, 17), LocalDate.of(2024, 6, 23))
+                .inSportsClub(sportsClub)
+                .build()
+                .execute();
+        assertEquals(List.of(swimmingTuesday), result);
+    }
+
+    @Test
+    void testEmptyQueryMatchesEverySession() {
+        assertEquals(5, new SessionQuery.Builder().build().count());
+    }
+
+    @Test
+    void testQueryBySportsClub() {
+        assertEquals(List.of(otherClubSwimming), new SessionQuery.Builder()
+                .inSportsClub(otherClub)
+                .build()
+                .execute());
+    }
+
+    @Test
+    void testQueryWithFreePlacesSkipsFullSessions() {
+        Member member = new Member.Builder()
+                .withName("Anton")
+                .withBudget(100.0)
+                .build();
+        member.buyMembership(new FullMembership(sportsClub));
+        member.registerToTrainingSession(swimmingTuesday);
+        SessionQuery query = new SessionQuery.Builder()
+                .withSportType(TrainingSportType.SWIMMING)
+                .inSportsClub(sportsClub)
+                .withFreePlaces()
+                .build();
+        assertEquals(List.of(swimmingTuesdayLate, swimmingWednesday), query.execute());
+        assertEquals(2, query.count());
+    }
+
+    @Test
+    void testQueryReturnsOnlyRequestedPage() {
+        SessionQuery query = new SessionQuery.Builder()
+                .onDayOfWeek(DayOfWeek.TUESDAY)
+                .page(1, 2)
+                .build();
+        assertEquals(List.of(swimmingTuesdayLate, gymTuesday), query.execute());
+        assertEquals(4, query.count());
+    }
+
+    @Test
+    void testPageWithNegativeOffsetThrows() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionQuery.Builder().page(-1, 1));
+    }
+}
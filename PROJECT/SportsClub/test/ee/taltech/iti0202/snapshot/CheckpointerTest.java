@@ -0,0 +1,209 @@
+package ee.taltech.iti0202.snapshot;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckpointerTest {
+
+    @TempDir
+    Path directory;
+    private Level previousLevel;
+    private SportsClub sportsClub;
+    private TrainingSession session;
+    private List<Member> members;
+    private Checkpointer checkpointer;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        clearSystem();
+
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        Training training = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        sportsClub = new SportsClub.Builder().withTrainer(trainer).build();
+        sportsClub.addNewTraining(training);
+        training.assignTrainer(trainer);
+        session = new TrainingSession(training, TrainingSessionLevel.BEGINNER, LocalDate.now().atTime(10, 0), 50);
+        members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Member member = new Member("Member " + i, 200.0);
+            member.buyMembership(new FullMembership(sportsClub));
+            members.add(member);
+        }
+        checkpointer = Checkpointer.open(directory, 3);
+    }
+
+    /**
+     * Close the checkpointer and restore logging.
+     */
+    @AfterEach
+    void tearDown() {
+        checkpointer.close();
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    private void clearSystem() {
+        SportsClubSystem.getInstance().getSportsClubsInArea().clear();
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+        SportsClubSystem.getInstance().getSessionArchive().clear();
+    }
+
+    private Checkpointer reopen() throws IOException {
+        checkpointer.close();
+        clearSystem();
+        checkpointer = Checkpointer.open(directory, 3);
+        return checkpointer;
+    }
+
+    @Test
+    void testOpenWritesWholeSystemAsBase() {
+        assertEquals(1, checkpointer.getSegmentCount());
+        // Club, trainer, training, session and members
+        assertEquals(4 + members.size(), checkpointer.getLastCheckpointRecords());
+        assertEquals(0, checkpointer.getDirtyCount());
+    }
+
+    @Test
+    void testCheckpointWritesOnlyChangedObjects() throws IOException {
+        assertEquals(0, checkpointer.checkpoint());
+        members.get(3).registerToTrainingSession(session);
+        assertEquals(2, checkpointer.checkpoint());
+        members.get(4).work();
+        assertEquals(1, checkpointer.checkpoint());
+        assertEquals(3, checkpointer.getSegmentCount());
+    }
+
+    @Test
+    void testNewObjectsAreWrittenWithTheirConnections() throws IOException {
+        Member newcomer = new Member("Newcomer", 100.0);
+        newcomer.buyMembership(new FullMembership(sportsClub));
+        newcomer.registerToTrainingSession(session);
+        assertEquals(3, checkpointer.checkpoint());
+
+        reopen();
+        SportsClub restoredClub = SportsClubSystem.getInstance().getSportsClubsInArea().get(0);
+        Member restored = restoredClub.getAllMembers().stream()
+                .filter(member -> member.getName().equals("Newcomer"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(newcomer.getBudget(), restored.getBudget());
+        assertEquals(1, restored.getRegisteredSessions().size());
+        assertEquals(List.of(restored), restored.getRegisteredSessions().get(0).getParticipants());
+    }
+
+    @Test
+    void testRestoreAppliesDeltasOverBase() throws IOException {
+        members.get(0).registerToTrainingSession(session);
+        checkpointer.checkpoint();
+        members.get(1).registerToTrainingSession(session);
+        members.get(0).unregisterFromTrainingSession(session);
+        checkpointer.checkpoint();
+
+        reopen();
+        SportsClub restoredClub = SportsClubSystem.getInstance().getSportsClubsInArea().get(0);
+        assertEquals(members.size(), restoredClub.getAllMembers().size());
+        TrainingSession restoredSession = SportsClubSystem.getInstance().getTrainingSessions().get(0);
+        assertEquals(1, restoredSession.getParticipants().size());
+        assertEquals("Member 1", restoredSession.getParticipants().get(0).getName());
+        assertEquals(members.get(1).getBudget(), restoredSession.getParticipants().get(0).getBudget());
+        // Keys survive the restart, a change after it is still a small delta
+        restoredSession.getParticipants().get(0).work();
+        assertEquals(1, checkpointer.checkpoint());
+    }
+
+    @Test
+    void testDeltasAreCompactedInBackground() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            members.get(i).registerToTrainingSession(session);
+            checkpointer.checkpoint();
+        }
+        checkpointer.close();
+        assertEquals(1, checkpointer.getCompactionCount());
+        assertTrue(checkpointer.getSegmentCount() <= 2);
+
+        reopen();
+        assertEquals(4, SportsClubSystem.getInstance().getTrainingSessions().get(0).getParticipants().size());
+    }
+
+    @Test
+    void testCompactMergesIntoSingleBase() throws IOException {
+        members.get(0).registerToTrainingSession(session);
+        checkpointer.checkpoint();
+        sportsClub.nextMonth();
+        assertEquals(1 + members.size(), checkpointer.getDirtyCount());
+        checkpointer.checkpoint();
+        checkpointer.compact();
+        assertEquals(1, checkpointer.getSegmentCount());
+
+        reopen();
+        SportsClub restoredClub = SportsClubSystem.getInstance().getSportsClubsInArea().get(0);
+        assertEquals(sportsClub.getAverageNumPreviousMonth(), restoredClub.getAverageNumPreviousMonth());
+        assertEquals(members.get(0).getRegisteredSesPrevMonth(), SportsClubSystem.getInstance()
+                .getTrainingSessions().get(0).getParticipants().get(0).getRegisteredSesPrevMonth());
+    }
+
+    @Test
+    void testArchivedSessionIsStoredApartFromCurrentSessions() throws IOException {
+        TrainingSession past = new TrainingSession(session.getTraining(), TrainingSessionLevel.BEGINNER,
+                LocalDateTime.of(2024, 5, 20, 10, 0), 50);
+        past.setPrice(4.5);
+        members.get(0).registerToTrainingSession(past);
+        members.get(1).registerToTrainingSession(past);
+        checkpointer.checkpoint();
+        SportsClubSystem.getInstance().archivePastSessions(LocalDateTime.of(2024, 6, 1, 0, 0));
+        // Empty session record, archived record and both participants
+        assertEquals(4, checkpointer.checkpoint());
+        checkpointer.compact();
+
+        reopen();
+        assertEquals(1, SportsClubSystem.getInstance().getTrainingSessions().size());
+        assertEquals(1, SportsClubSystem.getInstance().getSessionArchive().size());
+        SportsClub restoredClub = SportsClubSystem.getInstance().getSportsClubsInArea().get(0);
+        Member restored = restoredClub.getAllMembers().stream()
+                .filter(member -> member.getName().equals("Member 0"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, restored.getArchivedSessionIds().length);
+        assertTrue(restored.getCurrentRegisteredSessions().isEmpty());
+        TrainingSession restoredPast = restored.getRegisteredSessions().get(0);
+        assertTrue(restoredPast.isArchived());
+        assertEquals(4.5, restoredPast.getPrice());
+        assertEquals(List.of("Member 0", "Member 1"), restoredPast.getParticipants().stream()
+                .map(Member::getName).toList());
+        assertEquals(restoredClub.calculateAverageSessionsPerParticipant(),
+                sportsClub.calculateAverageSessionsPerParticipant(), 1e-9);
+    }
+}
@@ -0,0 +1,245 @@
+package ee.taltech.iti0202.snapshot;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotTest {
+
+    @TempDir
+    Path directory;
+    private Path snapshotFile;
+    private Level previousLevel;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        snapshotFile = directory.resolve("sports-club.snapshot");
+        clearSystem();
+
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        Training gym = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        Training moreGym = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        SportsClub sportsClub = new SportsClub.Builder().withTrainer(trainer).build();
+        sportsClub.addNewTraining(gym);
+        sportsClub.addNewTraining(moreGym);
+        gym.assignTrainer(trainer);
+        moreGym.assignTrainer(trainer);
+        TrainingSession morning = new GroupTrainingSession(gym, TrainingSessionLevel.BEGINNER,
+                LocalDate.now().atTime(10, 0));
+        morning.setDate(2024, 5, 20);
+        TrainingSession noon = new TrainingSession(moreGym, TrainingSessionLevel.ADVANCED,
+                LocalDate.now().atTime(12, 0), 3);
+        noon.setPrice(7.5);
+
+        Member anton = new Member("Anton", 100.0);
+        Member nike = new Member("Nike", 80.0);
+        Member loner = new Member("Loner", 70.0);
+        anton.buyMembership(new FullMembership(sportsClub));
+        nike.buyMembership(new StandardMembership(sportsClub));
+        loner.buyMembership(new FullMembership(sportsClub));
+        anton.registerToTrainingSession(noon);
+        anton.registerToTrainingSession(morning);
+        nike.registerToTrainingSession(morning);
+
+        SnapshotWriter.write(snapshotFile);
+        clearSystem();
+    }
+
+    /**
+     * Restore logging.
+     */
+    @AfterEach
+    void tearDown() {
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    private void clearSystem() {
+        SportsClubSystem.getInstance().getSportsClubsInArea().clear();
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+        SportsClubSystem.getInstance().getSessionArchive().clear();
+    }
+
+    @Test
+    void testClubsTrainersAndTrainingsAreLoadedEagerly() throws IOException {
+        Snapshot snapshot = Snapshot.load(snapshotFile);
+        assertEquals(1, snapshot.getSportsClubCount());
+        SportsClub sportsClub = snapshot.getSportsClub(0);
+        assertEquals(List.of(sportsClub), SportsClubSystem.getInstance().getSportsClubsInArea());
+        assertEquals("Steve", sportsClub.getAllTrainers().get(0).getName());
+        assertEquals(2, sportsClub.getAllTrainings().size());
+        assertSame(sportsClub, snapshot.getTraining(0).sportsClubItBelongsTo());
+        assertSame(snapshot.getTrainer(0), snapshot.getTraining(1).getTrainer());
+        // Equal names are stored once
+        assertSame(snapshot.getTraining(0).getName(), snapshot.getTraining(1).getName());
+        assertEquals(0, snapshot.getMaterializedMemberCount());
+        assertEquals(0, snapshot.getMaterializedSessionCount());
+    }
+
+    @Test
+    void testColumnsCanBeReadWithoutMaterializing() throws IOException {
+        Snapshot snapshot = Snapshot.load(snapshotFile);
+        assertEquals(3, snapshot.getMemberCount());
+        assertEquals(2, snapshot.getSessionCount());
+        double totalBudget = 0;
+        for (int i = 0; i < snapshot.getMemberCount(); i++) {
+            totalBudget += snapshot.getMemberBudget(i);
+        }
+        assertEquals(100.0 - 60.0 + 80.0 - 40.0 + 70.0 - 60.0 - 7.5, totalBudget, 1e-9);
+        int free = 0;
+        for (int i = 0; i < snapshot.getSessionCount(); i++) {
+            free += snapshot.getSessionFreePlaces(i);
+        }
+        assertEquals(25 - 2 + 3 - 1, free);
+        assertEquals(0, snapshot.getMaterializedMemberCount());
+        assertTrue(SportsClubSystem.getInstance().getTrainingSessions().isEmpty());
+    }
+
+    @Test
+    void testMemberIsMaterializedWithItsConnections() throws IOException {
+        Snapshot snapshot = Snapshot.load(snapshotFile);
+        int antonIndex = -1;
+        for (int i = 0; i < snapshot.getMemberCount(); i++) {
+            if (snapshot.getMemberName(i).equals("Anton")) {
+                antonIndex = i;
+            }
+        }
+        Member anton = snapshot.getMember(antonIndex);
+        assertEquals(2, anton.getRegisteredSessions().size());
+        TrainingSession noon = anton.getRegisteredSessions().get(0);
+        assertEquals(7.5, noon.getPrice());
+        assertEquals(List.of(anton), noon.getParticipants());
+        TrainingSession morning = anton.getRegisteredSessions().get(1);
+        assertEquals(LocalDate.of(2024, 5, 20), morning.getDate());
+        assertEquals(2, morning.getParticipants().size());
+        assertEquals(anton, morning.getParticipants().get(0));
+        assertTrue(anton.getBonusPoints() > 0);
+        assertFalse(anton.getMembershipForSportsClub(snapshot.getSportsClub(0)) == null);
+        // Loner is not connected to Anton
+        assertEquals(2, snapshot.getMaterializedMemberCount());
+    }
+
+    @Test
+    void testClubTotalsAreReadFromColumns() throws IOException {
+        Snapshot snapshot = Snapshot.load(snapshotFile);
+        int members = snapshot.getClubMemberCount(0);
+        int sessions = snapshot.getClubSessionCount(0);
+        double averageSessions = snapshot.getClubAverageSessionsPerParticipant(0);
+        double averageBonusPoints = snapshot.getClubAverageBonusPoints(0);
+        assertEquals(0, snapshot.getMaterializedMemberCount());
+        assertEquals(0, snapshot.getMaterializedSessionCount());
+
+        snapshot.materializeAll();
+        SportsClub sportsClub = snapshot.getSportsClub(0);
+        assertEquals(3, members);
+        assertEquals(sportsClub.getAllMembers().size(), members);
+        assertEquals(sportsClub.getAllTrainings().stream().mapToInt(training -> training.getTotalSessions().size())
+                .sum(), sessions);
+        assertEquals(sportsClub.calculateAverageSessionsPerParticipant(), averageSessions, 1e-9);
+        assertEquals(sportsClub.calculateAverageBonusPoints(), averageBonusPoints, 1e-9);
+        assertTrue(averageBonusPoints > 0);
+    }
+
+    @Test
+    void testMaterializeAllRestoresWholeState() throws IOException {
+        Snapshot snapshot = Snapshot.load(snapshotFile);
+        snapshot.materializeAll();
+        SportsClub sportsClub = snapshot.getSportsClub(0);
+        assertEquals(3, sportsClub.getAllMembers().size());
+        assertEquals(2, SportsClubSystem.getInstance().getTrainingSessions().size());
+        assertEquals(3, snapshot.getTrainer(0).getTotalTrainerParticipants());
+        for (int i = 0; i < snapshot.getMemberCount(); i++) {
+            assertEquals(snapshot.getMemberBudget(i), snapshot.getMember(i).getBudget());
+        }
+        Member nike = sportsClub.getAllMembers().stream()
+                .filter(member -> member.getName().equals("Nike"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("standard", nike.getMembershipForSportsClub(sportsClub).getType());
+        assertThrows(IllegalArgumentException.class, () -> nike.registerToTrainingSession(
+                nike.getRegisteredSessions().get(0)));
+    }
+
+    @Test
+    void testLoadRejectsOtherFiles() throws IOException {
+        Path other = directory.resolve("other");
+        Files.write(other, new byte[1024]);
+        assertThrows(IllegalArgumentException.class, () -> Snapshot.load(other));
+    }
+
+    @Test
+    void testArchivedSessionsAreWrittenApartFromCurrentSessions() throws IOException {
+        Snapshot snapshot = Snapshot.load(snapshotFile);
+        snapshot.materializeAll();
+        SportsClub sportsClub = snapshot.getSportsClub(0);
+        Member anton = snapshot.getMember(0);
+        TrainingSession past = new TrainingSession(snapshot.getTraining(0), TrainingSessionLevel.BEGINNER,
+                LocalDateTime.of(2024, 5, 20, 10, 0), 10);
+        past.setPrice(4.5);
+        anton.registerToTrainingSession(past);
+        SportsClubSystem.getInstance().archivePastSessions(LocalDateTime.of(2024, 6, 1, 0, 0));
+        double averageSessions = sportsClub.calculateAverageSessionsPerParticipant();
+        Path archivedFile = directory.resolve("archived.snapshot");
+        SnapshotWriter.write(archivedFile);
+        clearSystem();
+
+        Snapshot archived = Snapshot.load(archivedFile);
+        assertEquals(2, archived.getSessionCount());
+        assertEquals(1, archived.getArchivedSessionCount());
+        assertEquals(3, archived.getClubSessionCount(0));
+        assertEquals(averageSessions, archived.getClubAverageSessionsPerParticipant(0), 1e-9);
+        assertEquals(0, SportsClubSystem.getInstance().getSessionArchive().size());
+
+        Member restored = archived.getMember(0);
+        assertEquals("Anton", restored.getName());
+        assertEquals(1, SportsClubSystem.getInstance().getSessionArchive().size());
+        assertEquals(2, restored.getCurrentRegisteredSessions().size());
+        TrainingSession restoredPast = restored.getRegisteredSessions().get(0);
+        assertTrue(restoredPast.isArchived());
+        assertEquals(4.5, restoredPast.getPrice());
+        assertEquals(List.of(restored), restoredPast.getParticipants());
+        assertFalse(SportsClubSystem.getInstance().getTrainingSessions().contains(restoredPast));
+        archived.materializeAll();
+        assertEquals(averageSessions, archived.getSportsClub(0).calculateAverageSessionsPerParticipant(), 1e-9);
+    }
+}
@@ -0,0 +1,103 @@
+package ee.taltech.iti0202.sportsclub;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChannelAppenderTest {
+
+    private SportsClub sportsClub;
+    private Level previousLevel;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+        Trainer trainer = new Trainer.Builder()
+                .withName("J\u00fcri")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        sportsClub = new SportsClub.Builder().withTrainer(trainer).build();
+        Training gym = createTraining("Gym", trainer);
+        Training advancedGym = createTraining("Gym (advanced)", trainer);
+        TrainingSession late = new TrainingSession(gym, TrainingSessionLevel.BEGINNER,
+                LocalDate.now().atTime(18, 0), 10);
+        new TrainingSession(gym, TrainingSessionLevel.BEGINNER, LocalDate.now().atTime(9, 0), 10);
+        TrainingSession advanced = new TrainingSession(advancedGym, TrainingSessionLevel.ADVANCED,
+                LocalDate.now().atTime(7, 30), 10);
+        for (String name : new String[] {"\u00dclle", "\u00d5ie", "Anton"}) {
+            Member member = new Member(name, 200.0);
+            member.buyMembership(new FullMembership(sportsClub));
+            member.registerToTrainingSession(late);
+            member.registerToTrainingSession(advanced);
+        }
+    }
+
+    /**
+     * Restore logging.
+     */
+    @AfterEach
+    void tearDown() {
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    private Training createTraining(String name, Trainer trainer) {
+        Training training = new Training.Builder()
+                .withName(name)
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        sportsClub.addNewTraining(training);
+        training.assignTrainer(trainer);
+        return training;
+    }
+
+    @Test
+    void testSessionsAreOrderedLikeTheirLines() {
+        String overview = sportsClub.getOverview();
+        String sessions = overview.substring(overview.indexOf("Training Sessions:\n") + 19,
+                overview.indexOf("\nParticipants:"));
+        // '(' sorts before '-', so the longer name comes first as it did when whole lines were sorted
+        assertEquals("Gym (advanced) - 07:30\nGym - 09:00\nGym - 18:00", sessions);
+        assertEquals("\u00dclle, \u00d5ie, Anton", overview.substring(overview.indexOf("Participants:\n") + 14,
+                overview.indexOf("\nMembers:")));
+    }
+
+    @Test
+    void testChannelGetsSameOverviewWithSmallBuffer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(bytes);
+        ChannelAppender appender = new ChannelAppender(channel, 3);
+        sportsClub.writeOverview(appender);
+        appender.flush();
+        assertEquals(sportsClub.getOverview(), bytes.toString(StandardCharsets.UTF_8));
+
+        // Buffers are reused for the next write
+        bytes.reset();
+        appender.append("\ud83d\ude00 ok");
+        appender.flush();
+        assertEquals("\ud83d\ude00 ok", bytes.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,267 @@
+package ee.taltech.iti0202.sportsclub;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.membership.StandardMembership;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClubTotalsTest {
+
+    private Level previousLevel;
+    private SportsClub gymClub;
+    private SportsClub tennisClub;
+    private TrainingSession gymSession;
+    private TrainingSession otherGymSession;
+    private TrainingSession tennisSession;
+    private Training tennis;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        SportsClubSystem.getInstance().getSportsClubsInArea().clear();
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .addTrainingType(TrainingSportType.TENNIS)
+                .build();
+        Training gym = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        tennis = new Training.Builder()
+                .withName("Tennis")
+                .withTrainingSportType(TrainingSportType.TENNIS)
+                .build();
+        gymClub = new SportsClub.Builder().withTrainer(trainer).build();
+        tennisClub = new SportsClub.Builder().build();
+        gymClub.addNewTraining(gym);
+        tennisClub.addNewTraining(tennis);
+        gym.assignTrainer(trainer);
+        tennis.assignTrainer(trainer);
+        gymSession = new GroupTrainingSession(gym, TrainingSessionLevel.BEGINNER, LocalDate.now().atTime(10, 0));
+        otherGymSession = new TrainingSession(gym, TrainingSessionLevel.BEGINNER, LocalDate.now().atTime(18, 0),
+                1000);
+        tennisSession = new GroupTrainingSession(tennis, TrainingSessionLevel.BEGINNER,
+                LocalDate.now().atTime(11, 0));
+    }
+
+    /**
+     * Restore logging.
+     */
+    @AfterEach
+    void tearDown() {
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    /**
+     * Averages computed the way they were before the running totals.
+     */
+    private static void assertTotalsMatchMembers(SportsClub sportsClub) {
+        int sessions = 0;
+        int points = 0;
+        for (Member member : sportsClub.getAllMembers()) {
+            sessions += member.getRegisteredSessions().stream()
+                    .filter(session -> session.getWhatSportsClubItBelongsTo() == sportsClub)
+                    .count();
+            points += member.getBonusPoints();
+        }
+        int members = sportsClub.getAllMembers().size();
+        assertEquals(members > 0 ? (double) sessions / members : 0.0, sportsClub.getAverageNum(), 1e-9);
+        assertEquals(members > 0 ? (double) points / members : 0.0, sportsClub.getAverageBonusPoints(), 1e-9);
+    }
+
+    @Test
+    void testTotalsFollowRegistrationsAndMemberships() {
+        Member anton = new Member("Anton", 500.0);
+        Member nike = new Member("Nike", 500.0);
+        anton.buyMembership(new FullMembership(gymClub));
+        anton.buyMembership(new FullMembership(tennisClub));
+        nike.buyMembership(new StandardMembership(gymClub));
+        anton.registerToTrainingSession(gymSession);
+        anton.registerToTrainingSession(tennisSession);
+        nike.registerToTrainingSession(gymSession);
+        nike.registerToTrainingSession(otherGymSession);
+        assertEquals(1.5, gymClub.getAverageNum(), 1e-9);
+        assertTotalsMatchMembers(gymClub);
+        assertTotalsMatchMembers(tennisClub);
+
+        nike.unregisterFromTrainingSession(otherGymSession);
+        assertTotalsMatchMembers(gymClub);
+
+        gymClub.nextMonth();
+        assertEquals(0.0, gymClub.getAverageNum());
+        // Anton is still listed in the tennis club, with his month cleared
+        assertTotalsMatchMembers(tennisClub);
+
+        nike.buyMembership(new FullMembership(gymClub));
+        nike.registerToTrainingSession(otherGymSession);
+        assertTotalsMatchMembers(gymClub);
+    }
+
+    @Test
+    void testMemberBuyingAgainIsListedOnce() {
+        Member anton = new Member("Anton", 500.0);
+        Member nike = new Member("Nike", 500.0);
+        anton.buyMembership(new FullMembership(gymClub));
+        anton.buyMembership(new FullMembership(tennisClub));
+        nike.buyMembership(new FullMembership(tennisClub));
+        anton.registerToTrainingSession(tennisSession);
+        // Clears the memberships of every club, the tennis club still lists the member
+        gymClub.nextMonth();
+        anton.buyMembership(new FullMembership(tennisClub));
+        anton.setBonusPoints(6);
+        tennisClub.recountTotals();
+
+        assertEquals(List.of(anton, nike), tennisClub.getAllMembers());
+        assertEquals(3.0, tennisClub.getAverageBonusPoints(), 1e-9);
+        assertTotalsMatchMembers(tennisClub);
+    }
+
+    @Test
+    void testArchivedRegistrationsAreCounted() {
+        Member anton = new Member("Anton", 500.0);
+        anton.buyMembership(new FullMembership(tennisClub));
+        anton.buyMembership(new FullMembership(gymClub));
+        TrainingSession past = new TrainingSession(tennis, TrainingSessionLevel.BEGINNER,
+                LocalDateTime.of(2024, 5, 20, 10, 0), 10);
+        anton.registerToTrainingSession(past);
+        anton.registerToTrainingSession(tennisSession);
+        SportsClubSystem.getInstance().archivePastSessions(LocalDateTime.of(2024, 6, 1, 0, 0));
+
+        tennisClub.recountTotals();
+        assertEquals(2.0, tennisClub.getAverageNum(), 1e-9);
+        assertEquals(2, anton.getRegisteredSessionCount());
+        tennis.setSportsClubItBelongsTo(gymClub);
+        assertEquals(0.0, tennisClub.getAverageNum(), 1e-9);
+        assertEquals(2.0, gymClub.getAverageNum(), 1e-9);
+        assertTotalsMatchMembers(gymClub);
+        anton.clearRegisteredSessions();
+        assertEquals(0.0, gymClub.getAverageNum(), 1e-9);
+        SportsClubSystem.getInstance().getSessionArchive().clear();
+    }
+
+    @Test
+    void testRestoredMembersAreCounted() {
+        Member restored = new Member("Restored", 0.0);
+        restored.restoreRegisteredSession(gymSession);
+        restored.setBonusPoints(7);
+        restored.restoreMembership(new FullMembership(gymClub));
+        assertEquals(1.0, gymClub.getAverageNum(), 1e-9);
+        assertEquals(7.0, gymClub.getAverageBonusPoints(), 1e-9);
+        restored.restoreRegisteredSession(otherGymSession);
+        assertTotalsMatchMembers(gymClub);
+    }
+
+    @Test
+    void testConcurrentRegistrationsKeepTotals() throws Exception {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Member member = new Member("Member " + i, 1000.0);
+            member.buyMembership(new FullMembership(gymClub));
+            members.add(member);
+        }
+        List<TrainingSession> sessions = List.of(gymSession, otherGymSession);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    Member member = members.get(random.nextInt(members.size()));
+                    TrainingSession session = sessions.get(random.nextInt(sessions.size()));
+                    try {
+                        if (random.nextBoolean()) {
+                            member.registerToTrainingSession(session);
+                        } else {
+                            member.unregisterFromTrainingSession(session);
+                        }
+                    } catch (IllegalArgumentException | IllegalStateException expected) {
+                        // Already registered, not registered or full
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTotalsMatchMembers(gymClub);
+    }
+
+    @Test
+    void testMovingTrainingKeepsConcurrentRegistrations() throws Exception {
+        TrainingSession bigTennisSession = new TrainingSession(tennis, TrainingSessionLevel.BEGINNER,
+                LocalDate.now().atTime(19, 0), 1000);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Member member = new Member("Member " + i, 1000.0);
+            member.buyMembership(new FullMembership(gymClub));
+            member.buyMembership(new FullMembership(tennisClub));
+            if (i % 2 == 0) {
+                member.registerToTrainingSession(bigTennisSession);
+            }
+            members.add(member);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    Member member = members.get(random.nextInt(members.size()));
+                    try {
+                        if (random.nextBoolean()) {
+                            member.registerToTrainingSession(gymSession);
+                        } else {
+                            member.unregisterFromTrainingSession(gymSession);
+                        }
+                    } catch (IllegalArgumentException | IllegalStateException expected) {
+                        // Already registered, not registered or full
+                    }
+                }
+                return null;
+            }));
+        }
+        futures.add(executor.submit(() -> {
+            for (int i = 0; i < 1000; i++) {
+                tennis.setSportsClubItBelongsTo(i % 2 == 0 ? gymClub : tennisClub);
+            }
+            return null;
+        }));
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTotalsMatchMembers(gymClub);
+        assertTotalsMatchMembers(tennisClub);
+    }
+}
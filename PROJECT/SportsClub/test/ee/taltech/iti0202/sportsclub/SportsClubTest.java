@@ -1,6 +1,7 @@
 package ee.taltech.iti0202.sportsclub;
 
 import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.ranking.KeysetIndex;
 import ee.taltech.iti0202.membership.Membership;
 import ee.taltech.iti0202.membership.StandardMembership;
 import ee.taltech.iti0202.trainer.Trainer;
@@ -10,6 +11,7 @@ import ee.taltech.iti0202.training.TrainingSessionLevel;
 import ee.taltech.iti0202.training.TrainingSportType;
 import org.junit.jupiter.api.BeforeEach;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -339,6 +341,41 @@ public class SportsClubTest {
         assertEquals(trainingTennis.getName(), sequencedTrainings.get(2).getName());
     }
 
+    @org.junit.jupiter.api.Test
+    public void testTrainingRankFollowsRegistrations() {
+        setUpMembersTrainingsRegister();
+        assertEquals(List.of(trainingGym), sportsClub.getTopTrainings(1));
+        assertEquals(1, sportsClub.getTrainingRank(trainingSwimming));
+
+        member1.unregisterFromTrainingSession(gymSession2);
+        // Gym and swimming now have 2 and 3 participants
+        assertEquals(List.of(trainingSwimming, trainingGym), sportsClub.getTopTrainings(2));
+        assertEquals(1, sportsClub.getTrainingRank(trainingGym));
+        assertEquals(-1, sportsClub.getTrainingRank(new Training("Other", TrainingSportType.GYM)));
+    }
+
+    @org.junit.jupiter.api.Test
+    public void testPagesMatchFullLists() {
+        setUpMembersTrainingsRegister();
+        List<TrainingSession> sorted = new ArrayList<>();
+        KeysetIndex.Page<TrainingSession> page = sportsClub.getSortedTrainingSessions(null, 2);
+        sorted.addAll(page.getItems());
+        while (page.hasNext()) {
+            page = sportsClub.getSortedTrainingSessions(page.getNextCursor(), 2);
+            sorted.addAll(page.getItems());
+        }
+        assertEquals(sportsClub.getSortedTrainingSessions(), sorted);
+
+        KeysetIndex.Page<TrainingSession> byTime = sportsClub.getClubSessionsByTime(null, 10);
+        assertEquals(sportsClub.getClubSessionsByTime().stream().map(TrainingSession::getTime).toList(),
+                byTime.getItems().stream().map(TrainingSession::getTime).toList());
+
+        KeysetIndex.Page<Member> members = sportsClub.getAllMembers(null, 2);
+        assertEquals(sportsClub.getAllMembers().subList(0, 2), members.getItems());
+        assertEquals(sportsClub.getAllMembers().subList(2, 3),
+                sportsClub.getAllMembers(members.getNextCursor(), 2).getItems());
+    }
+
     @org.junit.jupiter.api.Test
     public void testGetOverview() {
         String expectedOverview = "Offered Trainings:\n"
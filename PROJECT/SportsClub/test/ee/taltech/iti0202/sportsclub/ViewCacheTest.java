@@ -0,0 +1,147 @@
+package ee.taltech.iti0202.sportsclub;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.trainer.Trainer;
+import ee.taltech.iti0202.training.GroupTrainingSession;
+import ee.taltech.iti0202.training.Training;
+import ee.taltech.iti0202.training.TrainingSession;
+import ee.taltech.iti0202.training.TrainingSessionLevel;
+import ee.taltech.iti0202.training.TrainingSportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ViewCacheTest {
+
+    private Level previousLevel;
+    private SportsClub sportsClub;
+    private Trainer trainer;
+    private Training gym;
+    private TrainingSession gymSession;
+    private Member anton;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        SportsClubSystem.getInstance().getSportsClubsInArea().clear();
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+
+        trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        gym = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        sportsClub = new SportsClub.Builder().withTrainer(trainer).build();
+        sportsClub.addNewTraining(gym);
+        gym.assignTrainer(trainer);
+        gymSession = new GroupTrainingSession(gym, TrainingSessionLevel.BEGINNER, LocalDate.now().atTime(10, 0));
+        anton = new Member("Anton", 500.0);
+    }
+
+    /**
+     * Restore logging.
+     */
+    @AfterEach
+    void tearDown() {
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    /**
+     * Read every cached view once.
+     */
+    private void readViews() {
+        sportsClub.getOverview();
+        sportsClub.getClubSessionsByTime();
+        sportsClub.getSortedTrainingSessions();
+        sportsClub.sequenceTrainingSessions();
+        sportsClub.getSortedTrainers();
+    }
+
+    @Test
+    void testRepeatedReadsAreCached() {
+        readViews();
+        long misses = sportsClub.getViewCacheMisses();
+        long hits = sportsClub.getViewCacheHits();
+        assertEquals(5, misses);
+
+        List<TrainingSession> sessions = sportsClub.getClubSessionsByTime();
+        readViews();
+        assertSame(sessions, sportsClub.getClubSessionsByTime());
+        assertEquals(misses, sportsClub.getViewCacheMisses());
+        assertEquals(hits + 7, sportsClub.getViewCacheHits());
+        assertThrows(UnsupportedOperationException.class, () -> sessions.add(gymSession));
+    }
+
+    @Test
+    void testEveryChangeMakesViewsNew() {
+        readViews();
+        long version = sportsClub.getVersion();
+
+        anton.buyMembership(new FullMembership(sportsClub));
+        assertTrue(sportsClub.getOverview().contains("Anton"));
+        version = assertNewVersion(version);
+
+        anton.registerToTrainingSession(gymSession);
+        assertEquals(1, sportsClub.getSortedTrainingSessions().get(0).getParticipants().size());
+        version = assertNewVersion(version);
+
+        anton.unregisterFromTrainingSession(gymSession);
+        assertEquals(0, sportsClub.getSortedTrainingSessions().get(0).getParticipants().size());
+        version = assertNewVersion(version);
+
+        Trainer other = new Trainer.Builder()
+                .withName("Anna")
+                .addTrainingType(TrainingSportType.TENNIS)
+                .build();
+        sportsClub.hireNewTrainer(other);
+        assertEquals(List.of(other, trainer), sportsClub.getSortedTrainers());
+        version = assertNewVersion(version);
+
+        trainer.addTrainingType(TrainingSportType.BOX);
+        assertEquals(List.of(trainer, other), sportsClub.getSortedTrainers());
+        version = assertNewVersion(version);
+
+        Training tennis = new Training.Builder()
+                .withName("Tennis")
+                .withTrainingSportType(TrainingSportType.TENNIS)
+                .build();
+        sportsClub.addNewTraining(tennis);
+        tennis.assignTrainer(other);
+        assertEquals(List.of(gym, tennis), sportsClub.sequenceTrainingSessions());
+        version = assertNewVersion(version);
+
+        TrainingSession tennisSession = new GroupTrainingSession(tennis, TrainingSessionLevel.BEGINNER,
+                LocalDate.now().atTime(9, 30));
+        assertEquals(List.of(tennisSession, gymSession), sportsClub.getClubSessionsByTime());
+        version = assertNewVersion(version);
+
+        sportsClub.nextMonth();
+        assertEquals(-1, sportsClub.getOverview().indexOf("Anton"));
+        assertNewVersion(version);
+    }
+
+    private long assertNewVersion(long previous) {
+        assertNotEquals(previous, sportsClub.getVersion());
+        return sportsClub.getVersion();
+    }
+}
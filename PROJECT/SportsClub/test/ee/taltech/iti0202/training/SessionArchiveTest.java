@@ -0,0 +1,219 @@
+package ee.taltech.iti0202.training;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionArchiveTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 0, 0);
+    private Level previousLevel;
+    private SportsClubSystem system;
+    private SportsClub sportsClub;
+    private Training gym;
+    private Member anton;
+    private Member nike;
+    private TrainingSession future;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        system = SportsClubSystem.getInstance();
+        clearSystem();
+
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        gym = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        sportsClub = new SportsClub.Builder().withTrainer(trainer).build();
+        sportsClub.addNewTraining(gym);
+        gym.assignTrainer(trainer);
+        anton = new Member("Anton", 100.0);
+        nike = new Member("Nike", 100.0);
+        anton.buyMembership(new FullMembership(sportsClub));
+        nike.buyMembership(new FullMembership(sportsClub));
+        future = new TrainingSession(gym, TrainingSessionLevel.BEGINNER, NOW.plusDays(3).withHour(10), 10);
+        anton.registerToTrainingSession(future);
+    }
+
+    /**
+     * Restore logging.
+     */
+    @AfterEach
+    void tearDown() {
+        clearSystem();
+        SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+    }
+
+    private void clearSystem() {
+        system.getSportsClubsInArea().clear();
+        system.getTrainingSessions().clear();
+        system.getSessionArchive().clear();
+    }
+
+    /**
+     * Create a past session with both members and drop every reference to it except the system.
+     */
+    private int createPastSession(int day) {
+        TrainingSession past = new GroupTrainingSession(gym, TrainingSessionLevel.INTERMEDIATE,
+                LocalDateTime.of(2024, 5, day, 10, 0));
+        past.setDate(2024, 5, day);
+        past.setPrice(4.5);
+        anton.registerToTrainingSession(past);
+        nike.registerToTrainingSession(past);
+        return past.getId();
+    }
+
+    @Test
+    void testOnlyEndedSessionsAreArchived() {
+        int pastId = createPastSession(20);
+        TrainingSession running = new TrainingSession(gym, TrainingSessionLevel.BEGINNER, NOW.minusHours(1), 10);
+
+        assertEquals(1, system.archivePastSessions(NOW));
+        assertEquals(1, system.getSessionArchive().size());
+        assertTrue(system.getSessionArchive().contains(pastId));
+        assertEquals(2, system.getTrainingSessions().size());
+        assertTrue(system.getTrainingSessions().contains(running));
+        assertFalse(system.getTrainingSessions().stream().anyMatch(session -> session.getId() == pastId));
+        assertEquals(2, gym.getCurrentSessions().size());
+        assertEquals(3, gym.getTotalSessionsNumber());
+        assertEquals(0, system.archivePastSessions(NOW));
+    }
+
+    @Test
+    void testArchivedSessionIsReadBackWithItsParticipants() {
+        int pastId = createPastSession(20);
+        system.archivePastSessions(NOW);
+        anton.clearRegisteredSessions();
+        nike.clearRegisteredSessions();
+        for (int i = 0; i < 3 && system.getSessionArchive().find(pastId) == null; i++) {
+            System.gc();
+        }
+
+        assertEquals(2, system.getSessionArchive().getParticipantCount(pastId));
+        TrainingSession past = system.getTrainingSession(pastId);
+        assertTrue(past instanceof GroupTrainingSession);
+        assertTrue(past.isArchived());
+        assertEquals(pastId, past.getId());
+        assertEquals(LocalDate.of(2024, 5, 20), past.getDate());
+        assertEquals(4.5, past.getPrice());
+        assertEquals(TrainingSessionLevel.INTERMEDIATE, past.getTrainingSessionLevel());
+        assertEquals(List.of(anton, nike), past.getParticipants());
+        assertSame(past, system.getTrainingSession(pastId));
+        assertTrue(gym.getTotalSessions().contains(past));
+        assertEquals(3, gym.getTotalParticipants());
+    }
+
+    @Test
+    void testArchivedSessionIsCollected() throws InterruptedException {
+        int pastId = createPastSession(20);
+        WeakReference<TrainingSession> original = new WeakReference<>(system.getTrainingSession(pastId));
+        sportsClub.getClubSessionsByTime();
+        sportsClub.getSortedTrainingSessions();
+        system.archivePastSessions(NOW);
+        for (int i = 0; i < 50 && original.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(original.get());
+
+        // Registrations of the month still count the archived session, read back from the archive
+        assertEquals(List.of(pastId, future.getId()), anton.getRegisteredSessions().stream()
+                .map(TrainingSession::getId).toList());
+        assertEquals(List.of(anton, nike), system.getTrainingSession(pastId).getParticipants());
+        assertEquals(2, sportsClub.getClubSessionsByTime().size());
+    }
+
+    @Test
+    void testArchivedSessionCannotBeChanged() {
+        int pastId = createPastSession(20);
+        system.archivePastSessions(NOW);
+        TrainingSession past = system.getTrainingSession(pastId);
+
+        assertThrows(IllegalStateException.class, () -> past.setPrice(1.0));
+        assertThrows(IllegalStateException.class, () -> past.removeParticipant(anton));
+        Member late = new Member("Late", 100.0);
+        late.buyMembership(new FullMembership(sportsClub));
+        assertThrows(IllegalStateException.class, () -> late.registerToTrainingSession(past));
+        assertEquals(100.0 - 60.0, late.getBudget());
+        assertThrows(IllegalArgumentException.class, () -> system.getSessionArchive().archive(past));
+    }
+
+    @Test
+    void testArchivedSessionsLeaveTheClubPages() {
+        int pastId = createPastSession(20);
+        assertEquals(2, sportsClub.getClubSessionsByTime(null, 10).getItems().size());
+        system.archivePastSessions(NOW);
+
+        assertEquals(List.of(future), sportsClub.getClubSessionsByTime(null, 10).getItems());
+        assertEquals(List.of(future), sportsClub.getSortedTrainingSessions(null, 10).getItems());
+        assertEquals(List.of(future.getId(), pastId), sportsClub.getSortedTrainingSessions().stream()
+                .map(TrainingSession::getId).sorted().toList());
+    }
+
+    @Test
+    void testTimeWindowSearchIncludesArchivedSessions() {
+        int firstId = createPastSession(20);
+        int secondId = createPastSession(21);
+        system.archivePastSessions(NOW);
+
+        List<TrainingSession> found = sportsClub.getSessionsOverlapping(LocalDateTime.of(2024, 5, 20, 11, 0),
+                NOW.plusDays(4));
+        assertEquals(List.of(firstId, secondId, future.getId()), found.stream().map(TrainingSession::getId).toList());
+        assertEquals(List.of(secondId), sportsClub.getSessionsRunningAt(LocalDateTime.of(2024, 5, 21, 10, 0))
+                .stream().map(TrainingSession::getId).toList());
+        assertTrue(sportsClub.getSessionsOverlapping(LocalDateTime.of(2024, 5, 20, 11, 30),
+                LocalDateTime.of(2024, 5, 21, 10, 0)).isEmpty());
+        assertNull(system.getSessionArchive().find(future.getId()));
+    }
+
+    @Test
+    void testTimeWindowSearchFollowsStartTimeOfRows() {
+        List<Integer> ids = new ArrayList<>();
+        // Archived in two batches, the later days first, so the rows are not in start order
+        for (int day = 5; day <= 8; day++) {
+            ids.add(createPastSession(day));
+        }
+        system.archivePastSessions(LocalDateTime.of(2024, 5, 9, 0, 0));
+        for (int day = 1; day <= 4; day++) {
+            ids.add(day - 1, createPastSession(day));
+        }
+        system.archivePastSessions(NOW);
+
+        // Starts at 11:00 while the session of the 3rd still runs until 11:30
+        List<TrainingSession> found = sportsClub.getSessionsOverlapping(LocalDateTime.of(2024, 5, 3, 11, 0),
+                LocalDateTime.of(2024, 5, 7, 10, 0));
+        assertEquals(ids.subList(2, 6), found.stream().map(TrainingSession::getId).toList());
+        assertEquals(8, system.getSessionArchive().size());
+        assertTrue(ids.stream().allMatch(system.getSessionArchive()::contains));
+        assertFalse(system.getSessionArchive().contains(future.getId()));
+    }
+}
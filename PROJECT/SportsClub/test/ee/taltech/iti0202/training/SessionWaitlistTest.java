@@ -0,0 +1,169 @@
+package ee.taltech.iti0202.training;
+
+import ee.taltech.iti0202.SportsClubSystem;
+import ee.taltech.iti0202.logger.SportsClubLogger;
+import ee.taltech.iti0202.member.Member;
+import ee.taltech.iti0202.membership.FullMembership;
+import ee.taltech.iti0202.sportsclub.SportsClub;
+import ee.taltech.iti0202.trainer.Trainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionWaitlistTest {
+
+    private SportsClub sportsClub;
+    private TrainingSession session;
+    private Member member1;
+    private Member member2;
+    private Member member3;
+
+    /**
+     * Creating setUp method.
+     */
+    @BeforeEach
+    void setUp() {
+        SportsClubSystem.getInstance().getTrainingSessions().clear();
+        Trainer trainer = new Trainer.Builder()
+                .withName("Steve")
+                .addTrainingType(TrainingSportType.GYM)
+                .build();
+        Training training = new Training.Builder()
+                .withName("Gym class")
+                .withTrainingSportType(TrainingSportType.GYM)
+                .build();
+        sportsClub = new SportsClub.Builder().build();
+        sportsClub.addNewTraining(training);
+        training.assignTrainer(trainer);
+        session = new TrainingSession.Builder()
+                .withTraining(training)
+                .withLevel(TrainingSessionLevel.BEGINNER)
+                .withTime(12, 0)
+                .withMaxParticipants(1)
+                .build();
+        member1 = createMember("Anton", 100.0);
+        member2 = createMember("Nike", 100.0);
+        member3 = createMember("Mari", 100.0);
+    }
+
+    private Member createMember(String name, double budget) {
+        Member member = new Member.Builder()
+                .withName(name)
+                .withBudget(budget)
+                .build();
+        member.buyMembership(new FullMembership(sportsClub));
+        return member;
+    }
+
+    @Test
+    void testFullSessionPutsMemberOnWaitlist() {
+        assertTrue(member1.registerOrJoinWaitlist(session));
+        assertFalse(member2.registerOrJoinWaitlist(session));
+        assertTrue(session.isOnWaitlist(member2));
+        assertEquals(1, session.getWaitlistSize());
+    }
+
+    @Test
+    void testUnregisterPromotesHeadOfWaitlist() {
+        member1.registerOrJoinWaitlist(session);
+        member2.registerOrJoinWaitlist(session);
+        member3.registerOrJoinWaitlist(session);
+        member1.unregisterFromTrainingSession(session);
+        assertEquals(List.of(member2), session.getParticipants());
+        assertTrue(member2.getRegisteredSessions().contains(session));
+        assertTrue(session.isOnWaitlist(member3));
+    }
+
+    @Test
+    void testMemberWhoLeftWaitlistIsSkipped() {
+        member1.registerOrJoinWaitlist(session);
+        member2.registerOrJoinWaitlist(session);
+        member3.registerOrJoinWaitlist(session);
+        session.leaveWaitlist(member2);
+        member1.unregisterFromTrainingSession(session);
+        assertEquals(List.of(member3), session.getParticipants());
+        assertEquals(0, session.getWaitlistSize());
+    }
+
+    @Test
+    void testMemberWithoutBudgetIsDroppedFromWaitlist() {
+        session.setPrice(30.0);
+        Member poorMember = createMember("Poor", 80.0);
+        member1.registerOrJoinWaitlist(session);
+        poorMember.registerOrJoinWaitlist(session);
+        member2.registerOrJoinWaitlist(session);
+        member1.unregisterFromTrainingSession(session);
+        assertEquals(List.of(member2), session.getParticipants());
+        assertFalse(session.isOnWaitlist(poorMember));
+    }
+
+    @Test
+    void testParticipantFromLastMonthIsNotWaitlisted() {
+        TrainingSession twoSeats = new TrainingSession.Builder()
+                .withTraining(session.getTraining())
+                .withLevel(TrainingSessionLevel.BEGINNER)
+                .withTime(14, 0)
+                .withMaxParticipants(2)
+                .build();
+        Member returning = createMember("Kati", 200.0);
+        returning.registerToTrainingSession(twoSeats);
+        sportsClub.nextMonth();
+        returning.buyMembership(new FullMembership(sportsClub));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(IllegalArgumentException.class, () -> returning.registerOrJoinWaitlist(twoSeats)));
+        assertThrows(IllegalArgumentException.class, () -> twoSeats.joinWaitlist(returning));
+        assertFalse(twoSeats.isOnWaitlist(returning));
+        assertEquals(List.of(returning), twoSeats.getParticipants());
+    }
+
+    @Test
+    void testConcurrentWaitlistNeverOverbooks() throws Exception {
+        Level previousLevel = SportsClubLogger.getInstance().getLogger().getLevel();
+        SportsClubLogger.getInstance().getLogger().setLevel(Level.OFF);
+        try {
+            List<Member> members = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                members.add(createMember("Member " + i, 100.0));
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Member member : members) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (member.registerOrJoinWaitlist(session)) {
+                        member.unregisterFromTrainingSession(session);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            assertTrue(session.getParticipants().size() <= 1);
+            assertEquals(session.getParticipants().size(), session.getReservedSeats());
+            for (Member participant : session.getParticipants()) {
+                assertFalse(session.isOnWaitlist(participant));
+            }
+        } finally {
+            SportsClubLogger.getInstance().getLogger().setLevel(previousLevel);
+        }
+    }
+}
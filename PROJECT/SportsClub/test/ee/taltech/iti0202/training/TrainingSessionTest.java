@@ -8,6 +8,7 @@ import org.junit.jupiter.api.BeforeEach;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.List;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -277,6 +278,11 @@ class TrainingSessionTest {
         );
     }
 
+    @org.junit.jupiter.api.Test
+    void testSetDateWithDayMissingFromMonthThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> gymSession1.setDate(2024, 2, 31));
+    }
+
     @org.junit.jupiter.api.Test
     void testSetPriceWithValidValue() {
         double newPrice = 20.0;
@@ -284,4 +290,46 @@ class TrainingSessionTest {
         assertEquals(newPrice, gymSession1.getPrice());
     }
 
+    @org.junit.jupiter.api.Test
+    void testParticipantsKeepRegistrationOrderAfterRemove() {
+        gymSession1.addParticipant(member1);
+        gymSession1.addParticipant(member2);
+        gymSession1.removeParticipant(member1);
+        gymSession1.addParticipant(member1);
+        assertEquals(List.of(member2, member1), gymSession1.getParticipants());
+        assertEquals(2, trainingGym.getTotalParticipants());
+    }
+
+    @org.junit.jupiter.api.Test
+    void testRemovingMemberWhoIsNotParticipantDoesNotChangeTotal() {
+        gymSession1.addParticipant(member1);
+        gymSession1.removeParticipant(member2);
+        assertEquals(1, trainingGym.getTotalParticipants());
+    }
+
+    @org.junit.jupiter.api.Test
+    void testParticipantsListIsReadOnly() {
+        assertThrows(UnsupportedOperationException.class, () -> gymSession1.getParticipants().add(member1));
+    }
+
+    @org.junit.jupiter.api.Test
+    void testReserveSeatStopsAtMaxParticipants() {
+        assertTrue(gymSession2.tryReserveSeat());
+        assertFalse(gymSession2.tryReserveSeat());
+        assertTrue(gymSession2.hasReachedMaxParticipants());
+        gymSession2.releaseSeat();
+        assertTrue(gymSession2.tryReserveSeat());
+    }
+
+    @org.junit.jupiter.api.Test
+    void testTryAddParticipantTellsDuplicateFromFull() {
+        assertTrue(gymSession1.tryAddParticipant(member1));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> gymSession1.tryAddParticipant(member1));
+        assertEquals("Member is already registered for this training session", exception.getMessage());
+        assertEquals(1, gymSession1.getReservedSeats());
+        assertTrue(gymSession2.tryAddParticipant(member1));
+        assertFalse(gymSession2.tryAddParticipant(member2));
+    }
+
 }